@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.benchmark;
+
+import de.featjar.base.computation.Computations;
+import de.featjar.feature.model.FeatureModel;
+import de.featjar.feature.model.transformer.ComputeFormula;
+import de.featjar.formula.structure.IFormula;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks cloning, lookups, and formula computation on synthetic feature models.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class FeatureModelBenchmark {
+
+    @Benchmark
+    public FeatureModel cloneFeatureModel(SyntheticFeatureModelState state) {
+        return state.featureModel.clone();
+    }
+
+    @Benchmark
+    public void getFeatureByName(SyntheticFeatureModelState state, Blackhole blackhole) {
+        for (String name : state.featureNames) {
+            blackhole.consume(state.featureModel.getFeature(name));
+        }
+    }
+
+    @Benchmark
+    public void getTreeFeatureByName(SyntheticFeatureModelState state, Blackhole blackhole) {
+        String[] featureNames = state.featureNames;
+        for (int i = 0; i < featureNames.length; i += Math.max(1, featureNames.length / 100)) {
+            blackhole.consume(state.featureModel.getTreeFeature(featureNames[i]));
+        }
+    }
+
+    @Benchmark
+    public void getFeatureTreeByName(SyntheticFeatureModelState state, Blackhole blackhole) {
+        String[] featureNames = state.featureNames;
+        for (int i = 0; i < featureNames.length; i += Math.max(1, featureNames.length / 100)) {
+            blackhole.consume(state.featureModel.getFeatureTree(featureNames[i]));
+        }
+    }
+
+    @Benchmark
+    public IFormula computeFormula(SyntheticFeatureModelState state) {
+        return new ComputeFormula(Computations.of(state.featureModel)).compute();
+    }
+}
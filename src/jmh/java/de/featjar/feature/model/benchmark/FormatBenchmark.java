@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.benchmark;
+
+import de.featjar.base.io.IO;
+import de.featjar.feature.model.ConfigurationXMLFormat;
+import de.featjar.feature.model.FeatureModelConfiguration;
+import de.featjar.feature.model.IFeature;
+import de.featjar.feature.model.IFeatureModel;
+import de.featjar.feature.model.SyntheticFeatureModelGenerator;
+import de.featjar.feature.model.io.dimacs.DIMACSFeatureModelFormat;
+import de.featjar.feature.model.io.uvl.UVLFeatureModelFormat;
+import de.featjar.feature.model.io.xml.GraphVizFeatureModelFormat;
+import de.featjar.feature.model.io.xml.XMLFeatureModelFormat;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks parsing and serializing feature models and configurations.
+ * {@link XMLFeatureModelFormat} does not support serialization, so its input is written by
+ * {@link SyntheticFeatureModelGenerator#writeXML(java.io.Writer)}, which is benchmarked instead.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class FormatBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Documents {
+        public byte[] featureModelXML;
+        public byte[] featureModelUVL;
+        public byte[] configurationXML;
+        public ConfigurationXMLFormat configurationFormat;
+        public FeatureModelConfiguration configuration;
+
+        @Setup(Level.Trial)
+        public void write(SyntheticFeatureModelState state) {
+            StringWriter writer = new StringWriter();
+            try {
+                state.generator.writeXML(writer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            featureModelXML = writer.toString().getBytes(StandardCharsets.UTF_8);
+            featureModelUVL = new UVLFeatureModelFormat()
+                    .serialize(state.featureModel)
+                    .orElseThrow()
+                    .getBytes(StandardCharsets.UTF_8);
+            configurationXML = toConfigurationXML(state.featureModel).getBytes(StandardCharsets.UTF_8);
+            configurationFormat = new ConfigurationXMLFormat(state.featureModel);
+            configuration = IO.load(new ByteArrayInputStream(configurationXML), configurationFormat)
+                    .orElseThrow();
+        }
+    }
+
+    @Benchmark
+    public IFeatureModel parseXML(Documents documents) {
+        return IO.load(new ByteArrayInputStream(documents.featureModelXML), new XMLFeatureModelFormat())
+                .orElseThrow();
+    }
+
+    @Benchmark
+    public IFeatureModel parseXMLParallel(Documents documents) {
+        return IO.load(
+                        new ByteArrayInputStream(documents.featureModelXML),
+                        new XMLFeatureModelFormat()
+                                .setParallelism(Runtime.getRuntime().availableProcessors()))
+                .orElseThrow();
+    }
+
+    @Benchmark
+    public IFeatureModel parseUVL(Documents documents) {
+        return IO.load(new ByteArrayInputStream(documents.featureModelUVL), new UVLFeatureModelFormat())
+                .orElseThrow();
+    }
+
+    @Benchmark
+    public String serializeUVL(SyntheticFeatureModelState state) throws IOException {
+        return IO.print(state.featureModel, new UVLFeatureModelFormat());
+    }
+
+    @Benchmark
+    public String writeXML(SyntheticFeatureModelState state) throws IOException {
+        StringWriter writer = new StringWriter();
+        state.generator.writeXML(writer);
+        return writer.toString();
+    }
+
+    @Benchmark
+    public String serializeGraphViz(SyntheticFeatureModelState state) throws IOException {
+        return IO.print(state.featureModel, new GraphVizFeatureModelFormat());
+    }
+
+    @Benchmark
+    public int writeGraphViz(SyntheticFeatureModelState state) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new GraphVizFeatureModelFormat().write(state.featureModel, outputStream);
+        return outputStream.size();
+    }
+
+    @Benchmark
+    public int writeDIMACS(SyntheticFeatureModelState state) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new DIMACSFeatureModelFormat().write(state.featureModel, outputStream);
+        return outputStream.size();
+    }
+
+    @Benchmark
+    public FeatureModelConfiguration parseConfiguration(SyntheticFeatureModelState state, Documents documents) {
+        return IO.load(
+                        new ByteArrayInputStream(documents.configurationXML),
+                        new ConfigurationXMLFormat(state.featureModel))
+                .orElseThrow();
+    }
+
+    @Benchmark
+    public String writeConfiguration(Documents documents) throws IOException {
+        return IO.print(documents.configuration, documents.configurationFormat);
+    }
+
+    /**
+     * Writes a configuration of the given feature model that selects every other feature,
+     * in the format of {@link ConfigurationXMLFormat}.
+     *
+     * @param featureModel the feature model
+     * @return the XML document
+     */
+    private static String toConfigurationXML(IFeatureModel featureModel) {
+        StringBuilder xml = new StringBuilder();
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n");
+        xml.append("<FeatureModelConfiguration>\n");
+        int i = 0;
+        for (IFeature feature : featureModel.getFeatures()) {
+            xml.append("\t<feature");
+            if (i++ % 2 == 0) {
+                xml.append(" manual=\"manual\"");
+            }
+            xml.append(" name=\"").append(feature.getName().get()).append("\">\n");
+            xml.append("\t\t<type>String</type>\n\t\t<value>").append(i).append("</value>\n");
+            xml.append("\t</feature>\n");
+        }
+        xml.append("</FeatureModelConfiguration>\n");
+        return xml.toString();
+    }
+}
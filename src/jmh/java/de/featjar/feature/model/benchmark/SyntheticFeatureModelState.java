@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.benchmark;
+
+import de.featjar.feature.model.FeatureModel;
+import de.featjar.feature.model.SyntheticFeatureModelGenerator;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark state holding a synthetic feature model, see {@link SyntheticFeatureModelGenerator}.
+ * Fan-outs are distributed uniformly between 1 and {@code 2 * branching - 1}.
+ */
+@State(Scope.Benchmark)
+public class SyntheticFeatureModelState {
+
+    @Param({"1000", "10000"})
+    public int size;
+
+    @Param({"8"})
+    public int depth;
+
+    @Param({"4"})
+    public int branching;
+
+    @Param({"0.1"})
+    public double constraintDensity;
+
+    @Param({"1"})
+    public long seed;
+
+    public SyntheticFeatureModelGenerator generator;
+    public FeatureModel featureModel;
+    public String[] featureNames;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        generator = new SyntheticFeatureModelGenerator(seed)
+                .setNumberOfFeatures(size)
+                .setMaximumDepth(depth)
+                .setFanOut(1, 2 * branching - 1)
+                .setConstraintRatio(constraintDensity);
+        featureModel = generator.generate();
+        featureNames = featureModel.getFeatures().stream()
+                .map(feature -> feature.getName().get())
+                .toArray(String[]::new);
+    }
+}
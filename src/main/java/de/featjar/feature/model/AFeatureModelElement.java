@@ -52,7 +52,7 @@ public abstract class AFeatureModelElement implements IFeatureModelElement, IMut
 
     protected AFeatureModelElement(AFeatureModelElement otherElement, IFeatureModel featureModel) {
         this.featureModel = featureModel;
-        identifier = otherElement.getNewIdentifier();
+        identifier = featureModel.getNewIdentifier();
         attributeValues = otherElement.cloneAttributes();
     }
 
@@ -74,13 +74,34 @@ public abstract class AFeatureModelElement implements IFeatureModelElement, IMut
         }
         checkType(attribute, value);
         validate(attribute, value);
-        attributeValues.put(attribute, value);
+        Object oldValue = attributeValues.put(attribute, value);
+        fireEvent(FeatureModelEvent.Type.ATTRIBUTE_CHANGED, attribute, oldValue, value);
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public <S> S removeAttributeValue(Attribute<S> attribute) {
-        return (S) attributeValues.remove(attribute);
+        S oldValue = (S) attributeValues.remove(attribute);
+        fireEvent(FeatureModelEvent.Type.ATTRIBUTE_CHANGED, attribute, oldValue, null);
+        return oldValue;
+    }
+
+    /**
+     * Notifies the listeners of the feature model about a change of this element.
+     * Does nothing if the feature model has no listeners or this element is not (yet) part of it.
+     *
+     * @param type the event type
+     * @param attribute the changed attribute, if any
+     * @param oldValue the old value
+     * @param newValue the new value
+     */
+    protected void fireEvent(FeatureModelEvent.Type type, IAttribute<?> attribute, Object oldValue, Object newValue) {
+        if (featureModel instanceof FeatureModel) {
+            FeatureModel observedFeatureModel = (FeatureModel) featureModel;
+            if (observedFeatureModel.hasListeners() && observedFeatureModel.containsElement(this)) {
+                observedFeatureModel.fireEvent(type, this, attribute, oldValue, newValue);
+            }
+        }
     }
 
     @Override
@@ -97,6 +118,6 @@ public abstract class AFeatureModelElement implements IFeatureModelElement, IMut
 
     @Override
     public int hashCode() {
-        return Objects.hash(getIdentifier());
+        return getIdentifier().hashCode();
     }
 }
@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The changes of manual and automatic selections between two configurations of the same feature model.
+ * Features that are missing from a configuration are treated as undefined.
+ */
+public class ConfigurationDelta {
+
+    /**
+     * The change of the selections of a single feature.
+     */
+    public static final class Change {
+        private final String featureName;
+        private final Selection manualBefore;
+        private final Selection manualAfter;
+        private final Selection automaticBefore;
+        private final Selection automaticAfter;
+
+        public Change(
+                String featureName,
+                Selection manualBefore,
+                Selection manualAfter,
+                Selection automaticBefore,
+                Selection automaticAfter) {
+            this.featureName = featureName;
+            this.manualBefore = manualBefore;
+            this.manualAfter = manualAfter;
+            this.automaticBefore = automaticBefore;
+            this.automaticAfter = automaticAfter;
+        }
+
+        public String getFeatureName() {
+            return featureName;
+        }
+
+        public Selection getManualBefore() {
+            return manualBefore;
+        }
+
+        public Selection getManualAfter() {
+            return manualAfter;
+        }
+
+        public Selection getAutomaticBefore() {
+            return automaticBefore;
+        }
+
+        public Selection getAutomaticAfter() {
+            return automaticAfter;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "%s: manual %s -> %s, automatic %s -> %s",
+                    featureName, manualBefore, manualAfter, automaticBefore, automaticAfter);
+        }
+    }
+
+    private final List<Change> changes;
+
+    public ConfigurationDelta(List<Change> changes) {
+        this.changes = Collections.unmodifiableList(new ArrayList<>(changes));
+    }
+
+    /**
+     * Computes the changes from one configuration to another.
+     *
+     * @param before the earlier configuration
+     * @param after the later configuration
+     * @return the delta, ordered by the features of the earlier configuration's feature model
+     */
+    public static ConfigurationDelta between(FeatureModelConfiguration before, FeatureModelConfiguration after) {
+        Set<String> beforeFeatures = before.getAllFeatures();
+        Set<String> afterFeatures = after.getAllFeatures();
+        Set<String> featureNames = new LinkedHashSet<>();
+        for (IFeature feature : before.getFeatureModel().getFeatures()) {
+            featureNames.add(feature.getName().orElse(""));
+        }
+        featureNames.addAll(beforeFeatures);
+        featureNames.addAll(afterFeatures);
+        List<Change> changes = new ArrayList<>();
+        for (String featureName : featureNames) {
+            boolean inBefore = beforeFeatures.contains(featureName);
+            boolean inAfter = afterFeatures.contains(featureName);
+            if (!inBefore && !inAfter) {
+                continue;
+            }
+            Selection manualBefore = inBefore ? before.getManual(featureName) : Selection.UNDEFINED;
+            Selection manualAfter = inAfter ? after.getManual(featureName) : Selection.UNDEFINED;
+            Selection automaticBefore = inBefore ? before.getAutomatic(featureName) : Selection.UNDEFINED;
+            Selection automaticAfter = inAfter ? after.getAutomatic(featureName) : Selection.UNDEFINED;
+            if (manualBefore != manualAfter || automaticBefore != automaticAfter) {
+                changes.add(new Change(featureName, manualBefore, manualAfter, automaticBefore, automaticAfter));
+            }
+        }
+        return new ConfigurationDelta(changes);
+    }
+
+    public List<Change> getChanges() {
+        return changes;
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    /**
+     * Applies this delta to a configuration, setting the later selections of all changed features.
+     *
+     * @param configuration the configuration
+     * @throws FeatureNotFoundException if a changed feature is not part of the configuration's feature model
+     */
+    public void apply(FeatureModelConfiguration configuration) {
+        for (Change change : changes) {
+            set(configuration, change.featureName, change.manualAfter, change.automaticAfter);
+        }
+    }
+
+    /**
+     * Reverts this delta on a configuration, setting the earlier selections of all changed features.
+     *
+     * @param configuration the configuration
+     * @throws FeatureNotFoundException if a changed feature is not part of the configuration's feature model
+     */
+    public void revert(FeatureModelConfiguration configuration) {
+        for (Change change : changes) {
+            set(configuration, change.featureName, change.manualBefore, change.automaticBefore);
+        }
+    }
+
+    private static void set(
+            FeatureModelConfiguration configuration, String featureName, Selection manual, Selection automatic) {
+        configuration.addFeature(featureName);
+        configuration.setManual(featureName, manual);
+        configuration.setAutomatic(featureName, automatic);
+    }
+
+    /**
+     * @return the delta that reverts this delta
+     */
+    public ConfigurationDelta invert() {
+        List<Change> inverted = new ArrayList<>(changes.size());
+        for (Change change : changes) {
+            inverted.add(new Change(
+                    change.featureName,
+                    change.manualAfter,
+                    change.manualBefore,
+                    change.automaticAfter,
+                    change.automaticBefore));
+        }
+        return new ConfigurationDelta(inverted);
+    }
+
+    @Override
+    public String toString() {
+        return changes.toString();
+    }
+}
@@ -0,0 +1,325 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Stores a sequence of snapshots of configurations of one feature model as a chain of deltas.
+ * Every {@link #getKeyframeInterval() keyframe interval}-th snapshot is stored completely,
+ * all others only as the features that changed since the previous snapshot.
+ * Thus, rebuilding any snapshot applies at most one keyframe interval of deltas.
+ * <p>
+ * The selections of a feature are encoded in a single byte.
+ * Chains can be written to and read from a compact binary format,
+ * which starts with the feature names and stores the gaps between changed features as variable-length integers.
+ */
+public class ConfigurationDeltaChain {
+
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 32;
+
+    private static final int MAGIC = 0x46434443;
+    private static final byte VERSION = 1;
+    private static final Selection[] SELECTIONS = Selection.values();
+    private static final byte UNDEFINED_STATE = encode(Selection.UNDEFINED, Selection.UNDEFINED);
+
+    private final FeatureModel featureModel;
+    private final String[] featureNames;
+    private final int keyframeInterval;
+
+    /**
+     * For each snapshot, the complete states of a keyframe or the changed states of a delta.
+     */
+    private final List<byte[]> states = new ArrayList<>();
+
+    /**
+     * For each snapshot, null for a keyframe or the indices of the changed features of a delta.
+     */
+    private final List<int[]> changedFeatures = new ArrayList<>();
+
+    private byte[] lastStates;
+
+    public ConfigurationDeltaChain(FeatureModel featureModel) {
+        this(featureModel, DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    /**
+     * Creates an empty chain.
+     *
+     * @param featureModel the feature model of the snapshots
+     * @param keyframeInterval the number of snapshots between complete snapshots
+     */
+    public ConfigurationDeltaChain(FeatureModel featureModel, int keyframeInterval) {
+        this(featureModel, getFeatureNames(featureModel), keyframeInterval);
+    }
+
+    private ConfigurationDeltaChain(FeatureModel featureModel, String[] featureNames, int keyframeInterval) {
+        if (keyframeInterval < 1) {
+            throw new IllegalArgumentException(
+                    String.format("keyframe interval must be positive (%d)", keyframeInterval));
+        }
+        this.featureModel = featureModel;
+        this.featureNames = featureNames;
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    private static String[] getFeatureNames(FeatureModel featureModel) {
+        return featureModel.getFeatures().stream()
+                .map(feature -> feature.getName().orElse(""))
+                .toArray(String[]::new);
+    }
+
+    private static byte encode(Selection manual, Selection automatic) {
+        return (byte) (manual.ordinal() * SELECTIONS.length + automatic.ordinal());
+    }
+
+    public int getKeyframeInterval() {
+        return keyframeInterval;
+    }
+
+    /**
+     * @return the number of snapshots
+     */
+    public int size() {
+        return states.size();
+    }
+
+    /**
+     * Appends a snapshot.
+     *
+     * @param snapshot the snapshot
+     */
+    public void add(FeatureModelConfiguration snapshot) {
+        byte[] snapshotStates = new byte[featureNames.length];
+        Set<String> features = snapshot.getAllFeatures();
+        for (int i = 0; i < featureNames.length; i++) {
+            snapshotStates[i] = features.contains(featureNames[i])
+                    ? encode(snapshot.getManual(featureNames[i]), snapshot.getAutomatic(featureNames[i]))
+                    : UNDEFINED_STATE;
+        }
+        add(snapshotStates);
+    }
+
+    private void add(byte[] snapshotStates) {
+        if (states.size() % keyframeInterval == 0) {
+            states.add(snapshotStates);
+            changedFeatures.add(null);
+        } else {
+            int count = 0;
+            for (int i = 0; i < featureNames.length; i++) {
+                if (snapshotStates[i] != lastStates[i]) {
+                    count++;
+                }
+            }
+            int[] indices = new int[count];
+            byte[] changedStates = new byte[count];
+            count = 0;
+            for (int i = 0; i < featureNames.length; i++) {
+                if (snapshotStates[i] != lastStates[i]) {
+                    indices[count] = i;
+                    changedStates[count++] = snapshotStates[i];
+                }
+            }
+            states.add(changedStates);
+            changedFeatures.add(indices);
+        }
+        lastStates = snapshotStates;
+    }
+
+    /**
+     * Rebuilds a snapshot.
+     *
+     * @param index the index of the snapshot
+     * @return a new configuration equal to the snapshot
+     */
+    public FeatureModelConfiguration get(int index) {
+        byte[] snapshotStates = getStates(index);
+        FeatureModelConfiguration configuration = new FeatureModelConfiguration(featureModel);
+        for (int i = 0; i < featureNames.length; i++) {
+            byte state = snapshotStates[i];
+            if (state != UNDEFINED_STATE) {
+                configuration.setManual(featureNames[i], SELECTIONS[state / SELECTIONS.length]);
+                configuration.setAutomatic(featureNames[i], SELECTIONS[state % SELECTIONS.length]);
+            }
+        }
+        return configuration;
+    }
+
+    /**
+     * Computes the changes between two snapshots.
+     *
+     * @param from the index of the earlier snapshot
+     * @param to the index of the later snapshot
+     * @return the delta
+     */
+    public ConfigurationDelta getDelta(int from, int to) {
+        byte[] fromStates = getStates(from);
+        byte[] toStates = getStates(to);
+        List<ConfigurationDelta.Change> changes = new ArrayList<>();
+        for (int i = 0; i < featureNames.length; i++) {
+            if (fromStates[i] != toStates[i]) {
+                changes.add(new ConfigurationDelta.Change(
+                        featureNames[i],
+                        SELECTIONS[fromStates[i] / SELECTIONS.length],
+                        SELECTIONS[toStates[i] / SELECTIONS.length],
+                        SELECTIONS[fromStates[i] % SELECTIONS.length],
+                        SELECTIONS[toStates[i] % SELECTIONS.length]));
+            }
+        }
+        return new ConfigurationDelta(changes);
+    }
+
+    private byte[] getStates(int index) {
+        if (index < 0 || index >= states.size()) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+        int keyframe = index - index % keyframeInterval;
+        byte[] snapshotStates = states.get(keyframe).clone();
+        for (int i = keyframe + 1; i <= index; i++) {
+            int[] indices = changedFeatures.get(i);
+            byte[] changedStates = states.get(i);
+            for (int j = 0; j < indices.length; j++) {
+                snapshotStates[indices[j]] = changedStates[j];
+            }
+        }
+        return snapshotStates;
+    }
+
+    /**
+     * Writes this chain in binary format.
+     *
+     * @param outputStream the output stream, which is not closed
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(OutputStream outputStream) throws IOException {
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(featureNames.length);
+        for (String featureName : featureNames) {
+            out.writeUTF(featureName);
+        }
+        out.writeInt(keyframeInterval);
+        out.writeInt(states.size());
+        for (int i = 0; i < states.size(); i++) {
+            int[] indices = changedFeatures.get(i);
+            byte[] snapshotStates = states.get(i);
+            if (indices == null) {
+                out.write(snapshotStates);
+            } else {
+                writeVarInt(out, indices.length);
+                int previous = 0;
+                for (int j = 0; j < indices.length; j++) {
+                    writeVarInt(out, indices[j] - previous);
+                    out.writeByte(snapshotStates[j]);
+                    previous = indices[j];
+                }
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads a chain in binary format.
+     *
+     * @param featureModel the feature model of the snapshots
+     * @param inputStream the input stream, which is not closed
+     * @return the chain
+     * @throws IOException if an I/O error occurs, the input is malformed,
+     *     or it refers to features that are not part of the feature model
+     */
+    public static ConfigurationDeltaChain read(FeatureModel featureModel, InputStream inputStream)
+            throws IOException {
+        DataInputStream in = new DataInputStream(inputStream);
+        if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+            throw new IOException("Not a configuration delta chain");
+        }
+        int featureCount = in.readInt();
+        if (featureCount < 0) {
+            throw new IOException("Invalid number of features " + featureCount);
+        }
+        String[] featureNames = new String[featureCount];
+        for (int i = 0; i < featureNames.length; i++) {
+            featureNames[i] = in.readUTF();
+            if (!featureModel.getFeature(featureNames[i]).isPresent()) {
+                throw new IOException("Unknown feature " + featureNames[i]);
+            }
+        }
+        int keyframeInterval = in.readInt();
+        if (keyframeInterval < 1) {
+            throw new IOException("Invalid keyframe interval " + keyframeInterval);
+        }
+        ConfigurationDeltaChain chain = new ConfigurationDeltaChain(featureModel, featureNames, keyframeInterval);
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            byte[] snapshotStates;
+            if (i % chain.keyframeInterval == 0) {
+                snapshotStates = new byte[featureNames.length];
+                in.readFully(snapshotStates);
+            } else {
+                snapshotStates = chain.lastStates.clone();
+                int count = readVarInt(in);
+                int index = 0;
+                for (int j = 0; j < count; j++) {
+                    index += readVarInt(in);
+                    if (index < 0 || index >= featureNames.length) {
+                        throw new IOException("Invalid feature index " + index);
+                    }
+                    snapshotStates[index] = in.readByte();
+                }
+            }
+            for (byte state : snapshotStates) {
+                if (state < 0 || state >= SELECTIONS.length * SELECTIONS.length) {
+                    throw new IOException("Invalid selection state " + state);
+                }
+            }
+            chain.add(snapshotStates);
+        }
+        return chain;
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable-length integer");
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model;
+
+import de.featjar.base.data.Result;
+import de.featjar.base.io.format.IFormat;
+import de.featjar.base.io.format.ParseException;
+import de.featjar.base.io.input.AInputMapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Locale;
+
+/**
+ * Stores configurations compactly with one configuration per line.
+ * The first line is a header of the form {@code #dense<TAB>name1<TAB>name2...} or {@code #sparse<TAB>...}
+ * that names the encoding and the features in the order of their columns.
+ * <p>
+ * In the {@link Encoding#DENSE dense} encoding, each line contains one character per feature:
+ * {@value #SELECTED} for selected, {@value #UNSELECTED} for unselected, and {@value #UNDEFINED} for undefined features.
+ * In the {@link Encoding#SPARSE sparse} encoding, each line contains a space-separated list of literals,
+ * where {@code i} selects and {@code -i} deselects the {@code i}-th feature (counting from 1)
+ * and features that do not occur are undefined.
+ * <p>
+ * This format parses and serializes single configurations.
+ * Many configurations are written with {@link #write(Iterable, Appendable)}
+ * and read with a {@link ConfigurationLineReader}.
+ * Feature names must not contain tabs or line breaks.
+ */
+public class ConfigurationLineFormat implements IFormat<FeatureModelConfiguration> {
+
+    /**
+     * The encoding of the configuration lines.
+     */
+    public enum Encoding {
+        /**
+         * One character per feature.
+         */
+        DENSE,
+        /**
+         * A list of literals of the selected and unselected features.
+         */
+        SPARSE
+    }
+
+    public static final char SELECTED = '1';
+    public static final char UNSELECTED = '0';
+    public static final char UNDEFINED = '?';
+
+    static final char HEADER_PREFIX = '#';
+    static final char HEADER_SEPARATOR = '\t';
+    static final char LITERAL_SEPARATOR = ' ';
+
+    private final FeatureModel featureModel;
+    private final Encoding encoding;
+
+    /**
+     * Constructs a new format that writes the dense encoding.
+     *
+     * @param featureModel The feature model associated with the configurations.
+     */
+    public ConfigurationLineFormat(FeatureModel featureModel) {
+        this(featureModel, Encoding.DENSE);
+    }
+
+    /**
+     * Constructs a new format.
+     *
+     * @param featureModel The feature model associated with the configurations.
+     * @param encoding The encoding used for writing configurations. Both encodings can be parsed.
+     */
+    public ConfigurationLineFormat(FeatureModel featureModel, Encoding encoding) {
+        this.featureModel = featureModel;
+        this.encoding = encoding;
+    }
+
+    @Override
+    public String getFileExtension() {
+        return "configs";
+    }
+
+    @Override
+    public String getName() {
+        return "Configuration Lines";
+    }
+
+    @Override
+    public boolean supportsParse() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsSerialize() {
+        return true;
+    }
+
+    @Override
+    public Result<String> serialize(FeatureModelConfiguration configuration) {
+        StringBuilder stringBuilder = new StringBuilder();
+        try {
+            write(Collections.singletonList(configuration), stringBuilder);
+        } catch (IOException | RuntimeException e) {
+            return Result.empty(e);
+        }
+        return Result.of(stringBuilder.toString());
+    }
+
+    /**
+     * Writes a header and one line per configuration.
+     *
+     * @param configurations The configurations to write.
+     * @param out The output to write to.
+     * @throws IOException If the output cannot be written.
+     * @throws IllegalArgumentException If a feature name contains a tab or a line break.
+     */
+    public void write(Iterable<FeatureModelConfiguration> configurations, Appendable out) throws IOException {
+        String[] featureNames = getFeatureNames();
+        out.append(HEADER_PREFIX).append(encoding.name().toLowerCase(Locale.ROOT));
+        for (String featureName : featureNames) {
+            out.append(HEADER_SEPARATOR).append(featureName);
+        }
+        out.append('\n');
+        for (FeatureModelConfiguration configuration : configurations) {
+            if (encoding == Encoding.DENSE) {
+                for (String featureName : featureNames) {
+                    out.append(toCharacter(configuration.getSelection(featureName)));
+                }
+            } else {
+                boolean first = true;
+                for (int i = 0; i < featureNames.length; i++) {
+                    Selection selection = configuration.getSelection(featureNames[i]);
+                    if (selection != Selection.UNDEFINED) {
+                        if (!first) {
+                            out.append(LITERAL_SEPARATOR);
+                        }
+                        first = false;
+                        if (selection == Selection.UNSELECTED) {
+                            out.append('-');
+                        }
+                        out.append(Integer.toString(i + 1));
+                    }
+                }
+            }
+            out.append('\n');
+        }
+    }
+
+    private String[] getFeatureNames() {
+        String[] featureNames = new String[featureModel.getNumberOfFeatures()];
+        int i = 0;
+        for (IFeature feature : featureModel.getFeatures()) {
+            String featureName = feature.getName().orElseThrow();
+            if (featureName.indexOf(HEADER_SEPARATOR) >= 0
+                    || featureName.indexOf('\n') >= 0
+                    || featureName.indexOf('\r') >= 0) {
+                throw new IllegalArgumentException("Feature name contains tab or line break: " + featureName);
+            }
+            featureNames[i++] = featureName;
+        }
+        return featureNames;
+    }
+
+    private static char toCharacter(Selection selection) {
+        switch (selection) {
+            case SELECTED:
+                return SELECTED;
+            case UNSELECTED:
+                return UNSELECTED;
+            default:
+                return UNDEFINED;
+        }
+    }
+
+    /**
+     * Parses the first configuration of the input and sets it as manual selection.
+     */
+    @Override
+    public Result<FeatureModelConfiguration> parse(AInputMapper inputMapper) {
+        try {
+            BufferedReader reader = inputMapper.get().getReader();
+            String header = reader.readLine();
+            if (header == null) {
+                return Result.empty(new ParseException("Missing header", 1));
+            }
+            Encoding encoding = parseEncoding(header);
+            String[] featureNames = parseFeatureNames(header);
+            FeatureModelConfiguration configuration = new FeatureModelConfiguration(featureModel);
+            for (String featureName : featureNames) {
+                if (!featureModel.getFeature(featureName).isPresent()) {
+                    return Result.empty(new ParseException("Unknown feature " + featureName, 1));
+                }
+            }
+            int lineNumber = 1;
+            String line;
+            do {
+                line = reader.readLine();
+                lineNumber++;
+            } while (line != null && line.isEmpty());
+            if (line != null) {
+                if (encoding == Encoding.DENSE) {
+                    parseDense(line, lineNumber, featureNames, configuration);
+                } else {
+                    parseSparse(line, lineNumber, featureNames, configuration);
+                }
+            }
+            return Result.of(configuration);
+        } catch (IOException | ParseException e) {
+            return Result.empty(e);
+        }
+    }
+
+    private static void parseDense(
+            String line, int lineNumber, String[] featureNames, FeatureModelConfiguration configuration)
+            throws ParseException {
+        if (line.length() != featureNames.length) {
+            throw new ParseException(
+                    String.format("Expected %d selections, got %d", featureNames.length, line.length()), lineNumber);
+        }
+        for (int i = 0; i < featureNames.length; i++) {
+            switch (line.charAt(i)) {
+                case SELECTED:
+                    configuration.setManual(featureNames[i], Selection.SELECTED);
+                    break;
+                case UNSELECTED:
+                    configuration.setManual(featureNames[i], Selection.UNSELECTED);
+                    break;
+                case UNDEFINED:
+                    configuration.setManual(featureNames[i], Selection.UNDEFINED);
+                    break;
+                default:
+                    throw new ParseException("Invalid selection " + line.charAt(i), lineNumber);
+            }
+        }
+    }
+
+    private static void parseSparse(
+            String line, int lineNumber, String[] featureNames, FeatureModelConfiguration configuration)
+            throws ParseException {
+        for (String literal : line.trim().split(" +")) {
+            if (literal.isEmpty()) {
+                continue;
+            }
+            int index;
+            try {
+                index = Integer.parseInt(literal);
+            } catch (NumberFormatException e) {
+                throw new ParseException("Invalid literal " + literal, lineNumber);
+            }
+            if (index == 0 || Math.abs(index) > featureNames.length) {
+                throw new ParseException("Invalid feature index " + index, lineNumber);
+            }
+            configuration.setManual(
+                    featureNames[Math.abs(index) - 1], index > 0 ? Selection.SELECTED : Selection.UNSELECTED);
+        }
+    }
+
+    static Encoding parseEncoding(String header) throws ParseException {
+        if (header.isEmpty() || header.charAt(0) != HEADER_PREFIX) {
+            throw new ParseException("Missing header", 1);
+        }
+        int end = header.indexOf(HEADER_SEPARATOR);
+        String encoding = header.substring(1, end < 0 ? header.length() : end).trim();
+        try {
+            return Encoding.valueOf(encoding.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ParseException("Unknown encoding " + encoding, 1);
+        }
+    }
+
+    static String[] parseFeatureNames(String header) {
+        int start = header.indexOf(HEADER_SEPARATOR);
+        if (start < 0) {
+            return new String[0];
+        }
+        return header.substring(start + 1).split(String.valueOf(HEADER_SEPARATOR), -1);
+    }
+}
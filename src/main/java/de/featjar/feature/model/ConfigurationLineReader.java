@@ -0,0 +1,282 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model;
+
+import de.featjar.base.io.format.ParseException;
+import de.featjar.feature.model.ConfigurationLineFormat.Encoding;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Iterates over the configurations in a file of the {@link ConfigurationLineFormat}.
+ * The file is memory-mapped and each line is decoded into reused bit sets,
+ * so advancing with {@link #next()} and querying the current configuration do not allocate objects.
+ * Files larger than the mapping window are mapped piece by piece.
+ * <p>
+ * A reader is not thread-safe.
+ */
+public class ConfigurationLineReader implements AutoCloseable {
+
+    private static final long WINDOW_SIZE = 1L << 30;
+
+    private final FeatureModel featureModel;
+    private final FileChannel channel;
+    private final long fileSize;
+    private final Encoding encoding;
+    private final String[] featureNames;
+    private final long[] selected;
+    private final long[] undefined;
+
+    private MappedByteBuffer buffer;
+    private long bufferOffset;
+    private int position;
+    private long lineNumber;
+
+    /**
+     * Opens a file of configurations and reads its header.
+     *
+     * @param featureModel The feature model associated with the configurations.
+     * @param file The file to read.
+     * @throws IOException If the file cannot be read, its header is invalid,
+     *     or it refers to features that are not part of the feature model.
+     */
+    public ConfigurationLineReader(FeatureModel featureModel, Path file) throws IOException {
+        this.featureModel = featureModel;
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            fileSize = channel.size();
+            map(0);
+            int end = findLineEnd(0);
+            if (end < 0) {
+                end = buffer.limit();
+            }
+            byte[] headerBytes = new byte[end];
+            buffer.get(headerBytes);
+            String header = new String(headerBytes, StandardCharsets.UTF_8).trim();
+            position = Math.min(end + 1, buffer.limit());
+            lineNumber = 1;
+            encoding = ConfigurationLineFormat.parseEncoding(header);
+            featureNames = ConfigurationLineFormat.parseFeatureNames(header);
+            for (String featureName : featureNames) {
+                if (!featureModel.getFeature(featureName).isPresent()) {
+                    throw new IOException("Unknown feature " + featureName);
+                }
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        } catch (ParseException e) {
+            channel.close();
+            throw new IOException(e);
+        }
+        selected = new long[(featureNames.length + 63) >>> 6];
+        undefined = new long[selected.length];
+    }
+
+    /**
+     * Advances to the next configuration, skipping empty lines.
+     *
+     * @return whether there is another configuration
+     * @throws IOException If the file cannot be read or the line is invalid.
+     */
+    public boolean next() throws IOException {
+        while (true) {
+            int start = position;
+            int end = findLineEnd(start);
+            if (end < 0) {
+                if (bufferOffset + buffer.limit() < fileSize) {
+                    if (start == 0) {
+                        throw new IOException(String.format("Line %d exceeds %d bytes", lineNumber + 1, WINDOW_SIZE));
+                    }
+                    map(bufferOffset + start);
+                    continue;
+                }
+                end = buffer.limit();
+                if (start == end) {
+                    return false;
+                }
+                position = end;
+            } else {
+                position = end + 1;
+            }
+            lineNumber++;
+            if (end > start && buffer.get(end - 1) == '\r') {
+                end--;
+            }
+            if (end > start) {
+                if (encoding == Encoding.DENSE) {
+                    decodeDense(start, end);
+                } else {
+                    decodeSparse(start, end);
+                }
+                return true;
+            }
+        }
+    }
+
+    private void map(long offset) throws IOException {
+        bufferOffset = offset;
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(WINDOW_SIZE, fileSize - offset));
+        position = 0;
+    }
+
+    private int findLineEnd(int start) {
+        int limit = buffer.limit();
+        for (int i = start; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void decodeDense(int start, int end) throws IOException {
+        if (end - start != featureNames.length) {
+            throw new IOException(String.format(
+                    "Expected %d selections in line %d, got %d", featureNames.length, lineNumber, end - start));
+        }
+        Arrays.fill(selected, 0);
+        Arrays.fill(undefined, 0);
+        for (int i = 0; i < featureNames.length; i++) {
+            switch (buffer.get(start + i)) {
+                case ConfigurationLineFormat.SELECTED:
+                    selected[i >>> 6] |= 1L << i;
+                    break;
+                case ConfigurationLineFormat.UNSELECTED:
+                    break;
+                case ConfigurationLineFormat.UNDEFINED:
+                    undefined[i >>> 6] |= 1L << i;
+                    break;
+                default:
+                    throw new IOException(String.format("Invalid selection in line %d", lineNumber));
+            }
+        }
+    }
+
+    private void decodeSparse(int start, int end) throws IOException {
+        Arrays.fill(selected, 0);
+        Arrays.fill(undefined, -1L);
+        int i = start;
+        while (i < end) {
+            byte b = buffer.get(i);
+            if (b == ConfigurationLineFormat.LITERAL_SEPARATOR) {
+                i++;
+                continue;
+            }
+            boolean negative = b == '-';
+            if (negative) {
+                i++;
+            }
+            int index = 0;
+            int digits = 0;
+            while (i < end && (b = buffer.get(i)) >= '0' && b <= '9') {
+                index = index * 10 + (b - '0');
+                if (index > featureNames.length) {
+                    break;
+                }
+                digits++;
+                i++;
+            }
+            if (digits == 0 || index == 0 || index > featureNames.length) {
+                throw new IOException(String.format("Invalid literal in line %d", lineNumber));
+            }
+            if (i < end && buffer.get(i) != ConfigurationLineFormat.LITERAL_SEPARATOR) {
+                throw new IOException(String.format("Invalid literal in line %d", lineNumber));
+            }
+            int feature = index - 1;
+            undefined[feature >>> 6] &= ~(1L << feature);
+            if (!negative) {
+                selected[feature >>> 6] |= 1L << feature;
+            }
+        }
+    }
+
+    /**
+     * @return the number of features, that is, columns of each configuration
+     */
+    public int getNumberOfFeatures() {
+        return featureNames.length;
+    }
+
+    /**
+     * @param index the column of a feature
+     * @return the name of the feature in the given column
+     */
+    public String getFeatureName(int index) {
+        return featureNames[index];
+    }
+
+    /**
+     * @return the number of the line of the current configuration
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @param index the column of a feature
+     * @return whether the feature is selected in the current configuration
+     */
+    public boolean isSelected(int index) {
+        return (selected[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * @param index the column of a feature
+     * @return whether the feature is undefined in the current configuration
+     */
+    public boolean isUndefined(int index) {
+        return (undefined[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * @param index the column of a feature
+     * @return the selection of the feature in the current configuration
+     */
+    public Selection getSelection(int index) {
+        return isSelected(index) ? Selection.SELECTED : isUndefined(index) ? Selection.UNDEFINED : Selection.UNSELECTED;
+    }
+
+    /**
+     * Creates a configuration with the current selections as manual selections.
+     * Unlike the other accessors, this allocates a new configuration.
+     *
+     * @return the current configuration
+     */
+    public FeatureModelConfiguration toConfiguration() {
+        FeatureModelConfiguration configuration = new FeatureModelConfiguration(featureModel);
+        for (int i = 0; i < featureNames.length; i++) {
+            configuration.setManual(featureNames[i], getSelection(i));
+        }
+        return configuration;
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer = null;
+        channel.close();
+    }
+}
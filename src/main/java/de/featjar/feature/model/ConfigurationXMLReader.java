@@ -0,0 +1,263 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads configurations in the format of {@link ConfigurationXMLFormat} with a streaming StAX parser.
+ * A file may contain any number of {@code FeatureModelConfiguration} elements, each of which is passed to a consumer
+ * as soon as it has been read, without building a DOM.
+ * Feature names are resolved through an index of the feature model that is built once per reader.
+ * Features that are not part of the feature model are skipped and logged.
+ * <p>
+ * A reader is thread-safe, so one reader can be used to import a whole directory in parallel,
+ * see {@link #readDirectory(Path, String, int, Consumer)}.
+ */
+public class ConfigurationXMLReader {
+
+    private static final String CONFIGURATION = "FeatureModelConfiguration";
+    private static final String FEATURE = "feature";
+    private static final String NAME = "name";
+    private static final String MANUAL = "manual";
+    private static final String AUTOMATIC = "automatic";
+
+    private final FeatureModel featureModel;
+    private final HashMap<String, String> featureNames;
+    private final XMLInputFactory inputFactory;
+
+    /**
+     * Constructs a new reader for configurations of the given feature model.
+     *
+     * @param featureModel The feature model associated with the configurations.
+     */
+    public ConfigurationXMLReader(FeatureModel featureModel) {
+        this.featureModel = Objects.requireNonNull(featureModel);
+        featureNames = new HashMap<>((int) (featureModel.getNumberOfFeatures() * 1.5));
+        for (IFeature feature : featureModel.getFeatures()) {
+            feature.getName().ifPresent(name -> featureNames.put(name, name));
+        }
+        inputFactory = XMLInputFactory.newFactory();
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, false);
+    }
+
+    /**
+     * Reads all configurations from a file.
+     *
+     * @param file The file to read.
+     * @param consumer The consumer of the parsed configurations.
+     * @return The number of configurations read.
+     * @throws IOException If the file cannot be read or is not well-formed.
+     */
+    public long read(Path file, Consumer<? super FeatureModelConfiguration> consumer) throws IOException {
+        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(file))) {
+            return read(inputStream, consumer);
+        }
+    }
+
+    /**
+     * Reads all configurations from an input stream, which is not closed.
+     *
+     * @param inputStream The input stream to read.
+     * @param consumer The consumer of the parsed configurations.
+     * @return The number of configurations read.
+     * @throws IOException If the stream cannot be read or is not well-formed.
+     */
+    public long read(InputStream inputStream, Consumer<? super FeatureModelConfiguration> consumer)
+            throws IOException {
+        XMLStreamReader reader = null;
+        try {
+            reader = inputFactory.createXMLStreamReader(inputStream);
+            long count = 0;
+            FeatureModelConfiguration configuration = null;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String element = reader.getLocalName();
+                    if (CONFIGURATION.equals(element)) {
+                        configuration = new FeatureModelConfiguration(featureModel);
+                    } else if (FEATURE.equals(element) && configuration != null) {
+                        readFeature(reader, configuration);
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT
+                        && configuration != null
+                        && CONFIGURATION.equals(reader.getLocalName())) {
+                    consumer.accept(configuration);
+                    configuration = null;
+                    count++;
+                }
+            }
+            return count;
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    FeatJarLogger.logWarning("Could not close XML stream: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void readFeature(XMLStreamReader reader, FeatureModelConfiguration configuration) {
+        String name = null;
+        String manual = null;
+        String automatic = null;
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String attribute = reader.getAttributeLocalName(i);
+            if (NAME.equals(attribute)) {
+                name = featureNames.get(reader.getAttributeValue(i));
+                if (name == null) {
+                    FeatJarLogger.logWarning("Skipping unknown feature " + reader.getAttributeValue(i));
+                    return;
+                }
+            } else if (MANUAL.equals(attribute)) {
+                manual = reader.getAttributeValue(i);
+            } else if (AUTOMATIC.equals(attribute)) {
+                automatic = reader.getAttributeValue(i);
+            }
+        }
+        if (name == null) {
+            FeatJarLogger.logWarning("Skipping feature without name");
+            return;
+        }
+        if (manual == null) {
+            configuration.setManual(name, Selection.UNDEFINED);
+        } else if (SelectionType.MANUAL.name().equalsIgnoreCase(manual)) {
+            configuration.setManual(name, Selection.SELECTED);
+        }
+        if (automatic == null) {
+            configuration.setAutomatic(name, Selection.UNDEFINED);
+        } else if (SelectionType.AUTOMATIC.name().equalsIgnoreCase(automatic)) {
+            configuration.setAutomatic(name, Selection.SELECTED);
+        }
+    }
+
+    /**
+     * Reads all configurations from the files in a directory in parallel.
+     * Files that cannot be read are logged and skipped.
+     * The consumer is called concurrently and must be thread-safe.
+     * If the consumer throws an exception, reading stops and the exception is rethrown.
+     *
+     * @param directory The directory to read.
+     * @param glob A glob pattern for the names of the files to read, such as {@code "*.xml"}.
+     * @param parallelism The number of files read at the same time.
+     * @param consumer The consumer of the parsed configurations.
+     * @return The number of configurations read.
+     * @throws IOException If the directory cannot be listed.
+     */
+    public long readDirectory(
+            Path directory, String glob, int parallelism, Consumer<? super FeatureModelConfiguration> consumer)
+            throws IOException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException(String.format("parallelism must be positive (%d)", parallelism));
+        }
+        AtomicLong count = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        Semaphore pendingFiles = new Semaphore(4 * parallelism);
+        List<Future<?>> futures = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, glob)) {
+            for (Path file : files) {
+                pendingFiles.acquireUninterruptibly();
+                futures.add(executor.submit(() -> {
+                    try {
+                        count.addAndGet(read(file, configuration -> {
+                            try {
+                                consumer.accept(configuration);
+                            } catch (RuntimeException e) {
+                                throw new ConsumerException(e);
+                            }
+                        }));
+                    } catch (ConsumerException e) {
+                        throw e.getCause();
+                    } catch (IOException | RuntimeException e) {
+                        FeatJarLogger.logError("Could not read configurations from " + file + ": " + e.getMessage());
+                    } finally {
+                        pendingFiles.release();
+                    }
+                    return null;
+                }));
+                for (Iterator<Future<?>> iterator = futures.iterator(); iterator.hasNext(); ) {
+                    Future<?> future = iterator.next();
+                    if (future.isDone()) {
+                        future.get();
+                        iterator.remove();
+                    }
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return count.get();
+    }
+
+    /**
+     * Carries an exception of the consumer past the handling of read errors in {@link #readDirectory}.
+     */
+    private static final class ConsumerException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private ConsumerException(RuntimeException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized RuntimeException getCause() {
+            return (RuntimeException) super.getCause();
+        }
+    }
+}
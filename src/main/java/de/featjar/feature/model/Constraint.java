@@ -24,6 +24,7 @@ import de.featjar.base.data.Sets;
 import de.featjar.base.tree.Trees;
 import de.featjar.feature.model.IConstraint.IMutableConstraint;
 import de.featjar.formula.structure.IFormula;
+import java.util.Collection;
 import java.util.LinkedHashSet;
 
 public class Constraint extends AFeatureModelElement implements IMutableConstraint {
@@ -35,13 +36,25 @@ public class Constraint extends AFeatureModelElement implements IMutableConstrai
         setFormula(formula);
     }
 
+    /**
+     * Creates a constraint whose referenced features are resolved later by {@link #setFormula(IFormula, Collection)}.
+     *
+     * @param featureModel the feature model
+     */
+    protected Constraint(IFeatureModel featureModel) {
+        super(featureModel);
+    }
+
     protected Constraint(Constraint otherConstraint) {
         this(otherConstraint, otherConstraint.featureModel);
     }
 
     protected Constraint(Constraint otherConstraint, IFeatureModel newFeatureModel) {
         super(otherConstraint, newFeatureModel);
-        setFormula(Trees.clone(otherConstraint.formula));
+        setFormula(
+                featureModel instanceof FeatureModel
+                        ? ((FeatureModel) featureModel).copyFormula(otherConstraint.formula)
+                        : Trees.clone(otherConstraint.formula));
     }
 
     @Override
@@ -51,14 +64,33 @@ public class Constraint extends AFeatureModelElement implements IMutableConstrai
 
     @Override
     public Constraint clone(IFeatureModel newFeatureModel) {
-        return new Constraint(this);
+        return new Constraint(this, newFeatureModel);
     }
 
+    /**
+     * {@inheritDoc}
+     * If formula interning is enabled, the formula is shared with other constraints,
+     * so a copy is returned that can be modified freely.
+     */
     @Override
     public IFormula getFormula() {
+        return formula != null && isFormulaShared() ? Trees.clone(formula) : formula;
+    }
+
+    /**
+     * {@inheritDoc}
+     * If formula interning is enabled, the formula may be shared with other constraints
+     * and its parent links are not meaningful.
+     */
+    @Override
+    public IFormula getSharedFormula() {
         return formula;
     }
 
+    private boolean isFormulaShared() {
+        return featureModel instanceof FeatureModel && ((FeatureModel) featureModel).formulaInterner != null;
+    }
+
     @Override
     public LinkedHashSet<IFeature> getReferencedFeatures() {
         return containedFeaturesCache;
@@ -73,16 +105,36 @@ public class Constraint extends AFeatureModelElement implements IMutableConstrai
     public void setFormula(IFormula formula) {
         containedFeaturesCache.clear();
         containedFeaturesCache.addAll(IConstraint.getReferencedFeatures(formula, featureModel));
-        Constraint.this.formula = formula;
+        IFormula oldFormula = this.formula;
+        Constraint.this.formula =
+                featureModel instanceof FeatureModel ? ((FeatureModel) featureModel).internFormula(formula) : formula;
+        if (oldFormula != null && featureModel instanceof FeatureModel) {
+            ((FeatureModel) featureModel).releaseFormula();
+        }
+        fireEvent(FeatureModelEvent.Type.CONSTRAINT_CHANGED, null, oldFormula, this.formula);
+    }
+
+    /**
+     * Sets the formula of this constraint together with its already resolved referenced features.
+     *
+     * @param formula the formula
+     * @param referencedFeatures the features referenced by the formula
+     */
+    protected void setFormula(IFormula formula, Collection<IFeature> referencedFeatures) {
+        containedFeaturesCache.clear();
+        containedFeaturesCache.addAll(referencedFeatures);
+        this.formula = formula;
     }
 
     @Override
     public void setName(String name) {
-        attributeValues.put(Attributes.NAME, name);
+        Object oldValue = attributeValues.put(Attributes.NAME, name);
+        fireEvent(FeatureModelEvent.Type.ATTRIBUTE_CHANGED, Attributes.NAME, oldValue, name);
     }
 
     @Override
     public void setDescription(String description) {
-        attributeValues.put(Attributes.DESCRIPTION, description);
+        Object oldValue = attributeValues.put(Attributes.DESCRIPTION, description);
+        fireEvent(FeatureModelEvent.Type.ATTRIBUTE_CHANGED, Attributes.DESCRIPTION, oldValue, description);
     }
 }
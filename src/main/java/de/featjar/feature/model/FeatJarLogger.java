@@ -1,43 +1,253 @@
 package de.featjar.feature.model;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.FileHandler;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
 import java.util.logging.Logger;
 import java.util.logging.SimpleFormatter;
-import java.io.IOException;
 /**
  * Utility class for logging messages to a file using Java's built-in logging framework.
- * This class provides methods to log messages at different levels (INFO, WARNING, SEVERE)
- * and initializes a logger with a file handler.
+ * This class provides methods to log messages at different levels (INFO, WARNING, SEVERE).
+ * <p>
+ * Messages are handed to a bounded queue and written by a background thread, so callers never block on I/O.
+ * If the queue is full, messages are dropped and the number of dropped messages is logged later.
+ * Identical messages are logged at most {@link #MAX_REPEATS_PER_SECOND} times per second.
+ * The log file is opened when the first message is written; its location defaults to the system property
+ * {@value #LOG_FILE_PROPERTY} or {@code logfile.log} and can be changed with {@link #setLogFile(Path)}.
  */
 
 public class FeatJarLogger {
 
+    public static final String LOG_FILE_PROPERTY = "featjar.log.file";
+    public static final int QUEUE_CAPACITY = 8192;
+    public static final int MAX_REPEATS_PER_SECOND = 10;
+
+    private static final String DEFAULT_LOG_FILE = "logfile.log";
+    private static final long REPEAT_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int MAX_TRACKED_MESSAGES = 1024;
+
     private static final Logger logger = Logger.getLogger(FeatJarLogger.class.getName());
-    private static FileHandler fh = null;
+    private static final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private static final AtomicLong droppedMessages = new AtomicLong();
+    private static final ConcurrentHashMap<String, Repeats> repeats = new ConcurrentHashMap<>();
 
-    // Initialize logger with file handler
-    static {
-        try {
-            fh = new FileHandler("logfile.log");
-            logger.addHandler(fh);
-            SimpleFormatter formatter = new SimpleFormatter();
-            fh.setFormatter(formatter);
-        } catch (SecurityException | IOException e) {
-            e.printStackTrace();
-        }
+    // either a Path or a Handler, null for the default log file
+    private static volatile Object sink;
+    private static volatile Thread writer;
+
+    // only accessed by the writer thread
+    private static boolean sinkInstalled;
+    private static Object installedSink;
+    private static Handler installedHandler;
+
+    private static final class Repeats {
+        private long windowStart = System.nanoTime();
+        private int count;
+        private Level level;
     }
 
     // Log a message at INFO level
     public static void logInfo(String message) {
-        logger.info(message);
+        log(Level.INFO, message);
     }
 
     // Log a message at WARNING level
     public static void logWarning(String message) {
-        logger.warning(message);
+        log(Level.WARNING, message);
     }
 
     // Log a message at SEVERE level
     public static void logError(String message) {
-        logger.severe(message);
+        log(Level.SEVERE, message);
+    }
+
+    /**
+     * Writes subsequent messages to the given file instead of the default log file.
+     *
+     * @param logFile the log file, or null for the default log file
+     */
+    public static void setLogFile(Path logFile) {
+        sink = logFile;
+    }
+
+    /**
+     * Publishes subsequent messages to the given handler instead of a log file.
+     *
+     * @param handler the handler
+     */
+    public static void setHandler(Handler handler) {
+        sink = handler;
+    }
+
+    /**
+     * Waits until all messages logged so far have been written.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return whether all messages have been written in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public static boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+        if (writer == null) {
+            return true;
+        }
+        CountDownLatch latch = new CountDownLatch(1);
+        return queue.offer(latch, timeout, unit) && latch.await(timeout, unit);
+    }
+
+    /**
+     * Logs the number of repetitions that are suppressed so far and waits until all messages have been written.
+     * Called on shutdown.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return whether all messages have been written in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public static boolean close(long timeout, TimeUnit unit) throws InterruptedException {
+        for (Map.Entry<String, Repeats> entry : repeats.entrySet()) {
+            Repeats repeatsEntry = entry.getValue();
+            int suppressed;
+            Level level;
+            synchronized (repeatsEntry) {
+                suppressed = Math.max(0, repeatsEntry.count - MAX_REPEATS_PER_SECOND);
+                level = repeatsEntry.level;
+                repeatsEntry.count = Math.min(repeatsEntry.count, MAX_REPEATS_PER_SECOND);
+            }
+            if (suppressed > 0) {
+                enqueue(level, entry.getKey() + " (suppressed " + suppressed + " repetitions)");
+            }
+        }
+        return flush(timeout, unit);
+    }
+
+    private static void log(Level level, String message) {
+        String text = admit(level, message);
+        if (text != null) {
+            enqueue(level, text);
+        }
+    }
+
+    private static void enqueue(Level level, String text) {
+        LogRecord record = new LogRecord(level, text);
+        record.setLoggerName(logger.getName());
+        startWriter();
+        if (!queue.offer(record)) {
+            droppedMessages.incrementAndGet();
+        }
+    }
+
+    /**
+     * Applies the rate limit for repeated messages.
+     *
+     * @param level the level of the message
+     * @param message the message
+     * @return the message to log, possibly annotated with the number of suppressed repetitions,
+     *     or null if the message is suppressed
+     */
+    private static String admit(Level level, String message) {
+        if (repeats.size() > MAX_TRACKED_MESSAGES) {
+            repeats.clear();
+        }
+        String key = String.valueOf(message);
+        Repeats entry = repeats.computeIfAbsent(key, k -> new Repeats());
+        int suppressed = 0;
+        synchronized (entry) {
+            long now = System.nanoTime();
+            if (now - entry.windowStart > REPEAT_WINDOW_NANOS) {
+                suppressed = Math.max(0, entry.count - MAX_REPEATS_PER_SECOND);
+                entry.windowStart = now;
+                entry.count = 0;
+            }
+            entry.level = level;
+            if (++entry.count > MAX_REPEATS_PER_SECOND) {
+                return null;
+            }
+        }
+        return suppressed > 0 ? key + " (suppressed " + suppressed + " repetitions)" : key;
+    }
+
+    private static void startWriter() {
+        if (writer == null) {
+            synchronized (FeatJarLogger.class) {
+                if (writer == null) {
+                    Thread thread = new Thread(FeatJarLogger::write, "FeatJarLogger");
+                    thread.setDaemon(true);
+                    thread.start();
+                    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                        try {
+                            close(1, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }));
+                    writer = thread;
+                }
+            }
+        }
+    }
+
+    private static void write() {
+        while (true) {
+            Object element;
+            try {
+                element = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (element instanceof CountDownLatch) {
+                ((CountDownLatch) element).countDown();
+                continue;
+            }
+            installSink();
+            long dropped = droppedMessages.getAndSet(0);
+            if (dropped > 0) {
+                LogRecord record = new LogRecord(Level.WARNING, "Dropped " + dropped + " log messages");
+                record.setLoggerName(logger.getName());
+                logger.log(record);
+            }
+            logger.log((LogRecord) element);
+        }
+    }
+
+    private static void installSink() {
+        Object currentSink = sink;
+        if (sinkInstalled && currentSink == installedSink) {
+            return;
+        }
+        if (installedHandler != null) {
+            logger.removeHandler(installedHandler);
+            if (!(installedSink instanceof Handler)) {
+                installedHandler.close();
+            }
+            installedHandler = null;
+        }
+        sinkInstalled = true;
+        installedSink = currentSink;
+        if (currentSink instanceof Handler) {
+            installedHandler = (Handler) currentSink;
+        } else {
+            String logFile = currentSink != null
+                    ? currentSink.toString()
+                    : System.getProperty(LOG_FILE_PROPERTY, DEFAULT_LOG_FILE);
+            try {
+                FileHandler fileHandler = new FileHandler(logFile);
+                fileHandler.setFormatter(new SimpleFormatter());
+                installedHandler = fileHandler;
+            } catch (SecurityException | IOException e) {
+                e.printStackTrace();
+                return;
+            }
+        }
+        logger.addHandler(installedHandler);
     }
 }
@@ -20,6 +20,7 @@
  */
 package de.featjar.feature.model;
 
+import de.featjar.base.data.Attribute;
 import de.featjar.base.data.Result;
 import de.featjar.feature.model.IFeature.IMutableFeature;
 
@@ -46,7 +47,7 @@ public class Feature extends AFeatureModelElement implements IMutableFeature {
 
     @Override
     public Feature clone(IFeatureModel newFeatureModel) {
-        return new Feature(this);
+        return new Feature(this, newFeatureModel);
     }
 
     @Override
@@ -61,7 +62,9 @@ public class Feature extends AFeatureModelElement implements IMutableFeature {
 
     @Override
     public void setType(Class<?> type) {
+        Class<?> oldType = this.type;
         this.type = type;
+        fireEvent(FeatureModelEvent.Type.TYPE_CHANGED, null, oldType, type);
     }
 
     @Override
@@ -71,11 +74,43 @@ public class Feature extends AFeatureModelElement implements IMutableFeature {
 
     @Override
     public void setName(String name) {
-        attributeValues.put(Attributes.NAME, name);
+        String oldName = getName().orElse(null);
+        Object oldValue = attributeValues.put(Attributes.NAME, name);
+        nameChanged(oldName);
+        fireEvent(FeatureModelEvent.Type.ATTRIBUTE_CHANGED, Attributes.NAME, oldValue, name);
+    }
+
+    @Override
+    public <S> void setAttributeValue(Attribute<S> attribute, S value) {
+        if (Attributes.NAME.equals(attribute)) {
+            String oldName = getName().orElse(null);
+            super.setAttributeValue(attribute, value);
+            nameChanged(oldName);
+        } else {
+            super.setAttributeValue(attribute, value);
+        }
+    }
+
+    @Override
+    public <S> S removeAttributeValue(Attribute<S> attribute) {
+        if (Attributes.NAME.equals(attribute)) {
+            String oldName = getName().orElse(null);
+            S value = super.removeAttributeValue(attribute);
+            nameChanged(oldName);
+            return value;
+        }
+        return super.removeAttributeValue(attribute);
+    }
+
+    protected void nameChanged(String oldName) {
+        if (featureModel instanceof FeatureModel) {
+            ((FeatureModel) featureModel).updateFeatureName(this, oldName);
+        }
     }
 
     @Override
     public void setDescription(String description) {
-        attributeValues.put(Attributes.DESCRIPTION, description);
+        Object oldValue = attributeValues.put(Attributes.DESCRIPTION, description);
+        fireEvent(FeatureModelEvent.Type.ATTRIBUTE_CHANGED, Attributes.DESCRIPTION, oldValue, description);
     }
 }
@@ -26,20 +26,23 @@ import de.featjar.base.data.IAttribute;
 import de.featjar.base.data.Maps;
 import de.featjar.base.data.Result;
 import de.featjar.base.data.identifier.IIdentifier;
-import de.featjar.base.data.identifier.UUIDIdentifier;
 import de.featjar.base.tree.Trees;
 import de.featjar.base.tree.visitor.TreePrinter;
 import de.featjar.feature.model.IFeatureModel.IMutableFeatureModel;
+import de.featjar.feature.model.metrics.IMetrics;
+import de.featjar.feature.model.metrics.Metrics;
 import de.featjar.formula.structure.IFormula;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class FeatureModel implements IMutableFeatureModel, IMutatableAttributable {
 
@@ -51,8 +54,42 @@ public class FeatureModel implements IMutableFeatureModel, IMutatableAttributabl
 
     protected final LinkedHashMap<IAttribute<?>, Object> attributeValues;
 
+    protected FormulaInterner formulaInterner;
+
+    private int releasedFormulas;
+
+    /**
+     * Maps feature names to features, built on first lookup by name and maintained on addition, removal, and renaming.
+     * If several features have the same name, the first of them in this feature model is indexed.
+     */
+    protected HashMap<String, IFeature> featureNameIndex;
+
+    /**
+     * Counts the features that have the same name as an indexed feature but are not indexed themselves.
+     */
+    protected HashMap<String, Integer> duplicateFeatureNames;
+
+    /**
+     * Adds the constraints that have not been loaded yet, or null if all constraints are loaded.
+     */
+    protected volatile Runnable constraintLoader;
+
+    private boolean loadingConstraints;
+
+    private volatile RuntimeException constraintLoaderFailure;
+
+    protected List<IFeatureModelListener> listeners;
+    protected List<FeatureModelEvent> pendingEvents;
+    protected int eventBatchDepth;
+
+    /**
+     * Incremented whenever feature trees are attached to or detached from this feature model.
+     * Invalidates the attachment state cached by {@link FeatureTree}.
+     */
+    protected int featureTreeVersion;
+
     public FeatureModel() {
-        this(UUIDIdentifier.newInstance());
+        this(IntegerIdentifier.newInstance());
     }
 
     public FeatureModel(IIdentifier identifier) {
@@ -64,11 +101,17 @@ public class FeatureModel implements IMutableFeatureModel, IMutatableAttributabl
     }
 
     protected FeatureModel(FeatureModel otherFeatureModel) {
-        identifier = otherFeatureModel.getNewIdentifier();
+        otherFeatureModel.loadConstraints();
+        // integer identifiers are numbered per feature model, so a clone gets its own factory
+        identifier = otherFeatureModel.identifier instanceof IntegerIdentifier
+                ? IntegerIdentifier.newInstance()
+                : otherFeatureModel.getNewIdentifier();
 
         featureTreeRoots = new ArrayList<>(otherFeatureModel.featureTreeRoots.size());
         otherFeatureModel.featureTreeRoots.stream().forEach(t -> featureTreeRoots.add(Trees.clone(t)));
 
+        formulaInterner = otherFeatureModel.formulaInterner != null ? new FormulaInterner() : null;
+
         features = new LinkedHashMap<>((int) (otherFeatureModel.features.size() * 1.5));
         otherFeatureModel.features.entrySet().stream()
                 .map(e -> e.getValue().clone(this))
@@ -84,7 +127,13 @@ public class FeatureModel implements IMutableFeatureModel, IMutatableAttributabl
 
     @Override
     public FeatureModel clone() {
-        return new FeatureModel(this);
+        IMetrics metrics = Metrics.get();
+        long start = metrics.startTimer();
+        try {
+            return new FeatureModel(this);
+        } finally {
+            metrics.stopTimer(Metrics.FEATURE_MODEL_CLONE, start);
+        }
     }
 
     @Override
@@ -104,31 +153,37 @@ public class FeatureModel implements IMutableFeatureModel, IMutatableAttributabl
 
     @Override
     public Result<IFeature> getFeature(IIdentifier identifier) {
+        Metrics.get().increment(Metrics.GET_FEATURE);
         return Result.of(features.get(Objects.requireNonNull(identifier)));
     }
 
     @Override
     public Collection<IConstraint> getConstraints() {
+        loadConstraints();
         return Collections.unmodifiableCollection(constraints.values());
     }
 
     @Override
     public Result<IConstraint> getConstraint(IIdentifier identifier) {
+        loadConstraints();
         return Result.of(constraints.get(Objects.requireNonNull(identifier)));
     }
 
     @Override
     public boolean hasConstraint(IIdentifier identifier) {
+        loadConstraints();
         return constraints.containsKey(identifier);
     }
 
     @Override
     public boolean hasConstraint(IConstraint constraint) {
+        loadConstraints();
         return constraints.containsKey(constraint.getIdentifier());
     }
 
     @Override
     public int getNumberOfConstraints() {
+        loadConstraints();
         return constraints.size();
     }
 
@@ -150,13 +205,16 @@ public class FeatureModel implements IMutableFeatureModel, IMutatableAttributabl
         }
         checkType(attribute, value);
         validate(attribute, value);
-        attributeValues.put(attribute, value);
+        Object oldValue = attributeValues.put(attribute, value);
+        fireEvent(FeatureModelEvent.Type.ATTRIBUTE_CHANGED, this, attribute, oldValue, value);
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public <S> S removeAttributeValue(Attribute<S> attribute) {
-        return (S) attributeValues.remove(attribute);
+        S oldValue = (S) attributeValues.remove(attribute);
+        fireEvent(FeatureModelEvent.Type.ATTRIBUTE_CHANGED, this, attribute, oldValue, null);
+        return oldValue;
     }
 
     @Override
@@ -168,11 +226,12 @@ public class FeatureModel implements IMutableFeatureModel, IMutatableAttributabl
 
     @Override
     public int hashCode() {
-        return Objects.hash(getIdentifier());
+        return getIdentifier().hashCode();
     }
 
     @Override
     public String toString() {
+        loadConstraints();
         StringBuilder featureString = new StringBuilder();
         for (IFeatureTree root : featureTreeRoots) {
             featureString.append(Trees.traverse(root, new TreePrinter()).get());
@@ -184,32 +243,50 @@ public class FeatureModel implements IMutableFeatureModel, IMutatableAttributabl
 
     @Override
     public void setName(String name) {
-        attributeValues.put(Attributes.NAME, name);
+        Object oldValue = attributeValues.put(Attributes.NAME, name);
+        fireEvent(FeatureModelEvent.Type.ATTRIBUTE_CHANGED, this, Attributes.NAME, oldValue, name);
     }
 
     @Override
     public void setDescription(String description) {
-        attributeValues.put(Attributes.DESCRIPTION, description);
+        Object oldValue = attributeValues.put(Attributes.DESCRIPTION, description);
+        fireEvent(FeatureModelEvent.Type.ATTRIBUTE_CHANGED, this, Attributes.DESCRIPTION, oldValue, description);
     }
 
     @Override
     public IFeatureTree addFeatureTreeRoot(IFeature feature) {
         FeatureTree newTree = new FeatureTree(feature);
         featureTreeRoots.add(newTree);
+        featureTreeVersion++;
+        fireEvent(FeatureModelEvent.Type.ROOT_ADDED, newTree);
         return newTree;
     }
 
     @Override
     public void addFeatureTreeRoot(IFeatureTree featureTree) {
-        featureTreeRoots.add(featureTree);
+        addFeatureTreeRoot(featureTreeRoots.size(), featureTree);
+    }
+
+    protected void addFeatureTreeRoot(int index, IFeatureTree featureTree) {
+        featureTreeRoots.add(index, featureTree);
+        featureTreeVersion++;
+        fireEvent(FeatureModelEvent.Type.ROOT_ADDED, featureTree);
     }
 
     @Override
     public void removeFeatureTreeRoot(IFeature feature) {
-        for (Iterator<IFeatureTree> it = featureTreeRoots.listIterator(); it.hasNext(); ) {
-            if (it.next().getFeature().equals(feature)) {
-                it.remove();
+        beginEventBatch();
+        try {
+            for (Iterator<IFeatureTree> it = featureTreeRoots.listIterator(); it.hasNext(); ) {
+                IFeatureTree featureTree = it.next();
+                if (featureTree.getFeature().equals(feature)) {
+                    it.remove();
+                    featureTreeVersion++;
+                    fireEvent(FeatureModelEvent.Type.ROOT_REMOVED, featureTree);
+                }
             }
+        } finally {
+            endEventBatch();
         }
     }
 
@@ -218,21 +295,167 @@ public class FeatureModel implements IMutableFeatureModel, IMutatableAttributabl
         for (Iterator<IFeatureTree> it = featureTreeRoots.listIterator(); it.hasNext(); ) {
             if (it.next() == featureTree) {
                 it.remove();
+                featureTreeVersion++;
+                fireEvent(FeatureModelEvent.Type.ROOT_REMOVED, featureTree);
             }
         }
     }
 
     @Override
     public IConstraint addConstraint(IFormula formula) {
-        IConstraint newConstraint = new Constraint(this, Trees.clone(formula));
+        loadConstraints();
+        IConstraint newConstraint = new Constraint(this, copyFormula(formula));
         constraints.put(newConstraint.getIdentifier(), newConstraint);
+        fireEvent(FeatureModelEvent.Type.CONSTRAINT_ADDED, newConstraint);
         return newConstraint;
     }
 
+    /**
+     * Enables or disables hash-consing of constraint formulas.
+     * While enabled, all constraint formulas of this feature model are interned in a {@link FormulaInterner},
+     * so that structurally equal subformulas are shared among constraints.
+     * {@link Constraint#getFormula()} then returns copies, while {@link Constraint#getSharedFormula()} gives
+     * read-only access to the shared formula.
+     * Enabling interns the formulas of all existing constraints, disabling gives each constraint its own copy again.
+     * Clones of this feature model have their own interner.
+     *
+     * @param formulaInterning whether to intern constraint formulas
+     */
+    public void setFormulaInterning(boolean formulaInterning) {
+        beginEventBatch();
+        try {
+            updateFormulaInterning(formulaInterning);
+        } finally {
+            endEventBatch();
+        }
+    }
+
+    private void updateFormulaInterning(boolean formulaInterning) {
+        if (!formulaInterning) {
+            if (formulaInterner != null) {
+                loadConstraints();
+                formulaInterner = null;
+                for (IConstraint constraint : constraints.values()) {
+                    constraint.mutate().setFormula(Trees.clone(constraint.getSharedFormula()));
+                }
+            }
+        } else if (formulaInterner == null) {
+            loadConstraints();
+            formulaInterner = new FormulaInterner();
+            for (IConstraint constraint : constraints.values()) {
+                constraint.mutate().setFormula(constraint.getSharedFormula());
+            }
+        }
+    }
+
+    public Result<FormulaInterner> getFormulaInterner() {
+        return Result.ofNullable(formulaInterner);
+    }
+
+    /**
+     * Interns the given formula if formula interning is enabled.
+     *
+     * @param formula the formula
+     * @return the canonical formula, or the given formula if interning is disabled
+     */
+    protected IFormula internFormula(IFormula formula) {
+        return formulaInterner != null ? formulaInterner.intern(formula) : formula;
+    }
+
+    /**
+     * Notes that a constraint of this feature model no longer uses its interned formula.
+     * Once as many formulas have been released as there are constraints, the interner is rebuilt from the formulas
+     * still in use, so formulas of removed constraints do not stay reachable.
+     */
+    protected void releaseFormula() {
+        if (formulaInterner != null && ++releasedFormulas > constraints.size()) {
+            releasedFormulas = 0;
+            formulaInterner = new FormulaInterner();
+            for (IConstraint constraint : constraints.values()) {
+                internFormula(constraint);
+            }
+        }
+    }
+
+    private void internFormula(IConstraint constraint) {
+        if (constraint instanceof Constraint && ((Constraint) constraint).formula != null) {
+            ((Constraint) constraint).formula = formulaInterner.intern(((Constraint) constraint).formula);
+        }
+    }
+
+    /**
+     * Copies the given formula such that it can be owned by a constraint of this feature model.
+     *
+     * @param formula the formula
+     * @return the canonical formula if interning is enabled, a deep clone otherwise
+     */
+    protected IFormula copyFormula(IFormula formula) {
+        return formulaInterner != null ? formulaInterner.intern(formula) : Trees.clone(formula);
+    }
+
+    /**
+     * Defers the addition of constraints until the constraints of this feature model are first accessed,
+     * for example to skip parsing constraints that are never used.
+     * The loader is run at most once and must add the constraints to this feature model, for example with a
+     * {@link FeatureModelBatch}.
+     * As loading only reveals constraints that were there all along, no events are delivered while the loader runs,
+     * so listeners (such as a {@link FeatureModelJournal}) do not observe reading the constraints as a change.
+     * Constraints that are loaded later receive their identifiers when they are loaded.
+     * Exceptions thrown by the loader are passed to the caller that accessed the constraints.
+     * The loader is not run again, but every later access to the constraints fails with an
+     * {@link IllegalStateException} caused by the original exception, so the constraints are never silently missing.
+     *
+     * @param constraintLoader the loader, or null to discard a pending loader
+     */
+    public void setConstraintLoader(Runnable constraintLoader) {
+        this.constraintLoader = constraintLoader;
+        constraintLoaderFailure = null;
+    }
+
+    /**
+     * @return whether the constraints of this feature model have been loaded
+     */
+    public boolean isConstraintsLoaded() {
+        return constraintLoader == null && constraintLoaderFailure == null;
+    }
+
+    /**
+     * Runs the pending {@link #setConstraintLoader(Runnable) constraint loader}, if any.
+     */
+    protected void loadConstraints() {
+        if (constraintLoaderFailure != null) {
+            throw new IllegalStateException("Could not load constraints", constraintLoaderFailure);
+        }
+        if (constraintLoader != null) {
+            synchronized (this) {
+                Runnable loader = constraintLoader;
+                // the loader itself adds constraints, which must not run it again
+                if (loader != null && !loadingConstraints) {
+                    loadingConstraints = true;
+                    try {
+                        loader.run();
+                    } catch (RuntimeException e) {
+                        constraintLoaderFailure = e;
+                        throw e;
+                    } finally {
+                        loadingConstraints = false;
+                        constraintLoader = null;
+                    }
+                }
+            }
+        }
+    }
+
     @Override
     public boolean removeConstraint(IConstraint constraint) {
         Objects.requireNonNull(constraint);
-        return constraints.remove(constraint.getIdentifier()) != null;
+        loadConstraints();
+        if (constraints.remove(constraint.getIdentifier()) == null) {
+            return false;
+        }
+        releaseFormula();
+        fireEvent(FeatureModelEvent.Type.CONSTRAINT_REMOVED, constraint);
+        return true;
     }
 
     @Override
@@ -241,12 +464,252 @@ public class FeatureModel implements IMutableFeatureModel, IMutatableAttributabl
         Feature feature = new Feature(this);
         feature.setName(name);
         features.put(feature.getIdentifier(), feature);
+        if (featureNameIndex != null) {
+            indexFeatureName(name, feature);
+        }
+        fireEvent(FeatureModelEvent.Type.FEATURE_ADDED, feature);
         return feature;
     }
 
     @Override
     public boolean removeFeature(IFeature feature) {
-        return features.remove(feature.getIdentifier()) != null;
+        if (features.remove(feature.getIdentifier()) == null) {
+            return false;
+        }
+        if (featureNameIndex != null) {
+            feature.getName().ifPresent(name -> unindexFeatureName(name, feature));
+        }
+        fireEvent(FeatureModelEvent.Type.FEATURE_REMOVED, feature);
+        return true;
+    }
+
+    @Override
+    public FeatureModelBatch openBatch() {
+        return new FeatureModelBatch(this);
+    }
+
+    /**
+     * Adds the given features, which must have been created for this feature model, in one step.
+     * Name uniqueness is not checked.
+     *
+     * @param newFeatures the new features
+     */
+    protected void addFeatures(Collection<? extends IFeature> newFeatures) {
+        for (IFeature feature : newFeatures) {
+            features.put(feature.getIdentifier(), feature);
+        }
+        if (featureNameIndex != null) {
+            for (IFeature feature : newFeatures) {
+                feature.getName().ifPresent(name -> indexFeatureName(name, feature));
+            }
+        }
+        if (listeners != null) {
+            beginEventBatch();
+            try {
+                for (IFeature feature : newFeatures) {
+                    fireEvent(FeatureModelEvent.Type.FEATURE_ADDED, feature);
+                }
+            } finally {
+                endEventBatch();
+            }
+        }
+    }
+
+    /**
+     * Adds the given constraints, which must have been created for this feature model, in one step.
+     *
+     * @param newConstraints the new constraints
+     */
+    protected void addConstraints(Collection<? extends IConstraint> newConstraints) {
+        loadConstraints();
+        for (IConstraint constraint : newConstraints) {
+            // re-added constraints may refer to formulas of a pruned interner
+            if (formulaInterner != null) {
+                internFormula(constraint);
+            }
+            constraints.put(constraint.getIdentifier(), constraint);
+        }
+        if (listeners != null && !loadingConstraints) {
+            beginEventBatch();
+            try {
+                for (IConstraint constraint : newConstraints) {
+                    fireEvent(FeatureModelEvent.Type.CONSTRAINT_ADDED, constraint);
+                }
+            } finally {
+                endEventBatch();
+            }
+        }
+    }
+
+    /**
+     * Registers a listener that is notified of all changes made through the mutators of this feature model
+     * and its features, constraints, and feature trees.
+     * As long as no listener is registered, no events are created.
+     *
+     * @param listener the listener
+     */
+    public void addListener(IFeatureModelListener listener) {
+        Objects.requireNonNull(listener);
+        if (listeners == null) {
+            listeners = new CopyOnWriteArrayList<>();
+        }
+        listeners.add(listener);
+    }
+
+    public boolean removeListener(IFeatureModelListener listener) {
+        if (listeners == null || !listeners.remove(listener)) {
+            return false;
+        }
+        if (listeners.isEmpty()) {
+            listeners = null;
+        }
+        return true;
+    }
+
+    public boolean hasListeners() {
+        return listeners != null;
+    }
+
+    /**
+     * Starts an event batch.
+     * Until the matching call of {@link #endEventBatch()}, events are collected and then delivered to each listener
+     * in a single call.
+     * Event batches can be nested, events are delivered when the outermost batch ends.
+     */
+    public void beginEventBatch() {
+        eventBatchDepth++;
+    }
+
+    /**
+     * Ends an event batch started with {@link #beginEventBatch()}.
+     */
+    public void endEventBatch() {
+        if (eventBatchDepth == 0) {
+            throw new IllegalStateException("no event batch was started");
+        }
+        if (--eventBatchDepth == 0 && pendingEvents != null) {
+            List<FeatureModelEvent> events = pendingEvents;
+            pendingEvents = null;
+            dispatchEvents(events);
+        }
+    }
+
+    protected boolean containsElement(IFeatureModelElement element) {
+        IIdentifier elementIdentifier = element.getIdentifier();
+        return features.get(elementIdentifier) == element || constraints.get(elementIdentifier) == element;
+    }
+
+    protected void fireEvent(FeatureModelEvent.Type type, Object source) {
+        if (listeners != null) {
+            fireEvent(new FeatureModelEvent(type, source));
+        }
+    }
+
+    protected void fireEvent(FeatureModelEvent.Type type, Object source, Object oldValue, Object newValue) {
+        if (listeners != null) {
+            fireEvent(new FeatureModelEvent(type, source, oldValue, newValue));
+        }
+    }
+
+    protected void fireEvent(
+            FeatureModelEvent.Type type, Object source, IAttribute<?> attribute, Object oldValue, Object newValue) {
+        if (listeners != null) {
+            fireEvent(new FeatureModelEvent(type, source, attribute, oldValue, newValue));
+        }
+    }
+
+    protected void fireEvent(FeatureModelEvent event) {
+        if (loadingConstraints) {
+            return;
+        }
+        if (eventBatchDepth > 0) {
+            if (pendingEvents == null) {
+                pendingEvents = new ArrayList<>();
+            }
+            pendingEvents.add(event);
+        } else {
+            dispatchEvents(List.of(event));
+        }
+    }
+
+    private void dispatchEvents(List<FeatureModelEvent> events) {
+        List<IFeatureModelListener> currentListeners = listeners;
+        if (currentListeners != null) {
+            List<FeatureModelEvent> unmodifiableEvents = Collections.unmodifiableList(events);
+            for (IFeatureModelListener listener : currentListeners) {
+                listener.onChange(unmodifiableEvents);
+            }
+        }
+    }
+
+    /**
+     * Updates the feature name index after a feature of this feature model has been renamed.
+     *
+     * @param feature the renamed feature
+     * @param oldName the feature's previous name
+     */
+    protected void updateFeatureName(IFeature feature, String oldName) {
+        if (featureNameIndex != null && features.get(feature.getIdentifier()) == feature) {
+            if (oldName != null) {
+                unindexFeatureName(oldName, feature);
+            }
+            feature.getName().ifPresent(name -> {
+                if (indexFeatureName(name, feature)) {
+                    // the renamed feature may precede the indexed one
+                    featureNameIndex.put(name, findFeature(name));
+                }
+            });
+        }
+    }
+
+    protected HashMap<String, IFeature> getFeatureNameIndex() {
+        if (featureNameIndex == null) {
+            featureNameIndex = new HashMap<>((int) (features.size() * 1.5));
+            duplicateFeatureNames = new HashMap<>();
+            for (IFeature feature : features.values()) {
+                feature.getName().ifPresent(name -> indexFeatureName(name, feature));
+            }
+        }
+        return featureNameIndex;
+    }
+
+    /**
+     * Adds a feature to the name index, unless another feature with the same name is indexed already.
+     *
+     * @return whether another feature with the same name is indexed
+     */
+    private boolean indexFeatureName(String name, IFeature feature) {
+        IFeature indexedFeature = featureNameIndex.putIfAbsent(name, feature);
+        if (indexedFeature == null || indexedFeature == feature) {
+            return false;
+        }
+        duplicateFeatureNames.merge(name, 1, Integer::sum);
+        return true;
+    }
+
+    private void unindexFeatureName(String name, IFeature feature) {
+        Integer duplicates = duplicateFeatureNames.get(name);
+        if (duplicates == null) {
+            featureNameIndex.remove(name, feature);
+            return;
+        }
+        if (duplicates == 1) {
+            duplicateFeatureNames.remove(name);
+        } else {
+            duplicateFeatureNames.put(name, duplicates - 1);
+        }
+        if (featureNameIndex.get(name) == feature) {
+            featureNameIndex.put(name, findFeature(name));
+        }
+    }
+
+    private IFeature findFeature(String name) {
+        for (IFeature feature : features.values()) {
+            if (name.equals(feature.getName().orElse(null))) {
+                return feature;
+            }
+        }
+        return null;
     }
 
     @Override
@@ -256,10 +719,8 @@ public class FeatureModel implements IMutableFeatureModel, IMutatableAttributabl
 
     @Override
     public Result<IFeature> getFeature(String name) {
-        return Result.ofOptional(features.entrySet().stream()
-                .map(e -> e.getValue())
-                .filter(f -> f.getName().valueEquals(name))
-                .findFirst());
+        Metrics.get().increment(Metrics.GET_FEATURE);
+        return Result.ofNullable(getFeatureNameIndex().get(name));
     }
 
     @Override
@@ -0,0 +1,298 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model;
+
+import de.featjar.base.data.Result;
+import de.featjar.base.data.Sets;
+import de.featjar.base.tree.Trees;
+import de.featjar.formula.structure.Expressions;
+import de.featjar.formula.structure.IFormula;
+import de.featjar.formula.structure.term.value.Variable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Adds many features, feature trees, and constraints to a {@link FeatureModel} at once.
+ * New elements are staged in the batch and only become part of the feature model on {@link #commit()},
+ * which validates feature names, updates the feature model's indices,
+ * and resolves the features referenced by constraints in bulk.
+ * Trees below features that were added in the same batch are built immediately,
+ * trees below existing features are attached on commit.
+ * If the commit fails, the feature model remains unchanged.
+ * Listeners of the feature model are notified of all additions in one event batch.
+ * A batch can only be committed once.
+ */
+public class FeatureModelBatch {
+
+    private static final class Attachment {
+        private final IFeatureTree parent;
+        private final IFeatureTree child;
+        private final int index;
+        private final int groupID;
+
+        private Attachment(IFeatureTree parent, IFeatureTree child, int index, int groupID) {
+            this.parent = parent;
+            this.child = child;
+            this.index = index;
+            this.groupID = groupID;
+        }
+    }
+
+    protected final FeatureModel featureModel;
+
+    protected final List<Feature> newFeatures = new ArrayList<>();
+    protected final List<IFeatureTree> newRoots = new ArrayList<>();
+    protected final Set<IFeatureTree> newTrees = Collections.newSetFromMap(new IdentityHashMap<>());
+    protected final List<Constraint> newConstraints = new ArrayList<>();
+    private final List<Attachment> attachments = new ArrayList<>();
+
+    protected boolean open = true;
+
+    protected FeatureModelBatch(FeatureModel featureModel) {
+        this.featureModel = Objects.requireNonNull(featureModel);
+    }
+
+    public FeatureModel getFeatureModel() {
+        return featureModel;
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    public int getNumberOfNewFeatures() {
+        return newFeatures.size();
+    }
+
+    public int getNumberOfNewConstraints() {
+        return newConstraints.size();
+    }
+
+    public IFeature addFeature(String name) {
+        checkOpen();
+        Objects.requireNonNull(name);
+        Feature feature = new Feature(featureModel);
+        feature.setName(name);
+        newFeatures.add(feature);
+        return feature;
+    }
+
+    public IFeatureTree addFeatureTreeRoot(IFeature feature) {
+        checkOpen();
+        FeatureTree newTree = new FeatureTree(feature);
+        newRoots.add(newTree);
+        newTrees.add(newTree);
+        return newTree;
+    }
+
+    public IFeatureTree addFeatureBelow(IFeatureTree parent, IFeature feature) {
+        return addFeatureBelow(parent, feature, -1, 0);
+    }
+
+    /**
+     * Adds a feature tree for the given feature below the given parent.
+     *
+     * @param parent the parent tree, either part of the feature model or created by this batch
+     * @param feature the feature
+     * @param index the child index, or -1 to append
+     * @param groupID the group of the parent the new tree belongs to
+     * @return the new feature tree
+     */
+    public IFeatureTree addFeatureBelow(IFeatureTree parent, IFeature feature, int index, int groupID) {
+        checkOpen();
+        FeatureTree newTree = new FeatureTree(feature);
+        addSubtree(parent, newTree, index, groupID);
+        return newTree;
+    }
+
+    /**
+     * Adds a previously built feature tree below the given parent.
+     * All features in the subtree must be part of the feature model or created by this batch.
+     *
+     * @param parent the parent tree, either part of the feature model or created by this batch
+     * @param subtree the subtree
+     * @param index the child index, or -1 to append
+     * @param groupID the group of the parent the subtree belongs to
+     */
+    public void addSubtree(IFeatureTree parent, IFeatureTree subtree, int index, int groupID) {
+        checkOpen();
+        Objects.requireNonNull(parent);
+        Objects.requireNonNull(subtree);
+        if (newTrees.contains(parent)) {
+            checkAttachment(parent, index, groupID, parent.getChildrenCount());
+            attach(parent, subtree, index, groupID);
+        } else {
+            attachments.add(new Attachment(parent, subtree, index, groupID));
+        }
+        newTrees.add(subtree);
+    }
+
+    public IConstraint addConstraint(IFormula formula) {
+        IConstraint newConstraint = addConstraint();
+        ((Constraint) newConstraint).formula = featureModel.copyFormula(formula);
+        return newConstraint;
+    }
+
+    /**
+     * Adds a constraint whose formula is set later with {@link #setFormula(IConstraint, IFormula)}.
+     * If no formula is set until the commit, the constraint is a tautology.
+     *
+     * @return the new constraint
+     */
+    public IConstraint addConstraint() {
+        checkOpen();
+        Constraint newConstraint = new Constraint(featureModel);
+        newConstraints.add(newConstraint);
+        return newConstraint;
+    }
+
+    /**
+     * Sets the formula of a constraint added by this batch.
+     * Unlike {@link #addConstraint(IFormula)}, the formula is not copied, so it must not be shared with other
+     * constraints or modified afterwards.
+     *
+     * @param constraint the constraint
+     * @param formula the formula
+     * @throws IllegalArgumentException if the constraint was not added by a batch of this feature model
+     *     or is already part of the feature model
+     */
+    public void setFormula(IConstraint constraint, IFormula formula) {
+        checkOpen();
+        if (!(constraint instanceof Constraint)
+                || constraint.getFeatureModel() != featureModel
+                || featureModel.containsElement(constraint)) {
+            throw new IllegalArgumentException("constraint was not added by this batch");
+        }
+        ((Constraint) constraint).formula = featureModel.internFormula(Objects.requireNonNull(formula));
+    }
+
+    /**
+     * Adds all staged elements to the feature model.
+     *
+     * @throws IllegalArgumentException if a new feature's name is not unique,
+     *     a new tree is to be attached to a parent that is not part of the feature model,
+     *     at an invalid index, or to a group the parent does not have,
+     *     or a new constraint refers to an unknown feature
+     */
+    public void commit() {
+        checkOpen();
+        HashMap<String, IFeature> featureNameIndex = featureModel.getFeatureNameIndex();
+        HashMap<String, IFeature> newFeatureNameIndex = new HashMap<>((int) (newFeatures.size() * 1.5));
+        for (Feature feature : newFeatures) {
+            String name = feature.getName().get();
+            if (featureNameIndex.containsKey(name) || newFeatureNameIndex.putIfAbsent(name, feature) != null) {
+                throw new IllegalArgumentException("duplicate feature name " + name);
+            }
+        }
+
+        if (!attachments.isEmpty()) {
+            Set<IFeatureTree> roots = Collections.newSetFromMap(new IdentityHashMap<>());
+            roots.addAll(featureModel.getRoots());
+            IdentityHashMap<IFeatureTree, Integer> childrenCounts = new IdentityHashMap<>();
+            for (Attachment attachment : attachments) {
+                IFeatureTree parent = attachment.parent;
+                if (!newTrees.contains(parent) && !roots.contains(getRoot(parent))) {
+                    throw new IllegalArgumentException("parent " + parent + " is not part of the feature model");
+                }
+                int childrenCount = childrenCounts.getOrDefault(parent, parent.getChildrenCount());
+                checkAttachment(parent, attachment.index, attachment.groupID, childrenCount);
+                childrenCounts.put(parent, childrenCount + 1);
+            }
+        }
+
+        List<IFormula> newFormulas = new ArrayList<>(newConstraints.size());
+        List<LinkedHashSet<IFeature>> referencedFeatures = new ArrayList<>(newConstraints.size());
+        for (Constraint constraint : newConstraints) {
+            IFormula formula = constraint.formula != null ? constraint.formula : Trees.clone(Expressions.True);
+            newFormulas.add(formula);
+            referencedFeatures.add(formula.getVariableStream()
+                    .map(Variable::getName)
+                    .map(name -> {
+                        IFeature feature = featureNameIndex.get(name);
+                        if (feature == null) {
+                            feature = newFeatureNameIndex.get(name);
+                            if (feature == null) {
+                                throw new IllegalArgumentException("encountered unknown feature " + name);
+                            }
+                        }
+                        return feature;
+                    })
+                    .collect(Sets.toSet()));
+        }
+
+        featureModel.beginEventBatch();
+        try {
+            featureModel.addFeatures(newFeatures);
+            for (IFeatureTree root : newRoots) {
+                featureModel.addFeatureTreeRoot(root);
+            }
+            for (Attachment attachment : attachments) {
+                attach(attachment.parent, attachment.child, attachment.index, attachment.groupID);
+            }
+            for (int i = 0; i < newConstraints.size(); i++) {
+                newConstraints.get(i).setFormula(newFormulas.get(i), referencedFeatures.get(i));
+            }
+            featureModel.addConstraints(newConstraints);
+        } finally {
+            featureModel.endEventBatch();
+        }
+        open = false;
+    }
+
+    private static IFeatureTree getRoot(IFeatureTree tree) {
+        IFeatureTree root = tree;
+        for (Result<IFeatureTree> parent = root.getParent(); parent.isPresent(); parent = root.getParent()) {
+            root = parent.get();
+        }
+        return root;
+    }
+
+    private static void checkAttachment(IFeatureTree parent, int index, int groupID, int childrenCount) {
+        if (index < -1 || index > childrenCount) {
+            throw new IllegalArgumentException(
+                    String.format("index %d out of range for parent %s with %d children", index, parent, childrenCount));
+        }
+        if (groupID < 0 || groupID >= parent.getGroups().size()) {
+            throw new IllegalArgumentException(String.format("parent %s has no group %d", parent, groupID));
+        }
+    }
+
+    private void attach(IFeatureTree parent, IFeatureTree child, int index, int groupID) {
+        if (index < 0) {
+            parent.mutate().addChild(child);
+        } else {
+            parent.mutate().addChild(index, child);
+        }
+        child.mutate().setGroupID(groupID);
+    }
+
+    private void checkOpen() {
+        if (!open) {
+            throw new IllegalStateException("batch was already committed");
+        }
+    }
+}
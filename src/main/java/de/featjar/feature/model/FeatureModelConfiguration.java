@@ -29,6 +29,15 @@ public class FeatureModelConfiguration {
         }
     }
 
+    /**
+     * Returns the feature model associated with this configuration.
+     *
+     * @return the feature model
+     */
+    public FeatureModel getFeatureModel() {
+        return featureModel;
+    }
+
     /**
      * Adds a feature to the configuration if it exists in the feature model.
      *
@@ -136,6 +145,39 @@ public class FeatureModelConfiguration {
         return selectableFeature;
     }
 
+    /**
+     * Returns the selection state of a feature, where a manual selection takes precedence over an automatic one.
+     *
+     * @param featureName the identifier of the feature
+     * @return the selection state of the feature
+     * @throws FeatureNotFoundException if the feature is not found
+     */
+    public Selection getSelection(String featureName) {
+        return getFeatureState(featureName).getSelection();
+    }
+
+    /**
+     * Returns the manual selection state of a feature.
+     *
+     * @param featureName the identifier of the feature
+     * @return the manual selection state of the feature
+     * @throws FeatureNotFoundException if the feature is not found
+     */
+    public Selection getManual(String featureName) {
+        return getFeatureState(featureName).getManual();
+    }
+
+    /**
+     * Returns the automatic selection state of a feature.
+     *
+     * @param featureName the identifier of the feature
+     * @return the automatic selection state of the feature
+     * @throws FeatureNotFoundException if the feature is not found
+     */
+    public Selection getAutomatic(String featureName) {
+        return getFeatureState(featureName).getAutomatic();
+    }
+
     public boolean isManualSelected(String featureName) {
         return getFeatureState(featureName).getManual() == Selection.SELECTED;
     }
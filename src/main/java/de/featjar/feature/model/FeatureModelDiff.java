@@ -0,0 +1,373 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model;
+
+import de.featjar.base.data.IAttributable;
+import de.featjar.base.data.IAttribute;
+import de.featjar.feature.model.FeatureTree.Group;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Computes the structural differences between two versions of a feature model.
+ * The differences are reported as {@link FeatureModelEvent events} that would transform the old into the new
+ * feature model, with the same sources and values as the events emitted by {@link FeatureModel} itself:
+ * feature events refer to the {@link IFeature}, tree events to the {@link IFeatureTree}, and constraint events to the
+ * {@link IConstraint} of the new model (or the old model for removed elements).
+ * For {@link FeatureModelEvent.Type#GROUP_CHANGED} and {@link FeatureModelEvent.Type#FEATURE_RANGE_CHANGED},
+ * the old and new values are the matching trees of the old and new model.
+ * <p>
+ * Features are matched by name, constraints by formula and then by name, all through hash indexes.
+ * Identifiers are not used, as they differ between a feature model and its clones,
+ * so a renamed feature is reported as removed and added.
+ * Unnamed elements are still matched by their default name, which is derived from their identifier.
+ * Subtrees with equal {@link FeatureModelDigest digests} are matched without comparing them further,
+ * so the running time is linear in the size of the models and, in practice, dominated by computing the digests.
+ * Only features in the feature tree are compared, and the order of siblings is ignored.
+ */
+public class FeatureModelDiff {
+
+    private final IFeatureModel oldFeatureModel;
+    private final IFeatureModel newFeatureModel;
+    private final FeatureModelDigest oldDigest;
+    private final FeatureModelDigest newDigest;
+    private final IdentityHashMap<IFeatureTree, IFeatureTree> oldToNew = new IdentityHashMap<>();
+    private final IdentityHashMap<IFeatureTree, IFeatureTree> newToOld = new IdentityHashMap<>();
+    private final Set<IFeatureTree> identicalSubtrees = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final List<FeatureModelEvent> changes = new ArrayList<>();
+
+    private HashMap<String, IFeatureTree> oldTreesByName;
+
+    /**
+     * Computes the differences between two feature models.
+     *
+     * @param oldFeatureModel the old feature model
+     * @param newFeatureModel the new feature model
+     * @return the list of changes, which is empty if both feature models are structurally equal
+     */
+    public static List<FeatureModelEvent> compute(IFeatureModel oldFeatureModel, IFeatureModel newFeatureModel) {
+        return new FeatureModelDiff(oldFeatureModel, newFeatureModel).compute();
+    }
+
+    private FeatureModelDiff(IFeatureModel oldFeatureModel, IFeatureModel newFeatureModel) {
+        this.oldFeatureModel = Objects.requireNonNull(oldFeatureModel);
+        this.newFeatureModel = Objects.requireNonNull(newFeatureModel);
+        oldDigest = new FeatureModelDigest(oldFeatureModel);
+        newDigest = new FeatureModelDigest(newFeatureModel);
+    }
+
+    private List<FeatureModelEvent> compute() {
+        try {
+            if (Arrays.equals(oldDigest.getDigest(), newDigest.getDigest())) {
+                return changes;
+            }
+            indexOldTrees();
+            matchTrees();
+            compareTrees();
+            compareConstraints();
+            compareAttributes(oldFeatureModel, newFeatureModel, newFeatureModel);
+            return changes;
+        } finally {
+            oldDigest.close();
+            newDigest.close();
+        }
+    }
+
+    private void indexOldTrees() {
+        int size = 2 * oldFeatureModel.getNumberOfFeatures();
+        oldTreesByName = new HashMap<>(size);
+        for (IFeatureTree tree : preOrder(oldFeatureModel)) {
+            IFeature feature = tree.getFeature();
+            feature.getName().ifPresent(name -> oldTreesByName.putIfAbsent(name, tree));
+        }
+    }
+
+    private void matchTrees() {
+        ArrayDeque<IFeatureTree> stack = new ArrayDeque<>();
+        pushChildren(stack, newFeatureModel.getRoots());
+        while (!stack.isEmpty()) {
+            IFeatureTree newTree = stack.pop();
+            IFeatureTree oldTree = findOldTree(newTree.getFeature());
+            if (oldTree != null) {
+                oldToNew.put(oldTree, newTree);
+                newToOld.put(newTree, oldTree);
+                if (Arrays.equals(oldDigest.getTreeDigest(oldTree), newDigest.getTreeDigest(newTree))
+                        && matchIdenticalSubtrees(oldTree, newTree, stack)) {
+                    identicalSubtrees.add(newTree);
+                    continue;
+                }
+            }
+            pushChildren(stack, newTree.getChildren());
+        }
+    }
+
+    private IFeatureTree findOldTree(IFeature newFeature) {
+        IFeatureTree oldTree = newFeature.getName().map(oldTreesByName::get).orElse(null);
+        return oldTree == null || oldToNew.containsKey(oldTree) ? null : oldTree;
+    }
+
+    /**
+     * Matches the descendants of two subtrees with equal digests position by position.
+     * Descendants whose old counterpart is already matched are pushed to the stack to be matched individually.
+     *
+     * @return whether all descendants could be matched
+     */
+    private boolean matchIdenticalSubtrees(IFeatureTree oldRoot, IFeatureTree newRoot, ArrayDeque<IFeatureTree> stack) {
+        boolean complete = true;
+        ArrayDeque<IFeatureTree> pairs = new ArrayDeque<>();
+        pairs.push(oldRoot);
+        pairs.push(newRoot);
+        while (!pairs.isEmpty()) {
+            List<? extends IFeatureTree> newChildren = pairs.pop().getChildren();
+            List<? extends IFeatureTree> oldChildren = pairs.pop().getChildren();
+            for (int i = 0; i < newChildren.size(); i++) {
+                IFeatureTree oldTree = oldChildren.get(i);
+                IFeatureTree newTree = newChildren.get(i);
+                if (oldToNew.containsKey(oldTree)) {
+                    complete = false;
+                    stack.push(newTree);
+                } else {
+                    oldToNew.put(oldTree, newTree);
+                    newToOld.put(newTree, oldTree);
+                    pairs.push(oldTree);
+                    pairs.push(newTree);
+                }
+            }
+        }
+        return complete;
+    }
+
+    private void compareTrees() {
+        ArrayDeque<IFeatureTree> stack = new ArrayDeque<>();
+        pushChildren(stack, newFeatureModel.getRoots());
+        while (!stack.isEmpty()) {
+            IFeatureTree newTree = stack.pop();
+            IFeatureTree oldTree = newToOld.get(newTree);
+            if (oldTree == null) {
+                changes.add(new FeatureModelEvent(FeatureModelEvent.Type.FEATURE_ADDED, newTree.getFeature()));
+            } else {
+                IFeatureTree oldParent = oldTree.getParent().orElse(null);
+                IFeatureTree newParent = newTree.getParent().orElse(null);
+                if (oldParent == null ? newParent != null : oldToNew.get(oldParent) != newParent) {
+                    changes.add(new FeatureModelEvent(
+                            FeatureModelEvent.Type.FEATURE_MOVED, newTree, oldParent, newParent));
+                }
+                if (identicalSubtrees.contains(newTree)) {
+                    continue;
+                }
+                compareTree(oldTree, newTree);
+            }
+            pushChildren(stack, newTree.getChildren());
+        }
+        for (IFeatureTree oldTree : preOrder(oldFeatureModel)) {
+            if (!oldToNew.containsKey(oldTree)) {
+                changes.add(new FeatureModelEvent(FeatureModelEvent.Type.FEATURE_REMOVED, oldTree.getFeature()));
+            }
+        }
+    }
+
+    private void compareTree(IFeatureTree oldTree, IFeatureTree newTree) {
+        IFeature oldFeature = oldTree.getFeature();
+        IFeature newFeature = newTree.getFeature();
+        if (!Objects.equals(oldFeature.getType(), newFeature.getType())) {
+            changes.add(new FeatureModelEvent(
+                    FeatureModelEvent.Type.TYPE_CHANGED, newFeature, oldFeature.getType(), newFeature.getType()));
+        }
+        compareAttributes(oldFeature, newFeature, newFeature);
+        if (oldTree.getFeatureRangeLowerBound() != newTree.getFeatureRangeLowerBound()
+                || oldTree.getFeatureRangeUpperBound() != newTree.getFeatureRangeUpperBound()) {
+            changes.add(new FeatureModelEvent(FeatureModelEvent.Type.FEATURE_RANGE_CHANGED, newTree, oldTree, newTree));
+        }
+        if (!equalGroups(oldTree.getGroups(), newTree.getGroups()) || hasGroupMembershipChanged(newTree)) {
+            changes.add(new FeatureModelEvent(FeatureModelEvent.Type.GROUP_CHANGED, newTree, oldTree, newTree));
+        }
+        compareAttributes(oldTree, newTree, newTree);
+    }
+
+    private boolean hasGroupMembershipChanged(IFeatureTree newTree) {
+        for (IFeatureTree newChild : newTree.getChildren()) {
+            IFeatureTree oldChild = newToOld.get(newChild);
+            if (oldChild != null
+                    && oldChild.getParent().orElse(null) == newToOld.get(newTree)
+                    && oldChild.getGroupID() != newChild.getGroupID()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean equalGroups(List<Group> oldGroups, List<Group> newGroups) {
+        if (oldGroups.size() != newGroups.size()) {
+            return false;
+        }
+        for (int i = 0; i < oldGroups.size(); i++) {
+            Group oldGroup = oldGroups.get(i);
+            Group newGroup = newGroups.get(i);
+            if (oldGroup.getLowerBound() != newGroup.getLowerBound()
+                    || oldGroup.getUpperBound() != newGroup.getUpperBound()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void compareConstraints() {
+        Collection<IConstraint> oldConstraints = oldFeatureModel.getConstraints();
+        HashMap<ByteBuffer, LinkedList<IConstraint>> oldByFormula = new HashMap<>(2 * oldConstraints.size());
+        HashMap<String, IConstraint> oldByName = new HashMap<>();
+        IdentityHashMap<IConstraint, ByteBuffer> oldFormulaDigests = new IdentityHashMap<>();
+        IdentityHashMap<IConstraint, ByteBuffer> newFormulaDigests = new IdentityHashMap<>();
+        for (IConstraint constraint : oldConstraints) {
+            oldByFormula
+                    .computeIfAbsent(
+                            getFormulaDigest(oldDigest, oldFormulaDigests, constraint), k -> new LinkedList<>())
+                    .add(constraint);
+            constraint.getName().ifPresent(name -> oldByName.putIfAbsent(name, constraint));
+        }
+        Set<IConstraint> matched = Collections.newSetFromMap(new IdentityHashMap<>());
+        LinkedHashMap<IConstraint, IConstraint> newToOldConstraints = new LinkedHashMap<>();
+        List<IConstraint> unmatched = new ArrayList<>();
+        for (IConstraint newConstraint : newFeatureModel.getConstraints()) {
+            IConstraint oldConstraint = null;
+            LinkedList<IConstraint> candidates =
+                    oldByFormula.get(getFormulaDigest(newDigest, newFormulaDigests, newConstraint));
+            while (candidates != null && !candidates.isEmpty() && oldConstraint == null) {
+                IConstraint candidate = candidates.removeFirst();
+                if (!matched.contains(candidate)) {
+                    oldConstraint = candidate;
+                }
+            }
+            if (oldConstraint == null) {
+                unmatched.add(newConstraint);
+            } else {
+                matched.add(oldConstraint);
+                newToOldConstraints.put(newConstraint, oldConstraint);
+            }
+        }
+        for (IConstraint newConstraint : unmatched) {
+            IConstraint oldConstraint = newConstraint.getName().map(oldByName::get).orElse(null);
+            if (oldConstraint != null && !matched.contains(oldConstraint)) {
+                matched.add(oldConstraint);
+                newToOldConstraints.put(newConstraint, oldConstraint);
+            }
+        }
+        for (IConstraint newConstraint : newFeatureModel.getConstraints()) {
+            IConstraint oldConstraint = newToOldConstraints.get(newConstraint);
+            if (oldConstraint == null) {
+                changes.add(new FeatureModelEvent(FeatureModelEvent.Type.CONSTRAINT_ADDED, newConstraint));
+            } else if (!Arrays.equals(oldDigest.getDigest(oldConstraint), newDigest.getDigest(newConstraint))) {
+                if (!getFormulaDigest(oldDigest, oldFormulaDigests, oldConstraint)
+                        .equals(getFormulaDigest(newDigest, newFormulaDigests, newConstraint))) {
+                    changes.add(new FeatureModelEvent(
+                            FeatureModelEvent.Type.CONSTRAINT_CHANGED,
+                            newConstraint,
+                            oldConstraint.getSharedFormula(),
+                            newConstraint.getSharedFormula()));
+                }
+                compareAttributes(oldConstraint, newConstraint, newConstraint);
+            }
+        }
+        for (IConstraint oldConstraint : oldConstraints) {
+            if (!matched.contains(oldConstraint)) {
+                changes.add(new FeatureModelEvent(FeatureModelEvent.Type.CONSTRAINT_REMOVED, oldConstraint));
+            }
+        }
+    }
+
+    private static ByteBuffer getFormulaDigest(
+            FeatureModelDigest digest, IdentityHashMap<IConstraint, ByteBuffer> formulaDigests, IConstraint constraint) {
+        return formulaDigests.computeIfAbsent(
+                constraint,
+                c -> ByteBuffer.wrap(digest.getFormulaDigest(c.getSharedFormula())));
+    }
+
+    private void compareAttributes(IAttributable oldElement, IAttributable newElement, Object source) {
+        Map<String, Entry<IAttribute<?>, Object>> oldAttributes = indexAttributes(oldElement);
+        Map<String, Entry<IAttribute<?>, Object>> newAttributes = indexAttributes(newElement);
+        for (Entry<String, Entry<IAttribute<?>, Object>> entry : newAttributes.entrySet()) {
+            Entry<IAttribute<?>, Object> newAttribute = entry.getValue();
+            Entry<IAttribute<?>, Object> oldAttribute = oldAttributes.get(entry.getKey());
+            Object oldValue = oldAttribute == null ? null : oldAttribute.getValue();
+            if (!Objects.equals(oldValue, newAttribute.getValue())) {
+                changes.add(new FeatureModelEvent(
+                        FeatureModelEvent.Type.ATTRIBUTE_CHANGED,
+                        source,
+                        newAttribute.getKey(),
+                        oldValue,
+                        newAttribute.getValue()));
+            }
+        }
+        for (Entry<String, Entry<IAttribute<?>, Object>> entry : oldAttributes.entrySet()) {
+            if (!newAttributes.containsKey(entry.getKey())) {
+                Entry<IAttribute<?>, Object> oldAttribute = entry.getValue();
+                changes.add(new FeatureModelEvent(
+                        FeatureModelEvent.Type.ATTRIBUTE_CHANGED,
+                        source,
+                        oldAttribute.getKey(),
+                        oldAttribute.getValue(),
+                        null));
+            }
+        }
+    }
+
+    private static Map<String, Entry<IAttribute<?>, Object>> indexAttributes(IAttributable element) {
+        Map<IAttribute<?>, Object> attributes = element.getAttributes().orElse(null);
+        if (attributes == null || attributes.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        LinkedHashMap<String, Entry<IAttribute<?>, Object>> index = new LinkedHashMap<>(2 * attributes.size());
+        for (Entry<IAttribute<?>, Object> entry : attributes.entrySet()) {
+            index.put(entry.getKey().getNamespace() + ":" + entry.getKey().getName(), entry);
+        }
+        return index;
+    }
+
+    private static void pushChildren(ArrayDeque<IFeatureTree> stack, List<? extends IFeatureTree> children) {
+        for (int i = children.size() - 1; i >= 0; i--) {
+            stack.push(children.get(i));
+        }
+    }
+
+    private static List<IFeatureTree> preOrder(IFeatureModel featureModel) {
+        List<IFeatureTree> trees = new ArrayList<>(featureModel.getNumberOfFeatures());
+        ArrayDeque<IFeatureTree> stack = new ArrayDeque<>();
+        pushChildren(stack, featureModel.getRoots());
+        while (!stack.isEmpty()) {
+            IFeatureTree tree = stack.pop();
+            trees.add(tree);
+            pushChildren(stack, tree.getChildren());
+        }
+        return trees;
+    }
+}
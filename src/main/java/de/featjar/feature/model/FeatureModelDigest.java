@@ -0,0 +1,323 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model;
+
+import de.featjar.base.data.IAttributable;
+import de.featjar.base.data.IAttribute;
+import de.featjar.feature.model.FeatureTree.Group;
+import de.featjar.formula.structure.IExpression;
+import de.featjar.formula.structure.connective.AtLeast;
+import de.featjar.formula.structure.connective.AtMost;
+import de.featjar.formula.structure.connective.Between;
+import de.featjar.formula.structure.connective.Choose;
+import de.featjar.formula.structure.predicate.Literal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Computes content-based digests of feature trees, constraints, and feature models, in the manner of a Merkle tree.
+ * The digest of a feature tree covers the name, type, and attributes of its feature, its feature range,
+ * its groups and group membership, its own attributes, and the digests of its children in order.
+ * The digest of a constraint covers its formula and attributes;
+ * the digest of a feature model covers the digests of its roots and constraints and its attributes.
+ * Identifiers are not covered, so structurally equal models have equal digests, even across processes.
+ * <p>
+ * Digests are cached and, while the digest is attached to a {@link FeatureModel}, maintained incrementally:
+ * a change invalidates only the digests of the changed element and its ancestors, which are recomputed on demand.
+ * Features that are not part of the feature tree are not covered.
+ */
+public class FeatureModelDigest implements IFeatureModelListener, AutoCloseable {
+
+    private static final String ALGORITHM = "SHA-256";
+
+    private static final Comparator<Entry<IAttribute<?>, Object>> ATTRIBUTE_ORDER = Comparator.comparing(
+                    (Entry<IAttribute<?>, Object> entry) -> entry.getKey().getNamespace())
+            .thenComparing(entry -> entry.getKey().getName());
+
+    private final IFeatureModel featureModel;
+    private final MessageDigest messageDigest;
+    private final IdentityHashMap<IFeatureTree, byte[]> treeDigests = new IdentityHashMap<>();
+    private final IdentityHashMap<IConstraint, byte[]> constraintDigests = new IdentityHashMap<>();
+    private byte[] modelDigest;
+
+    /**
+     * Creates a digest for a feature model.
+     * If the feature model is a {@link FeatureModel}, the digest observes it until {@link #close() closed}.
+     * Otherwise, it must be {@link #invalidate() invalidated} manually after changes.
+     *
+     * @param featureModel the feature model
+     */
+    public FeatureModelDigest(IFeatureModel featureModel) {
+        this.featureModel = featureModel;
+        try {
+            messageDigest = MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        if (featureModel instanceof FeatureModel) {
+            ((FeatureModel) featureModel).addListener(this);
+        }
+    }
+
+    /**
+     * Computes the digest of a feature model once, without observing it.
+     *
+     * @param featureModel the feature model
+     * @return the digest
+     */
+    public static byte[] of(IFeatureModel featureModel) {
+        FeatureModelDigest digest = new FeatureModelDigest(featureModel);
+        try {
+            return digest.getDigest();
+        } finally {
+            digest.close();
+        }
+    }
+
+    /**
+     * @param digest a digest
+     * @return the digest as lowercase hexadecimal string
+     */
+    public static String toHexString(byte[] digest) {
+        StringBuilder stringBuilder = new StringBuilder(2 * digest.length);
+        for (byte b : digest) {
+            stringBuilder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return stringBuilder.toString();
+    }
+
+    /**
+     * @return the digest of the feature model
+     */
+    public synchronized byte[] getDigest() {
+        return getModelDigest().clone();
+    }
+
+    /**
+     * @param tree a feature tree of the feature model
+     * @return the digest of the feature tree
+     */
+    public synchronized byte[] getDigest(IFeatureTree tree) {
+        return getTreeDigest(tree).clone();
+    }
+
+    /**
+     * @param constraint a constraint of the feature model
+     * @return the digest of the constraint
+     */
+    public synchronized byte[] getDigest(IConstraint constraint) {
+        return getConstraintDigest(constraint).clone();
+    }
+
+    /**
+     * Returns the cached digest of a feature tree without copying it.
+     * The returned array must not be modified.
+     */
+    byte[] getTreeDigest(IFeatureTree tree) {
+        byte[] digest = treeDigests.get(tree);
+        if (digest == null) {
+            List<? extends IFeatureTree> children = tree.getChildren();
+            List<byte[]> childDigests = new ArrayList<>(children.size());
+            for (IFeatureTree child : children) {
+                childDigests.add(getTreeDigest(child));
+            }
+            IFeature feature = tree.getFeature();
+            update('T');
+            update(feature.getName().orElse(""));
+            Class<?> type = feature.getType();
+            update(type == null ? "" : type.getName());
+            update(feature);
+            update(tree.getFeatureRangeLowerBound());
+            update(tree.getFeatureRangeUpperBound());
+            update(tree.getGroupID());
+            List<Group> groups = tree.getGroups();
+            update(groups.size());
+            for (Group group : groups) {
+                update(group.getLowerBound());
+                update(group.getUpperBound());
+            }
+            update(tree);
+            update(childDigests.size());
+            for (byte[] childDigest : childDigests) {
+                messageDigest.update(childDigest);
+            }
+            digest = messageDigest.digest();
+            treeDigests.put(tree, digest);
+        }
+        return digest;
+    }
+
+    private byte[] getConstraintDigest(IConstraint constraint) {
+        byte[] digest = constraintDigests.get(constraint);
+        if (digest == null) {
+            update('C');
+            update(constraint.getSharedFormula());
+            update(constraint);
+            digest = messageDigest.digest();
+            constraintDigests.put(constraint, digest);
+        }
+        return digest;
+    }
+
+    /**
+     * Computes the digest of a formula without caching it.
+     */
+    synchronized byte[] getFormulaDigest(IExpression expression) {
+        update('F');
+        update(expression);
+        return messageDigest.digest();
+    }
+
+    private byte[] getModelDigest() {
+        if (modelDigest == null) {
+            List<byte[]> digests = new ArrayList<>();
+            for (IFeatureTree root : featureModel.getRoots()) {
+                digests.add(getTreeDigest(root));
+            }
+            int numberOfRoots = digests.size();
+            for (IConstraint constraint : featureModel.getConstraints()) {
+                digests.add(getConstraintDigest(constraint));
+            }
+            update('M');
+            update(numberOfRoots);
+            update(digests.size() - numberOfRoots);
+            for (byte[] digest : digests) {
+                messageDigest.update(digest);
+            }
+            update(featureModel);
+            modelDigest = messageDigest.digest();
+        }
+        return modelDigest;
+    }
+
+    private void update(int value) {
+        messageDigest.update((byte) (value >>> 24));
+        messageDigest.update((byte) (value >>> 16));
+        messageDigest.update((byte) (value >>> 8));
+        messageDigest.update((byte) value);
+    }
+
+    private void update(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        update(bytes.length);
+        messageDigest.update(bytes);
+    }
+
+    private void update(IAttributable attributable) {
+        Map<IAttribute<?>, Object> attributes = attributable.getAttributes().orElse(null);
+        if (attributes == null) {
+            update(0);
+            return;
+        }
+        List<Entry<IAttribute<?>, Object>> entries = new ArrayList<>(attributes.entrySet());
+        entries.sort(ATTRIBUTE_ORDER);
+        update(entries.size());
+        for (Entry<IAttribute<?>, Object> entry : entries) {
+            update(entry.getKey().getNamespace());
+            update(entry.getKey().getName());
+            update(String.valueOf(entry.getValue()));
+        }
+    }
+
+    private void update(IExpression expression) {
+        update(expression.getClass().getName());
+        update(String.valueOf(expression.getName()));
+        if (expression instanceof Literal) {
+            update(((Literal) expression).isPositive() ? 1 : 0);
+        } else if (expression instanceof AtLeast) {
+            update(((AtLeast) expression).getBound());
+        } else if (expression instanceof AtMost) {
+            update(((AtMost) expression).getBound());
+        } else if (expression instanceof Choose) {
+            update(((Choose) expression).getBound());
+        } else if (expression instanceof Between) {
+            update(((Between) expression).getMinimum());
+            update(((Between) expression).getMaximum());
+        }
+        List<? extends IExpression> children = expression.getChildren();
+        update(children.size());
+        for (IExpression child : children) {
+            update(child);
+        }
+    }
+
+    /**
+     * Invalidates all cached digests.
+     */
+    public synchronized void invalidate() {
+        treeDigests.clear();
+        constraintDigests.clear();
+        modelDigest = null;
+    }
+
+    @Override
+    public synchronized void onChange(List<FeatureModelEvent> events) {
+        for (FeatureModelEvent event : events) {
+            Object source = event.getSource();
+            switch (event.getType()) {
+                case FEATURE_MOVED:
+                    invalidatePath(event.getOldValue());
+                    invalidatePath(event.getNewValue());
+                    break;
+                case CONSTRAINT_CHANGED:
+                case CONSTRAINT_REMOVED:
+                    constraintDigests.remove(source);
+                    break;
+                default:
+                    if (source instanceof IFeature) {
+                        ((IFeature) source).getFeatureTree().ifPresent(this::invalidatePath);
+                    } else if (source instanceof IFeatureTree) {
+                        invalidatePath(source);
+                    } else if (source instanceof IConstraint) {
+                        constraintDigests.remove(source);
+                    }
+                    break;
+            }
+            modelDigest = null;
+        }
+    }
+
+    private void invalidatePath(Object tree) {
+        if (tree instanceof IFeatureTree) {
+            IFeatureTree node = (IFeatureTree) tree;
+            while (treeDigests.remove(node) != null && node.hasParent()) {
+                node = node.getParent().get();
+            }
+        }
+    }
+
+    /**
+     * Stops observing the feature model.
+     */
+    @Override
+    public void close() {
+        if (featureModel instanceof FeatureModel) {
+            ((FeatureModel) featureModel).removeListener(this);
+        }
+    }
+}
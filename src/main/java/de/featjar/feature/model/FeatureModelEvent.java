@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model;
+
+import de.featjar.base.data.IAttribute;
+import de.featjar.base.data.Result;
+import java.util.Objects;
+
+/**
+ * Describes a single change of a {@link FeatureModel}, as emitted to {@link IFeatureModelListener listeners}.
+ * The source of an event is the changed {@link IFeatureModel}, {@link IFeature}, {@link IConstraint},
+ * or {@link IFeatureTree}.
+ * Depending on the type, an event carries the old and new value of the changed property.
+ */
+public class FeatureModelEvent {
+
+    public enum Type {
+        /** A feature was added to the feature model. */
+        FEATURE_ADDED,
+        /** A feature was removed from the feature model. */
+        FEATURE_REMOVED,
+        /** A feature tree was attached to a new parent (old and new values are the parent trees, possibly null). */
+        FEATURE_MOVED,
+        /** A feature tree was added as root of the feature model. */
+        ROOT_ADDED,
+        /** A feature tree was removed as root of the feature model. */
+        ROOT_REMOVED,
+        /** The groups of a feature tree or the group membership of its children changed. */
+        GROUP_CHANGED,
+        /** The feature range (i.e., mandatory or optional) of a feature tree changed. */
+        FEATURE_RANGE_CHANGED,
+        /** A constraint was added to the feature model. */
+        CONSTRAINT_ADDED,
+        /** A constraint was removed from the feature model. */
+        CONSTRAINT_REMOVED,
+        /** The formula of a constraint changed (old and new values are the formulas). */
+        CONSTRAINT_CHANGED,
+        /** An attribute value was set or removed (old and new values are the attribute values, possibly null). */
+        ATTRIBUTE_CHANGED,
+        /** The type of a feature changed (old and new values are the types). */
+        TYPE_CHANGED
+    }
+
+    protected final Type type;
+    protected final Object source;
+    protected final IAttribute<?> attribute;
+    protected final Object oldValue;
+    protected final Object newValue;
+
+    public FeatureModelEvent(Type type, Object source) {
+        this(type, source, null, null, null);
+    }
+
+    public FeatureModelEvent(Type type, Object source, Object oldValue, Object newValue) {
+        this(type, source, null, oldValue, newValue);
+    }
+
+    public FeatureModelEvent(Type type, Object source, IAttribute<?> attribute, Object oldValue, Object newValue) {
+        this.type = Objects.requireNonNull(type);
+        this.source = Objects.requireNonNull(source);
+        this.attribute = attribute;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Object getSource() {
+        return source;
+    }
+
+    public Result<IAttribute<?>> getAttribute() {
+        return Result.ofNullable(attribute);
+    }
+
+    public Object getOldValue() {
+        return oldValue;
+    }
+
+    public Object getNewValue() {
+        return newValue;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "FeatureModelEvent{type=%s, source=%s, attribute=%s, oldValue=%s, newValue=%s}",
+                type, source, attribute, oldValue, newValue);
+    }
+}
@@ -0,0 +1,577 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model;
+
+import de.featjar.base.data.Attribute;
+import de.featjar.base.data.IAttributable.IMutatableAttributable;
+import de.featjar.base.data.Range;
+import de.featjar.base.data.Result;
+import de.featjar.feature.model.FeatureTree.Group;
+import de.featjar.formula.structure.IFormula;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Mutates a {@link FeatureModel} and records each mutation as a small delta, such that it can be undone and redone
+ * without copying the feature model.
+ * A delta only holds references to the changed elements and the replaced values.
+ * The journal keeps at most a given number of deltas, older deltas are discarded.
+ * Mutations that bypass the journal are not recorded and must not interleave with journaled mutations
+ * of the same elements.
+ */
+public class FeatureModelJournal {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 1000;
+
+    private abstract static class Delta {
+        private long sequenceNumber;
+
+        abstract void undo();
+
+        abstract void redo();
+    }
+
+    protected final FeatureModel featureModel;
+    protected final int maximumSize;
+
+    private final ArrayDeque<Delta> undoDeltas = new ArrayDeque<>();
+    private final ArrayDeque<Delta> redoDeltas = new ArrayDeque<>();
+    private long nextSequenceNumber = 1;
+    private long discardedSequenceNumber = 0;
+
+    public FeatureModelJournal(FeatureModel featureModel) {
+        this(featureModel, DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * Creates a journal for the given feature model.
+     *
+     * @param featureModel the feature model
+     * @param maximumSize the maximum number of deltas that can be undone
+     */
+    public FeatureModelJournal(FeatureModel featureModel, int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException(String.format("maximum size must be positive (%d)", maximumSize));
+        }
+        this.featureModel = Objects.requireNonNull(featureModel);
+        this.maximumSize = maximumSize;
+    }
+
+    public FeatureModel getFeatureModel() {
+        return featureModel;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public int getNumberOfUndoableDeltas() {
+        return undoDeltas.size();
+    }
+
+    public int getNumberOfRedoableDeltas() {
+        return redoDeltas.size();
+    }
+
+    public boolean canUndo() {
+        return !undoDeltas.isEmpty();
+    }
+
+    public boolean canRedo() {
+        return !redoDeltas.isEmpty();
+    }
+
+    public void undo() {
+        if (undoDeltas.isEmpty()) {
+            throw new IllegalStateException("nothing to undo");
+        }
+        Delta delta = undoDeltas.removeLast();
+        delta.undo();
+        redoDeltas.addLast(delta);
+    }
+
+    public void redo() {
+        if (redoDeltas.isEmpty()) {
+            throw new IllegalStateException("nothing to redo");
+        }
+        Delta delta = redoDeltas.removeLast();
+        delta.redo();
+        undoDeltas.addLast(delta);
+    }
+
+    /**
+     * Marks the current state of the feature model.
+     *
+     * @return a checkpoint that can be passed to {@link #rollback(long)}
+     */
+    public long checkpoint() {
+        return undoDeltas.isEmpty() ? discardedSequenceNumber : undoDeltas.getLast().sequenceNumber;
+    }
+
+    /**
+     * Undoes all deltas recorded after the given checkpoint.
+     * The rolled back deltas can be redone.
+     *
+     * @param checkpoint the checkpoint
+     * @throws IllegalStateException if the checkpoint was discarded or was undone and replaced by other deltas
+     */
+    public void rollback(long checkpoint) {
+        if (!isReachable(checkpoint)) {
+            throw new IllegalStateException(String.format("checkpoint %d is not in the journal", checkpoint));
+        }
+        while (!undoDeltas.isEmpty() && undoDeltas.getLast().sequenceNumber > checkpoint) {
+            undo();
+        }
+    }
+
+    /**
+     * Discards all recorded deltas.
+     */
+    public void clear() {
+        if (!undoDeltas.isEmpty()) {
+            discardedSequenceNumber = undoDeltas.getLast().sequenceNumber;
+        }
+        undoDeltas.clear();
+        redoDeltas.clear();
+    }
+
+    private boolean isReachable(long checkpoint) {
+        if (checkpoint == discardedSequenceNumber) {
+            return true;
+        }
+        for (Iterator<Delta> it = undoDeltas.descendingIterator(); it.hasNext(); ) {
+            long sequenceNumber = it.next().sequenceNumber;
+            if (sequenceNumber <= checkpoint) {
+                return sequenceNumber == checkpoint;
+            }
+        }
+        return false;
+    }
+
+    private void record(Delta delta) {
+        delta.sequenceNumber = nextSequenceNumber++;
+        redoDeltas.clear();
+        if (undoDeltas.size() == maximumSize) {
+            discardedSequenceNumber = undoDeltas.removeFirst().sequenceNumber;
+        }
+        undoDeltas.addLast(delta);
+    }
+
+    public IFeature addFeature(String name) {
+        IFeature feature = featureModel.addFeature(name);
+        record(new Delta() {
+            @Override
+            void undo() {
+                featureModel.removeFeature(feature);
+            }
+
+            @Override
+            void redo() {
+                featureModel.addFeatures(List.of(feature));
+            }
+        });
+        return feature;
+    }
+
+    public boolean removeFeature(IFeature feature) {
+        if (!featureModel.removeFeature(feature)) {
+            return false;
+        }
+        record(new Delta() {
+            @Override
+            void undo() {
+                featureModel.addFeatures(List.of(feature));
+            }
+
+            @Override
+            void redo() {
+                featureModel.removeFeature(feature);
+            }
+        });
+        return true;
+    }
+
+    public IConstraint addConstraint(IFormula formula) {
+        IConstraint constraint = featureModel.addConstraint(formula);
+        record(new Delta() {
+            @Override
+            void undo() {
+                featureModel.removeConstraint(constraint);
+            }
+
+            @Override
+            void redo() {
+                featureModel.addConstraints(List.of(constraint));
+            }
+        });
+        return constraint;
+    }
+
+    public boolean removeConstraint(IConstraint constraint) {
+        if (!featureModel.removeConstraint(constraint)) {
+            return false;
+        }
+        record(new Delta() {
+            @Override
+            void undo() {
+                featureModel.addConstraints(List.of(constraint));
+            }
+
+            @Override
+            void redo() {
+                featureModel.removeConstraint(constraint);
+            }
+        });
+        return true;
+    }
+
+    public void setFormula(IConstraint constraint, IFormula formula) {
+        IFormula oldFormula = constraint.getSharedFormula();
+        constraint.mutate().setFormula(formula);
+        IFormula newFormula = constraint.getSharedFormula();
+        record(new Delta() {
+            @Override
+            void undo() {
+                constraint.mutate().setFormula(oldFormula);
+            }
+
+            @Override
+            void redo() {
+                constraint.mutate().setFormula(newFormula);
+            }
+        });
+    }
+
+    public void setType(IFeature feature, Class<?> type) {
+        Class<?> oldType = feature.getType();
+        feature.mutate().setType(type);
+        record(new Delta() {
+            @Override
+            void undo() {
+                feature.mutate().setType(oldType);
+            }
+
+            @Override
+            void redo() {
+                feature.mutate().setType(type);
+            }
+        });
+    }
+
+    /**
+     * Sets an attribute value of a feature model, feature, constraint, or feature tree.
+     * A null value removes the attribute value.
+     *
+     * @param <S> the type of the attribute value
+     * @param element the element
+     * @param attribute the attribute
+     * @param value the new value
+     */
+    public <S> void setAttributeValue(IMutatableAttributable element, Attribute<S> attribute, S value) {
+        S oldValue = getStoredAttributeValue(element, attribute);
+        element.setAttributeValue(attribute, value);
+        record(new Delta() {
+            @Override
+            void undo() {
+                restoreAttributeValue(element, attribute, oldValue);
+            }
+
+            @Override
+            void redo() {
+                restoreAttributeValue(element, attribute, value);
+            }
+        });
+    }
+
+    public <S> void removeAttributeValue(IMutatableAttributable element, Attribute<S> attribute) {
+        setAttributeValue(element, attribute, null);
+    }
+
+    public void setName(IMutatableAttributable element, String name) {
+        setAttributeValue(element, Attributes.NAME, name);
+    }
+
+    public void setDescription(IMutatableAttributable element, String description) {
+        setAttributeValue(element, Attributes.DESCRIPTION, description);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <S> S getStoredAttributeValue(IMutatableAttributable element, Attribute<S> attribute) {
+        return (S) element.getAttributes().map(map -> map.get(attribute)).orElse(null);
+    }
+
+    private static <S> void restoreAttributeValue(IMutatableAttributable element, Attribute<S> attribute, S value) {
+        if (value == null) {
+            element.removeAttributeValue(attribute);
+        } else {
+            element.setAttributeValue(attribute, value);
+        }
+    }
+
+    public IFeatureTree addFeatureTreeRoot(IFeature feature) {
+        IFeatureTree featureTree = featureModel.addFeatureTreeRoot(feature);
+        int index = featureModel.getRoots().size() - 1;
+        record(new Delta() {
+            @Override
+            void undo() {
+                featureModel.removeFeatureTreeRoot(featureTree);
+            }
+
+            @Override
+            void redo() {
+                featureModel.addFeatureTreeRoot(index, featureTree);
+            }
+        });
+        return featureTree;
+    }
+
+    public void removeFeatureTreeRoot(IFeatureTree featureTree) {
+        int index = indexOf(featureModel.getRoots(), featureTree);
+        if (index < 0) {
+            throw new IllegalArgumentException("not a root of the feature model: " + featureTree);
+        }
+        featureModel.removeFeatureTreeRoot(featureTree);
+        record(new Delta() {
+            @Override
+            void undo() {
+                featureModel.addFeatureTreeRoot(index, featureTree);
+            }
+
+            @Override
+            void redo() {
+                featureModel.removeFeatureTreeRoot(featureTree);
+            }
+        });
+    }
+
+    public IFeatureTree addFeatureBelow(IFeatureTree parent, IFeature feature) {
+        return addFeatureBelow(parent, feature, parent.getChildrenCount(), 0);
+    }
+
+    public IFeatureTree addFeatureBelow(IFeatureTree parent, IFeature feature, int index, int groupID) {
+        IFeatureTree featureTree = parent.mutate().addFeatureBelow(feature, index, groupID);
+        record(new Delta() {
+            @Override
+            void undo() {
+                parent.mutate().removeChild(featureTree);
+            }
+
+            @Override
+            void redo() {
+                attach(parent, featureTree, index, groupID);
+            }
+        });
+        return featureTree;
+    }
+
+    /**
+     * Removes a feature tree, including its subtrees, from its parent.
+     * Its features remain in the feature model.
+     *
+     * @param featureTree the feature tree, which must not be a root
+     */
+    public void removeFeatureTree(IFeatureTree featureTree) {
+        IFeatureTree parent = getParent(featureTree);
+        int index = parent.getChildIndex(featureTree).orElseThrow();
+        int groupID = featureTree.getGroupID();
+        parent.mutate().removeChild(featureTree);
+        record(new Delta() {
+            @Override
+            void undo() {
+                attach(parent, featureTree, index, groupID);
+            }
+
+            @Override
+            void redo() {
+                parent.mutate().removeChild(featureTree);
+            }
+        });
+    }
+
+    /**
+     * Moves a feature tree, which must not be a root, to another parent.
+     *
+     * @param featureTree the feature tree
+     * @param newParent the new parent
+     * @param index the child index in the new parent
+     * @param groupID the group of the new parent the feature tree belongs to
+     */
+    public void moveFeatureTree(IFeatureTree featureTree, IFeatureTree newParent, int index, int groupID) {
+        IFeatureTree oldParent = getParent(featureTree);
+        int oldIndex = oldParent.getChildIndex(featureTree).orElseThrow();
+        int oldGroupID = featureTree.getGroupID();
+        oldParent.mutate().removeChild(featureTree);
+        attach(newParent, featureTree, index, groupID);
+        record(new Delta() {
+            @Override
+            void undo() {
+                newParent.mutate().removeChild(featureTree);
+                attach(oldParent, featureTree, oldIndex, oldGroupID);
+            }
+
+            @Override
+            void redo() {
+                oldParent.mutate().removeChild(featureTree);
+                attach(newParent, featureTree, index, groupID);
+            }
+        });
+    }
+
+    public void setFeatureRange(IFeatureTree featureTree, Range featureRange) {
+        Range oldFeatureRange =
+                Range.of(featureTree.getFeatureRangeLowerBound(), featureTree.getFeatureRangeUpperBound());
+        Range newFeatureRange = Range.copy(featureRange);
+        featureTree.mutate().setFeatureRange(newFeatureRange);
+        record(new Delta() {
+            @Override
+            void undo() {
+                featureTree.mutate().setFeatureRange(oldFeatureRange);
+            }
+
+            @Override
+            void redo() {
+                featureTree.mutate().setFeatureRange(newFeatureRange);
+            }
+        });
+    }
+
+    public void setMandatory(IFeatureTree featureTree) {
+        int upperBound = featureTree.getFeatureRangeUpperBound();
+        setFeatureRange(featureTree, Range.of(1, upperBound == 0 ? 1 : upperBound));
+    }
+
+    public void setOptional(IFeatureTree featureTree) {
+        setFeatureRange(featureTree, Range.of(0, featureTree.getFeatureRangeUpperBound()));
+    }
+
+    public void setGroupID(IFeatureTree featureTree, int groupID) {
+        int oldGroupID = featureTree.getGroupID();
+        featureTree.mutate().setGroupID(groupID);
+        record(new Delta() {
+            @Override
+            void undo() {
+                featureTree.mutate().setGroupID(oldGroupID);
+            }
+
+            @Override
+            void redo() {
+                featureTree.mutate().setGroupID(groupID);
+            }
+        });
+    }
+
+    /**
+     * Sets the range of the group the given feature tree belongs to.
+     *
+     * @param featureTree the feature tree
+     * @param groupRange the new group range
+     */
+    public void setGroupRange(IFeatureTree featureTree, Range groupRange) {
+        Group group = featureTree.getGroup();
+        // roots are in no group that could change
+        if (featureTree.getParent().isEmpty()
+                || (group.getLowerBound() == groupRange.getLowerBound()
+                        && group.getUpperBound() == groupRange.getUpperBound())) {
+            return;
+        }
+        Range oldGroupRange = Range.of(group.getLowerBound(), group.getUpperBound());
+        Range newGroupRange = Range.copy(groupRange);
+        featureTree.mutate().setGroupRange(newGroupRange);
+        record(new Delta() {
+            @Override
+            void undo() {
+                featureTree.mutate().setGroupRange(oldGroupRange);
+            }
+
+            @Override
+            void redo() {
+                featureTree.mutate().setGroupRange(newGroupRange);
+            }
+        });
+    }
+
+    public void setGroups(IFeatureTree featureTree, List<Group> groups) {
+        List<Group> oldGroups = copyGroups(featureTree.getGroups());
+        List<Group> newGroups = copyGroups(groups);
+        featureTree.mutate().setGroups(newGroups);
+        record(new Delta() {
+            @Override
+            void undo() {
+                featureTree.mutate().setGroups(oldGroups);
+            }
+
+            @Override
+            void redo() {
+                featureTree.mutate().setGroups(newGroups);
+            }
+        });
+    }
+
+    public void addGroup(IFeatureTree featureTree, Range groupRange) {
+        List<Group> oldGroups = copyGroups(featureTree.getGroups());
+        featureTree.mutate().addGroup(groupRange);
+        List<Group> newGroups = copyGroups(featureTree.getGroups());
+        record(new Delta() {
+            @Override
+            void undo() {
+                featureTree.mutate().setGroups(oldGroups);
+            }
+
+            @Override
+            void redo() {
+                featureTree.mutate().setGroups(newGroups);
+            }
+        });
+    }
+
+    private static List<Group> copyGroups(List<Group> groups) {
+        List<Group> copy = new ArrayList<>(groups.size() + 1);
+        for (Group group : groups) {
+            copy.add(group.clone());
+        }
+        return copy;
+    }
+
+    private static IFeatureTree getParent(IFeatureTree featureTree) {
+        Result<IFeatureTree> parent = featureTree.getParent();
+        if (parent.isEmpty()) {
+            throw new IllegalArgumentException("feature tree has no parent: " + featureTree);
+        }
+        return parent.get();
+    }
+
+    private static void attach(IFeatureTree parent, IFeatureTree child, int index, int groupID) {
+        parent.mutate().addChild(index, child);
+        child.mutate().setGroupID(groupID);
+    }
+
+    private static int indexOf(List<IFeatureTree> featureTrees, IFeatureTree featureTree) {
+        for (int i = 0; i < featureTrees.size(); i++) {
+            if (featureTrees.get(i) == featureTree) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -23,6 +23,7 @@ package de.featjar.feature.model;
 import de.featjar.base.data.Attribute;
 import de.featjar.base.data.IAttribute;
 import de.featjar.base.data.Range;
+import de.featjar.base.data.Result;
 import de.featjar.base.tree.structure.ARootedTree;
 import de.featjar.base.tree.structure.ITree;
 import de.featjar.feature.model.IFeatureTree.IMutableFeatureTree;
@@ -33,13 +34,20 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 public class FeatureTree extends ARootedTree<IFeatureTree> implements IMutableFeatureTree {
 
     public static final class Group {
         private Range groupRange;
 
+        /**
+         * The children of the owning feature tree that belong to this group, in child order.
+         * Updated by the owning {@link FeatureTree} whenever a child is added, removed, or changes its group.
+         */
+        private final List<IFeatureTree> features = new ArrayList<>();
+
+        private final List<IFeatureTree> featuresView = Collections.unmodifiableList(features);
+
         private Group(int lowerBound, int upperBound) {
             this.groupRange = Range.of(lowerBound, upperBound);
         }
@@ -101,12 +109,29 @@ public class FeatureTree extends ARootedTree<IFeatureTree> implements IMutableFe
         }
     }
 
+    /**
+     * The group of all root features.
+     * Shared by all roots and never modified, as a root feature is not part of any of its parent's groups.
+     */
+    private static final Group ROOT_GROUP = new Group(0, 1);
+
     protected final IFeature feature;
 
     protected int groupID;
 
     protected Range featureRange;
-    protected List<Group> groups;
+    protected final List<Group> groups;
+    protected final List<Group> groupsView;
+
+    private List<IFeatureTree> roots;
+
+    /**
+     * Whether this tree was attached to its feature model when its {@link FeatureModel#featureTreeVersion}
+     * was {@link #attachedVersion}.
+     */
+    private boolean attached;
+
+    private int attachedVersion = -1;
 
     protected LinkedHashMap<IAttribute<?>, Object> attributeValues;
 
@@ -114,6 +139,7 @@ public class FeatureTree extends ARootedTree<IFeatureTree> implements IMutableFe
         this.feature = Objects.requireNonNull(feature);
         featureRange = Range.of(0, 1);
         groups = new ArrayList<>(1);
+        groupsView = Collections.unmodifiableList(groups);
         groups.add(new Group(Range.atLeast(0)));
     }
 
@@ -121,6 +147,8 @@ public class FeatureTree extends ARootedTree<IFeatureTree> implements IMutableFe
         feature = otherFeatureTree.feature;
         groupID = otherFeatureTree.groupID;
         featureRange = otherFeatureTree.featureRange.clone();
+        groups = new ArrayList<>(otherFeatureTree.groups.size());
+        groupsView = Collections.unmodifiableList(groups);
         otherFeatureTree.groups.stream().map(Group::clone).forEach(groups::add);
         attributeValues = otherFeatureTree.cloneAttributes();
     }
@@ -132,7 +160,7 @@ public class FeatureTree extends ARootedTree<IFeatureTree> implements IMutableFe
 
     @Override
     public Group getGroup() {
-        return parent == null ? new Group(Range.of(0, 1)) : parent.getGroups().get(groupID);
+        return parent == null ? ROOT_GROUP : parent.getGroups().get(groupID);
     }
 
     @Override
@@ -142,18 +170,295 @@ public class FeatureTree extends ARootedTree<IFeatureTree> implements IMutableFe
 
     @Override
     public List<IFeatureTree> getGroupFeatures() {
-        return parent.getChildren().stream()
-                .filter(t -> t.getGroupID() == groupID)
-                .collect(Collectors.toList());
+        return parent == null ? getRoots() : parent.getGroupChildren(groupID);
+    }
+
+    @Override
+    public List<IFeatureTree> getGroupChildren(int groupID) {
+        return groups.get(groupID).featuresView;
+    }
+
+    @Override
+    public void addChild(IFeatureTree newChild) {
+        addChild(getChildrenCount(), newChild);
+    }
+
+    @Override
+    public void addChild(int index, IFeatureTree newChild) {
+        super.addChild(index, newChild);
+        insertGroupChild(newChild);
+    }
+
+    @Override
+    public void removeChild(IFeatureTree child) {
+        super.removeChild(child);
+        removeGroupChild(child, child.getGroupID());
+    }
+
+    @Override
+    public IFeatureTree removeChild(int index) {
+        IFeatureTree child = super.removeChild(index);
+        if (child != null) {
+            removeGroupChild(child, child.getGroupID());
+        }
+        return child;
+    }
+
+    @Override
+    public void replaceChild(IFeatureTree oldChild, IFeatureTree newChild) {
+        super.replaceChild(oldChild, newChild);
+        removeGroupChild(oldChild, oldChild.getGroupID());
+        insertGroupChild(newChild);
+    }
+
+    @Override
+    public void setChildren(List<? extends IFeatureTree> children) {
+        super.setChildren(children);
+        updateGroupChildren();
+    }
+
+    @Override
+    public void clearChildren() {
+        super.clearChildren();
+        for (Group group : groups) {
+            group.features.clear();
+        }
+    }
+
+    /**
+     * Rebuilds the children lists of all groups from scratch.
+     * Only used by operations that replace all children or groups at once.
+     */
+    private void updateGroupChildren() {
+        for (Group group : groups) {
+            group.features.clear();
+        }
+        for (IFeatureTree child : getChildren()) {
+            int childGroupID = child.getGroupID();
+            if (childGroupID < groups.size()) {
+                groups.get(childGroupID).features.add(child);
+            }
+        }
+    }
+
+    /**
+     * Collects the children of a newly added group.
+     *
+     * @param groupID the ID of the new group
+     */
+    private void addGroupChildren(int groupID) {
+        for (IFeatureTree child : getChildren()) {
+            if (child.getGroupID() == groupID) {
+                groups.get(groupID).features.add(child);
+            }
+        }
+    }
+
+    /**
+     * Inserts a child into the children list of its group, keeping child order.
+     * Appending the last child takes constant time.
+     *
+     * @param child the child, which must already be one of the children of this tree
+     */
+    private void insertGroupChild(IFeatureTree child) {
+        int childGroupID = child.getGroupID();
+        if (childGroupID < 0 || childGroupID >= groups.size()) {
+            return;
+        }
+        List<IFeatureTree> groupFeatures = groups.get(childGroupID).features;
+        List<? extends IFeatureTree> children = getChildren();
+        int childCount = children.size();
+        if (childCount > 0 && children.get(childCount - 1) == child) {
+            int groupSize = groupFeatures.size();
+            if (groupSize == 0 || groupFeatures.get(groupSize - 1) != child) {
+                groupFeatures.add(child);
+            }
+            return;
+        }
+        int position = 0;
+        for (IFeatureTree sibling : children) {
+            if (sibling == child) {
+                if (position == groupFeatures.size() || groupFeatures.get(position) != child) {
+                    groupFeatures.add(position, child);
+                }
+                return;
+            }
+            if (sibling.getGroupID() == childGroupID) {
+                position++;
+            }
+        }
+    }
+
+    /**
+     * Removes a child from the children list of a group, if it is contained.
+     * Removing the last member of a group takes constant time.
+     *
+     * @param child the child
+     * @param childGroupID the group the child belonged to
+     */
+    private void removeGroupChild(IFeatureTree child, int childGroupID) {
+        if (childGroupID < 0 || childGroupID >= groups.size()) {
+            return;
+        }
+        List<IFeatureTree> groupFeatures = groups.get(childGroupID).features;
+        for (int i = groupFeatures.size() - 1; i >= 0; i--) {
+            if (groupFeatures.get(i) == child) {
+                groupFeatures.remove(i);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void setParent(IFeatureTree newParent) {
+        IFeatureTree oldParent = parent;
+        super.setParent(newParent);
+        if (oldParent != newParent) {
+            IFeatureModel featureModel = feature.getFeatureModel();
+            if (featureModel instanceof FeatureModel) {
+                ((FeatureModel) featureModel).featureTreeVersion++;
+            }
+            FeatureModel observedFeatureModel = getObservedFeatureModel();
+            if (observedFeatureModel != null
+                    && (isAttached(observedFeatureModel, oldParent) || isAttached(observedFeatureModel, newParent))) {
+                observedFeatureModel.fireEvent(FeatureModelEvent.Type.FEATURE_MOVED, this, oldParent, newParent);
+            }
+        }
+    }
+
+    /**
+     * Returns the feature model of this tree's feature if it has listeners.
+     *
+     * @return the observed feature model, or null if there is no listener
+     */
+    private FeatureModel getObservedFeatureModel() {
+        IFeatureModel featureModel = feature.getFeatureModel();
+        if (featureModel instanceof FeatureModel && ((FeatureModel) featureModel).hasListeners()) {
+            return (FeatureModel) featureModel;
+        }
+        return null;
+    }
+
+    /**
+     * Returns whether the given tree is part of the feature tree of the given feature model.
+     * The result is cached on the tree and all its ancestors until the feature model's trees are changed,
+     * so that repeated events for the same region of the tree do not walk up to the root each time.
+     *
+     * @param featureModel the feature model
+     * @param tree the tree
+     * @return whether the tree is attached
+     */
+    private static boolean isAttached(FeatureModel featureModel, IFeatureTree tree) {
+        if (tree == null) {
+            return false;
+        }
+        int version = featureModel.featureTreeVersion;
+        IFeatureTree current = tree;
+        boolean attached;
+        while (true) {
+            if (current instanceof FeatureTree && ((FeatureTree) current).attachedVersion == version) {
+                attached = ((FeatureTree) current).attached;
+                break;
+            }
+            Result<IFeatureTree> parentTree = current.getParent();
+            if (parentTree.isEmpty()) {
+                attached = false;
+                for (IFeatureTree featureTreeRoot : featureModel.getRoots()) {
+                    if (featureTreeRoot == current) {
+                        attached = true;
+                        break;
+                    }
+                }
+                break;
+            }
+            current = parentTree.get();
+        }
+        for (IFeatureTree pathTree = tree; ; pathTree = pathTree.getParent().get()) {
+            if (pathTree instanceof FeatureTree) {
+                ((FeatureTree) pathTree).attached = attached;
+                ((FeatureTree) pathTree).attachedVersion = version;
+            }
+            if (pathTree == current) {
+                break;
+            }
+        }
+        return attached;
+    }
+
+    /**
+     * Starts an event batch on the observed feature model, so that a mutation that fires several events
+     * delivers them to listeners at once.
+     *
+     * @return the observed feature model, or null if there is no listener
+     */
+    private FeatureModel beginEventBatch() {
+        FeatureModel observedFeatureModel = getObservedFeatureModel();
+        if (observedFeatureModel != null) {
+            observedFeatureModel.beginEventBatch();
+        }
+        return observedFeatureModel;
+    }
+
+    private static void endEventBatch(FeatureModel observedFeatureModel) {
+        if (observedFeatureModel != null) {
+            observedFeatureModel.endEventBatch();
+        }
+    }
+
+    private void fireEvent(FeatureModelEvent.Type type, IFeatureTree source) {
+        fireEvent(type, source, null, null, null);
+    }
+
+    private void fireEvent(
+            FeatureModelEvent.Type type,
+            IFeatureTree source,
+            IAttribute<?> attribute,
+            Object oldValue,
+            Object newValue) {
+        FeatureModel observedFeatureModel = getObservedFeatureModel();
+        if (observedFeatureModel != null && isAttached(observedFeatureModel, source)) {
+            observedFeatureModel.fireEvent(type, source, attribute, oldValue, newValue);
+        }
+    }
+
+    @Override
+    public IFeatureTree addFeatureBelow(IFeature newFeature, int index, int groupID) {
+        FeatureModel observedFeatureModel = beginEventBatch();
+        try {
+            return IMutableFeatureTree.super.addFeatureBelow(newFeature, index, groupID);
+        } finally {
+            endEventBatch(observedFeatureModel);
+        }
+    }
+
+    @Override
+    public IFeatureTree addFeatureAbove(IFeature newFeature) {
+        FeatureModel observedFeatureModel = beginEventBatch();
+        try {
+            return IMutableFeatureTree.super.addFeatureAbove(newFeature);
+        } finally {
+            endEventBatch(observedFeatureModel);
+        }
+    }
+
+    @Override
+    public void removeFromTree() {
+        FeatureModel observedFeatureModel = beginEventBatch();
+        try {
+            IMutableFeatureTree.super.removeFromTree();
+        } finally {
+            endEventBatch(observedFeatureModel);
+        }
     }
 
     @Override
     public List<Group> getGroups() {
-        return Collections.unmodifiableList(groups);
+        return groupsView;
     }
 
     public void setGroupCount(int count) {
-        groups = new ArrayList<>(count);
+        groups.clear();
+        fireEvent(FeatureModelEvent.Type.GROUP_CHANGED, this);
     }
 
     @Override
@@ -168,7 +473,10 @@ public class FeatureTree extends ARootedTree<IFeatureTree> implements IMutableFe
 
     @Override
     public List<IFeatureTree> getRoots() {
-        return List.of(this);
+        if (roots == null) {
+            roots = List.of(this);
+        }
+        return roots;
     }
 
     @Override
@@ -214,16 +522,22 @@ public class FeatureTree extends ARootedTree<IFeatureTree> implements IMutableFe
     @Override
     public void addGroup(int lowerBound, int upperBound) {
         groups.add(new Group(lowerBound, upperBound));
+        addGroupChildren(groups.size() - 1);
+        fireEvent(FeatureModelEvent.Type.GROUP_CHANGED, this);
     }
 
     @Override
     public void addGroup(Range groupRange) {
         groups.add(new Group(groupRange));
+        addGroupChildren(groups.size() - 1);
+        fireEvent(FeatureModelEvent.Type.GROUP_CHANGED, this);
     }
 
     public void setGroups(List<Group> groups) {
         this.groups.clear();
-        this.groups.addAll(groups);
+        groups.stream().map(Group::clone).forEach(this.groups::add);
+        updateGroupChildren();
+        fireEvent(FeatureModelEvent.Type.GROUP_CHANGED, this);
     }
 
     public void setGroupID(int groupID) {
@@ -232,17 +546,31 @@ public class FeatureTree extends ARootedTree<IFeatureTree> implements IMutableFe
         if (groupID >= parent.getGroups().size())
             throw new IllegalArgumentException(
                     String.format("groupID must be smaller than number of groups in parent feature (%d)", groupID));
+        int oldGroupID = this.groupID;
         this.groupID = groupID;
+        if (oldGroupID != groupID) {
+            if (parent instanceof FeatureTree) {
+                FeatureTree parentTree = (FeatureTree) parent;
+                parentTree.removeGroupChild(this, oldGroupID);
+                parentTree.insertGroupChild(this);
+            }
+            fireEvent(FeatureModelEvent.Type.GROUP_CHANGED, parent);
+        }
     }
 
     @Override
     public void setGroupRange(Range groupRange) {
-        getGroup().groupRange = Range.copy(groupRange);
+        Group group = getGroup();
+        if (group != ROOT_GROUP) {
+            group.groupRange = Range.copy(groupRange);
+            fireEvent(FeatureModelEvent.Type.GROUP_CHANGED, parent);
+        }
     }
 
     @Override
     public void setFeatureRange(Range featureRange) {
-        featureRange = Range.copy(featureRange);
+        this.featureRange = Range.copy(featureRange);
+        fireEvent(FeatureModelEvent.Type.FEATURE_RANGE_CHANGED, this);
     }
 
     @Override
@@ -252,11 +580,13 @@ public class FeatureTree extends ARootedTree<IFeatureTree> implements IMutableFe
         } else {
             featureRange.setLowerBound(1);
         }
+        fireEvent(FeatureModelEvent.Type.FEATURE_RANGE_CHANGED, this);
     }
 
     @Override
     public void setOptional() {
         featureRange.setLowerBound(0);
+        fireEvent(FeatureModelEvent.Type.FEATURE_RANGE_CHANGED, this);
     }
 
     @Override
@@ -270,7 +600,8 @@ public class FeatureTree extends ARootedTree<IFeatureTree> implements IMutableFe
         if (attributeValues == null) {
             attributeValues = new LinkedHashMap<>();
         }
-        attributeValues.put(attribute, value);
+        Object oldValue = attributeValues.put(attribute, value);
+        fireEvent(FeatureModelEvent.Type.ATTRIBUTE_CHANGED, this, attribute, oldValue, value);
     }
 
     @Override
@@ -279,6 +610,8 @@ public class FeatureTree extends ARootedTree<IFeatureTree> implements IMutableFe
         if (attributeValues == null) {
             attributeValues = new LinkedHashMap<>();
         }
-        return (S) attributeValues.remove(attribute);
+        S oldValue = (S) attributeValues.remove(attribute);
+        fireEvent(FeatureModelEvent.Type.ATTRIBUTE_CHANGED, this, attribute, oldValue, null);
+        return oldValue;
     }
 }
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model;
+
+import de.featjar.formula.structure.IExpression;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Hash-conses {@link IExpression expressions}, such that structurally equal (sub-)expressions
+ * are represented by one canonical object.
+ * In particular, every literal and variable of a feature exists only once per interner.
+ * Thus, two interned expressions are structurally equal if and only if they are identical,
+ * and copying an interned expression amounts to copying its reference.
+ * Canonical expressions are shared between all their occurrences and must therefore not be modified;
+ * for the same reason, their parent links are not meaningful.
+ * Interned expressions are retained by the interner for its whole lifetime.
+ */
+public class FormulaInterner {
+
+    private static final class Key {
+        private final IExpression node;
+        private final IExpression[] children;
+        private final int hashCode;
+
+        private Key(IExpression node, IExpression[] children) {
+            this.node = node;
+            this.children = children;
+            int hash = node.getClass().hashCode() * 31 + node.hashCodeNode();
+            for (IExpression child : children) {
+                hash = hash * 31 + System.identityHashCode(child);
+            }
+            hashCode = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof Key)) return false;
+            Key other = (Key) obj;
+            if (hashCode != other.hashCode
+                    || node.getClass() != other.node.getClass()
+                    || children.length != other.children.length) {
+                return false;
+            }
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] != other.children[i]) {
+                    return false;
+                }
+            }
+            return node.equalsNode(other.node);
+        }
+    }
+
+    private final HashMap<Key, IExpression> table = new HashMap<>();
+    private final Set<IExpression> canonicalExpressions = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Returns the canonical representative of the given expression.
+     * The given expression is not modified and never becomes part of the interner;
+     * missing canonical nodes are created as copies.
+     *
+     * @param <T> the type of the expression
+     * @param expression the expression
+     * @return a canonical expression that is structurally equal to the given expression
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T extends IExpression> T intern(T expression) {
+        Objects.requireNonNull(expression);
+        return (T) internRecursively(expression);
+    }
+
+    /**
+     * Returns whether the given expression is a canonical expression of this interner.
+     *
+     * @param expression the expression
+     * @return whether the expression is canonical
+     */
+    public synchronized boolean isInterned(IExpression expression) {
+        return canonicalExpressions.contains(expression);
+    }
+
+    /**
+     * Returns the number of distinct canonical expressions in this interner.
+     *
+     * @return the number of canonical expressions
+     */
+    public synchronized int getNumberOfExpressions() {
+        return table.size();
+    }
+
+    private IExpression internRecursively(IExpression expression) {
+        if (canonicalExpressions.contains(expression)) {
+            return expression;
+        }
+        List<? extends IExpression> children = expression.getChildren();
+        IExpression[] canonicalChildren = new IExpression[children.size()];
+        for (int i = 0; i < canonicalChildren.length; i++) {
+            canonicalChildren[i] = internRecursively(children.get(i));
+        }
+        IExpression canonicalExpression = table.get(new Key(expression, canonicalChildren));
+        if (canonicalExpression == null) {
+            canonicalExpression = (IExpression) expression.cloneNode();
+            if (canonicalChildren.length > 0) {
+                canonicalExpression.setChildren(Arrays.asList(canonicalChildren));
+            }
+            table.put(new Key(canonicalExpression, canonicalChildren), canonicalExpression);
+            canonicalExpressions.add(canonicalExpression);
+        }
+        return canonicalExpression;
+    }
+}
@@ -41,6 +41,16 @@ public interface IConstraint extends IFeatureModelElement, IHasCommonAttributes
 
     IFormula getFormula();
 
+    /**
+     * Returns the formula of this constraint for reading only.
+     * Unlike {@link #getFormula()}, the formula is never copied, so it may be shared and must not be modified.
+     *
+     * @return the formula
+     */
+    default IFormula getSharedFormula() {
+        return getFormula();
+    }
+
     static LinkedHashSet<IFeature> getReferencedFeatures(IFormula formula, IFeatureModel featureModel) {
         return formula.getVariableStream()
                 .map(Variable::getName)
@@ -53,7 +63,7 @@ public interface IConstraint extends IFeatureModelElement, IHasCommonAttributes
     }
 
     default LinkedHashSet<IFeature> getReferencedFeatures() {
-        return getReferencedFeatures(getFormula(), getFeatureModel());
+        return getReferencedFeatures(getSharedFormula(), getFeatureModel());
     }
 
     default LinkedHashSet<String> getTags() {
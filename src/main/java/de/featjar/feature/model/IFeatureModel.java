@@ -86,5 +86,14 @@ public interface IFeatureModel extends IFeatureModelElement, IHasCommonAttribute
         void removeFeatureTreeRoot(IFeatureTree featureTree);
 
         void removeFeatureTreeRoot(IFeature feature);
+
+        /**
+         * Opens a batch for adding many features, feature trees, and constraints at once.
+         * Name validation, index updates, and the resolution of features referenced by constraints
+         * are deferred until {@link FeatureModelBatch#commit()}.
+         *
+         * @return a new batch for this feature model
+         */
+        FeatureModelBatch openBatch();
     }
 }
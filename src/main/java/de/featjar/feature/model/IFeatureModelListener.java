@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model;
+
+import java.util.List;
+
+/**
+ * Observes changes of a {@link FeatureModel}.
+ * Events are delivered in the order they occurred,
+ * either one at a time or collected for a whole event batch (see {@link FeatureModel#beginEventBatch()}).
+ */
+@FunctionalInterface
+public interface IFeatureModelListener {
+
+    /**
+     * Called after the feature model changed.
+     *
+     * @param events the events, in order of occurrence
+     */
+    void onChange(List<FeatureModelEvent> events);
+}
@@ -45,6 +45,14 @@ public interface IFeatureTree extends IRootedTree<IFeatureTree>, IAttributable,
 
     List<IFeatureTree> getGroupFeatures();
 
+    /**
+     * Returns the children of this tree that belong to the given group, in child order.
+     *
+     * @param groupID the index of the group in {@link #getGroups()}
+     * @return an unmodifiable view of the group's children
+     */
+    List<IFeatureTree> getGroupChildren(int groupID);
+
     int getFeatureRangeLowerBound();
 
     int getFeatureRangeUpperBound();
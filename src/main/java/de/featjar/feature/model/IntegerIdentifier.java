@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model;
+
+import de.featjar.base.data.identifier.IIdentifier;
+import java.util.Arrays;
+
+/**
+ * Identifies an element by a dense, non-negative integer.
+ * Each {@link Factory} hands out the integers {@code 0, 1, 2, ...} and caches one identifier per integer,
+ * so identifiers of the same factory are flyweights: they are equal if and only if they are the same object,
+ * and their hash code is their {@link #getIndex() index}.
+ * Maps keyed by the identifiers of one factory can therefore be replaced by arrays of size {@link Factory#size()}.
+ * <p>
+ * A {@link FeatureModel} created without an identifier uses a new factory, which is shared by all its elements,
+ * so the elements of a feature model are numbered densely.
+ * Each clone of such a feature model gets a new factory, so its elements are numbered densely from 0 as well.
+ * The cache holds every identifier ever handed out, including those of removed elements.
+ */
+public final class IntegerIdentifier implements IIdentifier {
+    private final int index;
+    private final Factory factory;
+
+    private IntegerIdentifier(int index, Factory factory) {
+        this.index = index;
+        this.factory = factory;
+    }
+
+    /**
+     * @return the first identifier of a new factory
+     */
+    public static IntegerIdentifier newInstance() {
+        return new Factory().get();
+    }
+
+    /**
+     * @return the index of this identifier
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public Factory getFactory() {
+        return factory;
+    }
+
+    @Override
+    public IntegerIdentifier getNewIdentifier() {
+        return factory.get();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o;
+    }
+
+    @Override
+    public int hashCode() {
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return Integer.toString(index);
+    }
+
+    /**
+     * Hands out and caches the identifiers {@code 0, 1, 2, ...}.
+     */
+    public static final class Factory implements IIdentifier.IFactory {
+        private IntegerIdentifier[] identifiers = new IntegerIdentifier[16];
+        private int size;
+
+        @Override
+        public synchronized IntegerIdentifier get() {
+            return getIdentifier(size);
+        }
+
+        /**
+         * @param identifierString the string representation of an identifier
+         * @return the identifier with the given index, which is created if it has not been handed out before
+         * @throws IllegalArgumentException if the string is not a non-negative integer
+         */
+        @Override
+        public IntegerIdentifier parse(String identifierString) {
+            int index;
+            try {
+                index = Integer.parseInt(identifierString);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid identifier " + identifierString, e);
+            }
+            if (index < 0) {
+                throw new IllegalArgumentException("Invalid identifier " + identifierString);
+            }
+            return getIdentifier(index);
+        }
+
+        /**
+         * @param index a non-negative index
+         * @return the identifier with the given index, which is created if it has not been handed out before
+         */
+        public synchronized IntegerIdentifier getIdentifier(int index) {
+            if (index >= identifiers.length) {
+                identifiers = Arrays.copyOf(identifiers, Math.max(index + 1, identifiers.length * 2));
+            }
+            IntegerIdentifier identifier = identifiers[index];
+            if (identifier == null) {
+                identifier = new IntegerIdentifier(index, this);
+                identifiers[index] = identifier;
+                size = Math.max(size, index + 1);
+            }
+            return identifier;
+        }
+
+        /**
+         * @return an upper bound for the indices of all identifiers handed out so far
+         */
+        public synchronized int size() {
+            return size;
+        }
+    }
+}
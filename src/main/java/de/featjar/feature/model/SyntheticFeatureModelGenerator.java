@@ -0,0 +1,536 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model;
+
+import de.featjar.base.data.Range;
+import de.featjar.formula.structure.Expressions;
+import de.featjar.formula.structure.IFormula;
+import de.featjar.formula.structure.connective.Not;
+import de.featjar.formula.structure.connective.Or;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates reproducible synthetic feature models for scale testing.
+ * The feature tree is grown breadth-first: each feature above the maximum depth gets a uniformly distributed
+ * number of children, which form an and, or, alternative, or cardinality group chosen by the group weights.
+ * Cross-tree constraints are random clauses of uniformly distributed width.
+ * The same seed and parameters always yield the same feature model.
+ * <p>
+ * Generated models are emitted to an {@link ISink} in depth-first order, so they can be written
+ * (e.g., by {@link #writeXML(Writer)}) without ever being built as a {@link FeatureModel}.
+ * Only the shape of the tree is held in memory, which takes a few ints per feature.
+ */
+public class SyntheticFeatureModelGenerator {
+
+    /**
+     * Receives a generated feature model.
+     * Features are numbered from 1 in breadth-first order and named {@code F<number>}.
+     */
+    public interface ISink {
+        /**
+         * Starts a feature, which is a child of the last started and not yet ended feature.
+         *
+         * @param feature the number of the feature
+         * @param isAbstract whether the feature is abstract
+         * @param isMandatory whether the feature is mandatory
+         * @param childCount the number of children of the feature
+         * @param groupRange the range of the group of the children, null if there are no children
+         * @throws IOException if an I/O error occurs
+         */
+        void startFeature(int feature, boolean isAbstract, boolean isMandatory, int childCount, Range groupRange)
+                throws IOException;
+
+        void endFeature(int feature) throws IOException;
+
+        /**
+         * Adds a clause.
+         *
+         * @param literals the literals, where a negative number denotes the negation of a feature
+         * @throws IOException if an I/O error occurs
+         */
+        void addClause(int[] literals) throws IOException;
+
+        default void start() throws IOException {}
+
+        default void startConstraints() throws IOException {}
+
+        default void end() throws IOException {}
+    }
+
+    private static final byte AND = 0, OR = 1, ALTERNATIVE = 2, CARDINALITY = 3;
+
+    protected final long seed;
+    protected int numberOfFeatures = 100;
+    protected int maximumDepth = Integer.MAX_VALUE;
+    protected int minimumFanOut = 1;
+    protected int maximumFanOut = 5;
+    protected final int[] groupWeights = {6, 2, 2, 0};
+    protected double mandatoryProbability = 0.2;
+    protected double abstractProbability = 0.0;
+    protected double constraintRatio = 0.1;
+    protected int minimumClauseWidth = 2;
+    protected int maximumClauseWidth = 3;
+
+    public SyntheticFeatureModelGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    public SyntheticFeatureModelGenerator setNumberOfFeatures(int numberOfFeatures) {
+        if (numberOfFeatures < 1) {
+            throw new IllegalArgumentException(
+                    String.format("number of features must be positive (%d)", numberOfFeatures));
+        }
+        this.numberOfFeatures = numberOfFeatures;
+        return this;
+    }
+
+    /**
+     * Sets the maximum depth of the feature tree, where the root has depth 0.
+     *
+     * @param maximumDepth the maximum depth
+     * @return this generator
+     */
+    public SyntheticFeatureModelGenerator setMaximumDepth(int maximumDepth) {
+        if (maximumDepth < 0) {
+            throw new IllegalArgumentException(String.format("maximum depth must not be negative (%d)", maximumDepth));
+        }
+        this.maximumDepth = maximumDepth;
+        return this;
+    }
+
+    /**
+     * Sets the range of the number of children of each inner feature.
+     * With a minimum of 0, some features become leaves before the maximum depth is reached;
+     * the tree still grows until it has the requested number of features.
+     *
+     * @param minimumFanOut the minimum number of children
+     * @param maximumFanOut the maximum number of children, at least 1
+     * @return this generator
+     */
+    public SyntheticFeatureModelGenerator setFanOut(int minimumFanOut, int maximumFanOut) {
+        if (minimumFanOut < 0 || maximumFanOut < Math.max(1, minimumFanOut)) {
+            throw new IllegalArgumentException(
+                    String.format("invalid fan-out range (%d, %d)", minimumFanOut, maximumFanOut));
+        }
+        this.minimumFanOut = minimumFanOut;
+        this.maximumFanOut = maximumFanOut;
+        return this;
+    }
+
+    /**
+     * Sets the relative frequencies of group types.
+     *
+     * @param and the weight of and groups
+     * @param or the weight of or groups
+     * @param alternative the weight of alternative groups
+     * @param cardinality the weight of cardinality groups with random bounds
+     * @return this generator
+     */
+    public SyntheticFeatureModelGenerator setGroupWeights(int and, int or, int alternative, int cardinality) {
+        if (and < 0 || or < 0 || alternative < 0 || cardinality < 0 || and + or + alternative + cardinality == 0) {
+            throw new IllegalArgumentException("group weights must not be negative and not all zero");
+        }
+        groupWeights[AND] = and;
+        groupWeights[OR] = or;
+        groupWeights[ALTERNATIVE] = alternative;
+        groupWeights[CARDINALITY] = cardinality;
+        return this;
+    }
+
+    /**
+     * Sets the probability of a feature in an and group to be mandatory.
+     *
+     * @param mandatoryProbability the probability
+     * @return this generator
+     */
+    public SyntheticFeatureModelGenerator setMandatoryProbability(double mandatoryProbability) {
+        this.mandatoryProbability = checkProbability(mandatoryProbability);
+        return this;
+    }
+
+    /**
+     * Sets the probability of a feature with children to be abstract.
+     *
+     * @param abstractProbability the probability
+     * @return this generator
+     */
+    public SyntheticFeatureModelGenerator setAbstractProbability(double abstractProbability) {
+        this.abstractProbability = checkProbability(abstractProbability);
+        return this;
+    }
+
+    /**
+     * Sets the number of cross-tree constraints per feature.
+     *
+     * @param constraintRatio the ratio
+     * @return this generator
+     */
+    public SyntheticFeatureModelGenerator setConstraintRatio(double constraintRatio) {
+        if (constraintRatio < 0) {
+            throw new IllegalArgumentException(
+                    String.format("constraint ratio must not be negative (%f)", constraintRatio));
+        }
+        this.constraintRatio = constraintRatio;
+        return this;
+    }
+
+    public SyntheticFeatureModelGenerator setClauseWidth(int minimumClauseWidth, int maximumClauseWidth) {
+        if (minimumClauseWidth < 1 || maximumClauseWidth < minimumClauseWidth) {
+            throw new IllegalArgumentException(
+                    String.format("invalid clause width range (%d, %d)", minimumClauseWidth, maximumClauseWidth));
+        }
+        this.minimumClauseWidth = minimumClauseWidth;
+        this.maximumClauseWidth = maximumClauseWidth;
+        return this;
+    }
+
+    private static double checkProbability(double probability) {
+        if (probability < 0 || probability > 1) {
+            throw new IllegalArgumentException(String.format("probability must be in [0, 1] (%f)", probability));
+        }
+        return probability;
+    }
+
+    public int getNumberOfConstraints() {
+        return (int) Math.round(numberOfFeatures * constraintRatio);
+    }
+
+    /**
+     * Builds the generated feature model.
+     *
+     * @return the new feature model
+     */
+    public FeatureModel generate() {
+        FeatureModel featureModel = new FeatureModel();
+        try {
+            generate(new FeatureModelSink(featureModel));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return featureModel;
+    }
+
+    /**
+     * Writes the generated feature model in the FeatureIDE XML format.
+     * As this format has no cardinality groups, those are written as or groups if they require a child
+     * and as and groups otherwise.
+     *
+     * @param writer the writer
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeXML(Writer writer) throws IOException {
+        generate(new XMLSink(writer));
+        writer.flush();
+    }
+
+    /**
+     * Emits the generated feature model to the given sink.
+     *
+     * @param sink the sink
+     * @throws IOException if the sink throws an I/O error
+     * @throws IllegalArgumentException if the maximum depth and fan-out do not admit the number of features
+     */
+    public void generate(ISink sink) throws IOException {
+        Random random = new Random(seed);
+        int n = numberOfFeatures;
+        int[] firstChild = new int[n];
+        int[] childCount = new int[n];
+        byte[] groupTypes = new byte[n];
+        int[] cardinalityBounds = groupWeights[CARDINALITY] > 0 ? new int[2 * n] : null;
+        BitSet mandatory = new BitSet(n);
+        BitSet isAbstract = new BitSet(n);
+        int totalGroupWeight =
+                groupWeights[AND] + groupWeights[OR] + groupWeights[ALTERNATIVE] + groupWeights[CARDINALITY];
+
+        int nextFeature = 1;
+        int depth = 0;
+        int levelEnd = 1;
+        for (int feature = 0; feature < nextFeature && nextFeature < n; feature++) {
+            if (feature == levelEnd) {
+                depth++;
+                levelEnd = nextFeature;
+            }
+            if (depth >= maximumDepth) {
+                break;
+            }
+            int children = Math.min(
+                    n - nextFeature, minimumFanOut + random.nextInt(maximumFanOut - minimumFanOut + 1));
+            if (children == 0 && feature == nextFeature - 1) {
+                // the last feature left to expand must have a child, or the tree stops growing
+                children = 1;
+            }
+            if (children == 0) {
+                continue;
+            }
+            firstChild[feature] = nextFeature;
+            childCount[feature] = children;
+            nextFeature += children;
+            if (random.nextDouble() < abstractProbability) {
+                isAbstract.set(feature);
+            }
+            byte groupType = chooseGroupType(random.nextInt(totalGroupWeight));
+            groupTypes[feature] = groupType;
+            if (groupType == AND) {
+                for (int child = firstChild[feature]; child < nextFeature; child++) {
+                    if (random.nextDouble() < mandatoryProbability) {
+                        mandatory.set(child);
+                    }
+                }
+            } else if (groupType == CARDINALITY) {
+                int lowerBound = random.nextInt(children + 1);
+                int upperBound = Math.max(1, lowerBound) + random.nextInt(children - Math.max(1, lowerBound) + 1);
+                cardinalityBounds[2 * feature] = lowerBound;
+                cardinalityBounds[2 * feature + 1] = upperBound;
+            }
+        }
+        if (nextFeature < n) {
+            throw new IllegalArgumentException(String.format(
+                    "cannot generate %d features with maximum depth %d and fan-out (%d, %d)",
+                    n, maximumDepth, minimumFanOut, maximumFanOut));
+        }
+
+        sink.start();
+        int[] stack = new int[64];
+        int[] nextChild = new int[64];
+        int stackSize = 0;
+        stack[stackSize++] = 0;
+        startFeature(sink, 0, mandatory, isAbstract, childCount, groupTypes, cardinalityBounds);
+        while (stackSize > 0) {
+            int feature = stack[stackSize - 1];
+            int childIndex = nextChild[stackSize - 1]++;
+            if (childIndex < childCount[feature]) {
+                int child = firstChild[feature] + childIndex;
+                if (stackSize == stack.length) {
+                    stack = Arrays.copyOf(stack, 2 * stackSize);
+                    nextChild = Arrays.copyOf(nextChild, 2 * stackSize);
+                }
+                stack[stackSize] = child;
+                nextChild[stackSize] = 0;
+                stackSize++;
+                startFeature(sink, child, mandatory, isAbstract, childCount, groupTypes, cardinalityBounds);
+            } else {
+                stackSize--;
+                sink.endFeature(feature + 1);
+            }
+        }
+
+        sink.startConstraints();
+        int numberOfConstraints = getNumberOfConstraints();
+        for (int i = 0; i < numberOfConstraints; i++) {
+            int[] literals =
+                    new int[minimumClauseWidth + random.nextInt(maximumClauseWidth - minimumClauseWidth + 1)];
+            for (int j = 0; j < literals.length; j++) {
+                int variable = 1 + random.nextInt(n);
+                literals[j] = random.nextBoolean() ? variable : -variable;
+            }
+            sink.addClause(literals);
+        }
+        sink.end();
+    }
+
+    private byte chooseGroupType(int weight) {
+        for (byte groupType = AND; groupType < CARDINALITY; groupType++) {
+            weight -= groupWeights[groupType];
+            if (weight < 0) {
+                return groupType;
+            }
+        }
+        return CARDINALITY;
+    }
+
+    private static void startFeature(
+            ISink sink,
+            int feature,
+            BitSet mandatory,
+            BitSet isAbstract,
+            int[] childCount,
+            byte[] groupTypes,
+            int[] cardinalityBounds)
+            throws IOException {
+        Range groupRange = null;
+        if (childCount[feature] > 0) {
+            switch (groupTypes[feature]) {
+                case OR:
+                    groupRange = Range.atLeast(1);
+                    break;
+                case ALTERNATIVE:
+                    groupRange = Range.exactly(1);
+                    break;
+                case CARDINALITY:
+                    groupRange = Range.of(cardinalityBounds[2 * feature], cardinalityBounds[2 * feature + 1]);
+                    break;
+                default:
+                    groupRange = Range.open();
+            }
+        }
+        sink.startFeature(
+                feature + 1, isAbstract.get(feature), mandatory.get(feature), childCount[feature], groupRange);
+    }
+
+    public static String getFeatureName(int feature) {
+        return "F" + feature;
+    }
+
+    private static final class FeatureModelSink implements ISink {
+        private final FeatureModelBatch batch;
+        private final List<IFeatureTree> path = new ArrayList<>();
+        private final List<Range> groupRanges = new ArrayList<>();
+
+        private FeatureModelSink(FeatureModel featureModel) {
+            batch = featureModel.openBatch();
+        }
+
+        @Override
+        public void startFeature(
+                int feature, boolean isAbstract, boolean isMandatory, int childCount, Range groupRange) {
+            IFeature newFeature = batch.addFeature(getFeatureName(feature));
+            if (isAbstract) {
+                newFeature.mutate().setAbstract(true);
+            }
+            IFeatureTree tree;
+            if (path.isEmpty()) {
+                tree = batch.addFeatureTreeRoot(newFeature);
+            } else {
+                IFeatureTree parent = path.get(path.size() - 1);
+                tree = batch.addFeatureBelow(parent, newFeature);
+                Range parentGroupRange = groupRanges.get(groupRanges.size() - 1);
+                if (parentGroupRange != null) {
+                    tree.mutate().setGroupRange(parentGroupRange);
+                    groupRanges.set(groupRanges.size() - 1, null);
+                }
+            }
+            if (isMandatory) {
+                tree.mutate().setMandatory();
+            }
+            path.add(tree);
+            groupRanges.add(groupRange != null && !groupRange.is(0, Range.OPEN) ? groupRange : null);
+        }
+
+        @Override
+        public void endFeature(int feature) {
+            path.remove(path.size() - 1);
+            groupRanges.remove(groupRanges.size() - 1);
+        }
+
+        @Override
+        public void addClause(int[] literals) {
+            List<IFormula> clause = new ArrayList<>(literals.length);
+            for (int literal : literals) {
+                IFormula formula = Expressions.literal(getFeatureName(Math.abs(literal)));
+                clause.add(literal > 0 ? formula : new Not(formula));
+            }
+            batch.addConstraint(new Or(clause));
+        }
+
+        @Override
+        public void end() {
+            batch.commit();
+        }
+    }
+
+    private static final class XMLSink implements ISink {
+        private final Writer writer;
+        private final List<String> tags = new ArrayList<>();
+
+        private XMLSink(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void start() throws IOException {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n<featureModel>\n\t<struct>\n");
+        }
+
+        @Override
+        public void startFeature(
+                int feature, boolean isAbstract, boolean isMandatory, int childCount, Range groupRange)
+                throws IOException {
+            String tag = "feature";
+            if (groupRange != null) {
+                if (groupRange.is(1, 1)) {
+                    tag = "alt";
+                } else if (groupRange.getLowerBound() > 0) {
+                    tag = "or";
+                } else {
+                    tag = "and";
+                }
+            }
+            indent(tags.size() + 2);
+            writer.write('<');
+            writer.write(tag);
+            if (isAbstract) {
+                writer.write(" abstract=\"true\"");
+            }
+            if (isMandatory) {
+                writer.write(" mandatory=\"true\"");
+            }
+            writer.write(" name=\"");
+            writer.write(getFeatureName(feature));
+            writer.write(childCount > 0 ? "\">\n" : "\"/>\n");
+            tags.add(childCount > 0 ? tag : null);
+        }
+
+        @Override
+        public void endFeature(int feature) throws IOException {
+            String tag = tags.remove(tags.size() - 1);
+            if (tag != null) {
+                indent(tags.size() + 2);
+                writer.write("</");
+                writer.write(tag);
+                writer.write(">\n");
+            }
+        }
+
+        @Override
+        public void startConstraints() throws IOException {
+            writer.write("\t</struct>\n\t<constraints>\n");
+        }
+
+        @Override
+        public void addClause(int[] literals) throws IOException {
+            writer.write("\t\t<rule>\n\t\t\t<disj>\n");
+            for (int literal : literals) {
+                writer.write(literal > 0 ? "\t\t\t\t<var>" : "\t\t\t\t<not><var>");
+                writer.write(getFeatureName(Math.abs(literal)));
+                writer.write(literal > 0 ? "</var>\n" : "</var></not>\n");
+            }
+            writer.write("\t\t\t</disj>\n\t\t</rule>\n");
+        }
+
+        @Override
+        public void end() throws IOException {
+            writer.write("\t</constraints>\n</featureModel>\n");
+        }
+
+        private void indent(int indentation) throws IOException {
+            for (int i = 0; i < indentation; i++) {
+                writer.write('\t');
+            }
+        }
+    }
+}
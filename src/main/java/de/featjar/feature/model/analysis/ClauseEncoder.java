@@ -0,0 +1,246 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.analysis;
+
+import de.featjar.formula.structure.IExpression;
+import de.featjar.formula.structure.IFormula;
+import de.featjar.formula.structure.connective.And;
+import de.featjar.formula.structure.connective.AtLeast;
+import de.featjar.formula.structure.connective.AtMost;
+import de.featjar.formula.structure.connective.Between;
+import de.featjar.formula.structure.connective.BiImplies;
+import de.featjar.formula.structure.connective.Choose;
+import de.featjar.formula.structure.connective.Implies;
+import de.featjar.formula.structure.connective.Not;
+import de.featjar.formula.structure.connective.Or;
+import de.featjar.formula.structure.connective.Reference;
+import de.featjar.formula.structure.predicate.Literal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Converts propositional formulas into clauses by distribution, without introducing auxiliary variables.
+ * A clause is an array of non-zero literals, where {@code v} and {@code -v} denote the positive and negative
+ * literal of the variable with the (1-based) index {@code v}.
+ * Duplicate literals are removed and tautological clauses are omitted.
+ */
+public final class ClauseEncoder {
+
+    private ClauseEncoder() {}
+
+    /**
+     * Converts a formula into an equivalent list of clauses.
+     *
+     * @param formula the formula
+     * @param variables maps variable names to positive variable indices
+     * @param maximumClauses the maximum number of clauses of the formula and each of its intermediate results
+     * @return the clauses
+     * @throws IllegalArgumentException if the formula contains an unsupported connective
+     *     or its clause form exceeds the maximum number of clauses
+     */
+    public static List<int[]> encode(IFormula formula, ToIntFunction<String> variables, int maximumClauses) {
+        return new Encoding(variables, maximumClauses).encode(formula, true);
+    }
+
+    private static final class Encoding {
+        private final ToIntFunction<String> variables;
+        private final int maximumClauses;
+
+        private Encoding(ToIntFunction<String> variables, int maximumClauses) {
+            this.variables = variables;
+            this.maximumClauses = maximumClauses;
+        }
+
+        private List<int[]> encode(IExpression expression, boolean positive) {
+            if (expression instanceof Literal) {
+                Literal literal = (Literal) expression;
+                int variable = variables.applyAsInt(literal.getName());
+                List<int[]> clauses = new ArrayList<>(1);
+                clauses.add(new int[] {literal.isPositive() == positive ? variable : -variable});
+                return clauses;
+            } else if (expression instanceof Not || expression instanceof Reference) {
+                boolean negate = expression instanceof Not;
+                return encode(expression.getChildren().get(0), negate != positive);
+            } else if (expression instanceof And) {
+                return positive ? and(expression.getChildren(), true) : or(expression.getChildren(), false);
+            } else if (expression instanceof Or) {
+                return positive ? or(expression.getChildren(), true) : and(expression.getChildren(), false);
+            } else if (expression instanceof Implies) {
+                IExpression left = expression.getChildren().get(0);
+                IExpression right = expression.getChildren().get(1);
+                return positive
+                        ? product(encode(left, false), encode(right, true))
+                        : concat(encode(left, true), encode(right, false));
+            } else if (expression instanceof BiImplies) {
+                IExpression left = expression.getChildren().get(0);
+                IExpression right = expression.getChildren().get(1);
+                if (positive) {
+                    return concat(
+                            product(encode(left, false), encode(right, true)),
+                            product(encode(left, true), encode(right, false)));
+                } else {
+                    return concat(
+                            product(encode(left, true), encode(right, true)),
+                            product(encode(left, false), encode(right, false)));
+                }
+            } else if (expression instanceof AtLeast) {
+                return between(expression.getChildren(), ((AtLeast) expression).getBound(), Integer.MAX_VALUE, positive);
+            } else if (expression instanceof AtMost) {
+                return between(expression.getChildren(), 0, ((AtMost) expression).getBound(), positive);
+            } else if (expression instanceof Between) {
+                Between between = (Between) expression;
+                return between(expression.getChildren(), between.getMinimum(), between.getMaximum(), positive);
+            } else if (expression instanceof Choose) {
+                int bound = ((Choose) expression).getBound();
+                return between(expression.getChildren(), bound, bound, positive);
+            }
+            throw new IllegalArgumentException("Unsupported formula " + expression.getClass().getSimpleName());
+        }
+
+        private List<int[]> and(List<? extends IExpression> children, boolean positive) {
+            List<int[]> clauses = new ArrayList<>();
+            for (IExpression child : children) {
+                clauses = concat(clauses, encode(child, positive));
+            }
+            return clauses;
+        }
+
+        private List<int[]> or(List<? extends IExpression> children, boolean positive) {
+            List<int[]> clauses = new ArrayList<>(1);
+            clauses.add(new int[0]);
+            for (IExpression child : children) {
+                clauses = product(clauses, encode(child, positive));
+            }
+            return clauses;
+        }
+
+        /**
+         * Encodes that at least {@code minimum} and at most {@code maximum} children hold (or not, if negative).
+         * At least {@code k} of {@code n} children hold if every subset of {@code n - k + 1} children
+         * contains a child that holds.
+         */
+        private List<int[]> between(List<? extends IExpression> children, int minimum, int maximum, boolean positive) {
+            int n = children.size();
+            if (positive) {
+                List<int[]> clauses = new ArrayList<>();
+                if (minimum > n) {
+                    clauses.add(new int[0]);
+                    return clauses;
+                }
+                if (minimum > 0) {
+                    clauses = concat(clauses, subsets(children, n - minimum + 1, true));
+                }
+                if (maximum < n) {
+                    clauses = concat(clauses, subsets(children, maximum + 1, false));
+                }
+                return clauses;
+            } else {
+                // fewer than minimum or more than maximum
+                List<int[]> tooFew = minimum > 0 ? between(children, 0, minimum - 1, true) : falseClauses();
+                List<int[]> tooMany =
+                        maximum < n ? between(children, maximum + 1, Integer.MAX_VALUE, true) : falseClauses();
+                return product(tooFew, tooMany);
+            }
+        }
+
+        private List<int[]> subsets(List<? extends IExpression> children, int size, boolean positive) {
+            List<int[]> clauses = new ArrayList<>();
+            int[] indices = new int[size];
+            for (int i = 0; i < size; i++) {
+                indices[i] = i;
+            }
+            while (true) {
+                List<int[]> subsetClauses = new ArrayList<>(1);
+                subsetClauses.add(new int[0]);
+                for (int index : indices) {
+                    subsetClauses = product(subsetClauses, encode(children.get(index), positive));
+                }
+                clauses = concat(clauses, subsetClauses);
+                int i = size - 1;
+                while (i >= 0 && indices[i] == children.size() - size + i) {
+                    i--;
+                }
+                if (i < 0) {
+                    return clauses;
+                }
+                indices[i]++;
+                for (int j = i + 1; j < size; j++) {
+                    indices[j] = indices[j - 1] + 1;
+                }
+            }
+        }
+
+        private List<int[]> falseClauses() {
+            List<int[]> clauses = new ArrayList<>(1);
+            clauses.add(new int[0]);
+            return clauses;
+        }
+
+        private List<int[]> concat(List<int[]> first, List<int[]> second) {
+            check((long) first.size() + second.size());
+            first.addAll(second);
+            return first;
+        }
+
+        private List<int[]> product(List<int[]> first, List<int[]> second) {
+            check((long) first.size() * second.size());
+            List<int[]> clauses = new ArrayList<>(first.size() * second.size());
+            for (int[] firstClause : first) {
+                for (int[] secondClause : second) {
+                    int[] clause = merge(firstClause, secondClause);
+                    if (clause != null) {
+                        clauses.add(clause);
+                    }
+                }
+            }
+            return clauses;
+        }
+
+        private void check(long size) {
+            if (size > maximumClauses) {
+                throw new IllegalArgumentException(
+                        String.format("Clause form exceeds %d clauses", maximumClauses));
+            }
+        }
+
+        /**
+         * @return the disjunction of both clauses, or null if it is a tautology
+         */
+        private static int[] merge(int[] first, int[] second) {
+            int[] clause = Arrays.copyOf(first, first.length + second.length);
+            int length = first.length;
+            loop:
+            for (int literal : second) {
+                for (int i = 0; i < length; i++) {
+                    if (clause[i] == literal) {
+                        continue loop;
+                    } else if (clause[i] == -literal) {
+                        return null;
+                    }
+                }
+                clause[length++] = literal;
+            }
+            return length == clause.length ? clause : Arrays.copyOf(clause, length);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.analysis;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Samples random valid configurations of a {@link FeatureModelProgram} in parallel.
+ * A configuration is built by walking the feature tree top-down: each feature is decided randomly,
+ * where the selected children of a group are chosen together such that their number lies within the group's
+ * bounds. Every decision is propagated with {@link UnitPropagation}, which enforces the cross-tree
+ * constraints; if a decision contradicts the previous ones, its opposite is taken instead,
+ * and if both do, the walk is restarted.
+ * The resulting distribution is not uniform, but covers all group choices.
+ * <p>
+ * Configurations are sampled in chunks of {@value #CHUNK_SIZE} on a {@link ForkJoinPool}.
+ * Each chunk has its own random number generator split from the seed,
+ * so the same seed and count always yield the same configurations, regardless of the parallelism.
+ */
+public class ConfigurationSampler {
+
+    public static final int CHUNK_SIZE = 256;
+
+    protected final FeatureModelProgram program;
+    protected long seed;
+    protected int maximumAttempts = 1000;
+    protected double selectionProbability = 0.5;
+    protected ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    /**
+     * Creates a sampler with seed 0.
+     *
+     * @param program the compiled feature model
+     */
+    public ConfigurationSampler(FeatureModelProgram program) {
+        this.program = program;
+    }
+
+    public ConfigurationSampler setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Sets how often the walk for a single configuration may be restarted.
+     *
+     * @param maximumAttempts the maximum number of attempts per configuration
+     * @return this sampler
+     */
+    public ConfigurationSampler setMaximumAttempts(int maximumAttempts) {
+        if (maximumAttempts < 1) {
+            throw new IllegalArgumentException(
+                    String.format("maximum attempts must be positive (%d)", maximumAttempts));
+        }
+        this.maximumAttempts = maximumAttempts;
+        return this;
+    }
+
+    /**
+     * Sets the probability of selecting a feature that is not part of a group.
+     *
+     * @param selectionProbability the selection probability
+     * @return this sampler
+     */
+    public ConfigurationSampler setSelectionProbability(double selectionProbability) {
+        if (!(selectionProbability >= 0 && selectionProbability <= 1)) {
+            throw new IllegalArgumentException(
+                    String.format("selection probability must be in [0, 1] (%f)", selectionProbability));
+        }
+        this.selectionProbability = selectionProbability;
+        return this;
+    }
+
+    public ConfigurationSampler setPool(ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * Samples configurations.
+     *
+     * @param count the number of configurations
+     * @return the configurations
+     * @throws IllegalStateException if the feature model is void or a configuration could not be found
+     *     within the maximum number of attempts
+     */
+    public ConfigurationStore sample(int count) {
+        if (!new UnitPropagation(program).consistent) {
+            throw new IllegalStateException("feature model is void");
+        }
+        ConfigurationStore store = new ConfigurationStore(program, count);
+        int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        SplittableRandom seedRandom = new SplittableRandom(seed);
+        SplittableRandom[] randoms = new SplittableRandom[chunks];
+        for (int i = 0; i < chunks; i++) {
+            randoms[i] = seedRandom.split();
+        }
+        pool.invoke(new SampleTask(store, randoms, 0, chunks));
+        return store;
+    }
+
+    private class SampleTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ConfigurationStore store;
+        private final SplittableRandom[] randoms;
+        private final int fromChunk;
+        private final int toChunk;
+
+        private SampleTask(ConfigurationStore store, SplittableRandom[] randoms, int fromChunk, int toChunk) {
+            this.store = store;
+            this.randoms = randoms;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (toChunk - fromChunk > 1) {
+                int middle = (fromChunk + toChunk) >>> 1;
+                invokeAll(
+                        new SampleTask(store, randoms, fromChunk, middle),
+                        new SampleTask(store, randoms, middle, toChunk));
+                return;
+            }
+            Walk walk = new Walk();
+            for (int chunk = fromChunk; chunk < toChunk; chunk++) {
+                SplittableRandom random = randoms[chunk];
+                int end = Math.min(store.size(), (chunk + 1) * CHUNK_SIZE);
+                for (int configuration = chunk * CHUNK_SIZE; configuration < end; configuration++) {
+                    walk.sample(random, store, configuration);
+                }
+            }
+        }
+    }
+
+    /**
+     * The state of a single worker.
+     */
+    private class Walk {
+        private final UnitPropagation propagation = new UnitPropagation(program);
+        private final byte[] intents = new byte[program.getNumberOfFeatures()];
+        private final int[] candidates;
+
+        private Walk() {
+            int maximumGroupSize = 0;
+            for (int[] members : program.groupChildren) {
+                maximumGroupSize = Math.max(maximumGroupSize, members.length);
+            }
+            candidates = new int[maximumGroupSize];
+        }
+
+        private void sample(SplittableRandom random, ConfigurationStore store, int configuration) {
+            for (int attempt = 0; attempt < maximumAttempts; attempt++) {
+                propagation.backtrack(propagation.rootSize);
+                if (walk(random)) {
+                    byte[] values = propagation.values;
+                    for (int i = 0; i < values.length; i++) {
+                        if (values[i] == UnitPropagation.TRUE) {
+                            store.setSelected(configuration, i, true);
+                        }
+                    }
+                    return;
+                }
+            }
+            throw new IllegalStateException(
+                    String.format("no valid configuration found in %d attempts", maximumAttempts));
+        }
+
+        private boolean walk(SplittableRandom random) {
+            byte[] values = propagation.values;
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] == UnitPropagation.UNDEFINED) {
+                    byte intent = program.groups[i] >= 0
+                            ? intents[i]
+                            : random.nextDouble() < selectionProbability ? UnitPropagation.TRUE : UnitPropagation.FALSE;
+                    int literal = intent == UnitPropagation.TRUE ? i + 1 : -(i + 1);
+                    if (!propagation.decide(literal) && !propagation.decide(-literal)) {
+                        return false;
+                    }
+                }
+                if (values[i] == UnitPropagation.TRUE) {
+                    for (int group : program.ownGroups[i]) {
+                        planGroup(group, random);
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Chooses the number of selected children of a group uniformly within its bounds
+         * and records which of its undecided children to select.
+         */
+        private void planGroup(int group, SplittableRandom random) {
+            byte[] values = propagation.values;
+            int[] members = program.groupChildren[group];
+            int trueCount = 0;
+            int undefinedCount = 0;
+            for (int member : members) {
+                if (values[member] == UnitPropagation.TRUE) {
+                    trueCount++;
+                } else if (values[member] == UnitPropagation.UNDEFINED) {
+                    candidates[undefinedCount++] = member;
+                }
+            }
+            int minimum = Math.max(program.groupLowerBounds[group], trueCount);
+            int maximum = Math.min(program.groupUpperBounds[group], trueCount + undefinedCount);
+            int selectCount = minimum >= maximum ? minimum - trueCount : random.nextInt(minimum, maximum + 1) - trueCount;
+            for (int k = 0; k < undefinedCount; k++) {
+                int j = k + random.nextInt(undefinedCount - k);
+                int candidate = candidates[j];
+                candidates[j] = candidates[k];
+                candidates[k] = candidate;
+                intents[candidate] = k < selectCount ? UnitPropagation.TRUE : UnitPropagation.FALSE;
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.analysis;
+
+import de.featjar.feature.model.FeatureModel;
+import de.featjar.feature.model.FeatureModelConfiguration;
+import de.featjar.feature.model.Selection;
+import java.util.Arrays;
+
+/**
+ * Stores a fixed number of complete configurations of a {@link FeatureModelProgram} as bit sets
+ * in a single array, using one bit per feature and configuration.
+ * Different configurations may be written concurrently; the same configuration may not.
+ */
+public class ConfigurationStore {
+
+    private final FeatureModelProgram program;
+    private final int size;
+    private final int wordsPerConfiguration;
+    private final long[] words;
+
+    /**
+     * Creates a store of configurations with no selected features.
+     *
+     * @param program the compiled feature model
+     * @param size the number of configurations
+     */
+    public ConfigurationStore(FeatureModelProgram program, int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException(String.format("size must not be negative (%d)", size));
+        }
+        this.program = program;
+        this.size = size;
+        wordsPerConfiguration = (program.getNumberOfFeatures() + 63) >>> 6;
+        words = new long[Math.multiplyExact(size, wordsPerConfiguration)];
+    }
+
+    /**
+     * @return the compiled feature model
+     */
+    public FeatureModelProgram getProgram() {
+        return program;
+    }
+
+    /**
+     * @return the number of configurations
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param configuration the index of a configuration
+     * @param feature the index of a feature
+     * @return whether the feature is selected in the configuration
+     */
+    public boolean isSelected(int configuration, int feature) {
+        return (words[index(configuration, feature)] & (1L << feature)) != 0;
+    }
+
+    /**
+     * Selects or deselects a feature in a configuration.
+     *
+     * @param configuration the index of a configuration
+     * @param feature the index of a feature
+     * @param selected whether the feature is selected
+     */
+    public void setSelected(int configuration, int feature, boolean selected) {
+        if (selected) {
+            words[index(configuration, feature)] |= 1L << feature;
+        } else {
+            words[index(configuration, feature)] &= ~(1L << feature);
+        }
+    }
+
+    private int index(int configuration, int feature) {
+        if (configuration < 0 || configuration >= size) {
+            throw new IndexOutOfBoundsException(String.valueOf(configuration));
+        }
+        if (feature < 0 || feature >= program.getNumberOfFeatures()) {
+            throw new IndexOutOfBoundsException(String.valueOf(feature));
+        }
+        return configuration * wordsPerConfiguration + (feature >>> 6);
+    }
+
+    /**
+     * @param configuration the index of a configuration
+     * @return a copy of the bit set of the selected features of the configuration
+     */
+    public long[] getBitSet(int configuration) {
+        int start = index(configuration, 0);
+        return Arrays.copyOfRange(words, start, start + wordsPerConfiguration);
+    }
+
+    /**
+     * @return copies of the bit sets of all configurations, as accepted by {@link ConfigurationValidator}
+     */
+    public long[][] getBitSets() {
+        long[][] bitSets = new long[size][];
+        for (int i = 0; i < size; i++) {
+            bitSets[i] = getBitSet(i);
+        }
+        return bitSets;
+    }
+
+    /**
+     * Creates a configuration with the selections of a stored configuration as manual selections.
+     *
+     * @param configuration the index of a configuration
+     * @param featureModel the feature model the program was compiled from
+     * @return the configuration
+     */
+    public FeatureModelConfiguration toConfiguration(int configuration, FeatureModel featureModel) {
+        FeatureModelConfiguration featureModelConfiguration = new FeatureModelConfiguration(featureModel);
+        for (int i = 0; i < program.getNumberOfFeatures(); i++) {
+            featureModelConfiguration.setManual(
+                    program.featureNames[i], isSelected(configuration, i) ? Selection.SELECTED : Selection.UNSELECTED);
+        }
+        return featureModelConfiguration;
+    }
+}
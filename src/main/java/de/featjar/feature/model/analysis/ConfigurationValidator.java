@@ -0,0 +1,320 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.analysis;
+
+import de.featjar.feature.model.FeatureModelConfiguration;
+import de.featjar.feature.model.Selection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Validates many complete configurations against a {@link FeatureModelProgram} at once.
+ * The program is flattened into a list of rules, which are evaluated for 64 configurations at a time
+ * with bitwise operations on words whose bits correspond to configurations.
+ * For each configuration, the first violated rule is reported.
+ * Rules are ordered as follows: for each feature in program order, its mandatory rule and its parent rule,
+ * then all groups, then all clauses of cross-tree constraints.
+ * <p>
+ * A configuration is given as a bit set over the features of the program, where bit {@code i % 64}
+ * of word {@code i / 64} indicates whether feature {@code i} is selected.
+ * A validator is not thread-safe; further threads can use copies created with
+ * {@link #ConfigurationValidator(ConfigurationValidator)}, which share the rules.
+ */
+public class ConfigurationValidator {
+
+    /**
+     * The result for configurations that satisfy all rules.
+     */
+    public static final int VALID = -1;
+
+    /**
+     * The type of a rule.
+     */
+    public enum RuleType {
+        /**
+         * A selected feature requires its parent.
+         */
+        PARENT,
+        /**
+         * A mandatory root feature must be selected, and a mandatory child must be selected with its parent.
+         */
+        MANDATORY,
+        /**
+         * The number of selected children of a group must lie within its bounds if its parent is selected.
+         */
+        GROUP,
+        /**
+         * A clause of a cross-tree constraint must be satisfied.
+         */
+        CLAUSE
+    }
+
+    private static final RuleType[] RULE_TYPES = RuleType.values();
+
+    private final FeatureModelProgram program;
+    private final byte[] ruleTypes;
+    private final int[] ruleElements;
+    private final long[] words;
+    private final long[] counters;
+
+    /**
+     * Creates a validator for a compiled feature model.
+     *
+     * @param program the compiled feature model
+     */
+    public ConfigurationValidator(FeatureModelProgram program) {
+        this.program = program;
+        List<Integer> types = new ArrayList<>();
+        List<Integer> elements = new ArrayList<>();
+        int maximumGroupSize = 0;
+        for (int i = 0; i < program.getNumberOfFeatures(); i++) {
+            if (program.mandatory[i] && (program.roots[i] || program.parents[i] >= 0)) {
+                types.add(RuleType.MANDATORY.ordinal());
+                elements.add(i);
+            }
+            if (program.parents[i] >= 0) {
+                types.add(RuleType.PARENT.ordinal());
+                elements.add(i);
+            }
+        }
+        for (int i = 0; i < program.groupParents.length; i++) {
+            types.add(RuleType.GROUP.ordinal());
+            elements.add(i);
+            maximumGroupSize = Math.max(maximumGroupSize, program.groupChildren[i].length);
+        }
+        for (int i = 0; i < program.clauses.length; i++) {
+            types.add(RuleType.CLAUSE.ordinal());
+            elements.add(i);
+        }
+        ruleTypes = new byte[types.size()];
+        ruleElements = new int[types.size()];
+        for (int i = 0; i < ruleTypes.length; i++) {
+            ruleTypes[i] = types.get(i).byteValue();
+            ruleElements[i] = elements.get(i);
+        }
+        words = new long[program.getNumberOfFeatures()];
+        counters = new long[maximumGroupSize + 2];
+    }
+
+    /**
+     * Creates a validator that shares the rules of another validator.
+     *
+     * @param other the other validator
+     */
+    public ConfigurationValidator(ConfigurationValidator other) {
+        program = other.program;
+        ruleTypes = other.ruleTypes;
+        ruleElements = other.ruleElements;
+        words = new long[other.words.length];
+        counters = new long[other.counters.length];
+    }
+
+    /**
+     * @return the compiled feature model
+     */
+    public FeatureModelProgram getProgram() {
+        return program;
+    }
+
+    /**
+     * @return the number of rules
+     */
+    public int getNumberOfRules() {
+        return ruleTypes.length;
+    }
+
+    /**
+     * @param rule the index of a rule
+     * @return the type of the rule
+     */
+    public RuleType getRuleType(int rule) {
+        return RULE_TYPES[ruleTypes[rule]];
+    }
+
+    /**
+     * @param rule the index of a rule
+     * @return the index of the feature, group, or clause the rule refers to, depending on its type
+     */
+    public int getRuleElement(int rule) {
+        return ruleElements[rule];
+    }
+
+    /**
+     * @param rule the index of a rule
+     * @return a description of the rule
+     */
+    public String describe(int rule) {
+        int element = ruleElements[rule];
+        switch (getRuleType(rule)) {
+            case PARENT:
+                return String.format(
+                        "%s requires %s",
+                        program.featureNames[element], program.featureNames[program.parents[element]]);
+            case MANDATORY:
+                return program.parents[element] < 0
+                        ? String.format("%s is mandatory", program.featureNames[element])
+                        : String.format(
+                                "%s requires %s",
+                                program.featureNames[program.parents[element]], program.featureNames[element]);
+            case GROUP:
+                int upperBound = program.groupUpperBounds[element];
+                return String.format(
+                        "group of %s requires %d..%s selected features",
+                        program.featureNames[program.groupParents[element]],
+                        program.groupLowerBounds[element],
+                        upperBound == Integer.MAX_VALUE ? "*" : String.valueOf(upperBound));
+            default:
+                return String.valueOf(program.getConstraint(element).getSharedFormula());
+        }
+    }
+
+    /**
+     * Encodes a configuration as a bit set, treating undefined features as unselected.
+     *
+     * @param configuration the configuration
+     * @return the bit set of selected features
+     */
+    public long[] encode(FeatureModelConfiguration configuration) {
+        long[] bitSet = new long[(program.getNumberOfFeatures() + 63) >>> 6];
+        for (int i = 0; i < program.getNumberOfFeatures(); i++) {
+            if (configuration.getSelection(program.featureNames[i]) == Selection.SELECTED) {
+                bitSet[i >>> 6] |= 1L << i;
+            }
+        }
+        return bitSet;
+    }
+
+    /**
+     * Validates a list of configurations.
+     *
+     * @param configurations the configurations as bit sets
+     * @return the first violated rule per configuration, or {@link #VALID}
+     */
+    public int[] validate(List<long[]> configurations) {
+        int[] violations = new int[configurations.size()];
+        validate(configurations.toArray(new long[0][]), 0, configurations.size(), violations);
+        return violations;
+    }
+
+    /**
+     * Validates a range of configurations.
+     *
+     * @param configurations the configurations as bit sets
+     * @param from the index of the first configuration to validate
+     * @param to the index after the last configuration to validate
+     * @param violations receives the first violated rule or {@link #VALID} for each configuration at the same index
+     */
+    public void validate(long[][] configurations, int from, int to, int[] violations) {
+        for (int start = from; start < to; start += 64) {
+            int count = Math.min(64, to - start);
+            transpose(configurations, start, count);
+            validateBatch(count == 64 ? -1L : (1L << count) - 1, violations, start);
+        }
+    }
+
+    private void transpose(long[][] configurations, int start, int count) {
+        Arrays.fill(words, 0);
+        for (int j = 0; j < count; j++) {
+            long[] bitSet = configurations[start + j];
+            long bit = 1L << j;
+            for (int w = 0; w < bitSet.length; w++) {
+                long word = bitSet[w];
+                while (word != 0) {
+                    int i = (w << 6) + Long.numberOfTrailingZeros(word);
+                    if (i < words.length) {
+                        words[i] |= bit;
+                    }
+                    word &= word - 1;
+                }
+            }
+        }
+    }
+
+    private void validateBatch(long pending, int[] violations, int offset) {
+        for (int j = 0; j < 64; j++) {
+            if ((pending & (1L << j)) != 0) {
+                violations[offset + j] = VALID;
+            }
+        }
+        for (int rule = 0; rule < ruleTypes.length && pending != 0; rule++) {
+            long violated = evaluate(rule) & pending;
+            pending &= ~violated;
+            while (violated != 0) {
+                violations[offset + Long.numberOfTrailingZeros(violated)] = rule;
+                violated &= violated - 1;
+            }
+        }
+    }
+
+    /**
+     * @return the word of configurations that violate the rule
+     */
+    private long evaluate(int rule) {
+        int element = ruleElements[rule];
+        switch (RULE_TYPES[ruleTypes[rule]]) {
+            case PARENT:
+                return words[element] & ~words[program.parents[element]];
+            case MANDATORY:
+                int parent = program.parents[element];
+                return (parent < 0 ? -1L : words[parent]) & ~words[element];
+            case GROUP:
+                return words[program.groupParents[element]] & ~evaluateGroup(element);
+            default:
+                long satisfied = 0;
+                for (int literal : program.clauses[element]) {
+                    satisfied |= literal > 0 ? words[literal - 1] : ~words[-literal - 1];
+                }
+                return ~satisfied;
+        }
+    }
+
+    /**
+     * Counts the selected children of a group with saturating unary counters,
+     * where {@code counters[k]} holds the configurations with at least {@code k} selected children.
+     *
+     * @return the word of configurations that satisfy the bounds of the group
+     */
+    private long evaluateGroup(int group) {
+        int[] members = program.groupChildren[group];
+        int lowerBound = program.groupLowerBounds[group];
+        if (lowerBound > members.length) {
+            return 0;
+        }
+        int upperBound = program.groupUpperBounds[group];
+        int limit = Math.min(members.length, Math.max(lowerBound, upperBound == Integer.MAX_VALUE ? 0 : upperBound + 1));
+        counters[0] = -1L;
+        for (int k = 1; k <= limit; k++) {
+            counters[k] = 0;
+        }
+        for (int member : members) {
+            long word = words[member];
+            for (int k = limit; k >= 1; k--) {
+                counters[k] |= counters[k - 1] & word;
+            }
+        }
+        long satisfied = counters[lowerBound];
+        if (upperBound < members.length) {
+            satisfied &= ~counters[upperBound + 1];
+        }
+        return satisfied;
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.analysis;
+
+import de.featjar.feature.model.FeatureModelConfiguration;
+import de.featjar.feature.model.FeatureNotFoundException;
+import de.featjar.feature.model.Selection;
+import java.util.Arrays;
+
+/**
+ * Derives the automatic selections of a {@link FeatureModelConfiguration} from its manual selections
+ * by unit propagation.
+ * The feature tree is propagated structurally (parents, mandatory children, and group bounds),
+ * cross-tree constraints with two watched literals per clause.
+ * Thus, the work per decision is proportional to the number of features it affects and not to the model size.
+ * <p>
+ * Unit propagation is sound but incomplete: every automatic selection is implied by the manual selections,
+ * but not every implied selection is found, and a decision is only rejected
+ * if propagating it leads to a contradiction.
+ * Manual selections must be changed through {@link #setManual(String, Selection)} to keep
+ * the automatic selections up to date.
+ * A propagator is not thread-safe.
+ */
+public class DecisionPropagator {
+
+    private final FeatureModelProgram program;
+    private final FeatureModelConfiguration configuration;
+    private final UnitPropagation propagation;
+    private int synchronizedSize;
+
+    private final int[] decisionLiterals;
+    private final int[] decisionStarts;
+    private final boolean[] decided;
+    private int decisionCount;
+
+    /**
+     * Creates a propagator for a configuration, compiling its feature model.
+     *
+     * @param configuration the configuration
+     * @throws IllegalArgumentException if the manual selections of the configuration contradict each other
+     */
+    public DecisionPropagator(FeatureModelConfiguration configuration) {
+        this(FeatureModelProgram.compile(configuration.getFeatureModel()), configuration);
+    }
+
+    /**
+     * Creates a propagator for a configuration, propagating its present manual selections in feature order.
+     *
+     * @param program the compiled feature model of the configuration
+     * @param configuration the configuration
+     * @throws IllegalArgumentException if the manual selections of the configuration contradict each other
+     */
+    public DecisionPropagator(FeatureModelProgram program, FeatureModelConfiguration configuration) {
+        this.program = program;
+        this.configuration = configuration;
+        propagation = new UnitPropagation(program);
+        int numberOfFeatures = program.getNumberOfFeatures();
+        decisionLiterals = new int[numberOfFeatures];
+        decisionStarts = new int[numberOfFeatures];
+        decided = new boolean[numberOfFeatures];
+        if (propagation.consistent) {
+            synchronize();
+            for (int i = 0; i < numberOfFeatures; i++) {
+                Selection manual = configuration.getManual(program.featureNames[i]);
+                if (manual != Selection.UNDEFINED && !decide(toLiteral(i, manual))) {
+                    throw new IllegalArgumentException(
+                            "Manual selection contradicts previous selections: " + program.featureNames[i]);
+                }
+            }
+            synchronize();
+        }
+    }
+
+    /**
+     * @return the compiled feature model
+     */
+    public FeatureModelProgram getProgram() {
+        return program;
+    }
+
+    /**
+     * @return the configuration whose automatic selections are maintained
+     */
+    public FeatureModelConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * @return whether propagating the feature model alone does not lead to a contradiction;
+     *     if not, every decision is rejected
+     */
+    public boolean isConsistent() {
+        return propagation.consistent;
+    }
+
+    /**
+     * Sets the manual selection of a feature and updates all automatic selections.
+     * If the decision contradicts the other manual selections, the configuration is left unchanged.
+     * Undefining a manual selection retracts it.
+     *
+     * @param featureName the name of the feature
+     * @param selection the new manual selection
+     * @return whether the decision was accepted
+     * @throws FeatureNotFoundException if the feature is not found
+     */
+    public boolean setManual(String featureName, Selection selection) {
+        int variable = program.getFeatureIndex(featureName);
+        if (variable < 0) {
+            throw new FeatureNotFoundException();
+        }
+        if (!propagation.consistent) {
+            return false;
+        }
+        int previousLiteral = 0;
+        if (decided[variable]) {
+            int position = 0;
+            while (Math.abs(decisionLiterals[position]) != variable + 1) {
+                position++;
+            }
+            previousLiteral = decisionLiterals[position];
+            if (previousLiteral == toLiteral(variable, selection)) {
+                return true;
+            }
+            retract(position);
+        }
+        boolean accepted =
+                selection == Selection.UNDEFINED || decide(toLiteral(variable, selection));
+        if (!accepted && previousLiteral != 0) {
+            decide(previousLiteral);
+        }
+        synchronize();
+        if (accepted) {
+            configuration.setManual(featureName, selection);
+        }
+        return accepted;
+    }
+
+    private static int toLiteral(int variable, Selection selection) {
+        switch (selection) {
+            case SELECTED:
+                return variable + 1;
+            case UNSELECTED:
+                return -(variable + 1);
+            default:
+                return 0;
+        }
+    }
+
+    private void retract(int position) {
+        int[] laterDecisions = Arrays.copyOfRange(decisionLiterals, position + 1, decisionCount);
+        backtrack(decisionStarts[position]);
+        for (int i = position; i < decisionCount; i++) {
+            decided[Math.abs(decisionLiterals[i]) - 1] = false;
+        }
+        decisionCount = position;
+        for (int literal : laterDecisions) {
+            // a decision that was consistent with more decisions remains consistent with fewer
+            decide(literal);
+        }
+    }
+
+    private boolean decide(int literal) {
+        int variable = Math.abs(literal) - 1;
+        decisionLiterals[decisionCount] = literal;
+        decisionStarts[decisionCount] = propagation.trailSize;
+        decisionCount++;
+        decided[variable] = true;
+        if (!propagation.decide(literal)) {
+            decisionCount--;
+            decided[variable] = false;
+            return false;
+        }
+        return true;
+    }
+
+    private void backtrack(int start) {
+        for (int i = Math.min(synchronizedSize, propagation.trailSize) - 1; i >= start; i--) {
+            int variable = Math.abs(propagation.trail[i]) - 1;
+            configuration.setAutomatic(program.featureNames[variable], Selection.UNDEFINED);
+        }
+        propagation.backtrack(start);
+        synchronizedSize = Math.min(synchronizedSize, start);
+    }
+
+    private void synchronize() {
+        for (int i = synchronizedSize; i < propagation.trailSize; i++) {
+            int literal = propagation.trail[i];
+            int variable = Math.abs(literal) - 1;
+            if (!decided[variable]) {
+                configuration.setAutomatic(
+                        program.featureNames[variable], literal > 0 ? Selection.SELECTED : Selection.UNSELECTED);
+            }
+        }
+        synchronizedSize = propagation.trailSize;
+    }
+}
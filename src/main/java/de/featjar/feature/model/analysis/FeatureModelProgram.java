@@ -0,0 +1,259 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.analysis;
+
+import de.featjar.base.data.Range;
+import de.featjar.feature.model.FeatureTree.Group;
+import de.featjar.feature.model.IConstraint;
+import de.featjar.feature.model.IFeature;
+import de.featjar.feature.model.IFeatureModel;
+import de.featjar.feature.model.IFeatureTree;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A feature model compiled into flat arrays for fast analyses.
+ * Features are numbered from {@code 0} in pre-order of the feature tree,
+ * followed by the features that are not part of the tree.
+ * The program consists of
+ * <ul>
+ * <li>the tree structure: each feature implies its parent, a selected feature implies its mandatory children,
+ * and a mandatory root feature must be selected,</li>
+ * <li>groups: if the parent of a group is selected, the number of its selected children must lie within the
+ * group's bounds (and groups impose no bounds and are omitted), and</li>
+ * <li>clauses: the cross-tree constraints in clause form,
+ * where the literal {@code i + 1} or {@code -(i + 1)} refers to the feature {@code i}.</li>
+ * </ul>
+ * A program is immutable and does not reflect later changes to its feature model.
+ */
+public final class FeatureModelProgram {
+
+    /**
+     * The maximum number of clauses a single cross-tree constraint may be converted into.
+     */
+    public static final int MAXIMUM_CLAUSES_PER_CONSTRAINT = 1 << 16;
+
+    final String[] featureNames;
+    final int[] parents;
+    final int[][] children;
+    final boolean[] roots;
+    final boolean[] mandatory;
+    final int[] groups;
+    final int[][] ownGroups;
+    final int[] groupParents;
+    final int[][] groupChildren;
+    final int[] groupLowerBounds;
+    final int[] groupUpperBounds;
+    final int[][] clauses;
+    final int[] clauseConstraints;
+
+    private final HashMap<String, Integer> featureIndices;
+    private final List<IConstraint> constraints;
+
+    private FeatureModelProgram(IFeatureModel featureModel) {
+        int numberOfFeatures = featureModel.getNumberOfFeatures();
+        featureNames = new String[numberOfFeatures];
+        parents = new int[numberOfFeatures];
+        children = new int[numberOfFeatures][];
+        roots = new boolean[numberOfFeatures];
+        mandatory = new boolean[numberOfFeatures];
+        groups = new int[numberOfFeatures];
+        featureIndices = new HashMap<>((int) (numberOfFeatures * 1.5));
+
+        IdentityHashMap<IFeatureTree, Integer> treeIndices = new IdentityHashMap<>();
+        List<IFeatureTree> trees = new ArrayList<>(numberOfFeatures);
+        featureModel.getFeatureTreeStream().forEach(tree -> {
+            treeIndices.put(tree, trees.size());
+            trees.add(tree);
+        });
+        Set<IFeature> treeFeatures = Collections.newSetFromMap(new IdentityHashMap<>());
+        int index = 0;
+        for (IFeatureTree tree : trees) {
+            treeFeatures.add(tree.getFeature());
+            addFeature(index++, tree.getFeature());
+        }
+        for (IFeature feature : featureModel.getFeatures()) {
+            if (!treeFeatures.contains(feature) && index < numberOfFeatures) {
+                addFeature(index++, feature);
+            }
+        }
+
+        List<Integer> groupParentList = new ArrayList<>();
+        List<int[]> groupChildrenList = new ArrayList<>();
+        List<Integer> groupLowerBoundList = new ArrayList<>();
+        List<Integer> groupUpperBoundList = new ArrayList<>();
+        for (int i = 0; i < numberOfFeatures; i++) {
+            parents[i] = -1;
+            groups[i] = -1;
+            children[i] = new int[0];
+        }
+        for (int i = 0; i < trees.size(); i++) {
+            IFeatureTree tree = trees.get(i);
+            roots[i] = !tree.hasParent();
+            mandatory[i] = tree.isMandatory();
+            List<? extends IFeatureTree> treeChildren = tree.getChildren();
+            children[i] = new int[treeChildren.size()];
+            for (int j = 0; j < children[i].length; j++) {
+                children[i][j] = treeIndices.get(treeChildren.get(j));
+                parents[children[i][j]] = i;
+            }
+            List<Group> treeGroups = tree.getGroups();
+            for (int groupID = 0; groupID < treeGroups.size(); groupID++) {
+                Group group = treeGroups.get(groupID);
+                List<IFeatureTree> members = tree.getGroupChildren(groupID);
+                if (group.isAnd() || members.isEmpty()) {
+                    continue;
+                }
+                int[] memberIndices = new int[members.size()];
+                for (int j = 0; j < memberIndices.length; j++) {
+                    memberIndices[j] = treeIndices.get(members.get(j));
+                    groups[memberIndices[j]] = groupParentList.size();
+                }
+                groupParentList.add(i);
+                groupChildrenList.add(memberIndices);
+                groupLowerBoundList.add(Math.max(0, group.getLowerBound()));
+                groupUpperBoundList.add(
+                        group.getUpperBound() == Range.OPEN ? Integer.MAX_VALUE : group.getUpperBound());
+            }
+        }
+        groupParents = groupParentList.stream().mapToInt(Integer::intValue).toArray();
+        int[] ownGroupCounts = new int[numberOfFeatures];
+        for (int groupParent : groupParents) {
+            ownGroupCounts[groupParent]++;
+        }
+        ownGroups = new int[numberOfFeatures][];
+        for (int i = 0; i < numberOfFeatures; i++) {
+            ownGroups[i] = new int[ownGroupCounts[i]];
+            ownGroupCounts[i] = 0;
+        }
+        for (int group = 0; group < groupParents.length; group++) {
+            int groupParent = groupParents[group];
+            ownGroups[groupParent][ownGroupCounts[groupParent]++] = group;
+        }
+        groupChildren = groupChildrenList.toArray(new int[0][]);
+        groupLowerBounds = groupLowerBoundList.stream().mapToInt(Integer::intValue).toArray();
+        groupUpperBounds = groupUpperBoundList.stream().mapToInt(Integer::intValue).toArray();
+
+        constraints = new ArrayList<>(featureModel.getConstraints());
+        List<int[]> clauseList = new ArrayList<>();
+        List<Integer> clauseConstraintList = new ArrayList<>();
+        for (int i = 0; i < constraints.size(); i++) {
+            for (int[] clause : ClauseEncoder.encode(
+                    constraints.get(i).getSharedFormula(), this::getVariable, MAXIMUM_CLAUSES_PER_CONSTRAINT)) {
+                clauseList.add(clause);
+                clauseConstraintList.add(i);
+            }
+        }
+        clauses = clauseList.toArray(new int[0][]);
+        clauseConstraints = clauseConstraintList.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private void addFeature(int index, IFeature feature) {
+        featureNames[index] = feature.getName().orElse("");
+        featureIndices.put(featureNames[index], index);
+    }
+
+    private int getVariable(String featureName) {
+        Integer index = featureIndices.get(featureName);
+        if (index == null) {
+            throw new IllegalArgumentException("encountered unknown feature " + featureName);
+        }
+        return index + 1;
+    }
+
+    /**
+     * Compiles a feature model.
+     *
+     * @param featureModel the feature model
+     * @return the compiled feature model
+     * @throws IllegalArgumentException if a constraint refers to an unknown feature, contains an unsupported
+     *     connective, or exceeds {@link #MAXIMUM_CLAUSES_PER_CONSTRAINT} clauses
+     */
+    public static FeatureModelProgram compile(IFeatureModel featureModel) {
+        return new FeatureModelProgram(featureModel);
+    }
+
+    /**
+     * @return the number of features
+     */
+    public int getNumberOfFeatures() {
+        return featureNames.length;
+    }
+
+    /**
+     * @param index the index of a feature
+     * @return the name of the feature
+     */
+    public String getFeatureName(int index) {
+        return featureNames[index];
+    }
+
+    /**
+     * @param featureName the name of a feature
+     * @return the index of the feature, or {@code -1} if there is no such feature
+     */
+    public int getFeatureIndex(String featureName) {
+        Integer index = featureIndices.get(featureName);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * @return the number of groups that are not and groups
+     */
+    public int getNumberOfGroups() {
+        return groupParents.length;
+    }
+
+    /**
+     * @param group the index of a group
+     * @return the index of the parent feature of the group
+     */
+    public int getGroupParent(int group) {
+        return groupParents[group];
+    }
+
+    /**
+     * @return the number of clauses
+     */
+    public int getNumberOfClauses() {
+        return clauses.length;
+    }
+
+    /**
+     * @param clause the index of a clause
+     * @return a copy of the literals of the clause
+     */
+    public int[] getClause(int clause) {
+        return clauses[clause].clone();
+    }
+
+    /**
+     * @param clause the index of a clause
+     * @return the constraint the clause originates from
+     */
+    public IConstraint getConstraint(int clause) {
+        return constraints.get(clauseConstraints[clause]);
+    }
+}
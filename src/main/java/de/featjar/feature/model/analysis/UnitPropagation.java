@@ -0,0 +1,299 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.analysis;
+
+import java.util.Arrays;
+
+/**
+ * Unit propagation over a {@link FeatureModelProgram}.
+ * The feature tree is propagated structurally (parents, mandatory children, and group bounds with
+ * per-group counters), cross-tree constraints with two watched literals per clause.
+ * Assigned literals are kept on a trail, so assignments can be undone by backtracking to a trail position.
+ * If all features are assigned without contradiction, the assignment satisfies the program.
+ */
+class UnitPropagation {
+
+    static final byte UNDEFINED = 0;
+    static final byte TRUE = 1;
+    static final byte FALSE = -1;
+
+    final FeatureModelProgram program;
+    final byte[] values;
+    final int[] trail;
+    int trailSize;
+    private int propagationHead;
+
+    private final int[] groupTrueCounts;
+    private final int[] groupFalseCounts;
+
+    private final int[][] clauses;
+    private final int[][] watches;
+    private final int[] watchSizes;
+
+    /**
+     * Whether propagating the program alone does not lead to a contradiction.
+     */
+    final boolean consistent;
+
+    /**
+     * The size of the trail after propagating the program alone.
+     */
+    final int rootSize;
+
+    UnitPropagation(FeatureModelProgram program) {
+        this.program = program;
+        int numberOfFeatures = program.getNumberOfFeatures();
+        values = new byte[numberOfFeatures];
+        trail = new int[numberOfFeatures];
+        groupTrueCounts = new int[program.groupParents.length];
+        groupFalseCounts = new int[program.groupParents.length];
+
+        clauses = new int[program.clauses.length][];
+        watches = new int[2 * numberOfFeatures][];
+        watchSizes = new int[2 * numberOfFeatures];
+        Arrays.fill(watches, new int[0]);
+        boolean consistent = true;
+        for (int i = 0; i < clauses.length; i++) {
+            clauses[i] = program.clauses[i].clone();
+            if (clauses[i].length == 0) {
+                consistent = false;
+            } else if (clauses[i].length > 1) {
+                addWatch(clauses[i][0], i);
+                addWatch(clauses[i][1], i);
+            }
+        }
+        for (int i = 0; consistent && i < numberOfFeatures; i++) {
+            if (program.roots[i] && program.mandatory[i]) {
+                consistent = assign(i + 1);
+            }
+        }
+        for (int i = 0; consistent && i < clauses.length; i++) {
+            if (clauses[i].length == 1) {
+                consistent = assign(clauses[i][0]);
+            }
+        }
+        for (int i = 0; consistent && i < groupTrueCounts.length; i++) {
+            consistent = checkGroup(i);
+        }
+        this.consistent = consistent && propagate();
+        rootSize = trailSize;
+    }
+
+    /**
+     * Assigns a literal and propagates it, undoing all assignments on contradiction.
+     *
+     * @param literal the literal
+     * @return false if the literal contradicts the current assignment
+     */
+    boolean decide(int literal) {
+        int start = trailSize;
+        if (!assign(literal) || !propagate()) {
+            backtrack(start);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Undoes all assignments from the given trail position on.
+     *
+     * @param start the trail position
+     */
+    void backtrack(int start) {
+        for (int i = trailSize - 1; i >= start; i--) {
+            int variable = Math.abs(trail[i]) - 1;
+            int group = program.groups[variable];
+            if (group >= 0) {
+                if (values[variable] == TRUE) {
+                    groupTrueCounts[group]--;
+                } else {
+                    groupFalseCounts[group]--;
+                }
+            }
+            values[variable] = UNDEFINED;
+        }
+        trailSize = start;
+        propagationHead = Math.min(propagationHead, start);
+    }
+
+    /**
+     * @return false if the literal is already false
+     */
+    private boolean assign(int literal) {
+        int variable = Math.abs(literal) - 1;
+        byte value = literal > 0 ? TRUE : FALSE;
+        if (values[variable] != UNDEFINED) {
+            return values[variable] == value;
+        }
+        values[variable] = value;
+        trail[trailSize++] = literal;
+        int group = program.groups[variable];
+        if (group >= 0) {
+            if (value == TRUE) {
+                groupTrueCounts[group]++;
+            } else {
+                groupFalseCounts[group]++;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return false if a contradiction is found
+     */
+    private boolean propagate() {
+        while (propagationHead < trailSize) {
+            int literal = trail[propagationHead++];
+            int variable = Math.abs(literal) - 1;
+            int parent = program.parents[variable];
+            if (literal > 0) {
+                if (parent >= 0 && !assign(parent + 1)) {
+                    return false;
+                }
+                for (int child : program.children[variable]) {
+                    if (program.mandatory[child] && !assign(child + 1)) {
+                        return false;
+                    }
+                }
+                for (int group : program.ownGroups[variable]) {
+                    if (!checkGroup(group)) {
+                        return false;
+                    }
+                }
+            } else {
+                for (int child : program.children[variable]) {
+                    if (!assign(-(child + 1))) {
+                        return false;
+                    }
+                }
+                if (parent >= 0 && program.mandatory[variable] && !assign(-(parent + 1))) {
+                    return false;
+                }
+            }
+            int group = program.groups[variable];
+            if (group >= 0 && !checkGroup(group)) {
+                return false;
+            }
+            if (!propagateClauses(-literal)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean checkGroup(int group) {
+        int parent = program.groupParents[group];
+        int[] members = program.groupChildren[group];
+        int lowerBound = program.groupLowerBounds[group];
+        int upperBound = program.groupUpperBounds[group];
+        int trueCount = groupTrueCounts[group];
+        int falseCount = groupFalseCounts[group];
+        if (trueCount > upperBound) {
+            return false;
+        }
+        if (members.length - falseCount < lowerBound) {
+            return values[parent] != TRUE && assign(-(parent + 1));
+        }
+        if (values[parent] == TRUE) {
+            if (members.length - falseCount == lowerBound && trueCount < lowerBound) {
+                for (int member : members) {
+                    if (values[member] == UNDEFINED && !assign(member + 1)) {
+                        return false;
+                    }
+                }
+            } else if (trueCount == upperBound && trueCount + falseCount < members.length) {
+                for (int member : members) {
+                    if (values[member] == UNDEFINED && !assign(-(member + 1))) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Visits the clauses watching a literal that has just become false.
+     *
+     * @return false if a clause is violated
+     */
+    private boolean propagateClauses(int falseLiteral) {
+        int watch = watchIndex(falseLiteral);
+        int[] watchList = watches[watch];
+        int size = watchSizes[watch];
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            int clauseIndex = watchList[i];
+            int[] clause = clauses[clauseIndex];
+            if (clause[0] == falseLiteral) {
+                clause[0] = clause[1];
+                clause[1] = falseLiteral;
+            }
+            if (isTrue(clause[0])) {
+                watchList[kept++] = clauseIndex;
+                continue;
+            }
+            boolean moved = false;
+            for (int k = 2; k < clause.length; k++) {
+                if (!isFalse(clause[k])) {
+                    clause[1] = clause[k];
+                    clause[k] = falseLiteral;
+                    addWatch(clause[1], clauseIndex);
+                    moved = true;
+                    break;
+                }
+            }
+            if (moved) {
+                continue;
+            }
+            watchList[kept++] = clauseIndex;
+            if (!assign(clause[0])) {
+                for (i++; i < size; i++) {
+                    watchList[kept++] = watchList[i];
+                }
+                watchSizes[watch] = kept;
+                return false;
+            }
+        }
+        watchSizes[watch] = kept;
+        return true;
+    }
+
+    private boolean isTrue(int literal) {
+        return values[Math.abs(literal) - 1] == (literal > 0 ? TRUE : FALSE);
+    }
+
+    private boolean isFalse(int literal) {
+        return values[Math.abs(literal) - 1] == (literal > 0 ? FALSE : TRUE);
+    }
+
+    private static int watchIndex(int literal) {
+        return literal > 0 ? 2 * (literal - 1) : 2 * (-literal - 1) + 1;
+    }
+
+    private void addWatch(int literal, int clauseIndex) {
+        int watch = watchIndex(literal);
+        if (watchSizes[watch] == watches[watch].length) {
+            watches[watch] = Arrays.copyOf(watches[watch], Math.max(4, 2 * watchSizes[watch]));
+        }
+        watches[watch][watchSizes[watch]++] = clauseIndex;
+    }
+}
@@ -0,0 +1,484 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.io.dimacs;
+
+import de.featjar.base.data.Range;
+import de.featjar.base.data.Result;
+import de.featjar.base.io.format.IFormat;
+import de.featjar.base.io.output.AOutputMapper;
+import de.featjar.feature.model.FeatureTree.Group;
+import de.featjar.feature.model.IConstraint;
+import de.featjar.feature.model.IFeature;
+import de.featjar.feature.model.IFeatureModel;
+import de.featjar.feature.model.IFeatureTree;
+import de.featjar.feature.model.analysis.ClauseEncoder;
+import de.featjar.feature.model.analysis.FeatureModelProgram;
+import de.featjar.formula.structure.IExpression;
+import de.featjar.formula.structure.IFormula;
+import de.featjar.formula.structure.connective.And;
+import de.featjar.formula.structure.connective.BiImplies;
+import de.featjar.formula.structure.connective.Implies;
+import de.featjar.formula.structure.connective.Not;
+import de.featjar.formula.structure.connective.Or;
+import de.featjar.formula.structure.connective.Reference;
+import de.featjar.formula.structure.predicate.Literal;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Writes feature models to DIMACS CNF files without computing their formula first.
+ * Variables are numbered in the order of {@link IFeatureModel#getFeatures()} and listed in {@code c} comment lines,
+ * followed by auxiliary variables, which are not listed.
+ * The clauses encode
+ * <ul>
+ * <li>the tree structure: each feature implies its parent, a selected feature implies its mandatory children,
+ * and a mandatory root feature must be selected,</li>
+ * <li>groups: if the parent of a group is selected, the number of its selected children must lie within the
+ * group's bounds, using a sequential counter unless the group is an or group or a small alternative group, and</li>
+ * <li>the cross-tree constraints, which are converted by distribution with {@link ClauseEncoder} if this yields at
+ * most {@link #setMaximumDistributedClauses(int) a given number of clauses}, and by Tseitin transformation
+ * otherwise.</li>
+ * </ul>
+ * The tree clauses are streamed to the output in a second walk over the feature tree after they have been counted
+ * for the problem line, so only the clauses of the cross-tree constraints are kept in memory.
+ */
+public class DIMACSFeatureModelFormat implements IFormat<IFeatureModel> {
+    /**
+     * The default maximum number of clauses a cross-tree constraint is converted into by distribution.
+     */
+    public static final int DEFAULT_MAXIMUM_DISTRIBUTED_CLAUSES = 64;
+
+    private static final int MAXIMUM_PAIRWISE_GROUP_SIZE = 8;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private int maximumDistributedClauses = DEFAULT_MAXIMUM_DISTRIBUTED_CLAUSES;
+
+    /**
+     * Converts cross-tree constraints with a larger clause form by Tseitin transformation.
+     *
+     * @param maximumDistributedClauses the maximum number of clauses a constraint is converted into by distribution
+     * @return this format
+     */
+    public DIMACSFeatureModelFormat setMaximumDistributedClauses(int maximumDistributedClauses) {
+        this.maximumDistributedClauses = maximumDistributedClauses;
+        return this;
+    }
+
+    @Override
+    public String getFileExtension() {
+        return "dimacs";
+    }
+
+    @Override
+    public String getName() {
+        return "DIMACS";
+    }
+
+    @Override
+    public boolean supportsSerialize() {
+        return true;
+    }
+
+    @Override
+    public Result<String> serialize(IFeatureModel featureModel) {
+        StringBuilder stringBuilder = new StringBuilder();
+        try {
+            write(featureModel, stringBuilder);
+        } catch (IOException | IllegalArgumentException e) {
+            return Result.empty(e);
+        }
+        return Result.of(stringBuilder.toString());
+    }
+
+    /**
+     * {@inheritDoc}
+     * A feature model that cannot be encoded is reported as {@link IOException}, so callers of
+     * {@link de.featjar.base.io.IO#save} handle it like any other write failure.
+     */
+    @Override
+    public void write(IFeatureModel featureModel, AOutputMapper outputMapper) throws IOException {
+        try {
+            write(featureModel, outputMapper.get().getOutputStream());
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes a feature model as UTF-8 encoded DIMACS document to an output stream, which is flushed, but not closed.
+     *
+     * @param featureModel the feature model
+     * @param outputStream the output stream
+     * @throws IOException if the output stream cannot be written
+     * @throws IllegalArgumentException if a constraint refers to an unknown feature, contains an unsupported
+     *     connective, or contains a cardinality connective with more than
+     *     {@link FeatureModelProgram#MAXIMUM_CLAUSES_PER_CONSTRAINT} clauses
+     */
+    public void write(IFeatureModel featureModel, OutputStream outputStream) throws IOException {
+        Writer writer =
+                new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        write(featureModel, writer);
+        writer.flush();
+    }
+
+    /**
+     * Writes a feature model as DIMACS document to an appendable.
+     *
+     * @param featureModel the feature model
+     * @param out the appendable
+     * @throws IOException if the appendable cannot be written
+     * @throws IllegalArgumentException if a constraint refers to an unknown feature, contains an unsupported
+     *     connective, or contains a cardinality connective with more than
+     *     {@link FeatureModelProgram#MAXIMUM_CLAUSES_PER_CONSTRAINT} clauses
+     */
+    public void write(IFeatureModel featureModel, Appendable out) throws IOException {
+        Encoding encoding = new Encoding(featureModel, maximumDistributedClauses);
+        List<int[]> constraintClauses = encoding.encodeConstraints();
+        int firstTreeVariable = encoding.numberOfVariables;
+        ClauseCounter counter = new ClauseCounter();
+        encoding.encodeTree(counter);
+
+        List<IFeature> features = encoding.features;
+        for (int i = 0; i < features.size(); i++) {
+            out.append("c ")
+                    .append(Integer.toString(i + 1))
+                    .append(' ')
+                    .append(features.get(i).getName().orElse(""))
+                    .append('\n');
+        }
+        out.append("p cnf ")
+                .append(Integer.toString(encoding.numberOfVariables))
+                .append(' ')
+                .append(Long.toString(counter.count + constraintClauses.size()))
+                .append('\n');
+        encoding.numberOfVariables = firstTreeVariable;
+        ClauseWriter writer = new ClauseWriter(out);
+        encoding.encodeTree(writer);
+        for (int[] clause : constraintClauses) {
+            writer.add(clause);
+        }
+    }
+
+    private interface ClauseSink {
+        void add(int... literals) throws IOException;
+    }
+
+    private static final class ClauseCounter implements ClauseSink {
+        private long count;
+
+        @Override
+        public void add(int... literals) {
+            count++;
+        }
+    }
+
+    private static final class ClauseList implements ClauseSink {
+        private final List<int[]> clauses = new ArrayList<>();
+
+        @Override
+        public void add(int... literals) {
+            clauses.add(literals);
+        }
+    }
+
+    private static final class ClauseWriter implements ClauseSink {
+        private final Appendable out;
+
+        private ClauseWriter(Appendable out) {
+            this.out = out;
+        }
+
+        @Override
+        public void add(int... literals) throws IOException {
+            for (int literal : literals) {
+                out.append(Integer.toString(literal)).append(' ');
+            }
+            out.append("0\n");
+        }
+    }
+
+    private static final class Encoding {
+        private final IFeatureModel featureModel;
+        private final int maximumDistributedClauses;
+        private final List<IFeature> features;
+        private final IdentityHashMap<IFeature, Integer> featureVariables;
+        private final HashMap<String, Integer> nameVariables;
+        private int numberOfVariables;
+
+        private Encoding(IFeatureModel featureModel, int maximumDistributedClauses) {
+            this.featureModel = featureModel;
+            this.maximumDistributedClauses = maximumDistributedClauses;
+            features = new ArrayList<>(featureModel.getFeatures());
+            featureVariables = new IdentityHashMap<>(features.size());
+            nameVariables = new HashMap<>((int) (features.size() * 1.5));
+            for (IFeature feature : features) {
+                featureVariables.put(feature, ++numberOfVariables);
+                nameVariables.putIfAbsent(feature.getName().orElse(""), numberOfVariables);
+            }
+        }
+
+        private int getVariable(String featureName) {
+            Integer variable = nameVariables.get(featureName);
+            if (variable == null) {
+                throw new IllegalArgumentException("encountered unknown feature " + featureName);
+            }
+            return variable;
+        }
+
+        private int getVariable(IFeatureTree tree) {
+            Integer variable = featureVariables.get(tree.getFeature());
+            if (variable == null) {
+                throw new IllegalArgumentException(
+                        "encountered unknown feature " + tree.getFeature().getName().orElse(""));
+            }
+            return variable;
+        }
+
+        private void encodeTree(ClauseSink sink) throws IOException {
+            ArrayDeque<IFeatureTree> stack = new ArrayDeque<>();
+            List<? extends IFeatureTree> roots = featureModel.getRoots();
+            for (int i = roots.size() - 1; i >= 0; i--) {
+                stack.push(roots.get(i));
+            }
+            while (!stack.isEmpty()) {
+                IFeatureTree tree = stack.pop();
+                int variable = getVariable(tree);
+                Result<IFeatureTree> parent = tree.getParent();
+                if (parent.isEmpty()) {
+                    if (tree.isMandatory()) {
+                        sink.add(variable);
+                    }
+                } else {
+                    int parentVariable = getVariable(parent.get());
+                    sink.add(-variable, parentVariable);
+                    if (tree.isMandatory()) {
+                        sink.add(-parentVariable, variable);
+                    }
+                }
+                List<Group> groups = tree.getGroups();
+                for (int groupID = 0; groupID < groups.size(); groupID++) {
+                    Group group = groups.get(groupID);
+                    if (!group.isAnd()) {
+                        encodeGroup(sink, variable, group, tree.getGroupChildren(groupID));
+                    }
+                }
+                List<? extends IFeatureTree> children = tree.getChildren();
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    stack.push(children.get(i));
+                }
+            }
+        }
+
+        private void encodeGroup(ClauseSink sink, int parentVariable, Group group, List<IFeatureTree> groupChildren)
+                throws IOException {
+            int n = groupChildren.size();
+            if (n == 0) {
+                return;
+            }
+            int lowerBound = Math.max(0, group.getLowerBound());
+            int upperBound = group.getUpperBound() == Range.OPEN ? n : Math.min(group.getUpperBound(), n);
+            if (lowerBound > upperBound) {
+                sink.add(-parentVariable);
+                return;
+            }
+            int[] literals = new int[n];
+            for (int i = 0; i < n; i++) {
+                literals[i] = getVariable(groupChildren.get(i));
+            }
+            if (lowerBound == 1) {
+                int[] clause = new int[n + 1];
+                clause[0] = -parentVariable;
+                System.arraycopy(literals, 0, clause, 1, n);
+                sink.add(clause);
+            } else if (lowerBound > 1) {
+                int[] negatedLiterals = new int[n];
+                for (int i = 0; i < n; i++) {
+                    negatedLiterals[i] = -literals[i];
+                }
+                encodeAtMost(sink, -parentVariable, negatedLiterals, n - lowerBound);
+            }
+            encodeAtMost(sink, -parentVariable, literals, upperBound);
+        }
+
+        /**
+         * Encodes that at most {@code bound} literals hold if {@code condition} does not hold, pairwise for small
+         * at-most-one constraints and with a sequential counter (Sinz 2005) otherwise.
+         */
+        private void encodeAtMost(ClauseSink sink, int condition, int[] literals, int bound) throws IOException {
+            int n = literals.length;
+            if (bound >= n) {
+                return;
+            }
+            if (bound == 0) {
+                for (int literal : literals) {
+                    sink.add(condition, -literal);
+                }
+                return;
+            }
+            if (bound == 1 && n <= MAXIMUM_PAIRWISE_GROUP_SIZE) {
+                for (int i = 0; i < n; i++) {
+                    for (int j = i + 1; j < n; j++) {
+                        sink.add(condition, -literals[i], -literals[j]);
+                    }
+                }
+                return;
+            }
+            // counter[i][j] holds if at least j + 1 of the first i + 1 literals hold
+            int firstCounter = numberOfVariables + 1;
+            numberOfVariables += (n - 1) * bound;
+            sink.add(-literals[0], counter(firstCounter, bound, 0, 0));
+            for (int j = 1; j < bound; j++) {
+                sink.add(-counter(firstCounter, bound, 0, j));
+            }
+            for (int i = 1; i < n - 1; i++) {
+                sink.add(-literals[i], counter(firstCounter, bound, i, 0));
+                sink.add(-counter(firstCounter, bound, i - 1, 0), counter(firstCounter, bound, i, 0));
+                for (int j = 1; j < bound; j++) {
+                    sink.add(
+                            -literals[i],
+                            -counter(firstCounter, bound, i - 1, j - 1),
+                            counter(firstCounter, bound, i, j));
+                    sink.add(-counter(firstCounter, bound, i - 1, j), counter(firstCounter, bound, i, j));
+                }
+                sink.add(condition, -literals[i], -counter(firstCounter, bound, i - 1, bound - 1));
+            }
+            sink.add(condition, -literals[n - 1], -counter(firstCounter, bound, n - 2, bound - 1));
+        }
+
+        private static int counter(int firstCounter, int bound, int i, int j) {
+            return firstCounter + i * bound + j;
+        }
+
+        private List<int[]> encodeConstraints() {
+            ClauseList clauses = new ClauseList();
+            for (IConstraint constraint : featureModel.getConstraints()) {
+                encodeConstraint(clauses, constraint.getSharedFormula());
+            }
+            return clauses.clauses;
+        }
+
+        private void encodeConstraint(ClauseList clauses, IExpression expression) {
+            try {
+                clauses.clauses.addAll(
+                        ClauseEncoder.encode(toFormula(expression), this::getVariable, maximumDistributedClauses));
+                return;
+            } catch (IllegalArgumentException e) {
+                // too many clauses, or an error that the Tseitin transformation reports again
+            }
+            if (expression instanceof Reference) {
+                encodeConstraint(clauses, expression.getChildren().get(0));
+            } else if (expression instanceof And) {
+                for (IExpression child : expression.getChildren()) {
+                    encodeConstraint(clauses, child);
+                }
+            } else {
+                clauses.add(encodeGate(clauses, expression));
+            }
+        }
+
+        /**
+         * Introduces a variable that is equivalent to the given expression (Tseitin transformation).
+         *
+         * @return a literal that is equivalent to the expression
+         */
+        private int encodeGate(ClauseList sink, IExpression expression) {
+            if (expression instanceof Literal) {
+                Literal literal = (Literal) expression;
+                int variable = getVariable(literal.getName());
+                return literal.isPositive() ? variable : -variable;
+            } else if (expression instanceof Reference) {
+                return encodeGate(sink, expression.getChildren().get(0));
+            } else if (expression instanceof Not) {
+                return -encodeGate(sink, expression.getChildren().get(0));
+            } else if (expression instanceof And || expression instanceof Or) {
+                boolean and = expression instanceof And;
+                List<? extends IExpression> children = expression.getChildren();
+                int[] literals = new int[children.size()];
+                for (int i = 0; i < literals.length; i++) {
+                    literals[i] = and ? encodeGate(sink, children.get(i)) : -encodeGate(sink, children.get(i));
+                }
+                int gate = ++numberOfVariables;
+                int[] clause = new int[literals.length + 1];
+                clause[0] = and ? gate : -gate;
+                for (int i = 0; i < literals.length; i++) {
+                    sink.add(and ? -gate : gate, literals[i]);
+                    clause[i + 1] = -literals[i];
+                }
+                sink.add(clause);
+                return gate;
+            } else if (expression instanceof Implies) {
+                int left = encodeGate(sink, expression.getChildren().get(0));
+                int right = encodeGate(sink, expression.getChildren().get(1));
+                int gate = ++numberOfVariables;
+                sink.add(-gate, -left, right);
+                sink.add(gate, left);
+                sink.add(gate, -right);
+                return gate;
+            } else if (expression instanceof BiImplies) {
+                int left = encodeGate(sink, expression.getChildren().get(0));
+                int right = encodeGate(sink, expression.getChildren().get(1));
+                int gate = ++numberOfVariables;
+                sink.add(-gate, -left, right);
+                sink.add(-gate, left, -right);
+                sink.add(gate, left, right);
+                sink.add(gate, -left, -right);
+                return gate;
+            }
+            // cardinality connectives are distributed and guarded by the gate variable
+            IFormula formula = toFormula(expression);
+            List<int[]> positiveClauses = ClauseEncoder.encode(
+                    formula, this::getVariable, FeatureModelProgram.MAXIMUM_CLAUSES_PER_CONSTRAINT);
+            List<int[]> negativeClauses = ClauseEncoder.encode(
+                    new Not(formula), this::getVariable, FeatureModelProgram.MAXIMUM_CLAUSES_PER_CONSTRAINT);
+            int gate = ++numberOfVariables;
+            for (int[] clause : positiveClauses) {
+                sink.add(guard(-gate, clause));
+            }
+            for (int[] clause : negativeClauses) {
+                sink.add(guard(gate, clause));
+            }
+            return gate;
+        }
+
+        private static int[] guard(int literal, int[] clause) {
+            int[] guardedClause = new int[clause.length + 1];
+            guardedClause[0] = literal;
+            System.arraycopy(clause, 0, guardedClause, 1, clause.length);
+            return guardedClause;
+        }
+
+        private static IFormula toFormula(IExpression expression) {
+            if (!(expression instanceof IFormula)) {
+                throw new IllegalArgumentException("Unsupported formula " + expression.getClass().getSimpleName());
+            }
+            return (IFormula) expression;
+        }
+    }
+}
@@ -0,0 +1,759 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.io.uvl;
+
+import de.featjar.base.data.IAttribute;
+import de.featjar.base.data.Problem;
+import de.featjar.base.data.Range;
+import de.featjar.base.data.Result;
+import de.featjar.base.io.format.IFormat;
+import de.featjar.base.io.format.ParseException;
+import de.featjar.base.io.input.AInputMapper;
+import de.featjar.feature.model.FeatureModel;
+import de.featjar.feature.model.FeatureTree.Group;
+import de.featjar.feature.model.IConstraint;
+import de.featjar.feature.model.IFeature;
+import de.featjar.feature.model.IFeatureModel;
+import de.featjar.feature.model.IFeatureTree;
+import de.featjar.feature.model.io.AttributeIO;
+import de.featjar.feature.model.io.uvl.UVLTokenizer.Token;
+import de.featjar.formula.structure.Expressions;
+import de.featjar.formula.structure.IExpression;
+import de.featjar.formula.structure.IFormula;
+import de.featjar.formula.structure.connective.And;
+import de.featjar.formula.structure.connective.BiImplies;
+import de.featjar.formula.structure.connective.Implies;
+import de.featjar.formula.structure.connective.Not;
+import de.featjar.formula.structure.connective.Or;
+import de.featjar.formula.structure.connective.Reference;
+import de.featjar.formula.structure.predicate.Literal;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Parses and writes feature models from and to UVL (Universal Variability Language) files.
+ * Supports feature types, feature cardinalities, group cardinalities, and propositional constraints.
+ * The {@code abstract} and {@code hidden} attributes are mapped to the corresponding feature properties,
+ * all other feature attributes are stored in the {@link #NAMESPACE} namespace.
+ * As UVL attributes have no namespace, attributes of other namespaces are not written.
+ * Numbers are read as {@link Long} or {@link Double}, so integer attributes of other types are read back as long.
+ * Imports and arithmetic constraints are not supported.
+ * <p>
+ * Documents are parsed by recursive descent over the tokens of an indentation-aware {@link UVLTokenizer},
+ * which reads the input as a stream, so no parse tree is built.
+ */
+public class UVLFeatureModelFormat implements IFormat<IFeatureModel> {
+    public static final String NAMESPACE = UVLFeatureModelFormat.class.getCanonicalName();
+
+    private static final String NAMESPACE_KEYWORD = "namespace";
+    private static final String INCLUDE = "include";
+    private static final String IMPORTS = "imports";
+    private static final String FEATURES = "features";
+    private static final String CONSTRAINTS = "constraints";
+    private static final String MANDATORY = "mandatory";
+    private static final String OPTIONAL = "optional";
+    private static final String OR = "or";
+    private static final String ALTERNATIVE = "alternative";
+    private static final String CARDINALITY = "cardinality";
+    private static final String ABSTRACT = "abstract";
+    private static final String HIDDEN = "hidden";
+    private static final String TRUE = "true";
+    private static final String FALSE = "false";
+    private static final Map<String, Class<?>> TYPES = Map.of(
+            "Boolean", Boolean.class, "Integer", Integer.class, "Real", Double.class, "String", String.class);
+    private static final Set<String> KEYWORDS = Set.of(
+            NAMESPACE_KEYWORD,
+            INCLUDE,
+            IMPORTS,
+            FEATURES,
+            CONSTRAINTS,
+            MANDATORY,
+            OPTIONAL,
+            OR,
+            ALTERNATIVE,
+            CARDINALITY,
+            TRUE,
+            FALSE,
+            "Boolean",
+            "Integer",
+            "Real",
+            "String");
+
+    private static final int EQUIVALENCE_PRECEDENCE = 1;
+    private static final int IMPLICATION_PRECEDENCE = 2;
+    private static final int DISJUNCTION_PRECEDENCE = 3;
+    private static final int CONJUNCTION_PRECEDENCE = 4;
+    private static final int UNARY_PRECEDENCE = 5;
+
+    @Override
+    public String getFileExtension() {
+        return "uvl";
+    }
+
+    @Override
+    public String getName() {
+        return "UVL";
+    }
+
+    @Override
+    public boolean supportsParse() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsSerialize() {
+        return true;
+    }
+
+    @Override
+    public Result<IFeatureModel> parse(AInputMapper inputMapper) {
+        return parse(inputMapper, () -> new FeatureModel());
+    }
+
+    @Override
+    public Result<IFeatureModel> parse(AInputMapper inputMapper, Supplier<IFeatureModel> supplier) {
+        try {
+            return Result.of(new Parser(new UVLTokenizer(inputMapper.get().getReader()), supplier.get()).parse());
+        } catch (IOException | ParseException e) {
+            return Result.empty(e);
+        }
+    }
+
+    @Override
+    public Result<String> serialize(IFeatureModel featureModel) {
+        StringBuilder stringBuilder = new StringBuilder();
+        try {
+            write(featureModel, stringBuilder);
+        } catch (IOException | IllegalArgumentException e) {
+            return Result.empty(e);
+        }
+        return Result.of(stringBuilder.toString());
+    }
+
+    /**
+     * Writes a feature model as UVL document to an appendable.
+     *
+     * @param featureModel the feature model
+     * @param out the appendable
+     * @throws IOException if the appendable cannot be written
+     * @throws IllegalArgumentException if the feature model contains names, attribute values,
+     *     or constraints that cannot be expressed in UVL
+     */
+    public void write(IFeatureModel featureModel, Appendable out) throws IOException {
+        if (featureModel.getName().isPresent()) {
+            out.append(NAMESPACE_KEYWORD).append(' ');
+            writeName(out, featureModel.getName().get());
+            out.append('\n');
+        }
+        out.append(FEATURES).append('\n');
+        for (IFeatureTree root : featureModel.getRoots()) {
+            writeFeature(out, root, 1, false);
+        }
+        if (featureModel.getNumberOfConstraints() > 0) {
+            out.append(CONSTRAINTS).append('\n');
+            for (IConstraint constraint : featureModel.getConstraints()) {
+                out.append('\t');
+                writeFormula(out, constraint.getSharedFormula(), 0);
+                out.append('\n');
+            }
+        }
+    }
+
+    private static void writeFeature(Appendable out, IFeatureTree tree, int depth, boolean writeRange)
+            throws IOException {
+        IFeature feature = tree.getFeature();
+        indent(out, depth);
+        Class<?> type = feature.getType();
+        if (type != null && type != Boolean.class) {
+            String typeName = null;
+            for (Entry<String, Class<?>> entry : TYPES.entrySet()) {
+                if (entry.getValue() == type) {
+                    typeName = entry.getKey();
+                }
+            }
+            if (typeName == null) {
+                throw new IllegalArgumentException("Unsupported feature type " + type.getName());
+            }
+            out.append(typeName).append(' ');
+        }
+        writeName(out, feature.getName().orElse(""));
+        if (writeRange) {
+            out.append(' ').append(CARDINALITY).append(' ');
+            writeRange(out, tree.getFeatureRangeLowerBound(), tree.getFeatureRangeUpperBound());
+        }
+        writeAttributes(out, feature);
+        out.append('\n');
+        List<Group> groups = tree.getGroups();
+        for (int groupID = 0; groupID < groups.size(); groupID++) {
+            Group group = groups.get(groupID);
+            String keyword = null;
+            for (IFeatureTree child : tree.getGroupChildren(groupID)) {
+                String childKeyword;
+                boolean writeChildRange;
+                int lowerBound = child.getFeatureRangeLowerBound();
+                int upperBound = child.getFeatureRangeUpperBound();
+                boolean optional = lowerBound == 0 && upperBound == 1;
+                if (group.isAnd()) {
+                    boolean mandatory = lowerBound == 1 && upperBound == 1;
+                    childKeyword = mandatory ? MANDATORY : OPTIONAL;
+                    writeChildRange = !mandatory && !optional;
+                } else {
+                    childKeyword = ALTERNATIVE;
+                    writeChildRange = !optional;
+                }
+                if (keyword == null || (group.isAnd() && !keyword.equals(childKeyword))) {
+                    keyword = childKeyword;
+                    indent(out, depth + 1);
+                    writeGroupKeyword(out, group, keyword);
+                    out.append('\n');
+                }
+                writeFeature(out, child, depth + 2, writeChildRange);
+            }
+        }
+    }
+
+    private static void writeGroupKeyword(Appendable out, Group group, String andKeyword) throws IOException {
+        if (group.isAnd()) {
+            out.append(andKeyword);
+        } else if (group.isAlternative()) {
+            out.append(ALTERNATIVE);
+        } else if (group.isOr()) {
+            out.append(OR);
+        } else {
+            writeRange(out, group.getLowerBound(), group.getUpperBound());
+        }
+    }
+
+    private static void writeRange(Appendable out, int lowerBound, int upperBound) throws IOException {
+        out.append('[').append(Integer.toString(lowerBound));
+        if (upperBound != lowerBound) {
+            out.append("..").append(upperBound == Range.OPEN ? "*" : Integer.toString(upperBound));
+        }
+        out.append(']');
+    }
+
+    private static void writeAttributes(Appendable out, IFeature feature) throws IOException {
+        boolean first = true;
+        if (feature.isAbstract()) {
+            out.append(" {").append(ABSTRACT);
+            first = false;
+        }
+        if (feature.isHidden()) {
+            out.append(first ? " {" : ", ").append(HIDDEN);
+            first = false;
+        }
+        Map<IAttribute<?>, Object> attributes = feature.getAttributes().orElse(Map.of());
+        for (Entry<IAttribute<?>, Object> entry : attributes.entrySet()) {
+            if (!NAMESPACE.equals(entry.getKey().getNamespace())) {
+                continue;
+            }
+            out.append(first ? " {" : ", ");
+            first = false;
+            writeName(out, entry.getKey().getName());
+            Object value = entry.getValue();
+            if (value instanceof String) {
+                String string = (String) value;
+                if (string.indexOf('\'') >= 0 || string.indexOf('\n') >= 0 || string.indexOf('\r') >= 0) {
+                    throw new IllegalArgumentException("Attribute value cannot be written: " + string);
+                }
+                out.append(" '").append(string).append('\'');
+            } else if (value instanceof Double || value instanceof Float) {
+                out.append(' ').append(formatReal(((Number) value).doubleValue()));
+            } else {
+                out.append(' ').append(String.valueOf(value));
+            }
+        }
+        if (!first) {
+            out.append('}');
+        }
+    }
+
+    /**
+     * Formats a real number without exponent and with a decimal point, so it is read back as a real number.
+     */
+    private static String formatReal(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("Attribute value cannot be written: " + value);
+        }
+        String string = BigDecimal.valueOf(value).toPlainString();
+        return string.indexOf('.') >= 0 ? string : string + ".0";
+    }
+
+    private static void writeFormula(Appendable out, IExpression expression, int minimumPrecedence)
+            throws IOException {
+        if (expression instanceof Reference) {
+            writeFormula(out, expression.getChildren().get(0), minimumPrecedence);
+            return;
+        }
+        if (expression instanceof Literal) {
+            Literal literal = (Literal) expression;
+            if (!literal.isPositive()) {
+                out.append('!');
+            }
+            writeName(out, literal.getName());
+            return;
+        }
+        int precedence;
+        String operator;
+        int leftPrecedence;
+        int rightPrecedence;
+        if (expression instanceof Not) {
+            out.append('!');
+            writeFormula(out, expression.getChildren().get(0), UNARY_PRECEDENCE);
+            return;
+        } else if (expression instanceof And) {
+            precedence = CONJUNCTION_PRECEDENCE;
+            operator = " & ";
+            leftPrecedence = rightPrecedence = CONJUNCTION_PRECEDENCE;
+        } else if (expression instanceof Or) {
+            precedence = DISJUNCTION_PRECEDENCE;
+            operator = " | ";
+            leftPrecedence = rightPrecedence = DISJUNCTION_PRECEDENCE;
+        } else if (expression instanceof Implies) {
+            precedence = IMPLICATION_PRECEDENCE;
+            operator = " => ";
+            leftPrecedence = DISJUNCTION_PRECEDENCE;
+            rightPrecedence = IMPLICATION_PRECEDENCE;
+        } else if (expression instanceof BiImplies) {
+            precedence = EQUIVALENCE_PRECEDENCE;
+            operator = " <=> ";
+            leftPrecedence = EQUIVALENCE_PRECEDENCE;
+            rightPrecedence = IMPLICATION_PRECEDENCE;
+        } else {
+            throw new IllegalArgumentException("Unsupported formula " + expression);
+        }
+        List<? extends IExpression> children = expression.getChildren();
+        if (children.isEmpty()) {
+            throw new IllegalArgumentException("Unsupported formula " + expression);
+        }
+        boolean parenthesize = precedence < minimumPrecedence;
+        if (parenthesize) {
+            out.append('(');
+        }
+        for (int i = 0; i < children.size(); i++) {
+            if (i > 0) {
+                out.append(operator);
+            }
+            writeFormula(out, children.get(i), i == 0 ? leftPrecedence : rightPrecedence);
+        }
+        if (parenthesize) {
+            out.append(')');
+        }
+    }
+
+    private static void writeName(Appendable out, String name) throws IOException {
+        if (UVLTokenizer.isPlainName(name) && !KEYWORDS.contains(name)) {
+            out.append(name);
+        } else if (name.indexOf('"') >= 0 || name.indexOf('\n') >= 0 || name.indexOf('\r') >= 0) {
+            throw new IllegalArgumentException("Name cannot be written: " + name);
+        } else {
+            out.append('"').append(name).append('"');
+        }
+    }
+
+    private static void indent(Appendable out, int depth) throws IOException {
+        for (int i = 0; i < depth; i++) {
+            out.append('\t');
+        }
+    }
+
+    private static final class Parser {
+        private final UVLTokenizer tokenizer;
+        private final IFeatureModel featureModel;
+        private final HashMap<String, IFeature> features = new HashMap<>();
+        private Token token;
+
+        private Parser(UVLTokenizer tokenizer, IFeatureModel featureModel) {
+            this.tokenizer = tokenizer;
+            this.featureModel = featureModel;
+        }
+
+        private IFeatureModel parse() throws IOException, ParseException {
+            advance();
+            if (isKeyword(NAMESPACE_KEYWORD)) {
+                advance();
+                expect(Token.NAME);
+                featureModel.mutate().setName(tokenizer.getText());
+                advance();
+                endLine();
+            }
+            if (isKeyword(INCLUDE)) {
+                advance();
+                endLine();
+                skipBlock();
+            }
+            if (isKeyword(IMPORTS)) {
+                throw error("Imports are not supported");
+            }
+            if (isKeyword(FEATURES)) {
+                advance();
+                endLine();
+                if (token == Token.INDENT) {
+                    advance();
+                    while (token != Token.DEDENT) {
+                        parseFeature(null, 0, true);
+                    }
+                    advance();
+                }
+            }
+            if (isKeyword(CONSTRAINTS)) {
+                advance();
+                endLine();
+                if (token == Token.INDENT) {
+                    advance();
+                    while (token != Token.DEDENT) {
+                        IFormula formula = parseEquivalence();
+                        endLine();
+                        featureModel.mutate().addConstraint(formula);
+                    }
+                    advance();
+                }
+            }
+            if (token != Token.END) {
+                throw unexpected();
+            }
+            return featureModel;
+        }
+
+        private IFeatureTree parseFeature(IFeatureTree parent, int groupID, boolean mandatory)
+                throws IOException, ParseException {
+            expect(Token.NAME);
+            String name = tokenizer.getText();
+            boolean quoted = tokenizer.isQuoted();
+            advance();
+            Class<?> type = null;
+            if (!quoted && token == Token.NAME && !isKeyword(CARDINALITY)) {
+                type = TYPES.get(name);
+                if (type == null) {
+                    throw error("Unknown feature type " + name);
+                }
+                name = tokenizer.getText();
+                advance();
+            }
+            if (features.containsKey(name)) {
+                throw error("Duplicate feature name " + name);
+            }
+            IFeature feature = featureModel.mutate().addFeature(name);
+            features.put(name, feature);
+            if (type != null) {
+                feature.mutate().setType(type);
+            }
+            IFeatureTree tree;
+            if (parent == null) {
+                tree = featureModel.mutate().addFeatureTreeRoot(feature);
+            } else {
+                tree = parent.mutate().addFeatureBelow(feature, parent.getChildrenCount(), groupID);
+            }
+            if (mandatory) {
+                tree.mutate().setMandatory();
+            }
+            if (isKeyword(CARDINALITY)) {
+                advance();
+                tree.mutate().setFeatureRange(parseRange());
+            }
+            if (token == Token.OPEN_BRACE) {
+                parseAttributes(feature);
+            }
+            endLine();
+            if (token == Token.INDENT) {
+                advance();
+                parseGroups(tree);
+                advance();
+            }
+            return tree;
+        }
+
+        private void parseGroups(IFeatureTree tree) throws IOException, ParseException {
+            int andGroupID = -1;
+            boolean hasGroup = false;
+            while (token != Token.DEDENT) {
+                Range range = null;
+                boolean mandatory = false;
+                if (token == Token.OPEN_BRACKET) {
+                    range = parseRange();
+                } else if (isKeyword(MANDATORY)) {
+                    mandatory = true;
+                    advance();
+                } else if (isKeyword(OPTIONAL)) {
+                    advance();
+                } else if (isKeyword(OR)) {
+                    range = Range.of(1, Range.OPEN);
+                    advance();
+                } else if (isKeyword(ALTERNATIVE)) {
+                    range = Range.of(1, 1);
+                    advance();
+                } else {
+                    throw unexpected();
+                }
+                int groupID;
+                Range pendingRange = null;
+                if (range == null) {
+                    if (andGroupID < 0) {
+                        andGroupID = hasGroup ? addGroup(tree, Range.of(0, Range.OPEN)) : 0;
+                        hasGroup = true;
+                    }
+                    groupID = andGroupID;
+                } else if (hasGroup) {
+                    groupID = addGroup(tree, range);
+                } else {
+                    groupID = 0;
+                    pendingRange = range;
+                    hasGroup = true;
+                }
+                endLine();
+                if (token == Token.INDENT) {
+                    advance();
+                    while (token != Token.DEDENT) {
+                        IFeatureTree child = parseFeature(tree, groupID, mandatory);
+                        if (pendingRange != null) {
+                            child.mutate().setGroupRange(pendingRange);
+                            pendingRange = null;
+                        }
+                    }
+                    advance();
+                }
+                if (pendingRange != null) {
+                    // the first group is empty, so it replaces the implicit group 0
+                    addGroup(tree, pendingRange);
+                    tree.mutate().setGroups(List.of(tree.getGroups().get(1)));
+                }
+            }
+        }
+
+        private int addGroup(IFeatureTree tree, Range range) {
+            tree.mutate().addGroup(range);
+            return tree.getGroups().size() - 1;
+        }
+
+        private Range parseRange() throws IOException, ParseException {
+            expect(Token.OPEN_BRACKET);
+            advance();
+            int lowerBound = parseBound();
+            int upperBound = lowerBound;
+            if (token == Token.RANGE) {
+                advance();
+                if (token == Token.STAR) {
+                    upperBound = Range.OPEN;
+                    advance();
+                } else {
+                    upperBound = parseBound();
+                }
+            }
+            expect(Token.CLOSE_BRACKET);
+            advance();
+            return Range.of(lowerBound, upperBound);
+        }
+
+        private int parseBound() throws IOException, ParseException {
+            expect(Token.NUMBER);
+            try {
+                int bound = Integer.parseInt(tokenizer.getText());
+                if (bound < 0) {
+                    throw error("Negative bound " + bound);
+                }
+                advance();
+                return bound;
+            } catch (NumberFormatException e) {
+                throw error("Invalid bound " + tokenizer.getText());
+            }
+        }
+
+        private void parseAttributes(IFeature feature) throws IOException, ParseException {
+            advance();
+            while (token != Token.CLOSE_BRACE) {
+                expect(Token.NAME);
+                String key = tokenizer.getText();
+                advance();
+                String typeString;
+                String value;
+                if (token == Token.STRING) {
+                    typeString = "string";
+                    value = tokenizer.getText();
+                    advance();
+                } else if (token == Token.NUMBER) {
+                    value = tokenizer.getText();
+                    typeString = value.indexOf('.') >= 0 ? "double" : "long";
+                    advance();
+                } else if (isKeyword(TRUE) || isKeyword(FALSE)) {
+                    typeString = "boolean";
+                    value = tokenizer.getText();
+                    advance();
+                } else if (token == Token.COMMA || token == Token.CLOSE_BRACE) {
+                    typeString = "boolean";
+                    value = TRUE;
+                } else {
+                    throw error("Unsupported value for attribute " + key);
+                }
+                if (ABSTRACT.equals(key) || HIDDEN.equals(key)) {
+                    if (!"boolean".equals(typeString)) {
+                        throw error("Attribute " + key + " must be a boolean");
+                    }
+                    if (ABSTRACT.equals(key)) {
+                        feature.mutate().setAbstract(Boolean.parseBoolean(value));
+                    } else {
+                        feature.mutate().setHidden(Boolean.parseBoolean(value));
+                    }
+                } else {
+                    List<Problem> problems =
+                            AttributeIO.parseAndSetAttributeValue(feature, NAMESPACE, key, typeString, value);
+                    if (!problems.isEmpty()) {
+                        throw error(problems.get(0).getMessage());
+                    }
+                }
+                if (token == Token.COMMA) {
+                    advance();
+                } else {
+                    expect(Token.CLOSE_BRACE);
+                }
+            }
+            advance();
+        }
+
+        private IFormula parseEquivalence() throws IOException, ParseException {
+            IFormula formula = parseImplication();
+            while (token == Token.EQUIVALENCE) {
+                advance();
+                formula = new BiImplies(formula, parseImplication());
+            }
+            return formula;
+        }
+
+        private IFormula parseImplication() throws IOException, ParseException {
+            IFormula formula = parseDisjunction();
+            if (token == Token.IMPLIES) {
+                advance();
+                return new Implies(formula, parseImplication());
+            }
+            return formula;
+        }
+
+        private IFormula parseDisjunction() throws IOException, ParseException {
+            IFormula formula = parseConjunction();
+            if (token != Token.OR) {
+                return formula;
+            }
+            List<IFormula> formulas = new ArrayList<>();
+            formulas.add(formula);
+            while (token == Token.OR) {
+                advance();
+                formulas.add(parseConjunction());
+            }
+            return new Or(formulas);
+        }
+
+        private IFormula parseConjunction() throws IOException, ParseException {
+            IFormula formula = parseUnary();
+            if (token != Token.AND) {
+                return formula;
+            }
+            List<IFormula> formulas = new ArrayList<>();
+            formulas.add(formula);
+            while (token == Token.AND) {
+                advance();
+                formulas.add(parseUnary());
+            }
+            return new And(formulas);
+        }
+
+        private IFormula parseUnary() throws IOException, ParseException {
+            switch (token) {
+                case NOT:
+                    advance();
+                    return new Not(parseUnary());
+                case OPEN_PARENTHESIS:
+                    advance();
+                    IFormula formula = parseEquivalence();
+                    expect(Token.CLOSE_PARENTHESIS);
+                    advance();
+                    return formula;
+                case NAME:
+                    String name = tokenizer.getText();
+                    if (!features.containsKey(name)) {
+                        throw error("Unknown feature " + name);
+                    }
+                    advance();
+                    return Expressions.literal(name);
+                default:
+                    throw unexpected();
+            }
+        }
+
+        private void skipBlock() throws IOException, ParseException {
+            if (token == Token.INDENT) {
+                int depth = 0;
+                do {
+                    if (token == Token.INDENT) {
+                        depth++;
+                    } else if (token == Token.DEDENT) {
+                        depth--;
+                    } else if (token == Token.END) {
+                        throw unexpected();
+                    }
+                    advance();
+                } while (depth > 0);
+            }
+        }
+
+        private boolean isKeyword(String keyword) {
+            return token == Token.NAME && !tokenizer.isQuoted() && tokenizer.textEquals(keyword);
+        }
+
+        private void endLine() throws IOException, ParseException {
+            if (token == Token.NEWLINE) {
+                advance();
+            } else if (token != Token.END) {
+                throw unexpected();
+            }
+        }
+
+        private void expect(Token expected) throws ParseException {
+            if (token != expected) {
+                throw unexpected();
+            }
+        }
+
+        private void advance() throws IOException, ParseException {
+            token = tokenizer.next();
+        }
+
+        private ParseException unexpected() {
+            switch (token) {
+                case NAME:
+                case STRING:
+                case NUMBER:
+                    return error("Unexpected " + tokenizer.getText());
+                default:
+                    return error("Unexpected " + token.name().toLowerCase());
+            }
+        }
+
+        private ParseException error(String message) {
+            return new ParseException(message, tokenizer.getLine());
+        }
+    }
+}
@@ -0,0 +1,477 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.io.uvl;
+
+import de.featjar.base.io.format.ParseException;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Splits a UVL document into tokens while reading it.
+ * Like in Python, changes of indentation at the start of a line are reported as {@link Token#INDENT} and
+ * {@link Token#DEDENT} tokens, and line breaks inside brackets, braces, and parentheses are ignored.
+ * Empty lines and comments are skipped.
+ * Tabs advance the indentation to the next multiple of {@link #TAB_WIDTH}.
+ */
+class UVLTokenizer {
+
+    enum Token {
+        /** A plain or double-quoted name, see {@link UVLTokenizer#isQuoted()}. */
+        NAME,
+        /** A single-quoted string. */
+        STRING,
+        NUMBER,
+        NEWLINE,
+        INDENT,
+        DEDENT,
+        OPEN_BRACKET,
+        CLOSE_BRACKET,
+        OPEN_BRACE,
+        CLOSE_BRACE,
+        OPEN_PARENTHESIS,
+        CLOSE_PARENTHESIS,
+        RANGE,
+        STAR,
+        COMMA,
+        NOT,
+        AND,
+        OR,
+        IMPLIES,
+        EQUIVALENCE,
+        END
+    }
+
+    static final int TAB_WIDTH = 4;
+
+    private static final int EOF = -1;
+
+    private final Reader reader;
+    private final char[] buffer = new char[1 << 14];
+    private int position;
+    private int limit;
+
+    private final StringBuilder text = new StringBuilder();
+    private boolean quoted;
+    private int line = 1;
+
+    private int[] indents = new int[16];
+    private int indentDepth;
+    private int pendingDedents;
+    private boolean atLineStart = true;
+    private boolean atEnd;
+    private int nesting;
+
+    UVLTokenizer(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * @return the text of the last {@link Token#NAME}, {@link Token#STRING}, or {@link Token#NUMBER} token
+     */
+    String getText() {
+        return text.toString();
+    }
+
+    /**
+     * @param string a string
+     * @return whether the text of the last token equals the given string
+     */
+    boolean textEquals(String string) {
+        if (text.length() != string.length()) {
+            return false;
+        }
+        for (int i = 0; i < string.length(); i++) {
+            if (text.charAt(i) != string.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return whether the last {@link Token#NAME} was double-quoted
+     */
+    boolean isQuoted() {
+        return quoted;
+    }
+
+    /**
+     * @return the line of the last token
+     */
+    int getLine() {
+        return line;
+    }
+
+    /**
+     * Reads the next token.
+     *
+     * @return the next token, which is {@link Token#END} at the end of the document
+     * @throws IOException if the document cannot be read
+     * @throws ParseException if the document contains an unexpected character or inconsistent indentation
+     */
+    Token next() throws IOException, ParseException {
+        if (pendingDedents > 0) {
+            pendingDedents--;
+            return Token.DEDENT;
+        }
+        if (atEnd) {
+            return Token.END;
+        }
+        if (atLineStart && nesting == 0) {
+            Token token = readIndentation();
+            if (token != null) {
+                return token;
+            }
+        }
+        while (true) {
+            int c = read();
+            switch (c) {
+                case EOF:
+                    if (nesting > 0) {
+                        throw new ParseException("Unexpected end of document", line);
+                    }
+                    if (!atLineStart) {
+                        atLineStart = true;
+                        return Token.NEWLINE;
+                    }
+                    return end();
+                case ' ':
+                case '\t':
+                    continue;
+                case '\r':
+                    if (peek(0) == '\n') {
+                        position++;
+                    }
+                    line++;
+                    if (nesting > 0) {
+                        continue;
+                    }
+                    atLineStart = true;
+                    return Token.NEWLINE;
+                case '\n':
+                    line++;
+                    if (nesting > 0) {
+                        continue;
+                    }
+                    atLineStart = true;
+                    return Token.NEWLINE;
+                case '/':
+                    if (skipComment()) {
+                        continue;
+                    }
+                    throw unexpected(c);
+                case '[':
+                    nesting++;
+                    return Token.OPEN_BRACKET;
+                case ']':
+                    nesting = Math.max(0, nesting - 1);
+                    return Token.CLOSE_BRACKET;
+                case '{':
+                    nesting++;
+                    return Token.OPEN_BRACE;
+                case '}':
+                    nesting = Math.max(0, nesting - 1);
+                    return Token.CLOSE_BRACE;
+                case '(':
+                    nesting++;
+                    return Token.OPEN_PARENTHESIS;
+                case ')':
+                    nesting = Math.max(0, nesting - 1);
+                    return Token.CLOSE_PARENTHESIS;
+                case '*':
+                    return Token.STAR;
+                case ',':
+                    return Token.COMMA;
+                case '!':
+                    return Token.NOT;
+                case '&':
+                    return Token.AND;
+                case '|':
+                    return Token.OR;
+                case '.':
+                    expect('.');
+                    return Token.RANGE;
+                case '=':
+                    expect('>');
+                    return Token.IMPLIES;
+                case '<':
+                    expect('=');
+                    expect('>');
+                    return Token.EQUIVALENCE;
+                case '"':
+                    readQuoted('"');
+                    quoted = true;
+                    return Token.NAME;
+                case '\'':
+                    readQuoted('\'');
+                    return Token.STRING;
+                default:
+                    if (isDigit(c) || (c == '-' && isDigit(peek(0)))) {
+                        readNumber(c);
+                        return Token.NUMBER;
+                    }
+                    if (isNameStart(c)) {
+                        readName(c);
+                        return Token.NAME;
+                    }
+                    throw unexpected(c);
+            }
+        }
+    }
+
+    private Token readIndentation() throws IOException, ParseException {
+        int column = 0;
+        while (true) {
+            int c = peek(0);
+            if (c == ' ') {
+                column++;
+            } else if (c == '\t') {
+                column += TAB_WIDTH - column % TAB_WIDTH;
+            } else if (c == '\r' || c == '\n') {
+                if (c == '\r' && peek(1) == '\n') {
+                    position++;
+                }
+                line++;
+                column = 0;
+            } else if (c == '/' && peek(1) == '/') {
+                position++;
+                skipComment();
+                continue;
+            } else if (c == '/' && peek(1) == '*') {
+                position += 2;
+                column = skipBlockComment(column + 2);
+                continue;
+            } else if (c == EOF) {
+                return end();
+            } else {
+                break;
+            }
+            position++;
+        }
+        atLineStart = false;
+        if (column > indents[indentDepth]) {
+            if (++indentDepth == indents.length) {
+                indents = Arrays.copyOf(indents, 2 * indents.length);
+            }
+            indents[indentDepth] = column;
+            return Token.INDENT;
+        }
+        int dedents = 0;
+        while (column < indents[indentDepth]) {
+            indentDepth--;
+            dedents++;
+        }
+        if (column != indents[indentDepth]) {
+            throw new ParseException("Inconsistent indentation", line);
+        }
+        if (dedents > 0) {
+            pendingDedents = dedents - 1;
+            return Token.DEDENT;
+        }
+        return null;
+    }
+
+    private Token end() {
+        atEnd = true;
+        atLineStart = false;
+        if (indentDepth > 0) {
+            pendingDedents = indentDepth - 1;
+            indentDepth = 0;
+            return Token.DEDENT;
+        }
+        return Token.END;
+    }
+
+    /**
+     * Skips a comment after its initial slash.
+     *
+     * @return whether a comment was skipped
+     */
+    private boolean skipComment() throws IOException, ParseException {
+        int c = peek(0);
+        if (c == '/') {
+            for (c = peek(0); c != EOF && c != '\n' && c != '\r'; c = peek(0)) {
+                position++;
+            }
+            return true;
+        } else if (c == '*') {
+            position++;
+            for (c = read(); !(c == '*' && peek(0) == '/'); c = read()) {
+                if (c == EOF) {
+                    throw new ParseException("Unterminated comment", line);
+                } else if (c == '\n' || (c == '\r' && peek(0) != '\n')) {
+                    line++;
+                }
+            }
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Skips the rest of a block comment in the indentation of a line, so that a feature following the comment
+     * is indented by the columns the comment occupies.
+     *
+     * @param column the column after the opening of the comment
+     * @return the column after the end of the comment
+     */
+    private int skipBlockComment(int column) throws IOException, ParseException {
+        while (true) {
+            int c = read();
+            if (c == EOF) {
+                throw new ParseException("Unterminated comment", line);
+            } else if (c == '*' && peek(0) == '/') {
+                position++;
+                return column + 2;
+            } else if (c == '\n') {
+                line++;
+                column = 0;
+            } else if (c == '\r') {
+                if (peek(0) == '\n') {
+                    position++;
+                }
+                line++;
+                column = 0;
+            } else if (c == '\t') {
+                column += TAB_WIDTH - column % TAB_WIDTH;
+            } else {
+                column++;
+            }
+        }
+    }
+
+    private void readQuoted(char quote) throws IOException, ParseException {
+        text.setLength(0);
+        for (int c = read(); c != quote; c = read()) {
+            if (c == EOF || c == '\n' || c == '\r') {
+                throw new ParseException("Unterminated quote", line);
+            }
+            text.append((char) c);
+        }
+    }
+
+    private void readNumber(int first) throws IOException {
+        text.setLength(0);
+        text.append((char) first);
+        while (true) {
+            int c = peek(0);
+            if (isDigit(c) || (c == '.' && isDigit(peek(1)))) {
+                text.append((char) c);
+                position++;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void readName(int first) throws IOException {
+        text.setLength(0);
+        text.append((char) first);
+        quoted = false;
+        while (true) {
+            int c = peek(0);
+            if (isNamePart(c) || (c == '.' && isNameStart(peek(1)))) {
+                text.append((char) c);
+                position++;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void expect(char expected) throws IOException, ParseException {
+        int c = read();
+        if (c != expected) {
+            throw unexpected(c);
+        }
+    }
+
+    private ParseException unexpected(int c) {
+        return new ParseException(
+                c == EOF ? "Unexpected end of document" : "Unexpected character '" + (char) c + "'", line);
+    }
+
+    /**
+     * @param name a name
+     * @return whether the name is read as a single {@link Token#NAME} without quotes
+     */
+    static boolean isPlainName(String name) {
+        if (name.isEmpty() || !isNameStart(name.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!isNamePart(c) && !(c == '.' && i + 1 < name.length() && isNameStart(name.charAt(i + 1)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isNameStart(int c) {
+        return c == '_' || (c >= 0 && Character.isLetter(c));
+    }
+
+    private static boolean isNamePart(int c) {
+        return c == '_' || (c >= 0 && Character.isLetterOrDigit(c));
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill(1)) {
+            return EOF;
+        }
+        return buffer[position++];
+    }
+
+    private int peek(int offset) throws IOException {
+        if (position + offset >= limit && !fill(offset + 1)) {
+            return EOF;
+        }
+        return buffer[position + offset];
+    }
+
+    /**
+     * Reads more characters until at least the given number of characters is available after the current position.
+     *
+     * @return whether enough characters are available
+     */
+    private boolean fill(int count) throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        while (limit < count) {
+            int read = reader.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                return false;
+            }
+            limit += read;
+        }
+        return true;
+    }
+}
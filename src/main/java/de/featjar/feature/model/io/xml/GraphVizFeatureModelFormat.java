@@ -22,17 +22,109 @@ package de.featjar.feature.model.io.xml;
 
 import de.featjar.base.data.Result;
 import de.featjar.base.io.format.IFormat;
+import de.featjar.base.io.output.AOutputMapper;
 import de.featjar.feature.model.*;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
  * Writes feature models to GraphViz DOT files.
+ * The DOT document is streamed to an {@link Appendable} with {@link #write(IFeatureModel, Appendable)},
+ * walking the feature tree once for the nodes and once for the edges, without collecting the tree or
+ * building intermediate strings.
+ * <p>
+ * For large feature models, the level of detail can be reduced by hiding features below a
+ * {@link #setMaximumDepth(int) maximum depth}, subtrees {@link #setMinimumSubtreeSize(int) smaller than a threshold},
+ * features {@link #setFocus(Collection, int) far from selected features}, or subtrees that did
+ * {@link #setBaseline(IFeatureModel) not change since a baseline}.
+ * The hidden children of a feature are drawn as a single dashed summary node labeled with their number of features.
+ * A hidden feature hides its whole subtree, and roots are always drawn.
  *
  * @author Elias Kuiter
  */
 public class GraphVizFeatureModelFormat implements IFormat<IFeatureModel> {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private int maximumDepth = -1;
+    private int minimumSubtreeSize;
+    private Collection<IFeatureTree> focus;
+    private int focusRadius;
+    private IFeatureModel baseline;
+
+    /**
+     * Hides all features deeper than the given depth, where roots have depth 0.
+     *
+     * @param maximumDepth the maximum depth, or -1 to draw features at any depth
+     * @return this format
+     */
+    public GraphVizFeatureModelFormat setMaximumDepth(int maximumDepth) {
+        if (maximumDepth < -1) {
+            throw new IllegalArgumentException(String.format("maximum depth must be at least -1 (%d)", maximumDepth));
+        }
+        this.maximumDepth = maximumDepth;
+        return this;
+    }
+
+    /**
+     * Hides all subtrees with less than the given number of features.
+     *
+     * @param minimumSubtreeSize the minimum number of features in a drawn subtree
+     * @return this format
+     */
+    public GraphVizFeatureModelFormat setMinimumSubtreeSize(int minimumSubtreeSize) {
+        if (minimumSubtreeSize < 0) {
+            throw new IllegalArgumentException(
+                    String.format("minimum subtree size must not be negative (%d)", minimumSubtreeSize));
+        }
+        this.minimumSubtreeSize = minimumSubtreeSize;
+        return this;
+    }
+
+    /**
+     * Draws only the given features, their ancestors, and all features within the given distance in the feature tree.
+     *
+     * @param focus the features to focus on, or null to draw all features
+     * @param radius the maximum number of tree edges between a drawn feature and a focused feature
+     * @return this format
+     */
+    public GraphVizFeatureModelFormat setFocus(Collection<IFeatureTree> focus, int radius) {
+        if (radius < 0) {
+            throw new IllegalArgumentException(String.format("radius must not be negative (%d)", radius));
+        }
+        this.focus = focus;
+        focusRadius = radius;
+        return this;
+    }
+
+    /**
+     * Draws only subtrees that changed since the given baseline.
+     * A subtree is unchanged if the baseline contains a feature with the same name, the same parent,
+     * and an equal {@link FeatureModelDigest digest}.
+     * Features removed since the baseline are not drawn.
+     *
+     * @param baseline the earlier revision of the feature model, or null to draw all features
+     * @return this format
+     */
+    public GraphVizFeatureModelFormat setBaseline(IFeatureModel baseline) {
+        this.baseline = baseline;
+        return this;
+    }
+
     @Override
     public String getFileExtension() {
         return "dot";
@@ -50,65 +142,215 @@ public class GraphVizFeatureModelFormat implements IFormat<IFeatureModel> {
 
     @Override
     public Result<String> serialize(IFeatureModel featureModel) {
+        StringBuilder stringBuilder = new StringBuilder();
+        try {
+            write(featureModel, stringBuilder);
+        } catch (IOException e) {
+            return Result.empty(e);
+        }
+        return Result.of(stringBuilder.toString());
+    }
+
+    @Override
+    public void write(IFeatureModel featureModel, AOutputMapper outputMapper) throws IOException {
+        write(featureModel, outputMapper.get().getOutputStream());
+    }
+
+    /**
+     * Writes a feature model as UTF-8 encoded DOT document to an output stream, which is flushed, but not closed.
+     *
+     * @param featureModel the feature model
+     * @param outputStream the output stream
+     * @throws IOException if the output stream cannot be written
+     */
+    public void write(IFeatureModel featureModel, OutputStream outputStream) throws IOException {
+        Writer writer =
+                new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        write(featureModel, writer);
+        writer.flush();
+    }
+
+    /**
+     * Writes a feature model as DOT document to an appendable.
+     * The output is identical to {@link #serialize(IFeatureModel)}.
+     *
+     * @param featureModel the feature model
+     * @param out the appendable
+     * @throws IOException if the appendable cannot be written
+     */
+    public void write(IFeatureModel featureModel, Appendable out) throws IOException {
         // TODO take multiple roots into account
-        List<IFeatureTree> features = featureModel.getFeatureTreeStream().collect(Collectors.toList());
-        return Result.of(String.format(
-                "digraph {\n  graph%s;\n  node%s;\n  edge%s;\n%s\n%s\n}",
-                options(option("splines", "false"), option("ranksep", "0.2")),
-                options(
-                        option("fontname", "Arial"),
-                        option("style", "filled"),
-                        option("fillcolor", "#ccccff"),
-                        option("shape", "box")),
-                options(option("arrowhead", "none")),
-                features.stream().map(this::getNode).collect(Collectors.joining("\n")),
-                features.stream().map(this::getEdge).filter(s -> !s.isEmpty()).collect(Collectors.joining("\n"))));
+        DotWriter writer = new DotWriter(out);
+        out.append("digraph {\n  graph");
+        writer.option("splines", "false");
+        writer.option("ranksep", "0.2");
+        writer.endOptions();
+        out.append(";\n  node");
+        writer.option("fontname", "Arial");
+        writer.option("style", "filled");
+        writer.option("fillcolor", "#ccccff");
+        writer.option("shape", "box");
+        writer.endOptions();
+        out.append(";\n  edge");
+        writer.option("arrowhead", "none");
+        writer.endOptions();
+        out.append(";\n");
+        LevelOfDetail levelOfDetail = createLevelOfDetail(featureModel);
+        try {
+            ArrayDeque<IFeatureTree> stack = new ArrayDeque<>();
+            boolean first = true;
+            pushAll(stack, featureModel.getRoots());
+            while (!stack.isEmpty()) {
+                IFeatureTree feature = stack.pop();
+                if (!first) {
+                    out.append('\n');
+                }
+                first = false;
+                writeNode(writer, feature);
+                if (levelOfDetail == null) {
+                    pushAll(stack, feature.getChildren());
+                } else if (levelOfDetail.pushVisibleChildren(stack, feature)) {
+                    writeSummaryNode(writer, feature, levelOfDetail.countHiddenFeatures(feature));
+                }
+            }
+            out.append('\n');
+            first = true;
+            pushAll(stack, featureModel.getRoots());
+            while (!stack.isEmpty()) {
+                IFeatureTree feature = stack.pop();
+                if (!first) {
+                    out.append('\n');
+                }
+                first = false;
+                writeEdges(writer, feature);
+                if (levelOfDetail == null) {
+                    pushAll(stack, feature.getChildren());
+                } else if (levelOfDetail.pushVisibleChildren(stack, feature)) {
+                    writeSummaryEdge(writer, feature);
+                }
+            }
+        } finally {
+            if (levelOfDetail != null) {
+                levelOfDetail.close();
+            }
+        }
+        out.append("\n}");
+    }
+
+    private static void pushAll(ArrayDeque<IFeatureTree> stack, List<? extends IFeatureTree> trees) {
+        for (int i = trees.size() - 1; i >= 0; i--) {
+            stack.push(trees.get(i));
+        }
+    }
+
+    private LevelOfDetail createLevelOfDetail(IFeatureModel featureModel) {
+        if (maximumDepth < 0 && minimumSubtreeSize <= 1 && focus == null && baseline == null) {
+            return null;
+        }
+        return new LevelOfDetail(featureModel);
+    }
+
+    private void writeSummaryNode(DotWriter writer, IFeatureTree feature, int numberOfFeatures) throws IOException {
+        writer.out.append("\n  ");
+        writer.quote(feature.getFeature().getIdentifier().toString(), "_summary");
+        writer.option("label", numberOfFeatures + (numberOfFeatures == 1 ? " feature" : " features"));
+        writer.option("style", "dashed");
+        writer.endOptions();
+        writer.out.append(';');
+    }
+
+    private void writeSummaryEdge(DotWriter writer, IFeatureTree feature) throws IOException {
+        String identifier = feature.getFeature().getIdentifier().toString();
+        writer.out.append("\n  ");
+        writer.quote(identifier, feature.getGroup().isAnd() ? "_group" : "");
+        writer.out.append(":s -> ");
+        writer.quote(identifier, "_summary");
+        writer.out.append(":n");
+        writer.option("style", "dashed");
+        writer.endOptions();
+        writer.out.append(';');
     }
 
     public String getNode(IFeatureTree feature) {
-        String nodeString = "";
-        nodeString += String.format(
-                "  %s%s;",
-                quote(feature.getFeature().getIdentifier().toString()),
-                options(
-                        option("label", feature.getFeature().getName().orElse("")),
-                        option("fillcolor", feature.getFeature().isAbstract() ? "#f2f2ff" : null)));
-        nodeString += String.format(
-                "\n  %s%s;",
-                quote(feature.getFeature().getIdentifier().toString() + "_group"),
-                options(
-                        option("shape", "diamond"),
-                        option(
-                                "style",
-                                !feature.getGroup().isAnd()
-                                        ? "invis"
-                                        : feature.getGroup().isAlternative() ? "" : null),
-                        option("fillcolor", feature.getGroup().isOr() ? "#000000" : null),
-                        option("label", ""),
-                        option("width", ".15"),
-                        option("height", ".15")));
-        return nodeString;
+        StringBuilder stringBuilder = new StringBuilder();
+        try {
+            writeNode(new DotWriter(stringBuilder), feature);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return stringBuilder.toString();
+    }
+
+    private void writeNode(DotWriter writer, IFeatureTree feature) throws IOException {
+        IFeature node = feature.getFeature();
+        String identifier = node.getIdentifier().toString();
+        FeatureTree.Group group = feature.getGroup();
+        writer.out.append("  ");
+        writer.quote(identifier);
+        writer.option("label", node.getName().orElse(""));
+        writer.option("fillcolor", node.isAbstract() ? "#f2f2ff" : null);
+        writer.endOptions();
+        writer.out.append(";\n  ");
+        writer.quote(identifier, "_group");
+        writer.option("shape", "diamond");
+        writer.option("style", !group.isAnd() ? "invis" : group.isAlternative() ? "" : null);
+        writer.option("fillcolor", group.isOr() ? "#000000" : null);
+        writer.option("label", "");
+        writer.option("width", ".15");
+        writer.option("height", ".15");
+        writer.endOptions();
+        writer.out.append(';');
     }
 
     public String getEdge(IFeatureTree feature) {
-        String edgeString = "";
+        StringBuilder stringBuilder = new StringBuilder();
+        try {
+            writeEdges(new DotWriter(stringBuilder), feature);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return stringBuilder.toString();
+    }
+
+    private void writeEdges(DotWriter writer, IFeatureTree feature) throws IOException {
+        String identifier = feature.getFeature().getIdentifier().toString();
         if (feature.hasParent()) {
-            String parentNode =
-                    feature.getParent().get().getFeature().getIdentifier().toString();
-            edgeString += getEdge(
-                    parentNode + "_group",
-                    feature,
-                    option("style", feature.getParent().get().getGroup().isAnd() ? null : "invis"));
-            if (!feature.getParent().get().getGroup().isAnd())
-                edgeString += getEdge(
-                        parentNode + (feature.getParent().get().getGroup().isAnd() ? "_group" : ""), feature, "");
-        }
-        edgeString += String.format(
-                "  %s:s -> %s:n%s;",
-                quote(feature.getFeature().getIdentifier().toString()),
-                quote(feature.getFeature().getIdentifier().toString() + "_group"),
-                options(option("style", feature.getGroup().isAnd() ? null : "invis")));
-        return edgeString;
+            IFeatureTree parent = feature.getParent().get();
+            String parentNode = parent.getFeature().getIdentifier().toString();
+            boolean isAnd = parent.getGroup().isAnd();
+            writeEdge(writer, parentNode, "_group", identifier, isAnd, feature, isAnd ? null : "invis");
+            if (!isAnd) {
+                writeEdge(writer, parentNode, "", identifier, false, feature, null);
+            }
+        }
+        writer.out.append("  ");
+        writer.quote(identifier);
+        writer.out.append(":s -> ");
+        writer.quote(identifier, "_group");
+        writer.out.append(":n");
+        writer.option("style", feature.getGroup().isAnd() ? null : "invis");
+        writer.endOptions();
+        writer.out.append(';');
+    }
+
+    private void writeEdge(
+            DotWriter writer,
+            String parentNode,
+            String parentSuffix,
+            String childNode,
+            boolean isAnd,
+            IFeatureTree childFeature,
+            String style)
+            throws IOException {
+        writer.out.append("  ");
+        writer.quote(parentNode, parentSuffix);
+        writer.out.append(":s -> ");
+        writer.quote(childNode);
+        writer.out.append(":n");
+        writer.option("arrowhead", isAnd ? null : childFeature.isMandatory() ? "dot" : "odot");
+        writer.option("style", style);
+        writer.endOptions();
+        writer.out.append(";\n");
     }
 
     public String getEdge(String parentNode, IFeatureTree childFeature, String option) {
@@ -139,4 +381,218 @@ public class GraphVizFeatureModelFormat implements IFormat<IFeatureModel> {
     protected String option(String name, String value) {
         return value != null ? String.format("%s=%s", name, quote(value)) : "";
     }
+
+    /**
+     * Decides which features are drawn according to the level-of-detail options.
+     * Visibility is decided once per feature in a single post-order walk from the roots, which carries the depth
+     * and counts the subtree size of each feature, so both passes of the writer only look up the result.
+     */
+    private final class LevelOfDetail implements AutoCloseable {
+        private final Set<IFeatureTree> focusedFeatures;
+        private final FeatureModelDigest digest;
+        private final FeatureModelDigest baselineDigest;
+        private final HashMap<String, IFeatureTree> baselineFeatures;
+        private final Set<IFeatureTree> visibleFeatures = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final IdentityHashMap<IFeatureTree, Integer> hiddenFeatureCounts = new IdentityHashMap<>();
+
+        private LevelOfDetail(IFeatureModel featureModel) {
+            focusedFeatures = focus == null ? null : collectFocusedFeatures();
+            if (baseline == null) {
+                digest = null;
+                baselineDigest = null;
+                baselineFeatures = null;
+            } else {
+                digest = new FeatureModelDigest(featureModel);
+                baselineDigest = new FeatureModelDigest(baseline);
+                baselineFeatures = new HashMap<>(2 * baseline.getNumberOfFeatures());
+                ArrayDeque<IFeatureTree> stack = new ArrayDeque<>(baseline.getRoots());
+                while (!stack.isEmpty()) {
+                    IFeatureTree tree = stack.pop();
+                    tree.getFeature().getName().ifPresent(name -> baselineFeatures.putIfAbsent(name, tree));
+                    stack.addAll(tree.getChildren());
+                }
+            }
+            classifyFeatures(featureModel);
+        }
+
+        private void classifyFeatures(IFeatureModel featureModel) {
+            // post-order, so the size of a subtree is known when its root is classified
+            ArrayDeque<Frame> stack = new ArrayDeque<>();
+            for (IFeatureTree root : featureModel.getRoots()) {
+                visibleFeatures.add(root);
+                stack.push(new Frame(root, 0));
+                while (!stack.isEmpty()) {
+                    Frame frame = stack.peek();
+                    List<? extends IFeatureTree> children = frame.feature.getChildren();
+                    if (frame.childIndex < children.size()) {
+                        stack.push(new Frame(children.get(frame.childIndex++), frame.depth + 1));
+                        continue;
+                    }
+                    stack.pop();
+                    if (frame.hiddenFeatures > 0) {
+                        hiddenFeatureCounts.put(frame.feature, frame.hiddenFeatures);
+                    }
+                    Frame parent = stack.peek();
+                    if (parent != null) {
+                        parent.subtreeSize += frame.subtreeSize;
+                        if (isVisible(frame.feature, frame.depth, frame.subtreeSize)) {
+                            visibleFeatures.add(frame.feature);
+                        } else {
+                            parent.hiddenFeatures += frame.subtreeSize;
+                        }
+                    }
+                }
+            }
+        }
+
+        private Set<IFeatureTree> collectFocusedFeatures() {
+            Set<IFeatureTree> features = Collections.newSetFromMap(new IdentityHashMap<>());
+            List<IFeatureTree> frontier = new ArrayList<>();
+            for (IFeatureTree feature : focus) {
+                if (features.add(feature)) {
+                    frontier.add(feature);
+                }
+                IFeatureTree ancestor = feature.getParent().orElse(null);
+                while (ancestor != null && features.add(ancestor)) {
+                    ancestor = ancestor.getParent().orElse(null);
+                }
+            }
+            for (int distance = 0; distance < focusRadius && !frontier.isEmpty(); distance++) {
+                List<IFeatureTree> nextFrontier = new ArrayList<>();
+                for (IFeatureTree feature : frontier) {
+                    IFeatureTree parent = feature.getParent().orElse(null);
+                    if (parent != null && features.add(parent)) {
+                        nextFrontier.add(parent);
+                    }
+                    for (IFeatureTree child : feature.getChildren()) {
+                        if (features.add(child)) {
+                            nextFrontier.add(child);
+                        }
+                    }
+                }
+                frontier = nextFrontier;
+            }
+            return features;
+        }
+
+        /**
+         * Pushes the drawn children of a feature to the stack.
+         *
+         * @return whether any child is hidden
+         */
+        private boolean pushVisibleChildren(ArrayDeque<IFeatureTree> stack, IFeatureTree feature) {
+            List<? extends IFeatureTree> children = feature.getChildren();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                IFeatureTree child = children.get(i);
+                if (visibleFeatures.contains(child)) {
+                    stack.push(child);
+                }
+            }
+            return hiddenFeatureCounts.containsKey(feature);
+        }
+
+        private boolean isVisible(IFeatureTree feature, int depth, int subtreeSize) {
+            if (maximumDepth >= 0 && depth > maximumDepth) {
+                return false;
+            }
+            if (minimumSubtreeSize > 1 && subtreeSize < minimumSubtreeSize) {
+                return false;
+            }
+            if (focusedFeatures != null && !focusedFeatures.contains(feature)) {
+                return false;
+            }
+            return baselineFeatures == null || hasChanged(feature);
+        }
+
+        private boolean hasChanged(IFeatureTree feature) {
+            IFeatureTree baselineFeature =
+                    feature.getFeature().getName().map(baselineFeatures::get).orElse(null);
+            return baselineFeature == null
+                    || !Objects.equals(getParentName(feature), getParentName(baselineFeature))
+                    || !Arrays.equals(digest.getDigest(feature), baselineDigest.getDigest(baselineFeature));
+        }
+
+        private String getParentName(IFeatureTree feature) {
+            return feature.getParent()
+                    .map(parent -> parent.getFeature().getName().orElse(null))
+                    .orElse(null);
+        }
+
+        private int countHiddenFeatures(IFeatureTree feature) {
+            return hiddenFeatureCounts.getOrDefault(feature, 0);
+        }
+
+        @Override
+        public void close() {
+            if (digest != null) {
+                digest.close();
+                baselineDigest.close();
+            }
+        }
+    }
+
+    /**
+     * A feature on the stack of the classifying walk, with the sizes gathered from its finished children.
+     */
+    private static final class Frame {
+        private final IFeatureTree feature;
+        private final int depth;
+        private int childIndex;
+        private int subtreeSize = 1;
+        private int hiddenFeatures;
+
+        private Frame(IFeatureTree feature, int depth) {
+            this.feature = feature;
+            this.depth = depth;
+        }
+    }
+
+    /**
+     * Appends quoted identifiers and option lists, opening an option list with the first option that has a value.
+     */
+    private static final class DotWriter {
+        private final Appendable out;
+        private boolean hasOptions;
+
+        private DotWriter(Appendable out) {
+            this.out = out;
+        }
+
+        private void quote(String string) throws IOException {
+            out.append('"');
+            escape(string);
+            out.append('"');
+        }
+
+        private void quote(String string, String suffix) throws IOException {
+            out.append('"');
+            escape(string);
+            escape(suffix);
+            out.append('"');
+        }
+
+        private void escape(String string) throws IOException {
+            int start = 0;
+            for (int i = string.indexOf('"'); i >= 0; i = string.indexOf('"', start)) {
+                out.append(string, start, i).append("\\\"");
+                start = i + 1;
+            }
+            out.append(string, start, string.length());
+        }
+
+        private void option(String name, String value) throws IOException {
+            if (value != null) {
+                out.append(hasOptions ? " " : " [").append(name).append('=');
+                quote(value);
+                hasOptions = true;
+            }
+        }
+
+        private void endOptions() throws IOException {
+            if (hasOptions) {
+                out.append(']');
+                hasOptions = false;
+            }
+        }
+    }
 }
@@ -26,17 +26,19 @@ import de.featjar.base.data.Maps;
 import de.featjar.base.data.Problem;
 import de.featjar.base.data.Result;
 import de.featjar.base.data.identifier.IIdentifier;
-import de.featjar.base.data.identifier.Identifiers;
 import de.featjar.base.io.format.ParseException;
 import de.featjar.base.io.input.AInputMapper;
 import de.featjar.feature.model.Attributes;
 import de.featjar.feature.model.FeatureModel;
+import de.featjar.feature.model.FeatureModelBatch;
 import de.featjar.feature.model.IConstraint;
 import de.featjar.feature.model.IFeature;
 import de.featjar.feature.model.IFeatureModel;
 import de.featjar.feature.model.IFeatureModelElement;
 import de.featjar.feature.model.IFeatureTree;
 import de.featjar.feature.model.io.AttributeIO;
+import de.featjar.feature.model.metrics.IMetrics;
+import de.featjar.feature.model.metrics.Metrics;
 import de.featjar.formula.io.xml.AXMLFeatureModelFormat;
 import de.featjar.formula.structure.Expressions;
 import de.featjar.formula.structure.IExpression;
@@ -48,8 +50,12 @@ import de.featjar.formula.structure.connective.Not;
 import de.featjar.formula.structure.connective.Or;
 import de.featjar.formula.structure.predicate.Equals;
 import de.featjar.formula.structure.predicate.Literal;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -57,14 +63,26 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.Text;
+import org.xml.sax.SAXException;
 
 /**
  * Parses and writes feature models from and to FeatureIDE XML files.
@@ -92,6 +110,8 @@ public class XMLFeatureModelFormat extends AXMLFeatureModelFormat<IFeatureModel,
     protected static final String CALCULATE_TAUTOLOGY = "Tautology";
     protected static final String CALCULATE_CONSTRAINTS = "Constraints";
     protected static final String CALCULATE_AUTO = "Auto";
+
+    private static final int MINIMUM_CHUNK_SIZE = 256;
     // TODO:
     // EXTENDED_FEATURE_MODEL, STRUCT, FEATURE_ORDER, CONSTRAINTS, CONSTRAINT, COLLAPSED, FEATURES,
     // CHOSEN_LAYOUT_ALGORITHM, NAME, FALSE, SHOW_COLLAPSED_CONSTRAINTS, LEGEND, LEGEND_AUTO_LAYOUT,
@@ -101,9 +121,53 @@ public class XMLFeatureModelFormat extends AXMLFeatureModelFormat<IFeatureModel,
     protected IFeatureModel featureModel;
     protected LinkedHashMap<String, IIdentifier> nameToIdentifierMap;
 
+    /**
+     * Stages the parsed constraints of a {@link FeatureModel}, so their formulas are neither cloned nor resolved
+     * one by one, but resolved in bulk after the constraints section has been read.
+     */
+    protected FeatureModelBatch constraintBatch;
+
+    protected boolean lazyConstraints;
+
+    protected int parallelism = 1;
+
+    /**
+     * Defers parsing the constraints section until the constraints of the parsed feature model are first accessed,
+     * see {@link FeatureModel#setConstraintLoader(Runnable)}.
+     * The feature tree is parsed immediately, and the constraints section is kept in serialized form until then.
+     * Only applies to feature models of type {@link FeatureModel}.
+     * Problems in the constraints section are reported as {@link IllegalStateException} on every access.
+     * The deferred constraints are parsed with the {@link #setParallelism(int) parallelism} of this format.
+     *
+     * @param lazyConstraints whether to parse constraints on demand
+     * @return this format
+     */
+    public XMLFeatureModelFormat setLazyConstraints(boolean lazyConstraints) {
+        this.lazyConstraints = lazyConstraints;
+        return this;
+    }
+
+    /**
+     * Parses the formulas of constraints on the given number of threads.
+     * The rules of the constraints section are split into chunks, which are parsed by the calling thread and
+     * tasks of the {@link ForkJoinPool#commonPool() common pool}.
+     * Each worker copies its chunks into its own document, as DOM nodes must not be read concurrently.
+     * Constraints are still created in document order, so they are identified as if parsed sequentially.
+     *
+     * @param parallelism the number of threads, or 1 to parse sequentially
+     * @return this format
+     */
+    public XMLFeatureModelFormat setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException(String.format("parallelism must be positive (%d)", parallelism));
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
     @Override
     public XMLFeatureModelFormat getInstance() {
-        return new XMLFeatureModelFormat();
+        return new XMLFeatureModelFormat().setLazyConstraints(lazyConstraints).setParallelism(parallelism);
     }
 
     @Override
@@ -129,21 +193,274 @@ public class XMLFeatureModelFormat extends AXMLFeatureModelFormat<IFeatureModel,
 
     @Override
     public IFeatureModel parseDocument(Document document) throws ParseException {
-        if (featureModel == null) featureModel = new FeatureModel(Identifiers.newCounterIdentifier());
+        if (featureModel == null) featureModel = new FeatureModel();
         nameToIdentifierMap = Maps.empty();
-        final Element featureModelElement = getDocumentElement(document, FEATURE_MODEL, EXT_FEATURE_MODEL);
-        parseFeatureTree(getElement(featureModelElement, STRUCT));
-        Result<Element> element = getElementResult(featureModelElement, CONSTRAINTS);
-        if (element.isPresent()) parseConstraints(element.get());
-        element = getElementResult(featureModelElement, COMMENTS);
-        if (element.isPresent()) parseComments(element.get());
-        element = getElementResult(featureModelElement, FEATURE_ORDER);
-        if (element.isPresent()) parseFeatureOrder(List.of(element.get()));
-        element = getElementResult(featureModelElement, PROPERTIES);
-        if (element.isPresent()) parseFeatureModelProperties(element.get());
-        element = getElementResult(featureModelElement, CALCULATIONS);
-        element.ifPresent(this::parseCalculations);
-        return featureModel;
+        IMetrics metrics = Metrics.get();
+        long start = metrics.startTimer();
+        try {
+            final Element featureModelElement = getDocumentElement(document, FEATURE_MODEL, EXT_FEATURE_MODEL);
+            try {
+                parseFeatureTree(getElement(featureModelElement, STRUCT));
+            } finally {
+                metrics.stopTimer(Metrics.XML_PARSE_FEATURE_TREE, start);
+            }
+            Result<Element> constraintsElement = getElementResult(featureModelElement, CONSTRAINTS);
+            if (constraintsElement.isPresent()) {
+                if (lazyConstraints && featureModel instanceof FeatureModel) {
+                    // timed by the loader, when the constraints are actually parsed
+                    ((FeatureModel) featureModel).setConstraintLoader(newConstraintLoader(constraintsElement.get()));
+                } else {
+                    long phaseStart = metrics.startTimer();
+                    try {
+                        parseConstraintsSection(constraintsElement.get());
+                    } finally {
+                        metrics.stopTimer(Metrics.XML_PARSE_CONSTRAINTS, phaseStart);
+                    }
+                }
+            }
+            long phaseStart = metrics.startTimer();
+            try {
+                Result<Element> element = getElementResult(featureModelElement, COMMENTS);
+                if (element.isPresent()) parseComments(element.get());
+                element = getElementResult(featureModelElement, FEATURE_ORDER);
+                if (element.isPresent()) parseFeatureOrder(List.of(element.get()));
+                element = getElementResult(featureModelElement, PROPERTIES);
+                if (element.isPresent()) parseFeatureModelProperties(element.get());
+                element = getElementResult(featureModelElement, CALCULATIONS);
+                element.ifPresent(this::parseCalculations);
+            } finally {
+                metrics.stopTimer(Metrics.XML_PARSE_PROPERTIES, phaseStart);
+            }
+            return featureModel;
+        } finally {
+            metrics.stopTimer(Metrics.XML_PARSE, start);
+        }
+    }
+
+    /**
+     * Parses the constraints section and adds all its constraints to the feature model at once.
+     *
+     * @param constraintsElement the constraints element
+     * @throws ParseException if a constraint cannot be parsed or refers to an unknown feature
+     */
+    protected void parseConstraintsSection(Element constraintsElement) throws ParseException {
+        constraintBatch = featureModel instanceof FeatureModel ? ((FeatureModel) featureModel).openBatch() : null;
+        try {
+            parseConstraints(constraintsElement);
+            if (constraintBatch != null) {
+                constraintBatch.commit();
+            }
+        } catch (IllegalArgumentException e) {
+            throw new ParseException(e.getMessage());
+        } finally {
+            constraintBatch = null;
+        }
+    }
+
+    private Runnable newConstraintLoader(Element constraintsElement) throws ParseException {
+        // a separate format, as this one may parse other documents in the meantime
+        XMLFeatureModelFormat format = new XMLFeatureModelFormat().setParallelism(parallelism);
+        format.featureModel = featureModel;
+        format.nameToIdentifierMap = nameToIdentifierMap;
+        // only the serialized section is kept, so the parsed document can be released
+        byte[] constraintsSection = serializeElement(constraintsElement);
+        return () -> {
+            IMetrics metrics = Metrics.get();
+            long start = metrics.startTimer();
+            try {
+                Document document = DocumentBuilderFactory.newInstance()
+                        .newDocumentBuilder()
+                        .parse(new ByteArrayInputStream(constraintsSection));
+                format.parseConstraintsSection(document.getDocumentElement());
+                String errors = format.parseProblems.stream()
+                        .filter(problem -> problem.getSeverity() == Problem.Severity.ERROR)
+                        .map(Problem::getMessage)
+                        .collect(Collectors.joining(", "));
+                if (!errors.isEmpty()) {
+                    throw new IllegalStateException("Could not parse constraints: " + errors);
+                }
+            } catch (ParseException | ParserConfigurationException | SAXException | IOException e) {
+                throw new IllegalStateException("Could not parse constraints: " + e.getMessage(), e);
+            } finally {
+                metrics.stopTimer(Metrics.XML_PARSE_CONSTRAINTS, start);
+            }
+        };
+    }
+
+    private static byte[] serializeElement(Element element) throws ParseException {
+        try {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            TransformerFactory.newInstance()
+                    .newTransformer()
+                    .transform(new DOMSource(element), new StreamResult(outputStream));
+            return outputStream.toByteArray();
+        } catch (TransformerException e) {
+            throw new ParseException(e.getMessage());
+        }
+    }
+
+    @Override
+    protected void parseConstraints(Element element) throws ParseException {
+        List<Element> rules = getElements(element.getChildNodes());
+        Map<Element, IFormula> parsedFormulas = parallelism == 1 || rules.size() < 2 * MINIMUM_CHUNK_SIZE
+                ? Map.of()
+                : parseFormulas(getFormulaElements(rules));
+        for (Element rule : rules) {
+            parseRule(rule, parsedFormulas);
+        }
+    }
+
+    /**
+     * Adds the constraint of a rule, using the given formulas where they have already been parsed.
+     * Formulas that are missing are parsed here, so every problem is reported in document order,
+     * regardless of whether the constraints are parsed in parallel.
+     *
+     * @param rule the rule
+     * @param parsedFormulas the already parsed formulas by their element
+     * @throws ParseException if the rule cannot be parsed
+     */
+    protected void parseRule(Element rule, Map<Element, IFormula> parsedFormulas) throws ParseException {
+        if (!RULE.equals(rule.getNodeName())) {
+            addParseProblem("Incorrect definition of constraints", rule, Problem.Severity.ERROR);
+            return;
+        }
+        IConstraint constraintLabel = newConstraintLabel();
+        for (Element child : getElements(rule.getChildNodes())) {
+            switch (child.getNodeName()) {
+                case DESCRIPTION:
+                case GRAPHICS:
+                case PROPERTY:
+                case TAGS:
+                    addConstraintMetadata(constraintLabel, child);
+                    break;
+                default:
+                    IFormula formula = parsedFormulas.get(child);
+                    if (formula == null) {
+                        List<IFormula> formulas = parseConstraintNode(List.of(child));
+                        if (formulas.size() != 1) {
+                            addParseProblem("Failed to parse constraint", child, Problem.Severity.ERROR);
+                            break;
+                        }
+                        formula = formulas.get(0);
+                    }
+                    addConstraint(constraintLabel, formula);
+            }
+        }
+    }
+
+    private static List<Element> getFormulaElements(List<Element> rules) {
+        List<Element> formulaElements = new ArrayList<>();
+        for (Element rule : rules) {
+            if (RULE.equals(rule.getNodeName())) {
+                for (Element child : getElements(rule.getChildNodes())) {
+                    switch (child.getNodeName()) {
+                        case DESCRIPTION:
+                        case GRAPHICS:
+                        case PROPERTY:
+                        case TAGS:
+                            break;
+                        default:
+                            formulaElements.add(child);
+                    }
+                }
+            }
+        }
+        return formulaElements;
+    }
+
+    private Map<Element, IFormula> parseFormulas(List<Element> formulaElements) throws ParseException {
+        if (formulaElements.isEmpty()) {
+            return Map.of();
+        }
+        IFormula[] formulas = new IFormula[formulaElements.size()];
+        int chunkSize = Math.max(MINIMUM_CHUNK_SIZE, (formulas.length + 4 * parallelism - 1) / (4 * parallelism));
+        int chunkCount = (formulas.length + chunkSize - 1) / chunkSize;
+        Document document = formulaElements.get(0).getOwnerDocument();
+        AtomicInteger nextChunk = new AtomicInteger();
+        List<Document> chunkDocuments = new ArrayList<>();
+        try {
+            DocumentBuilder documentBuilder =
+                    DocumentBuilderFactory.newInstance().newDocumentBuilder();
+            for (int i = 0; i < Math.min(parallelism, chunkCount); i++) {
+                chunkDocuments.add(documentBuilder.newDocument());
+            }
+        } catch (ParserConfigurationException e) {
+            throw new ParseException(e.getMessage());
+        }
+        int parsedCount = 0;
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (Document chunkDocument : chunkDocuments.subList(1, chunkDocuments.size())) {
+                futures.add(ForkJoinPool.commonPool()
+                        .submit(() ->
+                                parseChunks(formulaElements, formulas, chunkSize, nextChunk, document, chunkDocument)));
+            }
+            // the calling thread works as well, so parsing progresses even if the common pool is busy
+            parsedCount +=
+                    parseChunks(formulaElements, formulas, chunkSize, nextChunk, document, chunkDocuments.get(0));
+            for (Future<Integer> future : futures) {
+                parsedCount += future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ParseException("Interrupted while parsing constraints");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ParseException(String.valueOf(e.getCause()));
+        }
+        Metrics.get().add(Metrics.XML_PARSE_PARALLEL_FORMULAS, parsedCount);
+        Map<Element, IFormula> parsedFormulas = new IdentityHashMap<>(formulas.length);
+        for (int i = 0; i < formulas.length; i++) {
+            if (formulas[i] != null) {
+                parsedFormulas.put(formulaElements.get(i), formulas[i]);
+            }
+        }
+        return parsedFormulas;
+    }
+
+    /**
+     * Parses chunks of formulas until none are left.
+     * The formulas of each chunk are imported into a document of this worker first,
+     * as DOM nodes must not be read concurrently.
+     *
+     * @return the number of formulas parsed
+     */
+    private static int parseChunks(
+            List<Element> formulaElements,
+            IFormula[] formulas,
+            int chunkSize,
+            AtomicInteger nextChunk,
+            Document document,
+            Document chunkDocument) {
+        XMLFeatureModelFormat format = new XMLFeatureModelFormat();
+        int parsedCount = 0;
+        for (int chunkStart = nextChunk.getAndIncrement() * chunkSize;
+                chunkStart < formulas.length;
+                chunkStart = nextChunk.getAndIncrement() * chunkSize) {
+            int chunkEnd = Math.min(formulas.length, chunkStart + chunkSize);
+            List<Element> chunk = new ArrayList<>(chunkEnd - chunkStart);
+            synchronized (document) {
+                for (int i = chunkStart; i < chunkEnd; i++) {
+                    chunk.add((Element) chunkDocument.importNode(formulaElements.get(i), true));
+                }
+            }
+            for (int i = 0; i < chunk.size(); i++) {
+                // formulas with problems are left out and parsed again by parseRule in document order
+                int problemCount = format.parseProblems.size();
+                try {
+                    List<IFormula> parsedFormulas = format.parseConstraintNode(List.of(chunk.get(i)));
+                    if (parsedFormulas.size() == 1 && format.parseProblems.size() == problemCount) {
+                        formulas[chunkStart + i] = parsedFormulas.get(0);
+                        parsedCount++;
+                    }
+                } catch (ParseException | RuntimeException e) {
+                    // reported by parseRule
+                }
+            }
+        }
+        return parsedCount;
     }
 
     protected Result<IFeature> getFeature(String name) {
@@ -213,12 +530,19 @@ public class XMLFeatureModelFormat extends AXMLFeatureModelFormat<IFeatureModel,
 
     @Override
     protected IConstraint newConstraintLabel() {
+        if (constraintBatch != null) {
+            return constraintBatch.addConstraint();
+        }
         return featureModel.mutate().addConstraint(Expressions.True);
     }
 
     @Override
     protected void addConstraint(IConstraint constraintLabel, IFormula formula) {
-        constraintLabel.mutate().setFormula(formula);
+        if (constraintBatch != null) {
+            constraintBatch.setFormula(constraintLabel, formula);
+        } else {
+            constraintLabel.mutate().setFormula(formula);
+        }
     }
 
     @Override
@@ -396,7 +720,7 @@ public class XMLFeatureModelFormat extends AXMLFeatureModelFormat<IFeatureModel,
                 addDescription(doc, constraint.getDescription().orElse(null), rule);
                 addProperties(doc, constraint.getAttributes().get(), rule);
                 addTags(doc, constraint.getTags(), rule);
-                createPropositionalConstraints(doc, rule, constraint.getFormula());
+                createPropositionalConstraints(doc, rule, constraint.getSharedFormula());
             }
         }
     }
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.metrics;
+
+/**
+ * Records counters and timers on hot paths of the feature model library.
+ * Metric names are constants, see {@link Metrics}.
+ * Implementations must be thread-safe.
+ * <p>
+ * A timer is used as follows:
+ * <pre>{@code
+ * long start = metrics.startTimer();
+ * try {
+ *     ...
+ * } finally {
+ *     metrics.stopTimer(Metrics.FEATURE_MODEL_CLONE, start);
+ * }
+ * }</pre>
+ */
+public interface IMetrics {
+
+    /**
+     * Adds one to a counter.
+     *
+     * @param counter the counter name
+     */
+    default void increment(String counter) {
+        add(counter, 1);
+    }
+
+    void add(String counter, long delta);
+
+    /**
+     * Starts a timer.
+     *
+     * @return the start time in nanoseconds, to be passed to {@link #stopTimer(String, long)}
+     */
+    long startTimer();
+
+    /**
+     * Records the time elapsed since the given start time.
+     *
+     * @param timer the timer name
+     * @param start the start time returned by {@link #startTimer()}
+     */
+    void stopTimer(String timer, long start);
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accumulates metrics in memory, mainly for tests.
+ * For each timer, the number of measurements and their total duration are kept.
+ */
+public class InMemoryMetrics implements IMetrics {
+
+    private static final class Timer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+    }
+
+    private final ConcurrentHashMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+    @Override
+    public void add(String counter, long delta) {
+        counters.computeIfAbsent(counter, k -> new LongAdder()).add(delta);
+    }
+
+    @Override
+    public long startTimer() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public void stopTimer(String timer, long start) {
+        long duration = System.nanoTime() - start;
+        Timer entry = timers.computeIfAbsent(timer, k -> new Timer());
+        entry.count.increment();
+        entry.totalNanos.add(duration);
+    }
+
+    public long getCount(String counter) {
+        LongAdder value = counters.get(counter);
+        return value == null ? 0 : value.sum();
+    }
+
+    public long getTimerCount(String timer) {
+        Timer entry = timers.get(timer);
+        return entry == null ? 0 : entry.count.sum();
+    }
+
+    public long getTotalNanos(String timer) {
+        Timer entry = timers.get(timer);
+        return entry == null ? 0 : entry.totalNanos.sum();
+    }
+
+    /**
+     * Returns a snapshot of all counters.
+     *
+     * @return the counter values by name, sorted by name
+     */
+    public Map<String, Long> getCounters() {
+        TreeMap<String, Long> snapshot = new TreeMap<>();
+        counters.forEach((name, value) -> snapshot.put(name, value.sum()));
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    public void reset() {
+        counters.clear();
+        timers.clear();
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.metrics;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Reports metrics as Java Flight Recorder events for production profiling.
+ * Each stopped timer becomes a {@code de.featjar.feature.model.Timer} event.
+ * Counters are accumulated and emitted as periodic {@code de.featjar.feature.model.Counter} events
+ * (once per second by default) while a recording is running.
+ */
+public class JFRMetrics implements IMetrics, AutoCloseable {
+
+    @Name("de.featjar.feature.model.Timer")
+    @Label("FeatJAR Timer")
+    @Category("FeatJAR")
+    @StackTrace(false)
+    static class TimerEvent extends Event {
+        @Label("Name")
+        String name;
+
+        @Label("Duration")
+        @Timespan(Timespan.NANOSECONDS)
+        long duration;
+    }
+
+    @Name("de.featjar.feature.model.Counter")
+    @Label("FeatJAR Counter")
+    @Category("FeatJAR")
+    @Period("1 s")
+    @StackTrace(false)
+    static class CounterEvent extends Event {
+        @Label("Name")
+        String name;
+
+        @Label("Value")
+        long value;
+    }
+
+    private final ConcurrentHashMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Runnable emitCounters = this::emitCounters;
+
+    public JFRMetrics() {
+        FlightRecorder.addPeriodicEvent(CounterEvent.class, emitCounters);
+    }
+
+    /**
+     * Stops emitting counter events.
+     */
+    @Override
+    public void close() {
+        FlightRecorder.removePeriodicEvent(emitCounters);
+    }
+
+    @Override
+    public void add(String counter, long delta) {
+        counters.computeIfAbsent(counter, k -> new LongAdder()).add(delta);
+    }
+
+    @Override
+    public long startTimer() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public void stopTimer(String timer, long start) {
+        long duration = System.nanoTime() - start;
+        TimerEvent event = new TimerEvent();
+        if (event.shouldCommit()) {
+            event.name = timer;
+            event.duration = duration;
+            event.commit();
+        }
+    }
+
+    private void emitCounters() {
+        counters.forEach((name, value) -> {
+            CounterEvent event = new CounterEvent();
+            event.name = name;
+            event.value = value.sum();
+            event.commit();
+        });
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.metrics;
+
+import java.util.Objects;
+
+/**
+ * Holds the {@link IMetrics} used by the feature model library and the names of its metrics.
+ * Defaults to {@link NoOpMetrics}.
+ */
+public final class Metrics {
+
+    public static final String XML_PARSE = "xml.parse";
+    public static final String XML_PARSE_FEATURE_TREE = "xml.parse.featureTree";
+    public static final String XML_PARSE_CONSTRAINTS = "xml.parse.constraints";
+    public static final String XML_PARSE_PROPERTIES = "xml.parse.properties";
+    public static final String XML_PARSE_PARALLEL_FORMULAS = "xml.parse.parallelFormulas";
+    public static final String COMPUTE_FORMULA = "computeFormula";
+    public static final String FEATURE_MODEL_CLONE = "featureModel.clone";
+    public static final String GET_FEATURE = "featureModel.getFeature";
+    public static final String GET_FEATURE_TREE = "featureModel.getFeatureTree";
+
+    private static volatile IMetrics metrics = NoOpMetrics.INSTANCE;
+
+    private Metrics() {}
+
+    public static IMetrics get() {
+        return metrics;
+    }
+
+    public static void set(IMetrics metrics) {
+        Metrics.metrics = Objects.requireNonNull(metrics);
+    }
+
+    public static void reset() {
+        metrics = NoOpMetrics.INSTANCE;
+    }
+}
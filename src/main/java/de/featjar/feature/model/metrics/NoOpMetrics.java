@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.metrics;
+
+/**
+ * Discards all metrics.
+ * Neither allocates nor reads the clock.
+ */
+public final class NoOpMetrics implements IMetrics {
+
+    public static final NoOpMetrics INSTANCE = new NoOpMetrics();
+
+    private NoOpMetrics() {}
+
+    @Override
+    public void increment(String counter) {}
+
+    @Override
+    public void add(String counter, long delta) {}
+
+    @Override
+    public long startTimer() {
+        return 0;
+    }
+
+    @Override
+    public void stopTimer(String timer, long start) {}
+}
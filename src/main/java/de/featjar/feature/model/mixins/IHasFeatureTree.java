@@ -24,6 +24,7 @@ import de.featjar.base.data.*;
 import de.featjar.base.data.identifier.IIdentifier;
 import de.featjar.base.tree.Trees;
 import de.featjar.feature.model.*;
+import de.featjar.feature.model.metrics.Metrics;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
@@ -74,6 +75,7 @@ public interface IHasFeatureTree {
 
     default Result<IFeatureTree> getFeatureTree(String name) {
         Objects.requireNonNull(name);
+        Metrics.get().increment(Metrics.GET_FEATURE_TREE);
         return Result.ofOptional(getFeatureTreeStream()
                 .filter(tree -> tree.getFeature().getName().valueEquals(name))
                 .findFirst());
@@ -81,6 +83,7 @@ public interface IHasFeatureTree {
 
     default Result<IFeatureTree> getFeatureTree(IFeature feature) {
         Objects.requireNonNull(feature);
+        Metrics.get().increment(Metrics.GET_FEATURE_TREE);
         return Result.ofOptional(getFeatureTreeStream()
                 .filter(tree -> tree.getFeature().equals(feature))
                 .findFirst());
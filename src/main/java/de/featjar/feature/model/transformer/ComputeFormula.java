@@ -30,6 +30,8 @@ import de.featjar.feature.model.IConstraint;
 import de.featjar.feature.model.IFeature;
 import de.featjar.feature.model.IFeatureModel;
 import de.featjar.feature.model.IFeatureTree;
+import de.featjar.feature.model.metrics.IMetrics;
+import de.featjar.feature.model.metrics.Metrics;
 import de.featjar.formula.structure.Expressions;
 import de.featjar.formula.structure.IFormula;
 import de.featjar.formula.structure.connective.And;
@@ -62,62 +64,70 @@ public class ComputeFormula extends AComputation<IFormula> {
 
     @Override
     public Result<IFormula> compute(List<Object> dependencyList, Progress progress) {
-        IFeatureModel featureModel = FEATURE_MODEL.get(dependencyList);
-        HashSet<IFeatureModel> featureModels = new HashSet<>();
-        ArrayList<IFormula> constraints = new ArrayList<>();
-        HashSet<Variable> variables = new HashSet<>();
-        featureModel.getFeatureTreeStream().forEach(tree -> {
-            // TODO use better error value
-            IFeature feature = tree.getFeature();
-            String featureName = feature.getName().orElse("");
-            Variable variable = new Variable(featureName, feature.getType());
-            variables.add(variable);
+        IMetrics metrics = Metrics.get();
+        long start = metrics.startTimer();
+        try {
+            IFeatureModel featureModel = FEATURE_MODEL.get(dependencyList);
+            HashSet<IFeatureModel> featureModels = new HashSet<>();
+            ArrayList<IFormula> constraints = new ArrayList<>();
+            HashSet<Variable> variables = new HashSet<>();
+            featureModel.getFeatureTreeStream().forEach(tree -> {
+                // TODO use better error value
+                IFeature feature = tree.getFeature();
+                String featureName = feature.getName().orElse("");
+                Variable variable = new Variable(featureName, feature.getType());
+                variables.add(variable);
 
-            // TODO take featureRanges into Account
-            Result<IFeatureTree> potentialParentTree = tree.getParent();
-            if (potentialParentTree.isEmpty()) {
-                if (tree.isMandatory()) {
-                    constraints.add(Expressions.literal(featureName));
+                // TODO take featureRanges into Account
+                Result<IFeatureTree> potentialParentTree = tree.getParent();
+                if (potentialParentTree.isEmpty()) {
+                    if (tree.isMandatory()) {
+                        constraints.add(Expressions.literal(featureName));
+                    }
+                } else {
+                    IFeatureTree parentTree = potentialParentTree.get();
+                    Literal literal = Expressions.literal(featureName);
+                    Literal parentLiteral =
+                            Expressions.literal(parentTree.getFeature().getName().orElse(""));
+                    constraints.add(new Implies(literal, parentLiteral));
                 }
-            } else {
-                IFeatureTree parentTree = potentialParentTree.get();
-                Literal literal = Expressions.literal(featureName);
-                Literal parentLiteral =
-                        Expressions.literal(parentTree.getFeature().getName().orElse(""));
-                constraints.add(new Implies(literal, parentLiteral));
-                for (Group group : parentTree.getGroups()) {
-                    if (!group.isAnd()) {
-                        List<IFormula> groupLiterals = new ArrayList<>();
-                        for (IFeatureTree childTree : parentTree.getChildren()) {
-                            if (childTree.getGroup() == group) {
+                if (tree.hasChildren()) {
+                    Literal literal = Expressions.literal(featureName);
+                    List<Group> groups = tree.getGroups();
+                    for (int groupID = 0; groupID < groups.size(); groupID++) {
+                        Group group = groups.get(groupID);
+                        if (!group.isAnd()) {
+                            List<IFeatureTree> groupChildren = tree.getGroupChildren(groupID);
+                            List<IFormula> groupLiterals = new ArrayList<>(groupChildren.size());
+                            for (IFeatureTree childTree : groupChildren) {
                                 groupLiterals.add(Expressions.literal(
                                         childTree.getFeature().getName().orElse("")));
                             }
-                        }
-                        if (group.isOr()) {
-                            constraints.add(new Implies(parentLiteral, new AtLeast(1, groupLiterals)));
-                        } else if (group.isAlternative()) {
-                            constraints.add(new Implies(parentLiteral, new Choose(1, groupLiterals)));
-                        } else {
-                            constraints.add(new Implies(
-                                    parentLiteral,
-                                    new Between(group.getLowerBound(), group.getUpperBound(), groupLiterals)));
+                            if (group.isOr()) {
+                                constraints.add(new Implies(literal, new AtLeast(1, groupLiterals)));
+                            } else if (group.isAlternative()) {
+                                constraints.add(new Implies(literal, new Choose(1, groupLiterals)));
+                            } else {
+                                constraints.add(new Implies(
+                                        literal,
+                                        new Between(group.getLowerBound(), group.getUpperBound(), groupLiterals)));
+                            }
                         }
                     }
                 }
-            }
-            for (IFeatureTree child : tree.getChildren()) {
-                child.getGroup();
-            }
-            IFeatureModel featureModel2 = feature.getFeatureModel();
-            if (featureModels.add(featureModel)) {
-                featureModel2.getConstraints().stream()
-                        .map(IConstraint::getFormula)
-                        .forEach(constraints::add);
-            }
-        });
-        Reference reference = new Reference(new And(constraints));
-        reference.setFreeVariables(variables);
-        return Result.of(reference);
+                IFeatureModel featureModel2 = feature.getFeatureModel();
+                if (featureModels.add(featureModel)) {
+                    // the formula is handed out for transformation, so shared formulas are copied here
+                    featureModel2.getConstraints().stream()
+                            .map(IConstraint::getFormula)
+                            .forEach(constraints::add);
+                }
+            });
+            Reference reference = new Reference(new And(constraints));
+            reference.setFreeVariables(variables);
+            return Result.of(reference);
+        } finally {
+            metrics.stopTimer(Metrics.COMPUTE_FORMULA, start);
+        }
     }
 }
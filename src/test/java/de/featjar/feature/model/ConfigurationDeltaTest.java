@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ConfigurationDeltaTest {
+
+    private FeatureModel featureModel;
+
+    @BeforeEach
+    void setUp() {
+        featureModel = new FeatureModel();
+        for (int i = 0; i < 100; i++) {
+            featureModel.addFeature("Feature" + i);
+        }
+    }
+
+    @Test
+    void computesAndAppliesDelta() {
+        FeatureModelConfiguration before = new FeatureModelConfiguration(featureModel);
+        before.setManual("Feature1", Selection.SELECTED);
+        FeatureModelConfiguration after = new FeatureModelConfiguration(featureModel);
+        after.setManual("Feature2", Selection.UNSELECTED);
+        after.setAutomatic("Feature3", Selection.SELECTED);
+
+        ConfigurationDelta delta = ConfigurationDelta.between(before, after);
+        assertEquals(3, delta.getChanges().size());
+        assertEquals("Feature1", delta.getChanges().get(0).getFeatureName());
+        assertEquals(Selection.SELECTED, delta.getChanges().get(0).getManualBefore());
+        assertEquals(Selection.UNDEFINED, delta.getChanges().get(0).getManualAfter());
+
+        delta.apply(before);
+        assertTrue(ConfigurationDelta.between(before, after).isEmpty());
+        delta.revert(before);
+        assertEquals(Selection.SELECTED, before.getManual("Feature1"));
+        assertEquals(Selection.UNDEFINED, delta.invert().getChanges().get(2).getAutomaticAfter());
+    }
+
+    @Test
+    void rebuildsSnapshotsFromChain() throws IOException {
+        Random random = new Random(42);
+        ConfigurationDeltaChain chain = new ConfigurationDeltaChain(featureModel, 8);
+        List<FeatureModelConfiguration> snapshots = new ArrayList<>();
+        FeatureModelConfiguration configuration = new FeatureModelConfiguration(featureModel);
+        Selection[] selections = Selection.values();
+        for (int i = 0; i < 30; i++) {
+            for (int j = 0; j < 3; j++) {
+                String featureName = "Feature" + random.nextInt(100);
+                configuration.setManual(featureName, selections[random.nextInt(selections.length)]);
+                configuration.setAutomatic(featureName, selections[random.nextInt(selections.length)]);
+            }
+            FeatureModelConfiguration snapshot = new FeatureModelConfiguration(featureModel);
+            ConfigurationDelta.between(snapshot, configuration).apply(snapshot);
+            snapshots.add(snapshot);
+            chain.add(snapshot);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        chain.write(out);
+        ConfigurationDeltaChain readChain =
+                ConfigurationDeltaChain.read(featureModel, new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(snapshots.size(), readChain.size());
+        for (int i = 0; i < snapshots.size(); i++) {
+            assertTrue(ConfigurationDelta.between(snapshots.get(i), chain.get(i)).isEmpty());
+            assertTrue(ConfigurationDelta.between(snapshots.get(i), readChain.get(i)).isEmpty());
+        }
+        assertEquals(
+                ConfigurationDelta.between(snapshots.get(3), snapshots.get(20)).getChanges().size(),
+                readChain.getDelta(3, 20).getChanges().size());
+        assertTrue(out.size() < 30 * 100, "chain is not compact: " + out.size());
+    }
+
+    @Test
+    void rejectsCorruptDeltaIndex() throws IOException {
+        ConfigurationDeltaChain chain = new ConfigurationDeltaChain(featureModel, 8);
+        FeatureModelConfiguration configuration = new FeatureModelConfiguration(featureModel);
+        chain.add(configuration);
+        configuration.setManual("Feature1", Selection.SELECTED);
+        chain.add(configuration);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        chain.write(out);
+
+        // replace the one-byte index of the only change with a five-byte encoding of -1
+        byte[] bytes = out.toByteArray();
+        byte[] corrupt = Arrays.copyOf(bytes, bytes.length + 4);
+        System.arraycopy(new byte[] {-1, -1, -1, -1, 0x0F}, 0, corrupt, bytes.length - 2, 5);
+        corrupt[corrupt.length - 1] = bytes[bytes.length - 1];
+        assertThrows(
+                IOException.class,
+                () -> ConfigurationDeltaChain.read(featureModel, new ByteArrayInputStream(corrupt)));
+    }
+}
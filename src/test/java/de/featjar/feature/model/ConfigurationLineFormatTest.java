@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.featjar.base.io.IO;
+import de.featjar.feature.model.ConfigurationLineFormat.Encoding;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ConfigurationLineFormatTest {
+
+    private FeatureModel featureModel;
+    private FeatureModelConfiguration first;
+    private FeatureModelConfiguration second;
+
+    @BeforeEach
+    void setUp() {
+        featureModel = new FeatureModel();
+        featureModel.addFeature("Feature1");
+        featureModel.addFeature("Feature2");
+        featureModel.addFeature("Feature3");
+        first = new FeatureModelConfiguration(featureModel);
+        first.setManual("Feature1", Selection.SELECTED);
+        first.setManual("Feature2", Selection.UNSELECTED);
+        second = new FeatureModelConfiguration(featureModel);
+        second.setManual("Feature3", Selection.SELECTED);
+    }
+
+    @Test
+    void serializeDense() {
+        assertEquals(
+                "#dense\tFeature1\tFeature2\tFeature3\n10?\n",
+                new ConfigurationLineFormat(featureModel).serialize(first).get());
+    }
+
+    @Test
+    void serializeSparse() {
+        assertEquals(
+                "#sparse\tFeature1\tFeature2\tFeature3\n1 -2\n",
+                new ConfigurationLineFormat(featureModel, Encoding.SPARSE)
+                        .serialize(first)
+                        .get());
+    }
+
+    @Test
+    void parse() {
+        for (Encoding encoding : Encoding.values()) {
+            ConfigurationLineFormat format = new ConfigurationLineFormat(featureModel, encoding);
+            String text = format.serialize(first).get();
+            FeatureModelConfiguration configuration = IO.load(
+                            new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), format)
+                    .get();
+            assertEquals(Selection.SELECTED, configuration.getSelection("Feature1"));
+            assertEquals(Selection.UNSELECTED, configuration.getSelection("Feature2"));
+            assertEquals(Selection.UNDEFINED, configuration.getSelection("Feature3"));
+        }
+    }
+
+    @Test
+    void readMappedFile() throws IOException {
+        for (Encoding encoding : Encoding.values()) {
+            StringBuilder text = new StringBuilder();
+            new ConfigurationLineFormat(featureModel, encoding).write(Arrays.asList(first, second), text);
+            Path file = Files.createTempFile("configurations", ".configs");
+            try {
+                Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8));
+                try (ConfigurationLineReader reader = new ConfigurationLineReader(featureModel, file)) {
+                    assertEquals(3, reader.getNumberOfFeatures());
+                    assertEquals("Feature1", reader.getFeatureName(0));
+
+                    assertTrue(reader.next());
+                    assertTrue(reader.isSelected(0));
+                    assertEquals(Selection.UNSELECTED, reader.getSelection(1));
+                    assertTrue(reader.isUndefined(2));
+
+                    assertTrue(reader.next());
+                    assertEquals(Selection.UNDEFINED, reader.getSelection(0));
+                    assertTrue(reader.isSelected(2));
+                    assertEquals(Selection.SELECTED, reader.toConfiguration().getSelection("Feature3"));
+
+                    assertFalse(reader.next());
+                }
+            } finally {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    void rejectInvalidLine() throws IOException {
+        Path file = Files.createTempFile("configurations", ".configs");
+        try {
+            Files.write(file, "#sparse\tFeature1\n2\n".getBytes(StandardCharsets.UTF_8));
+            try (ConfigurationLineReader reader = new ConfigurationLineReader(featureModel, file)) {
+                assertThrows(IOException.class, reader::next);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ConfigurationXMLReaderTest {
+
+    private static final String CONFIGURATIONS = "<configurations>"
+            + "<FeatureModelConfiguration>"
+            + "<feature name=\"Feature1\" manual=\"manual\"/>"
+            + "<feature name=\"Feature2\" automatic=\"automatic\"/>"
+            + "<feature name=\"Unknown\" manual=\"manual\"/>"
+            + "</FeatureModelConfiguration>"
+            + "<FeatureModelConfiguration>"
+            + "<feature name=\"Feature2\" manual=\"manual\"/>"
+            + "</FeatureModelConfiguration>"
+            + "</configurations>";
+
+    private ConfigurationXMLReader reader;
+
+    @BeforeEach
+    void setUp() {
+        FeatureModel featureModel = new FeatureModel();
+        featureModel.addFeature("Feature1");
+        featureModel.addFeature("Feature2");
+        reader = new ConfigurationXMLReader(featureModel);
+    }
+
+    @Test
+    void readsAllConfigurationsOfStream() throws IOException {
+        List<FeatureModelConfiguration> configurations = new ArrayList<>();
+        long count = reader.read(
+                new ByteArrayInputStream(CONFIGURATIONS.getBytes(StandardCharsets.UTF_8)), configurations::add);
+
+        assertEquals(2, count);
+        assertEquals(2, configurations.size());
+        assertTrue(configurations.get(0).isManualSelected("Feature1"));
+        assertFalse(configurations.get(0).isManualSelected("Feature2"));
+        assertTrue(configurations.get(0).isAutomaticSelected("Feature2"));
+        assertFalse(configurations.get(1).isManualSelected("Feature1"));
+        assertTrue(configurations.get(1).isManualSelected("Feature2"));
+    }
+
+    @Test
+    void rejectsMalformedDocument() {
+        assertThrows(
+                IOException.class,
+                () -> reader.read(
+                        new ByteArrayInputStream("<FeatureModelConfiguration>".getBytes(StandardCharsets.UTF_8)),
+                        c -> {}));
+    }
+
+    @Test
+    void readsDirectoryInParallel() throws IOException {
+        Path directory = Files.createTempDirectory("configurations");
+        try {
+            for (int i = 0; i < 10; i++) {
+                Files.write(directory.resolve(i + ".xml"), CONFIGURATIONS.getBytes(StandardCharsets.UTF_8));
+            }
+            Files.write(directory.resolve("broken.xml"), "<".getBytes(StandardCharsets.UTF_8));
+            Files.write(directory.resolve("ignored.txt"), CONFIGURATIONS.getBytes(StandardCharsets.UTF_8));
+
+            ConcurrentLinkedQueue<FeatureModelConfiguration> configurations = new ConcurrentLinkedQueue<>();
+            long count = reader.readDirectory(directory, "*.xml", 3, configurations::add);
+
+            assertEquals(20, count);
+            assertEquals(20, configurations.size());
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                files.forEach(file -> file.toFile().delete());
+            }
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    void rethrowsConsumerExceptionsOfDirectory() throws IOException {
+        Path directory = Files.createTempDirectory("configurations");
+        try {
+            Files.write(directory.resolve("0.xml"), CONFIGURATIONS.getBytes(StandardCharsets.UTF_8));
+
+            IllegalStateException exception = assertThrows(
+                    IllegalStateException.class,
+                    () -> reader.readDirectory(directory, "*.xml", 1, c -> {
+                        throw new IllegalStateException("consumer failed");
+                    }));
+            assertEquals("consumer failed", exception.getMessage());
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                files.forEach(file -> file.toFile().delete());
+            }
+            Files.delete(directory);
+        }
+    }
+}
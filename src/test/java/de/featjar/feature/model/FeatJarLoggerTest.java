@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class FeatJarLoggerTest {
+
+    private final List<String> messages = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    public void setHandler() {
+        FeatJarLogger.setHandler(new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                messages.add(record.getMessage());
+            }
+
+            @Override
+            public void flush() {}
+
+            @Override
+            public void close() {}
+        });
+    }
+
+    @AfterEach
+    public void resetHandler() {
+        FeatJarLogger.setLogFile(null);
+    }
+
+    @Test
+    public void repeatedMessagesAreRateLimited() throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            FeatJarLogger.logError("repeated message");
+        }
+        FeatJarLogger.logWarning("other message");
+        assertTrue(FeatJarLogger.flush(10, TimeUnit.SECONDS));
+
+        assertEquals(
+                FeatJarLogger.MAX_REPEATS_PER_SECOND,
+                messages.stream().filter("repeated message"::equals).count());
+        assertTrue(messages.contains("other message"));
+    }
+
+    @Test
+    public void suppressedRepetitionsAreReportedOnClose() throws InterruptedException {
+        for (int i = 0; i < FeatJarLogger.MAX_REPEATS_PER_SECOND + 5; i++) {
+            FeatJarLogger.logInfo("closing message");
+        }
+        assertTrue(FeatJarLogger.close(10, TimeUnit.SECONDS));
+
+        assertTrue(messages.contains("closing message (suppressed 5 repetitions)"));
+    }
+}
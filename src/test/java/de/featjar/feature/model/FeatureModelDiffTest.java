@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.featjar.Common;
+import de.featjar.feature.model.io.xml.XMLFeatureModelFormat;
+import de.featjar.formula.structure.Expressions;
+import de.featjar.formula.structure.connective.Implies;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+public class FeatureModelDiffTest extends Common {
+
+    private static FeatureModel createFeatureModel() {
+        return (FeatureModel) load("testFeatureModels/groups.xml", new XMLFeatureModelFormat());
+    }
+
+    private static List<FeatureModelEvent> getChanges(
+            List<FeatureModelEvent> changes, FeatureModelEvent.Type type, int expected) {
+        List<FeatureModelEvent> filtered = changes.stream()
+                .filter(change -> change.getType() == type)
+                .collect(Collectors.toList());
+        assertEquals(expected, filtered.size(), type.toString());
+        return filtered;
+    }
+
+    @Test
+    public void equalModelsHaveNoChanges() {
+        assertTrue(FeatureModelDiff.compute(createFeatureModel(), createFeatureModel()).isEmpty());
+    }
+
+    @Test
+    public void reportsTreeChanges() {
+        FeatureModel oldFeatureModel = createFeatureModel();
+        FeatureModel newFeatureModel = createFeatureModel();
+        IFeatureTree a = newFeatureModel.getFeatureTree("A").get();
+        IFeatureTree b = newFeatureModel.getFeatureTree("B").get();
+        IFeatureTree b1 = newFeatureModel.getFeatureTree("B1").get();
+        b1.mutate().removeFromTree();
+        newFeatureModel.mutate().removeFeature(b1.getFeature());
+        a.mutate().addFeatureBelow(newFeatureModel.mutate().addFeature("A3"));
+        b.getChildren().get(0).mutate().setMandatory();
+        b.getFeature().mutate().setDescription("changed");
+
+        List<FeatureModelEvent> changes = FeatureModelDiff.compute(oldFeatureModel, newFeatureModel);
+        assertSame(
+                newFeatureModel.getFeature("A3").get(),
+                getChanges(changes, FeatureModelEvent.Type.FEATURE_ADDED, 1)
+                        .get(0)
+                        .getSource());
+        assertSame(
+                oldFeatureModel.getFeature("B1").get(),
+                getChanges(changes, FeatureModelEvent.Type.FEATURE_REMOVED, 1)
+                        .get(0)
+                        .getSource());
+        assertSame(
+                b.getChildren().get(0),
+                getChanges(changes, FeatureModelEvent.Type.FEATURE_RANGE_CHANGED, 1)
+                        .get(0)
+                        .getSource());
+        FeatureModelEvent description = getChanges(changes, FeatureModelEvent.Type.ATTRIBUTE_CHANGED, 1)
+                .get(0);
+        assertSame(b.getFeature(), description.getSource());
+        assertEquals("changed", description.getNewValue());
+        getChanges(changes, FeatureModelEvent.Type.FEATURE_MOVED, 0);
+        getChanges(changes, FeatureModelEvent.Type.CONSTRAINT_CHANGED, 0);
+    }
+
+    @Test
+    public void reportsMovesGroupsAndConstraints() {
+        FeatureModel oldFeatureModel = createFeatureModel();
+        FeatureModel newFeatureModel = createFeatureModel();
+        IFeatureTree a = newFeatureModel.getFeatureTree("A").get();
+        IFeatureTree b2 = newFeatureModel.getFeatureTree("B2").get();
+        b2.mutate().removeFromTree();
+        a.mutate().addChild(b2);
+        a.getChildren().get(0).mutate().setAlternative();
+        IConstraint constraint = newFeatureModel.getConstraints().iterator().next();
+        constraint.mutate().setFormula(new Implies(Expressions.literal("A1"), Expressions.literal("B2")));
+
+        List<FeatureModelEvent> changes = FeatureModelDiff.compute(oldFeatureModel, newFeatureModel);
+        FeatureModelEvent moved = getChanges(changes, FeatureModelEvent.Type.FEATURE_MOVED, 1)
+                .get(0);
+        assertSame(b2, moved.getSource());
+        assertSame(oldFeatureModel.getFeatureTree("B").get(), moved.getOldValue());
+        assertSame(a, moved.getNewValue());
+        assertSame(
+                a,
+                getChanges(changes, FeatureModelEvent.Type.GROUP_CHANGED, 1)
+                        .get(0)
+                        .getSource());
+        assertSame(
+                constraint,
+                getChanges(changes, FeatureModelEvent.Type.CONSTRAINT_CHANGED, 1)
+                        .get(0)
+                        .getSource());
+        getChanges(changes, FeatureModelEvent.Type.FEATURE_ADDED, 0);
+        getChanges(changes, FeatureModelEvent.Type.FEATURE_REMOVED, 0);
+        getChanges(changes, FeatureModelEvent.Type.CONSTRAINT_ADDED, 0);
+    }
+
+    @Test
+    public void matchesCloneByName() {
+        FeatureModel oldFeatureModel = createFeatureModel();
+        FeatureModel newFeatureModel = oldFeatureModel.clone();
+        assertTrue(FeatureModelDiff.compute(oldFeatureModel, newFeatureModel).isEmpty());
+        newFeatureModel.getFeature("A1").get().mutate().setName("A4");
+
+        List<FeatureModelEvent> changes = FeatureModelDiff.compute(oldFeatureModel, newFeatureModel);
+        assertSame(
+                newFeatureModel.getFeature("A4").get(),
+                getChanges(changes, FeatureModelEvent.Type.FEATURE_ADDED, 1)
+                        .get(0)
+                        .getSource());
+        assertSame(
+                oldFeatureModel.getFeature("A1").get(),
+                getChanges(changes, FeatureModelEvent.Type.FEATURE_REMOVED, 1)
+                        .get(0)
+                        .getSource());
+        assertEquals(2, changes.size());
+    }
+
+    @Test
+    public void matchesConstraintsByFormula() {
+        FeatureModel oldFeatureModel = createFeatureModel();
+        FeatureModel newFeatureModel = createFeatureModel();
+        IConstraint constraint = newFeatureModel.getConstraints().iterator().next();
+        newFeatureModel.mutate().removeConstraint(constraint);
+        IConstraint replacement = newFeatureModel.mutate().addConstraint(constraint.getFormula());
+        replacement.mutate().setDescription("replaced");
+
+        List<FeatureModelEvent> changes = FeatureModelDiff.compute(oldFeatureModel, newFeatureModel);
+        assertSame(
+                replacement,
+                getChanges(changes, FeatureModelEvent.Type.ATTRIBUTE_CHANGED, 1)
+                        .get(0)
+                        .getSource());
+        getChanges(changes, FeatureModelEvent.Type.CONSTRAINT_ADDED, 0);
+        getChanges(changes, FeatureModelEvent.Type.CONSTRAINT_REMOVED, 0);
+        getChanges(changes, FeatureModelEvent.Type.CONSTRAINT_CHANGED, 0);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import de.featjar.Common;
+import de.featjar.feature.model.io.xml.XMLFeatureModelFormat;
+import de.featjar.formula.structure.Expressions;
+import de.featjar.formula.structure.connective.Or;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+public class FeatureModelDigestTest extends Common {
+    FeatureModel featureModel;
+    IFeatureTree a;
+    IFeatureTree b;
+    IConstraint constraint;
+
+    private FeatureModel createFeatureModel() {
+        FeatureModel featureModel =
+                (FeatureModel) load("testFeatureModels/groups.xml", new XMLFeatureModelFormat());
+        a = featureModel.getFeatureTree("A").get();
+        b = featureModel.getFeatureTree("B").get();
+        constraint = featureModel.getConstraints().iterator().next();
+        return featureModel;
+    }
+
+    @Test
+    public void equalModelsHaveEqualDigests() {
+        byte[] digest = FeatureModelDigest.of(createFeatureModel());
+        FeatureModel other = createFeatureModel();
+        assertArrayEquals(digest, FeatureModelDigest.of(other));
+        assertArrayEquals(digest, FeatureModelDigest.of(other.clone()));
+        assertEquals(64, FeatureModelDigest.toHexString(digest).length());
+    }
+
+    @Test
+    public void changesUpdateDigests() {
+        featureModel = createFeatureModel();
+        try (FeatureModelDigest digest = new FeatureModelDigest(featureModel)) {
+            byte[] modelDigest = digest.getDigest();
+            byte[] aDigest = digest.getDigest(a);
+            byte[] bDigest = digest.getDigest(b);
+            byte[] constraintDigest = digest.getDigest(constraint);
+
+            b.getChildren().get(0).getFeature().mutate().setName("B4");
+            assertFalse(Arrays.equals(bDigest, digest.getDigest(b)));
+            assertArrayEquals(aDigest, digest.getDigest(a));
+            assertArrayEquals(constraintDigest, digest.getDigest(constraint));
+            assertFalse(Arrays.equals(modelDigest, digest.getDigest()));
+            assertArrayEquals(FeatureModelDigest.of(featureModel), digest.getDigest());
+
+            bDigest = digest.getDigest(b);
+            b.getChildren().get(0).mutate().setOr();
+            assertFalse(Arrays.equals(bDigest, digest.getDigest(b)));
+            assertArrayEquals(aDigest, digest.getDigest(a));
+            assertArrayEquals(FeatureModelDigest.of(featureModel), digest.getDigest());
+
+            constraint.mutate().setFormula(new Or(Expressions.literal("A"), Expressions.literal("B")));
+            assertFalse(Arrays.equals(constraintDigest, digest.getDigest(constraint)));
+            assertArrayEquals(FeatureModelDigest.of(featureModel), digest.getDigest());
+
+            a.mutate().addFeatureBelow(featureModel.mutate().addFeature("A3"));
+            assertFalse(Arrays.equals(aDigest, digest.getDigest(a)));
+            assertArrayEquals(FeatureModelDigest.of(featureModel), digest.getDigest());
+        }
+    }
+}
@@ -24,7 +24,12 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import de.featjar.base.data.Result;
 import de.featjar.base.data.identifier.Identifiers;
+import de.featjar.base.tree.Trees;
 import de.featjar.formula.structure.Expressions;
+import de.featjar.formula.structure.IFormula;
+import de.featjar.formula.structure.connective.Implies;
+import de.featjar.formula.structure.connective.Not;
+import de.featjar.formula.structure.connective.Or;
 import java.util.*;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -99,4 +104,134 @@ public class FeatureModelTest {
         childTree.mutate().removeFromTree();
         assertEquals(List.of(), rootFeature.getFeatureTree().get().getChildren());
     }
+
+    @Test
+    public void featureModelDuplicateFeatureNames() {
+        IFeature feature1 = featureModel.mutate().addFeature("a");
+        IFeature feature2 = featureModel.mutate().addFeature("a");
+        IFeature feature3 = featureModel.mutate().addFeature("b");
+        assertSame(feature1, featureModel.getFeature("a").get());
+        featureModel.mutate().removeFeature(feature1);
+        assertSame(feature2, featureModel.getFeature("a").get());
+        feature3.mutate().setName("a");
+        assertSame(feature2, featureModel.getFeature("a").get());
+        feature2.mutate().setName("c");
+        assertSame(feature3, featureModel.getFeature("a").get());
+        assertSame(feature2, featureModel.getFeature("c").get());
+        featureModel.mutate().removeFeature(feature3);
+        assertTrue(featureModel.getFeature("a").isEmpty());
+    }
+
+    @Test
+    public void featureTreeGroups() {
+        IFeatureTree rootTree = featureModel.mutate().addFeatureTreeRoot(featureModel.mutate().addFeature("root"));
+        IFeatureTree childTree1 = rootTree.mutate().addFeatureBelow(featureModel.mutate().addFeature("child1"));
+        IFeatureTree childTree2 = rootTree.mutate().addFeatureBelow(featureModel.mutate().addFeature("child2"));
+        assertSame(rootTree.getGroup(), rootTree.getGroup());
+        assertEquals(List.of(rootTree), rootTree.getGroupFeatures());
+        assertEquals(List.of(childTree1, childTree2), childTree1.getGroupFeatures());
+
+        rootTree.mutate().addGroup(1, 1);
+        childTree2.mutate().setGroupID(1);
+        assertEquals(List.of(childTree1), rootTree.getGroupChildren(0));
+        assertEquals(List.of(childTree2), rootTree.getGroupChildren(1));
+        assertSame(rootTree.getGroups().get(1), childTree2.getGroup());
+        assertTrue(childTree2.getGroup().isAlternative());
+
+        IFeatureTree childTree3 = rootTree.mutate().addFeatureBelow(featureModel.mutate().addFeature("child3"), 0, 1);
+        assertEquals(List.of(childTree3, childTree2), rootTree.getGroupChildren(1));
+        childTree2.mutate().removeFromTree();
+        assertEquals(List.of(childTree3), childTree3.getGroupFeatures());
+    }
+
+    @Test
+    public void featureTreeGroupsIncremental() {
+        IFeatureTree rootTree = featureModel.mutate().addFeatureTreeRoot(featureModel.mutate().addFeature("root"));
+        rootTree.mutate().addGroup(1, 1);
+        List<IFeatureTree> orGroup = rootTree.getGroupChildren(0);
+        List<IFeatureTree> alternativeGroup = rootTree.getGroupChildren(1);
+        IFeatureTree childTree1 = rootTree.mutate().addFeatureBelow(featureModel.mutate().addFeature("child1"));
+        IFeatureTree childTree2 =
+                rootTree.mutate().addFeatureBelow(featureModel.mutate().addFeature("child2"), 1, 1);
+        IFeatureTree childTree3 = rootTree.mutate().addFeatureBelow(featureModel.mutate().addFeature("child3"));
+        IFeatureTree childTree4 =
+                rootTree.mutate().addFeatureBelow(featureModel.mutate().addFeature("child4"), 1, 0);
+        assertEquals(List.of(childTree1, childTree4, childTree3), orGroup);
+        assertEquals(List.of(childTree2), alternativeGroup);
+
+        childTree3.mutate().setGroupID(1);
+        assertEquals(List.of(childTree1, childTree4), orGroup);
+        assertEquals(List.of(childTree2, childTree3), alternativeGroup);
+        rootTree.mutate().removeChild(childTree1);
+        assertEquals(List.of(childTree4), orGroup);
+        assertSame(orGroup, rootTree.getGroupChildren(0));
+
+        IFeatureTree clonedRootTree = Trees.clone(rootTree);
+        assertEquals(1, clonedRootTree.getGroupChildren(0).size());
+        assertEquals(2, clonedRootTree.getGroupChildren(1).size());
+    }
+
+    @Test
+    public void formulaInterning() {
+        featureModel.mutate().addFeature("a");
+        featureModel.mutate().addFeature("b");
+        IConstraint constraint1 = featureModel
+                .mutate()
+                .addConstraint(new Or(Expressions.literal("a"), new Not(Expressions.literal("b"))));
+        ((FeatureModel) featureModel).setFormulaInterning(true);
+        IConstraint constraint2 = featureModel
+                .mutate()
+                .addConstraint(new Or(Expressions.literal("a"), new Not(Expressions.literal("b"))));
+        IConstraint constraint3 = featureModel
+                .mutate()
+                .addConstraint(new Implies(Expressions.literal("b"), Expressions.literal("a")));
+        assertSame(constraint1.getSharedFormula(), constraint2.getSharedFormula());
+        assertSame(
+                constraint1.getSharedFormula().getChildren().get(0),
+                constraint3.getSharedFormula().getChildren().get(1));
+        assertSame(constraint1.getSharedFormula(), constraint1.clone().getSharedFormula());
+
+        IFormula formula = constraint1.getFormula();
+        assertNotSame(constraint1.getSharedFormula(), formula);
+        assertEquals(constraint1.getSharedFormula(), formula);
+        formula.setChildren(List.of(Expressions.literal("b")));
+        assertEquals(constraint1.getSharedFormula(), constraint2.getFormula());
+        assertNotEquals(formula, constraint2.getFormula());
+
+        ((FeatureModel) featureModel).setFormulaInterning(false);
+        assertNotSame(constraint1.getSharedFormula(), constraint2.getSharedFormula());
+        assertEquals(constraint1.getSharedFormula(), constraint2.getSharedFormula());
+    }
+
+    @Test
+    public void formulaInterningPrunesRemovedFormulas() {
+        FeatureModel internedFeatureModel = (FeatureModel) featureModel;
+        internedFeatureModel.mutate().addFeature("a");
+        internedFeatureModel.setFormulaInterning(true);
+        List<IConstraint> constraints = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            internedFeatureModel.mutate().addFeature("f" + i);
+            constraints.add(internedFeatureModel
+                    .mutate()
+                    .addConstraint(new Implies(Expressions.literal("f" + i), Expressions.literal("a"))));
+        }
+        FeatureModel clonedFeatureModel = internedFeatureModel.clone();
+        assertNotSame(
+                internedFeatureModel.getFormulaInterner().get(),
+                clonedFeatureModel.getFormulaInterner().get());
+
+        for (int i = 0; i < 9; i++) {
+            constraints.get(i).mutate().remove();
+        }
+        FormulaInterner remainingInterner = new FormulaInterner();
+        remainingInterner.intern(constraints.get(9).getSharedFormula());
+        assertEquals(
+                remainingInterner.getNumberOfExpressions(),
+                internedFeatureModel.getFormulaInterner().get().getNumberOfExpressions());
+        assertTrue(internedFeatureModel
+                .getFormulaInterner()
+                .get()
+                .isInterned(constraints.get(9).getSharedFormula()));
+        assertEquals(10, clonedFeatureModel.getNumberOfConstraints());
+    }
 }
@@ -22,6 +22,8 @@ package de.featjar.feature.model;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import de.featjar.base.data.identifier.AIdentifier;
 import de.featjar.base.data.identifier.IIdentifiable;
@@ -61,6 +63,37 @@ public class IdentifierTest {
         assertEquals(identifier, identifier.getFactory().parse(identifier.toString()));
     }
 
+    @Test
+    void identifierInteger() {
+        IntegerIdentifier identifier = IntegerIdentifier.newInstance();
+        assertEquals(0, identifier.getIndex());
+        assertEquals(1, identifier.getNewIdentifier().getIndex());
+        assertSame(identifier, identifier.getFactory().parse("0"));
+        assertSame(identifier.getFactory().getIdentifier(1), identifier.getFactory().parse("1"));
+        assertEquals(2, identifier.getFactory().size());
+        assertNotEquals(identifier, IntegerIdentifier.newInstance());
+        assertEquals(5, identifier.getFactory().parse("5").hashCode());
+        assertEquals(6, identifier.getNewIdentifier().getIndex());
+        assertThrows(IllegalArgumentException.class, () -> identifier.getFactory().parse("-1"));
+
+        featureModel = new FeatureModel();
+        IFeature feature = featureModel.mutate().addFeature("root");
+        assertEquals("0", featureModel.getIdentifier().toString());
+        assertEquals("1", feature.getIdentifier().toString());
+        assertSame(feature, featureModel.getFeature(feature.getIdentifier().getFactory().parse("1")).get());
+
+        IntegerIdentifier.Factory factory = ((IntegerIdentifier) featureModel.getIdentifier()).getFactory();
+        for (int i = 0; i < 3; i++) {
+            FeatureModel clone = ((FeatureModel) featureModel).clone();
+            IIdentifier cloneIdentifier = clone.getIdentifier();
+            assertEquals("0", cloneIdentifier.toString());
+            assertEquals(2, ((IntegerIdentifier) cloneIdentifier).getFactory().size());
+            assertEquals(
+                    "1", clone.getFeatures().iterator().next().getIdentifier().toString());
+        }
+        assertEquals(2, factory.size());
+    }
+
     @Test
     void identifiable() {
         IIdentifier identifier = Identifiers.newCounterIdentifier();
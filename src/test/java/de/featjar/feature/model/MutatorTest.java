@@ -20,7 +20,21 @@
  */
 package de.featjar.feature.model;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.featjar.base.data.Range;
 import de.featjar.base.data.identifier.Identifiers;
+import de.featjar.formula.structure.Expressions;
+import de.featjar.formula.structure.IFormula;
+import de.featjar.formula.structure.connective.Implies;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -39,4 +53,196 @@ public class MutatorTest {
 
     @Test
     public void mutable() {}
+
+    @Test
+    public void batch() {
+        IFeature root = featureModel.addFeature("root");
+        IFeatureTree rootTree = featureModel.addFeatureTreeRoot(root);
+
+        FeatureModelBatch batch = featureModel.openBatch();
+        IFeature a = batch.addFeature("a");
+        IFeature b = batch.addFeature("b");
+        IFeatureTree aTree = batch.addFeatureBelow(rootTree, a);
+        IFeatureTree bTree = batch.addFeatureBelow(aTree, b);
+        IConstraint constraint = batch.addConstraint(new Implies(Expressions.literal("b"), Expressions.literal("root")));
+        assertEquals(1, featureModel.getNumberOfFeatures());
+        assertEquals(0, featureModel.getNumberOfConstraints());
+        assertTrue(rootTree.getChildren().isEmpty());
+
+        batch.commit();
+        assertFalse(batch.isOpen());
+        assertEquals(3, featureModel.getNumberOfFeatures());
+        assertSame(b, featureModel.getFeature("b").get());
+        assertEquals(List.of(aTree), rootTree.getChildren());
+        assertEquals(List.of(bTree), aTree.getChildren());
+        assertTrue(featureModel.hasConstraint(constraint));
+        assertEquals(Set.of(b, root), constraint.getReferencedFeatures());
+        assertThrows(IllegalStateException.class, () -> batch.addFeature("c"));
+    }
+
+    @Test
+    public void batchSetsFormulasLater() {
+        IFeature a = featureModel.addFeature("a");
+        FeatureModelBatch batch = featureModel.openBatch();
+        IConstraint constraint = batch.addConstraint();
+        IConstraint tautology = batch.addConstraint();
+        IFormula formula = new Implies(Expressions.literal("a"), Expressions.literal("b"));
+        batch.setFormula(constraint, formula);
+        IFeature b = batch.addFeature("b");
+        batch.commit();
+        assertSame(formula, constraint.getFormula());
+        assertEquals(Set.of(a, b), constraint.getReferencedFeatures());
+        assertTrue(tautology.getReferencedFeatures().isEmpty());
+        assertEquals(2, featureModel.getNumberOfConstraints());
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> featureModel.openBatch().setFormula(constraint, Expressions.literal("a")));
+    }
+
+    @Test
+    public void batchFailsAtomically() {
+        featureModel.addFeature("a");
+        FeatureModelBatch batch = featureModel.openBatch();
+        batch.addFeature("b");
+        batch.addFeature("a");
+        assertThrows(IllegalArgumentException.class, batch::commit);
+        assertEquals(1, featureModel.getNumberOfFeatures());
+        assertTrue(featureModel.getFeature("b").isEmpty());
+
+        FeatureModelBatch otherBatch = featureModel.openBatch();
+        otherBatch.addConstraint(Expressions.literal("unknown"));
+        assertThrows(IllegalArgumentException.class, otherBatch::commit);
+        assertEquals(0, featureModel.getNumberOfConstraints());
+    }
+
+    @Test
+    public void batchChecksAttachmentsBeforeCommit() {
+        IFeatureTree rootTree = featureModel.addFeatureTreeRoot(featureModel.addFeature("root"));
+        FeatureModelBatch batch = featureModel.openBatch();
+        IFeature a = batch.addFeature("a");
+        IFeatureTree aTree = batch.addFeatureBelow(rootTree, a, -1, 1);
+        batch.addFeatureBelow(rootTree, batch.addFeature("b"), 3, 0);
+        assertThrows(IllegalArgumentException.class, batch::commit);
+        assertTrue(batch.isOpen());
+        assertEquals(1, featureModel.getNumberOfFeatures());
+        assertTrue(rootTree.getChildren().isEmpty());
+        assertTrue(aTree.getParent().isEmpty());
+
+        rootTree.mutate().addGroup(1, 1);
+        assertThrows(IllegalArgumentException.class, batch::commit);
+        assertEquals(1, featureModel.getNumberOfFeatures());
+
+        FeatureModelBatch otherBatch = featureModel.openBatch();
+        IFeatureTree cTree = otherBatch.addFeatureBelow(rootTree, otherBatch.addFeature("c"), -1, 1);
+        otherBatch.addFeatureBelow(rootTree, otherBatch.addFeature("d"), 1, 0);
+        otherBatch.commit();
+        assertEquals(List.of(cTree), rootTree.getGroupChildren(1));
+
+        FeatureModelBatch thirdBatch = featureModel.openBatch();
+        IFeatureTree eTree = thirdBatch.addFeatureTreeRoot(thirdBatch.addFeature("e"));
+        IFeature f = thirdBatch.addFeature("f");
+        assertThrows(IllegalArgumentException.class, () -> thirdBatch.addFeatureBelow(eTree, f, 0, 1));
+        assertTrue(eTree.getChildren().isEmpty());
+    }
+
+    @Test
+    public void featureNameIndex() {
+        IFeature feature = featureModel.addFeature("a");
+        assertSame(feature, featureModel.getFeature("a").get());
+        feature.mutate().setName("b");
+        assertTrue(featureModel.getFeature("a").isEmpty());
+        assertSame(feature, featureModel.getFeature("b").get());
+        featureModel.removeFeature(feature);
+        assertTrue(featureModel.getFeature("b").isEmpty());
+    }
+
+    @Test
+    public void listeners() {
+        List<List<FeatureModelEvent>> deliveries = new ArrayList<>();
+        IFeatureModelListener listener = deliveries::add;
+        featureModel.addListener(listener);
+
+        IFeature root = featureModel.addFeature("root");
+        IFeatureTree rootTree = featureModel.addFeatureTreeRoot(root);
+        IFeature a = featureModel.addFeature("a");
+        rootTree.mutate().addFeatureBelow(a);
+        a.mutate().setName("b");
+        assertEquals(5, deliveries.size());
+        assertEquals(FeatureModelEvent.Type.FEATURE_ADDED, deliveries.get(0).get(0).getType());
+        assertEquals(FeatureModelEvent.Type.ROOT_ADDED, deliveries.get(1).get(0).getType());
+        assertEquals(FeatureModelEvent.Type.FEATURE_MOVED, deliveries.get(3).get(0).getType());
+        FeatureModelEvent renamed = deliveries.get(4).get(0);
+        assertEquals(FeatureModelEvent.Type.ATTRIBUTE_CHANGED, renamed.getType());
+        assertSame(a, renamed.getSource());
+        assertEquals("a", renamed.getOldValue());
+        assertEquals("b", renamed.getNewValue());
+
+        rootTree.mutate().addGroup(1, 1);
+        IFeature e = featureModel.addFeature("e");
+        deliveries.clear();
+        rootTree.mutate().addFeatureBelow(e, 0, 1);
+        assertEquals(1, deliveries.size());
+        assertEquals(
+                List.of(FeatureModelEvent.Type.FEATURE_MOVED, FeatureModelEvent.Type.GROUP_CHANGED),
+                deliveries.get(0).stream().map(FeatureModelEvent::getType).collect(Collectors.toList()));
+
+        deliveries.clear();
+        FeatureModelBatch batch = featureModel.openBatch();
+        batch.addFeatureBelow(rootTree, batch.addFeature("c"));
+        batch.addConstraint(Expressions.literal("c"));
+        batch.commit();
+        assertEquals(1, deliveries.size());
+        assertTrue(deliveries.get(0).stream()
+                .anyMatch(event -> event.getType() == FeatureModelEvent.Type.CONSTRAINT_ADDED));
+
+        deliveries.clear();
+        featureModel.removeListener(listener);
+        featureModel.addFeature("d");
+        assertTrue(deliveries.isEmpty());
+    }
+
+    @Test
+    public void journal() {
+        FeatureModelJournal journal = new FeatureModelJournal(featureModel, 3);
+        IFeature root = journal.addFeature("root");
+        IFeatureTree rootTree = journal.addFeatureTreeRoot(root);
+        long checkpoint = journal.checkpoint();
+        IFeature a = journal.addFeature("a");
+        IFeatureTree aTree = journal.addFeatureBelow(rootTree, a);
+        assertEquals(3, journal.getNumberOfUndoableDeltas());
+
+        journal.setName(a.mutate(), "b");
+        long renamed = journal.checkpoint();
+        assertEquals(3, journal.getNumberOfUndoableDeltas());
+        assertSame(a, featureModel.getFeature("b").get());
+        journal.undo();
+        assertSame(a, featureModel.getFeature("a").get());
+        journal.redo();
+        assertSame(a, featureModel.getFeature("b").get());
+
+        journal.rollback(checkpoint);
+        assertEquals(1, featureModel.getNumberOfFeatures());
+        assertTrue(rootTree.getChildren().isEmpty());
+        assertFalse(journal.canUndo());
+        assertEquals(3, journal.getNumberOfRedoableDeltas());
+        journal.redo();
+        journal.redo();
+        assertEquals(List.of(aTree), rootTree.getChildren());
+
+        journal.removeFeatureTree(aTree);
+        assertFalse(journal.canRedo());
+        assertTrue(rootTree.getChildren().isEmpty());
+        journal.undo();
+        assertEquals(List.of(aTree), rootTree.getChildren());
+        assertThrows(IllegalStateException.class, () -> journal.rollback(renamed));
+        journal.rollback(checkpoint);
+        assertEquals(1, featureModel.getNumberOfFeatures());
+
+        journal.redo();
+        journal.redo();
+        int undoableDeltas = journal.getNumberOfUndoableDeltas();
+        journal.setGroupRange(rootTree, Range.of(1, 1));
+        journal.setGroupRange(aTree, Range.of(aTree.getGroup().getLowerBound(), aTree.getGroup().getUpperBound()));
+        assertEquals(undoableDeltas, journal.getNumberOfUndoableDeltas());
+    }
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.featjar.base.io.IO;
+import de.featjar.feature.model.io.xml.XMLFeatureModelFormat;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+public class SyntheticFeatureModelGeneratorTest {
+
+    private static SyntheticFeatureModelGenerator newGenerator() {
+        return new SyntheticFeatureModelGenerator(42)
+                .setNumberOfFeatures(500)
+                .setMaximumDepth(6)
+                .setFanOut(1, 6)
+                .setGroupWeights(2, 1, 1, 1)
+                .setConstraintRatio(0.2)
+                .setClauseWidth(2, 4);
+    }
+
+    private static String writeXML(SyntheticFeatureModelGenerator generator) throws IOException {
+        StringWriter writer = new StringWriter();
+        generator.writeXML(writer);
+        return writer.toString();
+    }
+
+    @Test
+    public void generate() {
+        FeatureModel featureModel = newGenerator().generate();
+        assertEquals(500, featureModel.getNumberOfFeatures());
+        assertEquals(500, featureModel.getNumberOfTreeFeatures());
+        assertEquals(100, featureModel.getNumberOfConstraints());
+        assertTrue(featureModel
+                        .getFeatureTreeStream()
+                        .mapToInt(tree -> {
+                            int depth = 0;
+                            for (IFeatureTree t = tree; t.getParent().isPresent(); t = t.getParent().get()) {
+                                depth++;
+                            }
+                            return depth;
+                        })
+                        .max()
+                        .getAsInt()
+                <= 6);
+    }
+
+    @Test
+    public void writeXMLIsReproducible() throws IOException {
+        String xml = writeXML(newGenerator());
+        assertEquals(xml, writeXML(newGenerator()));
+        IFeatureModel featureModel = IO.load(
+                        new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), new XMLFeatureModelFormat())
+                .orElseThrow();
+        assertEquals(500, featureModel.getNumberOfFeatures());
+        assertEquals(100, featureModel.getNumberOfConstraints());
+    }
+
+    @Test
+    public void generateWithoutMinimumFanOut() {
+        for (long seed = 0; seed < 20; seed++) {
+            FeatureModel featureModel = new SyntheticFeatureModelGenerator(seed)
+                    .setNumberOfFeatures(50)
+                    .setMaximumDepth(100)
+                    .setFanOut(0, 1)
+                    .generate();
+            assertEquals(50, featureModel.getNumberOfTreeFeatures());
+        }
+    }
+
+    @Test
+    public void unsatisfiableShape() {
+        SyntheticFeatureModelGenerator generator =
+                new SyntheticFeatureModelGenerator(1).setNumberOfFeatures(100).setMaximumDepth(2).setFanOut(1, 3);
+        assertThrows(IllegalArgumentException.class, generator::generate);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.analysis;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.featjar.Common;
+import de.featjar.feature.model.FeatureModel;
+import de.featjar.feature.model.io.xml.XMLFeatureModelFormat;
+import de.featjar.formula.structure.Expressions;
+import de.featjar.formula.structure.connective.Not;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ConfigurationSamplerTest extends Common {
+    FeatureModel featureModel;
+    FeatureModelProgram program;
+
+    @BeforeEach
+    public void createFeatureModel() {
+        featureModel = (FeatureModel) load("testFeatureModels/groups.xml", new XMLFeatureModelFormat());
+        program = FeatureModelProgram.compile(featureModel);
+    }
+
+    @Test
+    public void samplesValidConfigurations() {
+        ConfigurationStore store = new ConfigurationSampler(program).setSeed(1).sample(1000);
+        assertEquals(1000, store.size());
+        int[] violations = new ConfigurationValidator(program).validate(Arrays.asList(store.getBitSets()));
+        Set<String> distinct = new HashSet<>();
+        for (int i = 0; i < store.size(); i++) {
+            assertEquals(ConfigurationValidator.VALID, violations[i]);
+            distinct.add(Arrays.toString(store.getBitSet(i)));
+        }
+        assertTrue(distinct.size() > 3, "too few distinct configurations: " + distinct.size());
+    }
+
+    @Test
+    public void isReproducible() {
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            ConfigurationStore parallel = new ConfigurationSampler(program).setSeed(7).sample(700);
+            ConfigurationStore sequential =
+                    new ConfigurationSampler(program).setSeed(7).setPool(pool).sample(700);
+            for (int i = 0; i < parallel.size(); i++) {
+                assertArrayEquals(sequential.getBitSet(i), parallel.getBitSet(i));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void rejectsVoidFeatureModel() {
+        featureModel.mutate().addConstraint(new Not(Expressions.literal("A")));
+        ConfigurationSampler sampler = new ConfigurationSampler(FeatureModelProgram.compile(featureModel));
+        assertThrows(IllegalStateException.class, () -> sampler.sample(1));
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import de.featjar.Common;
+import de.featjar.feature.model.FeatureModel;
+import de.featjar.feature.model.analysis.ConfigurationValidator.RuleType;
+import de.featjar.feature.model.io.xml.XMLFeatureModelFormat;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ConfigurationValidatorTest extends Common {
+    FeatureModelProgram program;
+    ConfigurationValidator validator;
+
+    @BeforeEach
+    public void createValidator() {
+        FeatureModel featureModel =
+                (FeatureModel) load("testFeatureModels/groups.xml", new XMLFeatureModelFormat());
+        program = FeatureModelProgram.compile(featureModel);
+        validator = new ConfigurationValidator(program);
+    }
+
+    private long[] configuration(String... featureNames) {
+        long[] bitSet = new long[1];
+        for (String featureName : featureNames) {
+            bitSet[0] |= 1L << program.getFeatureIndex(featureName);
+        }
+        return bitSet;
+    }
+
+    @Test
+    public void reportsFirstViolation() {
+        List<long[]> configurations = new ArrayList<>();
+        configurations.add(configuration("R", "A", "B", "B1", "C"));
+        configurations.add(configuration("R", "B", "B2"));
+        configurations.add(configuration("R", "A", "B", "B1", "B2", "C"));
+        configurations.add(configuration("R", "A", "B", "B1"));
+        configurations.add(configuration("R", "A", "B2"));
+        int[] violations = validator.validate(configurations);
+
+        assertEquals(ConfigurationValidator.VALID, violations[0]);
+        assertEquals(RuleType.MANDATORY, validator.getRuleType(violations[1]));
+        assertEquals("R requires A", validator.describe(violations[1]));
+        assertEquals(RuleType.GROUP, validator.getRuleType(violations[2]));
+        assertEquals(RuleType.CLAUSE, validator.getRuleType(violations[3]));
+        assertEquals(0, validator.getRuleElement(violations[3]));
+        assertEquals(RuleType.PARENT, validator.getRuleType(violations[4]));
+        assertEquals("B2 requires B", validator.describe(violations[4]));
+    }
+
+    @Test
+    public void validatesManyConfigurations() {
+        long[][] configurations = new long[150][];
+        for (int i = 0; i < configurations.length; i++) {
+            configurations[i] = i % 3 == 0 ? configuration("R", "A", "B", "B1") : configuration("R", "A", "B", "B2");
+        }
+        int[] violations = new int[configurations.length];
+        new ConfigurationValidator(validator).validate(configurations, 0, configurations.length, violations);
+        for (int i = 0; i < configurations.length; i++) {
+            assertEquals(i % 3 == 0 ? RuleType.CLAUSE : null,
+                    violations[i] == ConfigurationValidator.VALID ? null : validator.getRuleType(violations[i]));
+        }
+    }
+}
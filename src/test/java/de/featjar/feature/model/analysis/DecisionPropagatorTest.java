@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.featjar.Common;
+import de.featjar.feature.model.FeatureModel;
+import de.featjar.feature.model.FeatureModelConfiguration;
+import de.featjar.feature.model.Selection;
+import de.featjar.feature.model.io.xml.XMLFeatureModelFormat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class DecisionPropagatorTest extends Common {
+    FeatureModelConfiguration configuration;
+    DecisionPropagator propagator;
+
+    @BeforeEach
+    public void createPropagator() {
+        FeatureModel featureModel =
+                (FeatureModel) load("testFeatureModels/groups.xml", new XMLFeatureModelFormat());
+        configuration = new FeatureModelConfiguration(featureModel);
+        propagator = new DecisionPropagator(configuration);
+    }
+
+    @Test
+    public void propagatesModel() {
+        assertTrue(propagator.isConsistent());
+        assertEquals(Selection.SELECTED, configuration.getAutomatic("R"));
+        assertEquals(Selection.SELECTED, configuration.getAutomatic("A"));
+        assertEquals(Selection.UNDEFINED, configuration.getAutomatic("B"));
+        assertFalse(propagator.setManual("A", Selection.UNSELECTED));
+        assertEquals(Selection.UNDEFINED, configuration.getManual("A"));
+    }
+
+    @Test
+    public void propagatesDecisions() {
+        assertTrue(propagator.setManual("B1", Selection.SELECTED));
+        assertEquals(Selection.SELECTED, configuration.getManual("B1"));
+        assertEquals(Selection.SELECTED, configuration.getAutomatic("B"));
+        assertEquals(Selection.UNSELECTED, configuration.getAutomatic("B2"));
+        assertEquals(Selection.UNSELECTED, configuration.getAutomatic("B3"));
+        assertEquals(Selection.SELECTED, configuration.getAutomatic("C"));
+
+        assertFalse(propagator.setManual("C", Selection.UNSELECTED));
+        assertEquals(Selection.UNDEFINED, configuration.getManual("C"));
+        assertEquals(Selection.SELECTED, configuration.getAutomatic("C"));
+    }
+
+    @Test
+    public void retractsDecisions() {
+        assertTrue(propagator.setManual("B1", Selection.SELECTED));
+        assertTrue(propagator.setManual("B1", Selection.UNDEFINED));
+        assertEquals(Selection.UNDEFINED, configuration.getManual("B1"));
+        for (String featureName : new String[] {"B", "B2", "B3", "C"}) {
+            assertEquals(Selection.UNDEFINED, configuration.getAutomatic(featureName), featureName);
+        }
+
+        assertTrue(propagator.setManual("C", Selection.UNSELECTED));
+        assertEquals(Selection.UNSELECTED, configuration.getAutomatic("B1"));
+        assertTrue(propagator.setManual("B", Selection.SELECTED));
+        assertTrue(propagator.setManual("B2", Selection.UNSELECTED));
+        assertEquals(Selection.SELECTED, configuration.getAutomatic("B3"));
+
+        assertTrue(propagator.setManual("C", Selection.SELECTED));
+        assertEquals(Selection.UNDEFINED, configuration.getAutomatic("B1"));
+        assertEquals(Selection.UNSELECTED, configuration.getManual("B2"));
+        assertEquals(Selection.UNDEFINED, configuration.getAutomatic("B3"));
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.featjar.Common;
+import de.featjar.base.data.Range;
+import de.featjar.base.io.IO;
+import de.featjar.feature.model.FeatureModel;
+import de.featjar.feature.model.IFeatureTree;
+import de.featjar.feature.model.analysis.ConfigurationValidator;
+import de.featjar.feature.model.analysis.FeatureModelProgram;
+import de.featjar.feature.model.io.dimacs.DIMACSFeatureModelFormat;
+import de.featjar.feature.model.io.xml.XMLFeatureModelFormat;
+import de.featjar.formula.structure.Expressions;
+import de.featjar.formula.structure.connective.And;
+import de.featjar.formula.structure.connective.Or;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class DIMACSFeatureModelFormatTest extends Common {
+
+    private static FeatureModel createFeatureModel() {
+        FeatureModel featureModel =
+                (FeatureModel) load("testFeatureModels/groups.xml", new XMLFeatureModelFormat());
+        IFeatureTree c = featureModel.getFeatureTree("C").get();
+        c.mutate().addFeatureBelow(featureModel.mutate().addFeature("C1")).mutate().setGroupRange(Range.of(2, 3));
+        c.mutate().addFeatureBelow(featureModel.mutate().addFeature("C2"));
+        c.mutate().addFeatureBelow(featureModel.mutate().addFeature("C3"));
+        c.mutate().addFeatureBelow(featureModel.mutate().addFeature("C4"));
+        featureModel
+                .mutate()
+                .addConstraint(new Or(
+                        new And(Expressions.literal("B2"), Expressions.literal("C1")),
+                        new And(Expressions.literal("B3"), Expressions.literal(false, "C2")),
+                        Expressions.literal("B1")));
+        return featureModel;
+    }
+
+    @Test
+    public void dimacsFeatureModelFormatMatchesFeatureModel() throws IOException {
+        FeatureModel featureModel = createFeatureModel();
+        assertEquivalent(featureModel, new DIMACSFeatureModelFormat());
+        assertEquivalent(featureModel, new DIMACSFeatureModelFormat().setMaximumDistributedClauses(1));
+    }
+
+    @Test
+    public void dimacsFeatureModelFormatStreams() throws IOException {
+        FeatureModel featureModel = createFeatureModel();
+        DIMACSFeatureModelFormat format = new DIMACSFeatureModelFormat();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        format.write(featureModel, outputStream);
+        String dimacs = new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+        assertEquals(format.serialize(featureModel).orElseThrow(), dimacs);
+        assertTrue(dimacs.startsWith("c 1 R\nc 2 A\n"));
+    }
+
+    @Test
+    public void dimacsFeatureModelFormatReportsUnknownFeatures() throws IOException {
+        FeatureModel featureModel = createFeatureModel();
+        featureModel.mutate().addConstraint(Expressions.literal("Unknown"));
+        Path file = Files.createTempFile("featureModel", ".dimacs");
+        try {
+            assertFalse(new DIMACSFeatureModelFormat().serialize(featureModel).isPresent());
+            assertThrows(IOException.class, () -> IO.save(featureModel, file, new DIMACSFeatureModelFormat()));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Checks that a configuration is valid if and only if the clauses are satisfiable under it.
+     */
+    private static void assertEquivalent(FeatureModel featureModel, DIMACSFeatureModelFormat format) {
+        String[] lines = format.serialize(featureModel).orElseThrow().split("\n");
+        HashMap<String, Integer> variables = new HashMap<>();
+        List<int[]> clauses = new ArrayList<>();
+        int numberOfVariables = 0;
+        int numberOfClauses = 0;
+        for (String line : lines) {
+            String[] tokens = line.split(" ");
+            if (tokens[0].equals("c")) {
+                variables.put(tokens[2], Integer.parseInt(tokens[1]));
+            } else if (tokens[0].equals("p")) {
+                numberOfVariables = Integer.parseInt(tokens[2]);
+                numberOfClauses = Integer.parseInt(tokens[3]);
+            } else {
+                int[] clause = Arrays.stream(tokens).mapToInt(Integer::parseInt).toArray();
+                assertEquals(0, clause[clause.length - 1]);
+                clauses.add(Arrays.copyOf(clause, clause.length - 1));
+            }
+        }
+        assertEquals(featureModel.getNumberOfFeatures(), variables.size());
+        assertEquals(numberOfClauses, clauses.size());
+
+        FeatureModelProgram program = FeatureModelProgram.compile(featureModel);
+        ConfigurationValidator validator = new ConfigurationValidator(program);
+        int numberOfFeatures = program.getNumberOfFeatures();
+        for (long selection = 0; selection < 1L << numberOfFeatures; selection++) {
+            int[] values = new int[numberOfVariables + 1];
+            for (int i = 0; i < numberOfFeatures; i++) {
+                values[variables.get(program.getFeatureName(i))] = (selection >> i & 1) == 1 ? 1 : -1;
+            }
+            boolean valid = validator.validate(List.of(new long[] {selection}))[0] == ConfigurationValidator.VALID;
+            assertEquals(valid, isSatisfiable(clauses, values), Long.toBinaryString(selection));
+        }
+    }
+
+    private static boolean isSatisfiable(List<int[]> clauses, int[] values) {
+        for (int[] clause : clauses) {
+            int freeLiteral = 0;
+            boolean satisfied = false;
+            for (int literal : clause) {
+                int value = values[Math.abs(literal)];
+                if (value == 0) {
+                    freeLiteral = literal;
+                } else if (value == Integer.signum(literal)) {
+                    satisfied = true;
+                    break;
+                }
+            }
+            if (!satisfied) {
+                if (freeLiteral == 0) {
+                    return false;
+                }
+                int variable = Math.abs(freeLiteral);
+                for (int value : new int[] {Integer.signum(freeLiteral), -Integer.signum(freeLiteral)}) {
+                    values[variable] = value;
+                    if (isSatisfiable(clauses, values)) {
+                        values[variable] = 0;
+                        return true;
+                    }
+                }
+                values[variable] = 0;
+                return false;
+            }
+        }
+        return true;
+    }
+}
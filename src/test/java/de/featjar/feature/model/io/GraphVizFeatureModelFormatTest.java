@@ -20,14 +20,22 @@
  */
 package de.featjar.feature.model.io;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import de.featjar.Common;
 import de.featjar.base.io.IO;
 import de.featjar.feature.model.IFeatureModel;
+import de.featjar.feature.model.IFeatureTree;
 import de.featjar.feature.model.io.xml.GraphVizFeatureModelFormat;
 import de.featjar.feature.model.io.xml.XMLFeatureModelFormat;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 import org.junit.jupiter.api.Test;
 
 public class GraphVizFeatureModelFormatTest extends Common {
@@ -36,4 +44,152 @@ public class GraphVizFeatureModelFormatTest extends Common {
         IFeatureModel featureModel = load("testFeatureModels/car.xml", new XMLFeatureModelFormat());
         assertTrue(IO.print(featureModel, new GraphVizFeatureModelFormat()).startsWith("digraph {"));
     }
+
+    @Test
+    public void graphVizFeatureModelFormatStreams() throws IOException {
+        IFeatureModel featureModel = load("testFeatureModels/car.xml", new XMLFeatureModelFormat());
+        GraphVizFeatureModelFormat format = new GraphVizFeatureModelFormat();
+        String serialized = format.serialize(featureModel).orElseThrow();
+        StringWriter writer = new StringWriter();
+        format.write(featureModel, writer);
+        assertEquals(serialized, writer.toString());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        format.write(featureModel, outputStream);
+        assertEquals(serialized, new String(outputStream.toByteArray(), StandardCharsets.UTF_8));
+        assertTrue(serialized.endsWith("\n}"));
+    }
+
+    @Test
+    public void graphVizFeatureModelFormatLevelOfDetail() throws IOException {
+        IFeatureModel featureModel = load("testFeatureModels/car.xml", new XMLFeatureModelFormat());
+        int numberOfFeatures = featureModel.getNumberOfTreeFeatures();
+        String full = IO.print(featureModel, new GraphVizFeatureModelFormat());
+        String rootOnly = IO.print(featureModel, new GraphVizFeatureModelFormat().setMaximumDepth(0));
+        assertTrue(rootOnly.length() < full.length());
+        assertTrue(rootOnly.contains("label=\"" + (numberOfFeatures - 1) + " features\""));
+
+        IFeatureModel baseline = load("testFeatureModels/car.xml", new XMLFeatureModelFormat());
+        assertEquals(rootOnly, IO.print(featureModel, new GraphVizFeatureModelFormat().setBaseline(baseline)));
+
+        IFeatureTree root = featureModel.getRoots().get(0);
+        String focused = IO.print(
+                featureModel,
+                new GraphVizFeatureModelFormat().setFocus(List.of(root), 1).setMinimumSubtreeSize(1));
+        assertEquals(1 + root.getChildren().size(), countOccurrences(focused, "_group\" ["));
+    }
+
+    @Test
+    public void graphVizFeatureModelFormatMatchesPreviousOutput() throws IOException {
+        IFeatureModel featureModel = load("testFeatureModels/car.xml", new XMLFeatureModelFormat());
+        String expected = serializePreviously(featureModel);
+        assertEquals(expected, new GraphVizFeatureModelFormat().serialize(featureModel).orElseThrow());
+        assertEquals(
+                expected,
+                IO.print(featureModel, new GraphVizFeatureModelFormat().setMaximumDepth(Integer.MAX_VALUE)));
+    }
+
+    /**
+     * The DOT output of this format before it was streamed, kept as reference, as the identifiers in the output
+     * depend on the loaded feature model.
+     */
+    private static String serializePreviously(IFeatureModel featureModel) {
+        List<IFeatureTree> features = featureModel.getFeatureTreeStream().collect(Collectors.toList());
+        return String.format(
+                "digraph {\n  graph%s;\n  node%s;\n  edge%s;\n%s\n%s\n}",
+                options(option("splines", "false"), option("ranksep", "0.2")),
+                options(
+                        option("fontname", "Arial"),
+                        option("style", "filled"),
+                        option("fillcolor", "#ccccff"),
+                        option("shape", "box")),
+                options(option("arrowhead", "none")),
+                features.stream()
+                        .map(GraphVizFeatureModelFormatTest::getNode)
+                        .collect(Collectors.joining("\n")),
+                features.stream()
+                        .map(GraphVizFeatureModelFormatTest::getEdge)
+                        .filter(s -> !s.isEmpty())
+                        .collect(Collectors.joining("\n")));
+    }
+
+    private static String getNode(IFeatureTree feature) {
+        String identifier = feature.getFeature().getIdentifier().toString();
+        return String.format(
+                        "  %s%s;",
+                        quote(identifier),
+                        options(
+                                option("label", feature.getFeature().getName().orElse("")),
+                                option("fillcolor", feature.getFeature().isAbstract() ? "#f2f2ff" : null)))
+                + String.format(
+                        "\n  %s%s;",
+                        quote(identifier + "_group"),
+                        options(
+                                option("shape", "diamond"),
+                                option(
+                                        "style",
+                                        !feature.getGroup().isAnd()
+                                                ? "invis"
+                                                : feature.getGroup().isAlternative() ? "" : null),
+                                option("fillcolor", feature.getGroup().isOr() ? "#000000" : null),
+                                option("label", ""),
+                                option("width", ".15"),
+                                option("height", ".15")));
+    }
+
+    private static String getEdge(IFeatureTree feature) {
+        String edgeString = "";
+        if (feature.hasParent()) {
+            IFeatureTree parent = feature.getParent().get();
+            String parentNode = parent.getFeature().getIdentifier().toString();
+            edgeString += getEdge(
+                    parentNode + "_group", feature, option("style", parent.getGroup().isAnd() ? null : "invis"));
+            if (!parent.getGroup().isAnd()) {
+                edgeString += getEdge(parentNode, feature, "");
+            }
+        }
+        String identifier = feature.getFeature().getIdentifier().toString();
+        return edgeString
+                + String.format(
+                        "  %s:s -> %s:n%s;",
+                        quote(identifier),
+                        quote(identifier + "_group"),
+                        options(option("style", feature.getGroup().isAnd() ? null : "invis")));
+    }
+
+    private static String getEdge(String parentNode, IFeatureTree childFeature, String option) {
+        return String.format(
+                "  %s:s -> %s:n%s;\n",
+                quote(parentNode),
+                quote(childFeature.getFeature().getIdentifier().toString()),
+                options(
+                        option(
+                                "arrowhead",
+                                childFeature.getParent().get().getGroup().isAnd()
+                                        ? null
+                                        : childFeature.isMandatory() ? "dot" : "odot"),
+                        option));
+    }
+
+    private static String quote(String string) {
+        return String.format("\"%s\"", string.replace("\"", "\\\""));
+    }
+
+    private static String options(String... options) {
+        List<String> optionsList =
+                Arrays.stream(options).filter(o -> !o.isEmpty()).collect(Collectors.toList());
+        if (String.join("", optionsList).trim().isEmpty()) return "";
+        return String.format(" [%s]", String.join(" ", optionsList));
+    }
+
+    private static String option(String name, String value) {
+        return value != null ? String.format("%s=%s", name, quote(value)) : "";
+    }
+
+    private static int countOccurrences(String string, String substring) {
+        int count = 0;
+        for (int i = string.indexOf(substring); i >= 0; i = string.indexOf(substring, i + 1)) {
+            count++;
+        }
+        return count;
+    }
 }
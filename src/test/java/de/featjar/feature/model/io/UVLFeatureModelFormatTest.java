@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.featjar.base.data.Result;
+import de.featjar.base.io.IO;
+import de.featjar.feature.model.FeatureTree.Group;
+import de.featjar.feature.model.IFeature;
+import de.featjar.feature.model.IFeatureModel;
+import de.featjar.feature.model.IFeatureTree;
+import de.featjar.feature.model.io.uvl.UVLFeatureModelFormat;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class UVLFeatureModelFormatTest {
+    private static final String MODEL = "namespace Car\n"
+            + "features\n"
+            + "    Car {abstract}\n"
+            + "        mandatory\n"
+            + "            Body\n"
+            + "            Engine\n"
+            + "                alternative\n"
+            + "                    Electric\n"
+            + "                    Gasoline\n"
+            + "        optional\n"
+            + "            Integer Wheels cardinality [2..4] {size 17, color 'black'}\n"
+            + "            Radio\n"
+            + "                or\n"
+            + "                    DAB\n"
+            + "                    \"FM Tuner\"\n"
+            + "                [1..*] // a cardinality group\n"
+            + "                    Bluetooth\n"
+            + "                    USB\n"
+            + "constraints\n"
+            + "    Electric => !Gasoline & Body\n"
+            + "    (DAB | \"FM Tuner\") <=> Radio\n";
+
+    private static Result<IFeatureModel> parse(String model) {
+        return IO.load(new ByteArrayInputStream(model.getBytes(StandardCharsets.UTF_8)), new UVLFeatureModelFormat());
+    }
+
+    @Test
+    public void uvlFeatureModelFormatParses() {
+        IFeatureModel featureModel = parse(MODEL).orElseThrow();
+        assertEquals("Car", featureModel.getName().get());
+        assertEquals(11, featureModel.getNumberOfFeatures());
+        assertEquals(2, featureModel.getNumberOfConstraints());
+
+        IFeatureTree root = featureModel.getRoots().get(0);
+        assertTrue(root.getFeature().isAbstract());
+        List<Group> rootGroups = root.getGroups();
+        assertEquals(1, rootGroups.size());
+        assertTrue(rootGroups.get(0).isAnd());
+        assertEquals(4, root.getChildren().size());
+
+        IFeatureTree engine = featureModel.getFeatureTree("Engine").get();
+        assertEquals(1, engine.getFeatureRangeLowerBound());
+        assertTrue(engine.getGroups().get(0).isAlternative());
+
+        IFeatureTree wheels = featureModel.getFeatureTree("Wheels").get();
+        assertEquals(Integer.class, wheels.getFeature().getType());
+        assertEquals(2, wheels.getFeatureRangeLowerBound());
+        assertEquals(4, wheels.getFeatureRangeUpperBound());
+
+        IFeatureTree radio = featureModel.getFeatureTree("Radio").get();
+        assertEquals(2, radio.getGroups().size());
+        assertTrue(radio.getGroups().get(0).isOr());
+        assertEquals(1, radio.getGroups().get(1).getLowerBound());
+        assertEquals(2, radio.getGroupChildren(0).size());
+        assertEquals(2, radio.getGroupChildren(1).size());
+    }
+
+    @Test
+    public void uvlFeatureModelFormatRoundTrip() throws IOException {
+        UVLFeatureModelFormat format = new UVLFeatureModelFormat();
+        String printed = IO.print(parse(MODEL).orElseThrow(), format);
+        assertTrue(printed.contains("cardinality [2..4]"));
+        assertTrue(printed.contains("\"FM Tuner\""));
+        assertEquals(printed, IO.print(parse(printed).orElseThrow(), format));
+    }
+
+    @Test
+    public void uvlFeatureModelFormatRoundTripsEmptyFirstGroup() throws IOException {
+        UVLFeatureModelFormat format = new UVLFeatureModelFormat();
+        IFeatureModel featureModel = parse("features\n    A\n        or\n        alternative\n            B\n            C\n")
+                .orElseThrow();
+        IFeatureTree a = featureModel.getFeatureTree("A").get();
+        assertEquals(2, a.getGroups().size());
+        assertTrue(a.getGroups().get(0).isOr());
+        assertEquals(2, a.getGroupChildren(1).size());
+        String printed = IO.print(featureModel, format);
+        assertEquals(printed, IO.print(parse(printed).orElseThrow(), format));
+    }
+
+    @Test
+    public void uvlFeatureModelFormatRoundTripsAttributes() throws IOException {
+        UVLFeatureModelFormat format = new UVLFeatureModelFormat();
+        IFeatureModel featureModel = parse("features\n    A {weight 2.5, count 3}\n").orElseThrow();
+        IFeature feature = featureModel.getFeature("A").get();
+        AttributeIO.parseAndSetAttributeValue(feature, UVLFeatureModelFormat.NAMESPACE, "size", "double", "1.0E10");
+        AttributeIO.parseAndSetAttributeValue(feature, "other", "ignored", "long", "1");
+        String printed = IO.print(featureModel, format);
+        assertTrue(printed.contains("size 10000000000.0"));
+        assertFalse(printed.contains("ignored"));
+        IFeatureModel parsedFeatureModel = parse(printed).orElseThrow();
+        assertEquals(
+                3, parsedFeatureModel.getFeature("A").get().getAttributes().get().size());
+        assertEquals(printed, IO.print(parsedFeatureModel, format));
+    }
+
+    @Test
+    public void uvlFeatureModelFormatHandlesLineEndingsAndComments() {
+        IFeatureModel featureModel = parse(MODEL.replace("\n", "\r\n")).orElseThrow();
+        assertEquals(11, featureModel.getNumberOfFeatures());
+        assertEquals(2, featureModel.getNumberOfConstraints());
+
+        featureModel = parse("features\n    A\n        optional\n            B\n  /* C */   C\n")
+                .orElseThrow();
+        assertEquals(2, featureModel.getFeatureTree("A").get().getChildren().size());
+    }
+
+    @Test
+    public void uvlFeatureModelFormatReportsErrors() {
+        assertFalse(parse("features\n    A\n        optional\n      B\n").isPresent());
+        assertFalse(parse("features\n    A\nconstraints\n    A => B\n").isPresent());
+        assertFalse(parse("features\n    A\n        optional\n            A\n").isPresent());
+    }
+}
@@ -21,13 +21,32 @@
 package de.featjar.feature.model.io;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import de.featjar.Common;
 import de.featjar.base.data.Result;
 import de.featjar.base.data.Sets;
+import de.featjar.base.io.IO;
+import de.featjar.feature.model.FeatureModel;
+import de.featjar.feature.model.FeatureModelEvent;
+import de.featjar.feature.model.IConstraint;
 import de.featjar.feature.model.IFeature;
 import de.featjar.feature.model.IFeatureModel;
+import de.featjar.feature.model.SyntheticFeatureModelGenerator;
 import de.featjar.feature.model.io.xml.XMLFeatureModelFormat;
+import de.featjar.feature.model.metrics.InMemoryMetrics;
+import de.featjar.feature.model.metrics.Metrics;
+import de.featjar.formula.structure.Expressions;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
 import org.junit.jupiter.api.Test;
 
 public class XMLFeatureModelFormulaFormatTest extends Common {
@@ -60,4 +79,123 @@ public class XMLFeatureModelFormulaFormatTest extends Common {
                         .map(Result::get)
                         .collect(Sets.toSet()));
     }
+
+    @Test
+    public void xmlFeatureModelFormatLazyConstraints() {
+        IFeatureModel eagerFeatureModel = load("testFeatureModels/car.xml", new XMLFeatureModelFormat());
+        FeatureModel featureModel = (FeatureModel)
+                load("testFeatureModels/car.xml", new XMLFeatureModelFormat().setLazyConstraints(true));
+        assertEquals(eagerFeatureModel.getNumberOfFeatures(), featureModel.getNumberOfFeatures());
+        assertFalse(featureModel.isConstraintsLoaded());
+        assertEquals(
+                eagerFeatureModel.getConstraints().stream()
+                        .map(IConstraint::getFormula)
+                        .map(Object::toString)
+                        .collect(Collectors.toList()),
+                featureModel.getConstraints().stream()
+                        .map(IConstraint::getFormula)
+                        .map(Object::toString)
+                        .collect(Collectors.toList()));
+        assertTrue(featureModel.isConstraintsLoaded());
+    }
+
+    @Test
+    public void xmlFeatureModelFormatLazyConstraintsFailure() {
+        String xml = "<featureModel><struct><and name=\"Root\"><feature name=\"A\"/></and></struct>"
+                + "<constraints><rule><var>B</var></rule></constraints></featureModel>";
+        FeatureModel featureModel = (FeatureModel) IO.load(
+                        new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)),
+                        new XMLFeatureModelFormat().setLazyConstraints(true))
+                .orElseThrow();
+        IllegalStateException failure = assertThrows(IllegalStateException.class, featureModel::getConstraints);
+        assertFalse(featureModel.isConstraintsLoaded());
+        IllegalStateException repeatedFailure =
+                assertThrows(IllegalStateException.class, featureModel::getNumberOfConstraints);
+        assertSame(failure, repeatedFailure.getCause());
+        assertFalse(featureModel.isConstraintsLoaded());
+    }
+
+    @Test
+    public void xmlFeatureModelFormatLazyConstraintsMalformedRule() {
+        String xml = "<featureModel><struct><and name=\"Root\"><feature name=\"A\"/></and></struct>"
+                + "<constraints><rule><var>A</var></rule><rule><malformed/></rule></constraints></featureModel>";
+        byte[] bytes = xml.getBytes(StandardCharsets.UTF_8);
+        assertFalse(IO.load(new ByteArrayInputStream(bytes), new XMLFeatureModelFormat()).isPresent());
+        FeatureModel featureModel = (FeatureModel) IO.load(
+                        new ByteArrayInputStream(bytes), new XMLFeatureModelFormat().setLazyConstraints(true))
+                .orElseThrow();
+        assertThrows(IllegalStateException.class, featureModel::getConstraints);
+        assertThrows(IllegalStateException.class, featureModel::getConstraints);
+        assertFalse(featureModel.isConstraintsLoaded());
+    }
+
+    @Test
+    public void xmlFeatureModelFormatLazyConstraintsWithoutEvents() {
+        FeatureModel featureModel = (FeatureModel)
+                load("testFeatureModels/car.xml", new XMLFeatureModelFormat().setLazyConstraints(true));
+        List<FeatureModelEvent> events = new ArrayList<>();
+        featureModel.addListener(events::addAll);
+        assertFalse(featureModel.getConstraints().isEmpty());
+        assertTrue(events.isEmpty());
+        featureModel.mutate().addConstraint(Expressions.True);
+        assertEquals(1, events.size());
+        assertEquals(FeatureModelEvent.Type.CONSTRAINT_ADDED, events.get(0).getType());
+    }
+
+    @Test
+    public void xmlFeatureModelFormatParallelConstraints() throws IOException {
+        StringWriter writer = new StringWriter();
+        new SyntheticFeatureModelGenerator(42)
+                .setNumberOfFeatures(2000)
+                .setConstraintRatio(0.5)
+                .writeXML(writer);
+        byte[] xml = writer.toString().getBytes(StandardCharsets.UTF_8);
+        IFeatureModel sequentialFeatureModel =
+                IO.load(new ByteArrayInputStream(xml), new XMLFeatureModelFormat()).orElseThrow();
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        Metrics.set(metrics);
+        IFeatureModel parallelFeatureModel;
+        try {
+            parallelFeatureModel = IO.load(
+                            new ByteArrayInputStream(xml), new XMLFeatureModelFormat().setParallelism(4))
+                    .orElseThrow();
+        } finally {
+            Metrics.reset();
+        }
+        assertEquals(1000, parallelFeatureModel.getNumberOfConstraints());
+        assertEquals(1000, metrics.getCount(Metrics.XML_PARSE_PARALLEL_FORMULAS));
+        assertEquals(describeConstraints(sequentialFeatureModel), describeConstraints(parallelFeatureModel));
+    }
+
+    @Test
+    public void xmlFeatureModelFormatParallelConstraintsWithMalformedRule() throws IOException {
+        StringWriter writer = new StringWriter();
+        new SyntheticFeatureModelGenerator(42)
+                .setNumberOfFeatures(2000)
+                .setConstraintRatio(0.5)
+                .writeXML(writer);
+        String validXML = writer.toString();
+        int ruleIndex = validXML.indexOf("\t\t<rule>", validXML.length() / 2);
+        byte[] xml = (validXML.substring(0, ruleIndex)
+                        + "\t\t<rule>\n\t\t\t<malformed/>\n\t\t</rule>\n"
+                        + validXML.substring(ruleIndex))
+                .getBytes(StandardCharsets.UTF_8);
+        Result<IFeatureModel> sequentialFeatureModel =
+                IO.load(new ByteArrayInputStream(xml), new XMLFeatureModelFormat());
+        Result<IFeatureModel> parallelFeatureModel =
+                IO.load(new ByteArrayInputStream(xml), new XMLFeatureModelFormat().setParallelism(4));
+        assertFalse(sequentialFeatureModel.isPresent());
+        assertFalse(parallelFeatureModel.isPresent());
+        assertEquals(describeProblems(sequentialFeatureModel), describeProblems(parallelFeatureModel));
+    }
+
+    private static List<String> describeProblems(Result<?> result) {
+        return result.getProblems().stream().map(Object::toString).collect(Collectors.toList());
+    }
+
+    private static List<String> describeConstraints(IFeatureModel featureModel) {
+        return featureModel.getConstraints().stream()
+                .map(constraint -> constraint.getIdentifier() + " " + constraint.getFormula())
+                .collect(Collectors.toList());
+    }
 }
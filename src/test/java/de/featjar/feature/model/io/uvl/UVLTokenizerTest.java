@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.io.uvl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import de.featjar.base.io.format.ParseException;
+import de.featjar.feature.model.io.uvl.UVLTokenizer.Token;
+import java.io.IOException;
+import java.io.StringReader;
+import org.junit.jupiter.api.Test;
+
+public class UVLTokenizerTest {
+    @Test
+    public void countsLinesInBlockComments() throws IOException, ParseException {
+        for (String lineBreak : new String[] {"\n", "\r", "\r\n"}) {
+            UVLTokenizer tokenizer =
+                    new UVLTokenizer(new StringReader("A /* x" + lineBreak + " y" + lineBreak + " z */ B" + lineBreak));
+            assertEquals(Token.NAME, tokenizer.next());
+            assertEquals(1, tokenizer.getLine());
+            assertEquals(Token.NAME, tokenizer.next());
+            assertEquals("B", tokenizer.getText());
+            assertEquals(3, tokenizer.getLine(), lineBreak);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import de.featjar.base.data.identifier.Identifiers;
+import de.featjar.feature.model.FeatureModel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class MetricsTest {
+
+    @AfterEach
+    public void resetMetrics() {
+        Metrics.reset();
+    }
+
+    @Test
+    public void inMemoryMetrics() {
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        Metrics.set(metrics);
+        FeatureModel featureModel = new FeatureModel(Identifiers.newCounterIdentifier());
+        featureModel.addFeatureTreeRoot(featureModel.addFeature("root"));
+        featureModel.getFeature("root");
+        featureModel.getFeature("missing");
+        featureModel.getFeatureTree("root");
+        featureModel.clone();
+
+        assertEquals(2, metrics.getCount(Metrics.GET_FEATURE));
+        assertEquals(1, metrics.getCount(Metrics.GET_FEATURE_TREE));
+        assertEquals(1, metrics.getTimerCount(Metrics.FEATURE_MODEL_CLONE));
+        metrics.reset();
+        assertEquals(0, metrics.getCount(Metrics.GET_FEATURE));
+    }
+
+    @Test
+    public void noOpMetricsIsDefault() {
+        assertSame(NoOpMetrics.INSTANCE, Metrics.get());
+        assertEquals(0, Metrics.get().startTimer());
+    }
+}